@@ -0,0 +1,258 @@
+/*
+ * =============================================================================
+ *
+ *   Copyright (c) 2011-2016, The THYMELEAF team (http://www.thymeleaf.org)
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ * =============================================================================
+ */
+package org.thymeleaf.benchmark;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+
+import org.thymeleaf.TemplateEngine;
+import org.thymeleaf.context.Context;
+
+/**
+ * <p>
+ *   Allocation regression check for the rendering hot path. Renders a fixed corpus of templates through
+ *   {@link TemplateEngine} and measures the amount of bytes allocated by the calling thread for each render
+ *   (by means of {@link com.sun.management.ThreadMXBean#getThreadAllocatedBytes(long)}), comparing the results
+ *   against a baseline stored in a properties file.
+ * </p>
+ * <p>
+ *   Each scenario puts special weight on a different part of the engine: the processor-based handler chain
+ *   (<tt>ProcessorTemplateHandler</tt>), local variables at the engine context (<tt>th:each</tt>,
+ *   <tt>th:with</tt>, <tt>th:object</tt>), expression evaluation, and output writing (<tt>OutputTemplateHandler</tt>,
+ *   including the JavaScript serializer).
+ * </p>
+ * <p>
+ *   Usage: <tt>AllocationRegressionCheck &lt;baselineFile&gt; [check|update] [tolerance]</tt>. In <tt>check</tt>
+ *   mode (the default) the process will exit with a non-zero status if any scenario allocates more than the
+ *   baseline plus the tolerance (a ratio, <tt>0.10</tt> by default). In <tt>update</tt> mode the baseline file
+ *   will be overwritten with the measured values.
+ * </p>
+ *
+ * @author Daniel Fern&aacute;ndez
+ *
+ * @since 3.0.10
+ *
+ */
+public final class AllocationRegressionCheck {
+
+    public static final double DEFAULT_TOLERANCE = 0.10d;
+
+    private static final int WARMUP_RENDERS = 5000;
+    private static final int MEASURED_RENDERS = 1000;
+
+
+
+    public static void main(final String[] args) throws Exception {
+
+        if (args.length < 1) {
+            System.err.println(
+                    "Usage: " + AllocationRegressionCheck.class.getName() + " <baselineFile> [check|update] [tolerance]");
+            System.exit(2);
+        }
+
+        final File baselineFile = new File(args[0]);
+        final boolean update = (args.length > 1 && "update".equalsIgnoreCase(args[1]));
+        final double tolerance = (args.length > 2? Double.parseDouble(args[2]) : DEFAULT_TOLERANCE);
+
+        final com.sun.management.ThreadMXBean threadMXBean = getThreadMXBean();
+
+        final Map<String,Long> results = new LinkedHashMap<String, Long>();
+        for (final Scenario scenario : createScenarios()) {
+            final long bytes = measure(threadMXBean, scenario);
+            results.put(scenario.name, Long.valueOf(bytes));
+            System.out.println(String.format("%-24s %12d bytes/render", scenario.name, Long.valueOf(bytes)));
+        }
+
+        if (update) {
+            writeBaseline(baselineFile, results);
+            System.out.println("Allocation baseline written to " + baselineFile);
+            return;
+        }
+
+        final List<String> regressions = compare(readBaseline(baselineFile), results, tolerance);
+        if (!regressions.isEmpty()) {
+            for (final String regression : regressions) {
+                System.err.println("ALLOCATION REGRESSION: " + regression);
+            }
+            System.exit(1);
+        }
+        System.out.println("No allocation regressions found (tolerance: " + Math.round(tolerance * 100.0d) + "%)");
+
+    }
+
+
+
+
+    static long measure(final com.sun.management.ThreadMXBean threadMXBean, final Scenario scenario) {
+
+        final long threadId = Thread.currentThread().getId();
+
+        // Warm up so that caches are populated and the JIT (including escape analysis) has done its work
+        for (int i = 0; i < WARMUP_RENDERS; i++) {
+            scenario.render();
+        }
+
+        final long start = threadMXBean.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < MEASURED_RENDERS; i++) {
+            scenario.render();
+        }
+        final long end = threadMXBean.getThreadAllocatedBytes(threadId);
+
+        return (end - start) / MEASURED_RENDERS;
+
+    }
+
+
+    static List<String> compare(
+            final Map<String,Long> baseline, final Map<String,Long> results, final double tolerance) {
+
+        final List<String> regressions = new ArrayList<String>();
+        for (final Map.Entry<String,Long> result : results.entrySet()) {
+            final Long baselineBytes = baseline.get(result.getKey());
+            if (baselineBytes == null) {
+                regressions.add("Scenario '" + result.getKey() + "' has no baseline (run in 'update' mode)");
+                continue;
+            }
+            final long limit = (long) (baselineBytes.longValue() * (1.0d + tolerance));
+            if (result.getValue().longValue() > limit) {
+                regressions.add(String.format(
+                        "Scenario '%s' allocates %d bytes/render, baseline is %d (%+.1f%%)",
+                        result.getKey(), result.getValue(), baselineBytes,
+                        Double.valueOf(((result.getValue().doubleValue() / baselineBytes.doubleValue()) - 1.0d) * 100.0d)));
+            }
+        }
+        return regressions;
+
+    }
+
+
+
+
+    private static com.sun.management.ThreadMXBean getThreadMXBean() {
+        final java.lang.management.ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+        if (!(threadMXBean instanceof com.sun.management.ThreadMXBean)) {
+            throw new IllegalStateException("Thread allocated memory measurement is not supported by this JVM");
+        }
+        final com.sun.management.ThreadMXBean sunThreadMXBean = (com.sun.management.ThreadMXBean) threadMXBean;
+        if (!sunThreadMXBean.isThreadAllocatedMemorySupported()) {
+            throw new IllegalStateException("Thread allocated memory measurement is not supported by this JVM");
+        }
+        sunThreadMXBean.setThreadAllocatedMemoryEnabled(true);
+        return sunThreadMXBean;
+    }
+
+
+    private static List<Scenario> createScenarios() {
+
+        final TemplateEngine templateEngine = BenchmarkEngines.createTemplateEngine();
+        final Context context = BenchmarkData.createContext(Locale.US, 5, 20);
+        final Context tableContext = BenchmarkData.createTableContext(Locale.US, 200);
+
+        final List<Scenario> scenarios = new ArrayList<Scenario>();
+        // Processor-heavy: fragment insertion, many attribute processors
+        scenarios.add(new Scenario("processors", templateEngine, "layout.html", context));
+        // Local variables: iteration with status variables in the engine context
+        scenarios.add(new Scenario("local-variables", templateEngine, "table.html", tableContext));
+        // Expression evaluation: variable, selection, literal substitution, utility objects...
+        scenarios.add(new Scenario("expressions", templateEngine, "expressions.html", context));
+        // Message resolution
+        scenarios.add(new Scenario("messages", templateEngine, "messages.html", context));
+        // Output: JavaScript serialization and textual output
+        scenarios.add(new Scenario("output-javascript", templateEngine, "script.js", context));
+        scenarios.add(new Scenario("output-text", templateEngine, "text.txt", context));
+        return scenarios;
+
+    }
+
+
+    private static Map<String,Long> readBaseline(final File baselineFile) throws IOException {
+        final Properties properties = new Properties();
+        final InputStream inputStream = new FileInputStream(baselineFile);
+        try {
+            properties.load(inputStream);
+        } finally {
+            inputStream.close();
+        }
+        final Map<String,Long> baseline = new LinkedHashMap<String, Long>();
+        for (final String name : properties.stringPropertyNames()) {
+            baseline.put(name, Long.valueOf(properties.getProperty(name).trim()));
+        }
+        return baseline;
+    }
+
+
+    private static void writeBaseline(final File baselineFile, final Map<String,Long> results) throws IOException {
+        // Written by hand instead of by Properties.store() so that the file keeps scenario order and has no
+        // timestamp, which makes changes to the baseline easy to review
+        final Writer writer = new OutputStreamWriter(new FileOutputStream(baselineFile), "ISO-8859-1");
+        try {
+            writer.write("# Bytes allocated per render (see AllocationRegressionCheck)\n");
+            for (final Map.Entry<String,Long> result : results.entrySet()) {
+                writer.write(result.getKey() + "=" + result.getValue() + "\n");
+            }
+        } finally {
+            writer.close();
+        }
+    }
+
+
+
+
+    static final class Scenario {
+
+        final String name;
+        private final TemplateEngine templateEngine;
+        private final String template;
+        private final Context context;
+
+        Scenario(final String name, final TemplateEngine templateEngine, final String template, final Context context) {
+            super();
+            this.name = name;
+            this.templateEngine = templateEngine;
+            this.template = template;
+            this.context = context;
+        }
+
+        void render() {
+            this.templateEngine.process(this.template, this.context, new NullWriter());
+        }
+
+    }
+
+
+
+
+    private AllocationRegressionCheck() {
+        super();
+    }
+
+}
@@ -0,0 +1,115 @@
+/*
+ * =============================================================================
+ *
+ *   Copyright (c) 2011-2016, The THYMELEAF team (http://www.thymeleaf.org)
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ * =============================================================================
+ */
+package org.thymeleaf.benchmark;
+
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.thymeleaf.ITemplateOutputSink;
+import org.thymeleaf.TemplateEngine;
+import org.thymeleaf.TemplateSpec;
+import org.thymeleaf.context.IContext;
+import org.thymeleaf.templatemode.TemplateMode;
+
+/**
+ * <p>
+ *   Compares rendering the same template for a series of contexts by means of
+ *   {@link TemplateEngine#processBatch(TemplateSpec, Iterable, ITemplateOutputSink)} against calling
+ *   <tt>process(...)</tt> in a loop, both with cacheable and non-cacheable templates (in which case the
+ *   batch API avoids resolving and parsing the template once per context).
+ * </p>
+ *
+ * @author Daniel Fern&aacute;ndez
+ *
+ * @since 3.0.10
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BatchProcessingBenchmark {
+
+    @Param({"100"})
+    public int batchSize;
+
+    @Param({"true", "false"})
+    public boolean cacheable;
+
+    private TemplateEngine templateEngine;
+    private TemplateSpec templateSpec;
+    private List<IContext> contexts;
+
+
+    @Setup
+    public void setup() {
+        this.templateEngine = BenchmarkEngines.createTemplateEngine(this.cacheable);
+        this.templateSpec = new TemplateSpec("text.txt", TemplateMode.TEXT);
+        this.contexts = new ArrayList<IContext>(this.batchSize);
+        for (int i = 0; i < this.batchSize; i++) {
+            this.contexts.add(BenchmarkData.createContext(Locale.US, 1, 5));
+        }
+    }
+
+
+    @Benchmark
+    public long loop() {
+        final NullWriter writer = new NullWriter();
+        for (final IContext context : this.contexts) {
+            this.templateEngine.process(this.templateSpec, context, writer);
+        }
+        return writer.getCount();
+    }
+
+
+    @Benchmark
+    public long batch() {
+        final NullWriter writer = new NullWriter();
+        this.templateEngine.processBatch(this.templateSpec, this.contexts, new ITemplateOutputSink() {
+
+            public Writer openWriter(final int index, final IContext context) {
+                return writer;
+            }
+
+            public void closeWriter(final int index, final IContext context, final Writer w, final Throwable failure) {
+                // Nothing to do: output is simply discarded
+            }
+
+        });
+        return writer.getCount();
+    }
+
+}
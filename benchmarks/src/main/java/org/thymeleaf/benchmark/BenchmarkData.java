@@ -0,0 +1,201 @@
+/*
+ * =============================================================================
+ *
+ *   Copyright (c) 2011-2016, The THYMELEAF team (http://www.thymeleaf.org)
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ * =============================================================================
+ */
+package org.thymeleaf.benchmark;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+import org.thymeleaf.context.Context;
+
+/**
+ * <p>
+ *   Model objects and contexts used by the benchmarks. All data is generated deterministically so that
+ *   every run of a benchmark processes exactly the same output.
+ * </p>
+ *
+ * @author Daniel Fern&aacute;ndez
+ *
+ * @since 3.0.10
+ *
+ */
+public final class BenchmarkData {
+
+    private static final String[] COLORS = new String[] { "#336699", "#993366", "#669933", "#996633", "#339966" };
+
+
+
+    public static Context createContext(final Locale locale, final int sectionCount, final int productsPerSection) {
+
+        final List<Section> sections = new ArrayList<Section>(sectionCount);
+        final List<Product> products = new ArrayList<Product>(sectionCount * productsPerSection);
+        for (int i = 0; i < sectionCount; i++) {
+            final List<Product> sectionProducts = createProducts(i * productsPerSection, productsPerSection);
+            sections.add(new Section(i, "Section " + i, COLORS[i % COLORS.length], sectionProducts));
+            products.addAll(sectionProducts);
+        }
+
+        final Context context = new Context(locale);
+        context.setVariable("title", "Thymeleaf benchmark");
+        context.setVariable("user", new User("John Apricot", "john@example.com"));
+        context.setVariable("sections", sections);
+        context.setVariable("products", products);
+        context.setVariable("tags", Arrays.asList("new", "popular", "sale", "gift", "limited <edition>"));
+        context.setVariable("font", "Helvetica, \"Arial\", sans-serif");
+        context.setVariable("year", Integer.valueOf(2018));
+        return context;
+
+    }
+
+
+    public static Context createTableContext(final Locale locale, final int rowCount) {
+        final Context context = new Context(locale);
+        context.setVariable("title", "Thymeleaf benchmark table");
+        context.setVariable("rows", createProducts(0, rowCount));
+        return context;
+    }
+
+
+    public static List<Product> createProducts(final int firstId, final int count) {
+        final List<Product> products = new ArrayList<Product>(count);
+        for (int i = firstId; i < firstId + count; i++) {
+            products.add(
+                    new Product(
+                            i, "Product " + i + (i % 7 == 0? " & <special>" : ""),
+                            "Description of product " + i + ", which is a very good product indeed",
+                            (i * 37 % 10000) / 100.0d, (i % 5 == 0), (i % 11 == 0? 0 : i % 100)));
+        }
+        return products;
+    }
+
+
+
+
+    private BenchmarkData() {
+        super();
+    }
+
+
+
+
+    public static final class User {
+
+        private final String name;
+        private final String email;
+
+        User(final String name, final String email) {
+            super();
+            this.name = name;
+            this.email = email;
+        }
+
+        public String getName() {
+            return this.name;
+        }
+
+        public String getEmail() {
+            return this.email;
+        }
+
+    }
+
+
+    public static final class Section {
+
+        private final int id;
+        private final String name;
+        private final String color;
+        private final List<Product> products;
+
+        Section(final int id, final String name, final String color, final List<Product> products) {
+            super();
+            this.id = id;
+            this.name = name;
+            this.color = color;
+            this.products = products;
+        }
+
+        public int getId() {
+            return this.id;
+        }
+
+        public String getName() {
+            return this.name;
+        }
+
+        public String getColor() {
+            return this.color;
+        }
+
+        public List<Product> getProducts() {
+            return this.products;
+        }
+
+    }
+
+
+    public static final class Product {
+
+        private final int id;
+        private final String name;
+        private final String description;
+        private final double price;
+        private final boolean onSale;
+        private final int stock;
+
+        Product(final int id, final String name, final String description,
+                final double price, final boolean onSale, final int stock) {
+            super();
+            this.id = id;
+            this.name = name;
+            this.description = description;
+            this.price = price;
+            this.onSale = onSale;
+            this.stock = stock;
+        }
+
+        public int getId() {
+            return this.id;
+        }
+
+        public String getName() {
+            return this.name;
+        }
+
+        public String getDescription() {
+            return this.description;
+        }
+
+        public double getPrice() {
+            return this.price;
+        }
+
+        public boolean isOnSale() {
+            return this.onSale;
+        }
+
+        public int getStock() {
+            return this.stock;
+        }
+
+    }
+
+}
@@ -0,0 +1,70 @@
+/*
+ * =============================================================================
+ *
+ *   Copyright (c) 2011-2016, The THYMELEAF team (http://www.thymeleaf.org)
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ * =============================================================================
+ */
+package org.thymeleaf.benchmark;
+
+import java.util.Collections;
+
+import org.thymeleaf.TemplateEngine;
+import org.thymeleaf.templateresolver.ClassLoaderTemplateResolver;
+
+/**
+ * <p>
+ *   Factory for the template engines used by the benchmarks. Templates are read from the <tt>templates/</tt>
+ *   folder in the classpath, and their template mode is selected by file extension.
+ * </p>
+ *
+ * @author Daniel Fern&aacute;ndez
+ *
+ * @since 3.0.10
+ *
+ */
+public final class BenchmarkEngines {
+
+
+    public static TemplateEngine createTemplateEngine() {
+        return createTemplateEngine(true);
+    }
+
+
+    public static TemplateEngine createTemplateEngine(final boolean cacheable) {
+
+        final ClassLoaderTemplateResolver templateResolver =
+                new ClassLoaderTemplateResolver(BenchmarkEngines.class.getClassLoader());
+        templateResolver.setPrefix("templates/");
+        templateResolver.setCharacterEncoding("UTF-8");
+        templateResolver.setCacheable(cacheable);
+        templateResolver.setJavaScriptTemplateModePatterns(Collections.singleton("*.js"));
+        templateResolver.setCSSTemplateModePatterns(Collections.singleton("*.css"));
+        templateResolver.setTextTemplateModePatterns(Collections.singleton("*.txt"));
+
+        final TemplateEngine templateEngine = new TemplateEngine();
+        templateEngine.setTemplateResolver(templateResolver);
+        return templateEngine;
+
+    }
+
+
+
+
+    private BenchmarkEngines() {
+        super();
+    }
+
+}
@@ -0,0 +1,276 @@
+/*
+ * =============================================================================
+ *
+ *   Copyright (c) 2011-2016, The THYMELEAF team (http://www.thymeleaf.org)
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ * =============================================================================
+ */
+package org.thymeleaf.benchmark;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintStream;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import jdk.jfr.consumer.RecordedClass;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordedStackTrace;
+import jdk.jfr.consumer.RecordingFile;
+
+/**
+ * <p>
+ *   Lock contention report computed from a Java Flight Recorder recording. Aggregates the
+ *   <tt>jdk.JavaMonitorEnter</tt> (contended <tt>synchronized</tt> blocks) and <tt>jdk.ThreadPark</tt>
+ *   (<tt>java.util.concurrent</tt> locks, e.g. read-write locks) events by monitor class and by the
+ *   first engine frame in the stack trace, so that contention can be attributed to specific engine structures.
+ * </p>
+ * <p>
+ *   Only events longer than the threshold configured in the recording settings are recorded by the JVM (see
+ *   {@link #writeSettings(File, long)}).
+ * </p>
+ *
+ * @author Daniel Fern&aacute;ndez
+ *
+ * @since 3.0.10
+ *
+ */
+public final class ContentionReport {
+
+    public static final long DEFAULT_THRESHOLD_MICROS = 100L;
+
+    private static final String MONITOR_ENTER_EVENT = "jdk.JavaMonitorEnter";
+    private static final String THREAD_PARK_EVENT = "jdk.ThreadPark";
+
+    private static final String[] ENGINE_PACKAGES = new String[] { "org.thymeleaf.", "ognl.", "org.attoparser." };
+    private static final String BENCHMARK_PACKAGE = "org.thymeleaf.benchmark.";
+
+
+    private final Map<String,Entry> entries = new HashMap<String, Entry>();
+    private long ignoredEvents = 0L;
+
+
+
+    /**
+     * <p>
+     *   Writes a JFR settings file (<tt>.jfc</tt>) enabling only the contention events, with the specified
+     *   threshold.
+     * </p>
+     *
+     * @param file the file to be written.
+     * @param thresholdMicros the minimum duration of the events to be recorded, in microseconds.
+     * @throws IOException if the file cannot be written.
+     */
+    public static void writeSettings(final File file, final long thresholdMicros) throws IOException {
+        final Writer writer = new OutputStreamWriter(new FileOutputStream(file), "UTF-8");
+        try {
+            writer.write("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n");
+            writer.write("<configuration version=\"2.0\" label=\"Thymeleaf contention\">\n");
+            for (final String eventName : new String[] { MONITOR_ENTER_EVENT, THREAD_PARK_EVENT }) {
+                writer.write("  <event name=\"" + eventName + "\">\n");
+                writer.write("    <setting name=\"enabled\">true</setting>\n");
+                writer.write("    <setting name=\"stackTrace\">true</setting>\n");
+                writer.write("    <setting name=\"threshold\">" + thresholdMicros + " us</setting>\n");
+                writer.write("  </event>\n");
+            }
+            writer.write("</configuration>\n");
+        } finally {
+            writer.close();
+        }
+    }
+
+
+    public static ContentionReport read(final File recording) throws IOException {
+        final ContentionReport report = new ContentionReport();
+        final RecordingFile recordingFile = new RecordingFile(recording.toPath());
+        try {
+            while (recordingFile.hasMoreEvents()) {
+                report.add(recordingFile.readEvent());
+            }
+        } finally {
+            recordingFile.close();
+        }
+        return report;
+    }
+
+
+
+
+    private ContentionReport() {
+        super();
+    }
+
+
+    private void add(final RecordedEvent event) {
+
+        final String eventName = event.getEventType().getName();
+        final RecordedClass monitorClass;
+        if (MONITOR_ENTER_EVENT.equals(eventName)) {
+            monitorClass = event.getClass("monitorClass");
+        } else if (THREAD_PARK_EVENT.equals(eventName)) {
+            monitorClass = event.getClass("parkedClass");
+        } else {
+            return;
+        }
+
+        final String frame = findEngineFrame(event.getStackTrace());
+        if (frame == null) {
+            // Contention outside the engine (e.g. the benchmark harness synchronizing its threads)
+            this.ignoredEvents++;
+            return;
+        }
+
+        final String monitor = (monitorClass == null? "(unknown)" : monitorClass.getName());
+        final String key = monitor + " @ " + frame;
+
+        Entry entry = this.entries.get(key);
+        if (entry == null) {
+            entry = new Entry(monitor, frame);
+            this.entries.put(key, entry);
+        }
+        entry.add(event.getDuration().toNanos());
+
+    }
+
+
+    private static String findEngineFrame(final RecordedStackTrace stackTrace) {
+        if (stackTrace == null) {
+            return "(no stack trace)";
+        }
+        for (final RecordedFrame frame : stackTrace.getFrames()) {
+            if (!frame.isJavaFrame()) {
+                continue;
+            }
+            final String typeName = frame.getMethod().getType().getName();
+            if (typeName.startsWith(BENCHMARK_PACKAGE)) {
+                continue;
+            }
+            for (final String enginePackage : ENGINE_PACKAGES) {
+                if (typeName.startsWith(enginePackage)) {
+                    return typeName + "." + frame.getMethod().getName() + "(" + frame.getLineNumber() + ")";
+                }
+            }
+        }
+        return null;
+    }
+
+
+
+
+    public List<Entry> getEntries() {
+        final List<Entry> list = new ArrayList<Entry>(this.entries.values());
+        Collections.sort(list, new Comparator<Entry>() {
+            public int compare(final Entry o1, final Entry o2) {
+                return Long.compare(o2.totalNanos, o1.totalNanos);
+            }
+        });
+        return list;
+    }
+
+
+    public long getTotalEvents() {
+        long total = 0L;
+        for (final Entry entry : this.entries.values()) {
+            total += entry.events;
+        }
+        return total;
+    }
+
+
+    public long getIgnoredEvents() {
+        return this.ignoredEvents;
+    }
+
+
+    public long getTotalNanos() {
+        long total = 0L;
+        for (final Entry entry : this.entries.values()) {
+            total += entry.totalNanos;
+        }
+        return total;
+    }
+
+
+    public void print(final PrintStream out, final int maxEntries) {
+        out.println(String.format(
+                "  %d contention events, %.3f ms blocked in total (%d events outside the engine ignored)",
+                Long.valueOf(getTotalEvents()), Double.valueOf(getTotalNanos() / 1000000.0d),
+                Long.valueOf(this.ignoredEvents)));
+        int count = 0;
+        for (final Entry entry : getEntries()) {
+            if (count++ >= maxEntries) {
+                break;
+            }
+            out.println(String.format(
+                    "  %8d events %12.3f ms total %10.3f ms max  %s%n%38s at %s",
+                    Long.valueOf(entry.events), Double.valueOf(entry.totalNanos / 1000000.0d),
+                    Double.valueOf(entry.maxNanos / 1000000.0d), entry.monitor, "", entry.frame));
+        }
+    }
+
+
+
+
+    public static final class Entry {
+
+        private final String monitor;
+        private final String frame;
+        private long events = 0L;
+        private long totalNanos = 0L;
+        private long maxNanos = 0L;
+
+        Entry(final String monitor, final String frame) {
+            super();
+            this.monitor = monitor;
+            this.frame = frame;
+        }
+
+        void add(final long nanos) {
+            this.events++;
+            this.totalNanos += nanos;
+            this.maxNanos = Math.max(this.maxNanos, nanos);
+        }
+
+        public String getMonitor() {
+            return this.monitor;
+        }
+
+        public String getFrame() {
+            return this.frame;
+        }
+
+        public long getEvents() {
+            return this.events;
+        }
+
+        public long getTotalNanos() {
+            return this.totalNanos;
+        }
+
+        public long getMaxNanos() {
+            return this.maxNanos;
+        }
+
+    }
+
+}
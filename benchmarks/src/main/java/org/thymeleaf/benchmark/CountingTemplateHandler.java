@@ -0,0 +1,104 @@
+/*
+ * =============================================================================
+ *
+ *   Copyright (c) 2011-2016, The THYMELEAF team (http://www.thymeleaf.org)
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ * =============================================================================
+ */
+package org.thymeleaf.benchmark;
+
+import org.thymeleaf.engine.AbstractTemplateHandler;
+import org.thymeleaf.model.ICDATASection;
+import org.thymeleaf.model.ICloseElementTag;
+import org.thymeleaf.model.IComment;
+import org.thymeleaf.model.IDocType;
+import org.thymeleaf.model.IOpenElementTag;
+import org.thymeleaf.model.IProcessingInstruction;
+import org.thymeleaf.model.IStandaloneElementTag;
+import org.thymeleaf.model.IText;
+import org.thymeleaf.model.IXMLDeclaration;
+
+/**
+ * <p>
+ *   Template handler that does nothing with the events it receives apart from counting them, so that parser
+ *   benchmarks measure only the work performed by the parsers themselves.
+ * </p>
+ *
+ * @author Daniel Fern&aacute;ndez
+ *
+ * @since 3.0.10
+ *
+ */
+public final class CountingTemplateHandler extends AbstractTemplateHandler {
+
+    private long count = 0L;
+
+
+    public CountingTemplateHandler() {
+        super();
+    }
+
+
+    public long getCount() {
+        return this.count;
+    }
+
+
+    @Override
+    public void handleXMLDeclaration(final IXMLDeclaration xmlDeclaration) {
+        this.count++;
+    }
+
+    @Override
+    public void handleDocType(final IDocType docType) {
+        this.count++;
+    }
+
+    @Override
+    public void handleCDATASection(final ICDATASection cdataSection) {
+        this.count++;
+    }
+
+    @Override
+    public void handleComment(final IComment comment) {
+        this.count++;
+    }
+
+    @Override
+    public void handleText(final IText text) {
+        this.count++;
+    }
+
+    @Override
+    public void handleStandaloneElement(final IStandaloneElementTag standaloneElementTag) {
+        this.count++;
+    }
+
+    @Override
+    public void handleOpenElement(final IOpenElementTag openElementTag) {
+        this.count++;
+    }
+
+    @Override
+    public void handleCloseElement(final ICloseElementTag closeElementTag) {
+        this.count++;
+    }
+
+    @Override
+    public void handleProcessingInstruction(final IProcessingInstruction processingInstruction) {
+        this.count++;
+    }
+
+}
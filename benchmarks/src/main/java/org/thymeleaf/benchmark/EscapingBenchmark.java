@@ -0,0 +1,138 @@
+/*
+ * =============================================================================
+ *
+ *   Copyright (c) 2011-2016, The THYMELEAF team (http://www.thymeleaf.org)
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ * =============================================================================
+ */
+package org.thymeleaf.benchmark;
+
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.thymeleaf.IEngineConfiguration;
+import org.thymeleaf.TemplateEngine;
+import org.thymeleaf.templatemode.TemplateMode;
+import org.thymeleaf.util.LazyEscapingCharSequence;
+import org.unbescape.html.HtmlEscape;
+import org.unbescape.xml.XmlEscape;
+
+/**
+ * <p>
+ *   Measures escaped text output (as performed for <tt>th:text</tt>) by means of {@link LazyEscapingCharSequence},
+ *   compared to converting every value to String and escaping it with Unbescape (the previous behaviour), over
+ *   several distributions of output values: numbers, identifiers (short words), sentences (text with
+ *   punctuation but rarely any chars to be escaped) and markup-heavy text.
+ * </p>
+ *
+ * @author Daniel Fern&aacute;ndez
+ *
+ * @since 3.0.10
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EscapingBenchmark {
+
+    private static final int VALUE_COUNT = 1000;
+
+    private static final String[] WORDS =
+            new String[] { "product", "order", "customer", "invoice", "Madrid", "shipping", "available", "total" };
+
+    @Param({"numbers", "identifiers", "sentences", "markup"})
+    public String distribution;
+
+    @Param({"HTML", "XML"})
+    public TemplateMode templateMode;
+
+    private IEngineConfiguration configuration;
+    private Object[] values;
+
+
+    @Setup
+    public void setup() {
+        this.configuration = new TemplateEngine().getConfiguration();
+        this.values = createValues(this.distribution);
+    }
+
+
+    @Benchmark
+    public long lazyEscaping() throws IOException {
+        final NullWriter writer = new NullWriter();
+        for (final Object value : this.values) {
+            new LazyEscapingCharSequence(this.configuration, this.templateMode, value).write(writer);
+        }
+        return writer.getCount();
+    }
+
+
+    @Benchmark
+    public long toStringAndEscape() throws IOException {
+        final NullWriter writer = new NullWriter();
+        for (final Object value : this.values) {
+            if (this.templateMode == TemplateMode.XML) {
+                XmlEscape.escapeXml10(value.toString(), writer);
+            } else {
+                HtmlEscape.escapeHtml4Xml(value.toString(), writer);
+            }
+        }
+        return writer.getCount();
+    }
+
+
+
+
+    private static Object[] createValues(final String distribution) {
+        final Random random = new Random(23);
+        final Object[] values = new Object[VALUE_COUNT];
+        for (int i = 0; i < VALUE_COUNT; i++) {
+            if ("numbers".equals(distribution)) {
+                values[i] = (i % 2 == 0? (Object) Integer.valueOf(random.nextInt(100000)) : Double.valueOf(random.nextDouble() * 1000.0d));
+            } else if ("identifiers".equals(distribution)) {
+                values[i] = WORDS[random.nextInt(WORDS.length)] + "-" + random.nextInt(1000);
+            } else if ("sentences".equals(distribution)) {
+                final StringBuilder strBuilder = new StringBuilder();
+                for (int j = 0; j < 12; j++) {
+                    strBuilder.append(WORDS[random.nextInt(WORDS.length)]).append(j % 5 == 4? ", " : " ");
+                }
+                // Only some sentences contain chars that need escaping
+                strBuilder.append(random.nextInt(10) == 0? "Smith & Sons." : "end.");
+                values[i] = strBuilder.toString();
+            } else if ("markup".equals(distribution)) {
+                values[i] = "<p class=\"" + WORDS[random.nextInt(WORDS.length)] + "\">It's <b>" + i + "</b> &amp; more</p>";
+            } else {
+                throw new IllegalArgumentException("Unknown distribution: " + distribution);
+            }
+        }
+        return values;
+    }
+
+}
@@ -0,0 +1,212 @@
+/*
+ * =============================================================================
+ *
+ *   Copyright (c) 2011-2016, The THYMELEAF team (http://www.thymeleaf.org)
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ * =============================================================================
+ */
+package org.thymeleaf.benchmark;
+
+import java.io.File;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.thymeleaf.TemplateEngine;
+import org.thymeleaf.TemplateSpec;
+import org.thymeleaf.engine.IncrementalTemplateParsing;
+import org.thymeleaf.engine.TemplateManager;
+import org.thymeleaf.engine.TemplateModel;
+import org.thymeleaf.templatemode.TemplateMode;
+import org.thymeleaf.templateresolver.FileTemplateResolver;
+
+/**
+ * <p>
+ *   Measures the time needed for parsing again a large cached template after a single line of it has changed,
+ *   both entirely and incrementally (see {@link TemplateEngine#setIncrementalTemplateParsing(IncrementalTemplateParsing)}),
+ *   and reports the amount of events reused and parsed again.
+ * </p>
+ * <p>
+ *   The templates are HTML and XML documents generated by {@link ParserDocuments}. For each edit, the text of a
+ *   random row is changed (one line, sometimes adding a new one), the document is written to disk and both engines
+ *   are made to parse it again by clearing their cache entries for it (as would happen when a TTL-based cache entry
+ *   expires). The models obtained by both engines are checked to be equal.
+ * </p>
+ * <p>
+ *   Usage: <tt>IncrementalParsingCheck [--rows N] [--edits N]</tt>. Defaults are 1000 rows (a document of about
+ *   6,000 lines) and 200 edits, plus the same amount of edits for warming up.
+ * </p>
+ *
+ * @author Daniel Fern&aacute;ndez
+ *
+ * @since 3.0.10
+ *
+ */
+public final class IncrementalParsingCheck {
+
+    private static final int DEFAULT_ROWS = 1000;
+    private static final int DEFAULT_EDITS = 200;
+
+
+
+    public static void main(final String[] args) throws Exception {
+
+        int rows = DEFAULT_ROWS;
+        int edits = DEFAULT_EDITS;
+        for (int i = 0; i < args.length; i++) {
+            if ("--rows".equals(args[i])) {
+                rows = Integer.parseInt(args[++i]);
+            } else if ("--edits".equals(args[i])) {
+                edits = Integer.parseInt(args[++i]);
+            } else {
+                System.err.println("Usage: " + IncrementalParsingCheck.class.getName() + " [--rows N] [--edits N]");
+                System.exit(2);
+            }
+        }
+
+        System.out.println(String.format(
+                "%-6s %8s %14s %14s %9s %14s %14s",
+                "mode", "lines", "full (ms)", "incr. (ms)", "speedup", "reused events", "parsed events"));
+
+        final File directory = ParserDocuments.createDirectory();
+        try {
+            check(directory, TemplateMode.HTML, rows, edits);
+            check(directory, TemplateMode.XML, rows, edits);
+        } finally {
+            ParserDocuments.delete(directory);
+        }
+
+    }
+
+
+
+
+    private static void check(
+            final File directory, final TemplateMode templateMode, final int rows, final int edits) throws Exception {
+
+        final String template = ParserDocuments.getFileName(templateMode);
+        final File file = new File(directory, template);
+        final List<String> lines =
+                new ArrayList<String>(Arrays.asList(ParserDocuments.generate(templateMode, rows).split("\n", -1)));
+
+        final IncrementalTemplateParsing incrementalTemplateParsing = new IncrementalTemplateParsing();
+        final TemplateManager fullTemplateManager = createTemplateManager(directory, null);
+        final TemplateManager incrementalTemplateManager = createTemplateManager(directory, incrementalTemplateParsing);
+        final TemplateSpec templateSpec = new TemplateSpec(template, templateMode);
+
+        ParserDocuments.write(file, join(lines));
+        fullTemplateManager.parseStandalone(templateSpec);
+        incrementalTemplateManager.parseStandalone(templateSpec);
+
+        final Random random = new Random(42L);
+        final String rowText = (templateMode == TemplateMode.HTML? "<td th:text=\"${row.name}\">" : "<name th:text=\"${row.name}\">");
+
+        long fullNanos = 0L;
+        long incrementalNanos = 0L;
+        long reusedEvents = 0L;
+        long parsedEvents = 0L;
+
+        for (int e = 0; e < 2 * edits; e++) {
+
+            // Change the text of a random row, sometimes adding a new line to it
+            int line = random.nextInt(lines.size());
+            while (!lines.get(line).contains(rowText)) {
+                line = (line + 1) % lines.size();
+            }
+            final String edit = (random.nextInt(4) == 0? " (edited " + e + ")\n        " : " (edited " + e + ")");
+            lines.set(line, lines.get(line).replace(rowText, rowText + edit));
+            ParserDocuments.write(file, join(lines));
+
+            final boolean measured = (e >= edits);
+            final long reusedBefore = incrementalTemplateParsing.getReusedEventCount();
+            final long parsedBefore = incrementalTemplateParsing.getReparsedEventCount();
+
+            fullTemplateManager.clearCachesFor(template);
+            final long fullStart = System.nanoTime();
+            final TemplateModel fullModel = fullTemplateManager.parseStandalone(templateSpec);
+            final long fullEnd = System.nanoTime();
+
+            incrementalTemplateManager.clearCachesFor(template);
+            final long incrementalStart = System.nanoTime();
+            final TemplateModel incrementalModel = incrementalTemplateManager.parseStandalone(templateSpec);
+            final long incrementalEnd = System.nanoTime();
+
+            if (fullModel.size() != incrementalModel.size() || !write(fullModel).equals(write(incrementalModel))) {
+                throw new IllegalStateException("Incrementally parsed model differs from the entirely parsed one");
+            }
+
+            if (measured) {
+                fullNanos += (fullEnd - fullStart);
+                incrementalNanos += (incrementalEnd - incrementalStart);
+                reusedEvents += incrementalTemplateParsing.getReusedEventCount() - reusedBefore;
+                parsedEvents += incrementalTemplateParsing.getReparsedEventCount() - parsedBefore;
+            }
+
+        }
+
+        System.out.println(String.format(
+                "%-6s %8d %14.3f %14.3f %8.1fx %14d %14d",
+                templateMode, lines.size(),
+                fullNanos / 1000000.0d / edits, incrementalNanos / 1000000.0d / edits,
+                ((double) fullNanos) / incrementalNanos, reusedEvents / edits, parsedEvents / edits));
+
+    }
+
+
+    private static TemplateManager createTemplateManager(
+            final File directory, final IncrementalTemplateParsing incrementalTemplateParsing) {
+
+        final FileTemplateResolver templateResolver = new FileTemplateResolver();
+        templateResolver.setPrefix(directory.getAbsolutePath() + File.separator);
+        templateResolver.setCharacterEncoding("UTF-8");
+        templateResolver.setCacheable(true);
+
+        final TemplateEngine templateEngine = new TemplateEngine();
+        templateEngine.setTemplateResolver(templateResolver);
+        templateEngine.setIncrementalTemplateParsing(incrementalTemplateParsing);
+
+        return templateEngine.getConfiguration().getTemplateManager();
+
+    }
+
+
+    private static String join(final List<String> lines) {
+        final StringBuilder strBuilder = new StringBuilder(lines.size() * 64);
+        for (int i = 0; i < lines.size(); i++) {
+            if (i > 0) {
+                strBuilder.append('\n');
+            }
+            strBuilder.append(lines.get(i));
+        }
+        return strBuilder.toString();
+    }
+
+
+    private static String write(final TemplateModel templateModel) throws Exception {
+        final StringWriter writer = new StringWriter();
+        templateModel.write(writer);
+        return writer.toString();
+    }
+
+
+
+
+    private IncrementalParsingCheck() {
+        super();
+    }
+
+}
@@ -0,0 +1,120 @@
+/*
+ * =============================================================================
+ *
+ *   Copyright (c) 2011-2016, The THYMELEAF team (http://www.thymeleaf.org)
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ * =============================================================================
+ */
+package org.thymeleaf.benchmark;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.thymeleaf.IEngineConfiguration;
+import org.thymeleaf.TemplateEngine;
+import org.thymeleaf.templatemode.TemplateMode;
+import org.thymeleaf.templateparser.ITemplateParser;
+import org.thymeleaf.templateresource.FileTemplateResource;
+
+/**
+ * <p>
+ *   Measures the RAW and TEXT template parsers on large files (several megabytes), comparing files read as
+ *   streams with files read by memory-mapping them (see
+ *   {@link org.thymeleaf.templateresolver.FileTemplateResolver#setMemoryMappingThreshold(Long)}).
+ * </p>
+ * <p>
+ *   Parsing speed (chars/s) is reported as the <tt>chars</tt> secondary result, and allocation per document
+ *   can be obtained by means of JMH's <tt>-prof gc</tt> profiler.
+ * </p>
+ *
+ * @author Daniel Fern&aacute;ndez
+ *
+ * @since 3.0.10
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LargeFileParserBenchmark {
+
+    @Param({"RAW", "TEXT"})
+    public TemplateMode templateMode;
+
+    @Param({"50000"})
+    public int rows;
+
+    @Param({"stream", "mapped"})
+    public String reader;
+
+    private File directory;
+    private IEngineConfiguration configuration;
+    private ITemplateParser parser;
+    private String template;
+    private FileTemplateResource resource;
+    private int documentLength;
+
+
+    @Setup
+    public void setup() throws IOException {
+
+        final String document = ParserDocuments.generate(this.templateMode, this.rows);
+
+        this.directory = ParserDocuments.createDirectory();
+        final File file = new File(this.directory, ParserDocuments.getFileName(this.templateMode));
+        ParserDocuments.write(file, document);
+
+        this.configuration = new TemplateEngine().getConfiguration();
+        this.parser = TextParserBenchmark.createParser(this.templateMode, 40);
+        this.template = file.getName();
+        this.resource =
+                new FileTemplateResource(file, "UTF-8", ("mapped".equals(this.reader)? Long.valueOf(0L) : null));
+        this.documentLength = document.length();
+
+    }
+
+
+    @TearDown
+    public void tearDown() {
+        ParserDocuments.delete(this.directory);
+    }
+
+
+    @Benchmark
+    public long parse(final ParsedChars parsedChars) {
+        final CountingTemplateHandler handler = new CountingTemplateHandler();
+        this.parser.parseStandalone(
+                this.configuration, null, this.template, null, this.resource,
+                this.templateMode, false, handler);
+        parsedChars.chars += this.documentLength;
+        return handler.getCount();
+    }
+
+}
@@ -0,0 +1,147 @@
+/*
+ * =============================================================================
+ *
+ *   Copyright (c) 2011-2016, The THYMELEAF team (http://www.thymeleaf.org)
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ * =============================================================================
+ */
+package org.thymeleaf.benchmark;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.thymeleaf.IEngineConfiguration;
+import org.thymeleaf.TemplateEngine;
+import org.thymeleaf.templatemode.TemplateMode;
+import org.thymeleaf.templateparser.ITemplateParser;
+import org.thymeleaf.templateparser.markup.HTMLTemplateParser;
+import org.thymeleaf.templateparser.markup.XMLTemplateParser;
+import org.thymeleaf.templateresource.FileTemplateResource;
+
+/**
+ * <p>
+ *   Measures the HTML and XML template parsers in isolation, by parsing a large generated document into
+ *   a template handler that simply counts events.
+ * </p>
+ * <p>
+ *   Parameters allow measuring the effect of the size of the parsers' buffer pool, of decoupled template logic
+ *   (which requires parsing an additional <tt>.th.xml</tt> resource and injecting attributes) and of template
+ *   selectors. As the parser instance is shared among all benchmark threads, running with several threads
+ *   (JMH's <tt>-t</tt> option) will show the effect of buffer pool contention.
+ * </p>
+ * <p>
+ *   Parsing speed (chars/s) is reported as the <tt>chars</tt> secondary result. Allocation per document can
+ *   be obtained by means of JMH's <tt>-prof gc</tt> profiler.
+ * </p>
+ *
+ * @author Daniel Fern&aacute;ndez
+ *
+ * @since 3.0.10
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MarkupParserBenchmark {
+
+    private static final int BUFFER_SIZE = 2048;
+
+    @Param({"HTML", "XML"})
+    public TemplateMode templateMode;
+
+    @Param({"2000"})
+    public int rows;
+
+    @Param({"1", "40"})
+    public int bufferPoolSize;
+
+    @Param({"false", "true"})
+    public boolean decoupledLogic;
+
+    @Param({"none", "section5"})
+    public String templateSelector;
+
+    private File directory;
+    private IEngineConfiguration configuration;
+    private ITemplateParser parser;
+    private String template;
+    private FileTemplateResource resource;
+    private Set<String> templateSelectors;
+    private int documentLength;
+
+
+    @Setup
+    public void setup() throws IOException {
+
+        final String document = ParserDocuments.generate(this.templateMode, this.rows);
+
+        this.directory = ParserDocuments.createDirectory();
+        final File file = new File(this.directory, ParserDocuments.getFileName(this.templateMode));
+        ParserDocuments.write(file, document);
+        if (this.decoupledLogic) {
+            ParserDocuments.write(
+                    new File(this.directory, ParserDocuments.getDecoupledLogicFileName(this.templateMode)),
+                    ParserDocuments.generateDecoupledLogic(this.templateMode));
+        }
+
+        this.configuration = new TemplateEngine().getConfiguration();
+        this.parser =
+                (this.templateMode == TemplateMode.HTML?
+                        new HTMLTemplateParser(this.bufferPoolSize, BUFFER_SIZE) :
+                        new XMLTemplateParser(this.bufferPoolSize, BUFFER_SIZE));
+        this.template = file.getName();
+        this.resource = new FileTemplateResource(file, "UTF-8");
+        this.templateSelectors =
+                ("none".equals(this.templateSelector)? null : Collections.singleton(this.templateSelector));
+        this.documentLength = document.length();
+
+    }
+
+
+    @TearDown
+    public void tearDown() {
+        ParserDocuments.delete(this.directory);
+    }
+
+
+    @Benchmark
+    public long parse(final ParsedChars parsedChars) {
+        final CountingTemplateHandler handler = new CountingTemplateHandler();
+        this.parser.parseStandalone(
+                this.configuration, null, this.template, this.templateSelectors, this.resource,
+                this.templateMode, this.decoupledLogic, handler);
+        parsedChars.chars += this.documentLength;
+        return handler.getCount();
+    }
+
+}
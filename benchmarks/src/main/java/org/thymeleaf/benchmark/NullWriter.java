@@ -0,0 +1,103 @@
+/*
+ * =============================================================================
+ *
+ *   Copyright (c) 2011-2016, The THYMELEAF team (http://www.thymeleaf.org)
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ * =============================================================================
+ */
+package org.thymeleaf.benchmark;
+
+import java.io.Writer;
+
+/**
+ * <p>
+ *   Writer that discards all output, only counting the amount of chars written so that benchmarks can
+ *   return it (and therefore avoid dead-code elimination of the rendering process).
+ * </p>
+ *
+ * @author Daniel Fern&aacute;ndez
+ *
+ * @since 3.0.10
+ *
+ */
+public final class NullWriter extends Writer {
+
+    private long count = 0L;
+
+
+    public NullWriter() {
+        super();
+    }
+
+
+    public long getCount() {
+        return this.count;
+    }
+
+
+    public void reset() {
+        this.count = 0L;
+    }
+
+
+    @Override
+    public void write(final int c) {
+        this.count++;
+    }
+
+    @Override
+    public void write(final char[] cbuf, final int off, final int len) {
+        this.count += len;
+    }
+
+    @Override
+    public void write(final String str) {
+        this.count += str.length();
+    }
+
+    @Override
+    public void write(final String str, final int off, final int len) {
+        this.count += len;
+    }
+
+    @Override
+    public Writer append(final CharSequence csq) {
+        this.count += (csq == null? 4 : csq.length());
+        return this;
+    }
+
+    @Override
+    public Writer append(final CharSequence csq, final int start, final int end) {
+        this.count += (end - start);
+        return this;
+    }
+
+    @Override
+    public Writer append(final char c) {
+        this.count++;
+        return this;
+    }
+
+    @Override
+    public void flush() {
+        // Nothing to flush
+    }
+
+    @Override
+    public void close() {
+        // Nothing to close
+    }
+
+}
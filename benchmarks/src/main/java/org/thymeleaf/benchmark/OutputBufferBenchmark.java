@@ -0,0 +1,85 @@
+/*
+ * =============================================================================
+ *
+ *   Copyright (c) 2011-2016, The THYMELEAF team (http://www.thymeleaf.org)
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ * =============================================================================
+ */
+package org.thymeleaf.benchmark;
+
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.thymeleaf.TemplateEngine;
+import org.thymeleaf.context.Context;
+
+/**
+ * <p>
+ *   Measures the effect of coalescing output writes (see
+ *   {@link TemplateEngine#setOutputBufferSize(int)}) when writing to a writer with a high per-call overhead,
+ *   like the ones returned by servlet containers.
+ * </p>
+ *
+ * @author Daniel Fern&aacute;ndez
+ *
+ * @since 3.0.10
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class OutputBufferBenchmark {
+
+    @Param({"0", "8192"})
+    public int outputBufferSize;
+
+    @Param({"layout.html", "table.html"})
+    public String template;
+
+    private TemplateEngine templateEngine;
+    private Context context;
+
+
+    @Setup
+    public void setup() {
+        this.templateEngine = BenchmarkEngines.createTemplateEngine();
+        this.templateEngine.setOutputBufferSize(this.outputBufferSize);
+        this.context = BenchmarkData.createContext(Locale.US, 5, 20);
+        this.context.setVariable("rows", BenchmarkData.createProducts(0, 1000));
+    }
+
+
+    @Benchmark
+    public long servletLikeWriter() {
+        final ServletLikeWriter writer = new ServletLikeWriter();
+        this.templateEngine.process(this.template, this.context, writer);
+        return writer.getBytesSent();
+    }
+
+}
@@ -0,0 +1,252 @@
+/*
+ * =============================================================================
+ *
+ *   Copyright (c) 2011-2016, The THYMELEAF team (http://www.thymeleaf.org)
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ * =============================================================================
+ */
+package org.thymeleaf.benchmark;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+
+import org.thymeleaf.templatemode.TemplateMode;
+
+/**
+ * <p>
+ *   Generator of the large documents used by the parser benchmarks. Documents are generated deterministically
+ *   and written to a temporary folder, so that parsers read them through a real
+ *   {@link org.thymeleaf.templateresource.FileTemplateResource} (as they would do for any cache miss).
+ * </p>
+ * <p>
+ *   Markup documents are divided in sections, each of them marked as a fragment (<tt>th:fragment="sectionN"</tt>)
+ *   so that they can be selected by means of template selectors, and are accompanied by a decoupled template logic
+ *   file (<tt>.th.xml</tt>) that injects attributes into every row.
+ * </p>
+ *
+ * @author Daniel Fern&aacute;ndez
+ *
+ * @since 3.0.10
+ *
+ */
+public final class ParserDocuments {
+
+    public static final int SECTION_COUNT = 10;
+
+
+
+    public static String generate(final TemplateMode templateMode, final int rows) {
+        switch (templateMode) {
+            case HTML: return generateHTML(rows);
+            case XML: return generateXML(rows);
+            case TEXT: return generateText(rows);
+            case JAVASCRIPT: return generateJavaScript(rows);
+            case CSS: return generateCSS(rows);
+            case RAW: return generateText(rows);
+            default: throw new IllegalArgumentException("Unsupported template mode: " + templateMode);
+        }
+    }
+
+
+    public static String generateDecoupledLogic(final TemplateMode templateMode) {
+        final String rowElement = (templateMode == TemplateMode.HTML? "tr" : "item");
+        final StringBuilder strBuilder = new StringBuilder();
+        strBuilder.append("<?xml version=\"1.0\"?>\n");
+        strBuilder.append("<thlogic>\n");
+        strBuilder.append("  <attr sel=\"//").append(rowElement).append("\" th:classappend=\"${rowStat.odd}? 'odd'\"/>\n");
+        strBuilder.append("  <attr sel=\"#title\" th:text=\"${title}\"/>\n");
+        strBuilder.append("</thlogic>\n");
+        return strBuilder.toString();
+    }
+
+
+    public static String getFileName(final TemplateMode templateMode) {
+        return "document-" + templateMode.name().toLowerCase() + "." + getExtension(templateMode);
+    }
+
+
+    public static String getDecoupledLogicFileName(final TemplateMode templateMode) {
+        return "document-" + templateMode.name().toLowerCase() + ".th.xml";
+    }
+
+
+    public static File createDirectory() throws IOException {
+        final File directory = File.createTempFile("thymeleaf-parser-benchmark", "");
+        if (!directory.delete() || !directory.mkdir()) {
+            throw new IOException("Could not create temporary directory " + directory);
+        }
+        return directory;
+    }
+
+
+    public static void write(final File file, final String contents) throws IOException {
+        final Writer writer = new OutputStreamWriter(new FileOutputStream(file), "UTF-8");
+        try {
+            writer.write(contents);
+        } finally {
+            writer.close();
+        }
+    }
+
+
+    public static void delete(final File directory) {
+        final File[] files = directory.listFiles();
+        if (files != null) {
+            for (final File file : files) {
+                file.delete();
+            }
+        }
+        directory.delete();
+    }
+
+
+
+
+    private static String getExtension(final TemplateMode templateMode) {
+        switch (templateMode) {
+            case HTML: return "html";
+            case XML: return "xml";
+            case JAVASCRIPT: return "js";
+            case CSS: return "css";
+            default: return "txt";
+        }
+    }
+
+
+    private static String generateHTML(final int rows) {
+
+        final StringBuilder strBuilder = new StringBuilder(rows * 400);
+        strBuilder.append("<!DOCTYPE html>\n");
+        strBuilder.append("<html xmlns:th=\"http://www.thymeleaf.org\">\n");
+        strBuilder.append("<head>\n");
+        strBuilder.append("  <meta charset=\"UTF-8\">\n");
+        strBuilder.append("  <title id=\"title\">Parser benchmark</title>\n");
+        strBuilder.append("  <link rel=\"stylesheet\" href=\"style.css\" th:href=\"@{/style.css}\">\n");
+        strBuilder.append("</head>\n");
+        strBuilder.append("<body>\n");
+        for (int s = 0; s < SECTION_COUNT; s++) {
+            strBuilder.append("  <!-- Section ").append(s).append(" -->\n");
+            strBuilder.append("  <section th:fragment=\"section").append(s).append("\" class=\"section\">\n");
+            strBuilder.append("    <h2 th:text=\"#{section.title(").append(s).append(")}\">Section ").append(s).append("</h2>\n");
+            strBuilder.append("    <table class=\"table\">\n");
+            strBuilder.append("      <tr><th>Id</th><th>Name</th><th>Price</th><th>Actions</th></tr>\n");
+            for (int r = 0; r < rows / SECTION_COUNT; r++) {
+                strBuilder.append("      <tr th:each=\"row,rowStat : ${section").append(s).append("}\" data-row=\"").append(r).append("\">\n");
+                strBuilder.append("        <td th:text=\"${row.id}\">").append(r).append("</td>\n");
+                strBuilder.append("        <td th:text=\"${row.name}\">Product name &amp; description ").append(r).append("</td>\n");
+                strBuilder.append("        <td class=\"price\" th:text=\"${#numbers.formatDecimal(row.price,1,2)}\">12.50</td>\n");
+                strBuilder.append("        <td><a href=\"#\" th:href=\"@{/product(id=${row.id})}\">[[${row.name}]]</a><br/></td>\n");
+                strBuilder.append("      </tr>\n");
+            }
+            strBuilder.append("    </table>\n");
+            strBuilder.append("  </section>\n");
+        }
+        strBuilder.append("  <script th:inline=\"javascript\">\n");
+        strBuilder.append("    var title = /*[[${title}]]*/ 'Parser benchmark';\n");
+        strBuilder.append("  </script>\n");
+        strBuilder.append("</body>\n");
+        strBuilder.append("</html>\n");
+        return strBuilder.toString();
+
+    }
+
+
+    private static String generateXML(final int rows) {
+
+        final StringBuilder strBuilder = new StringBuilder(rows * 300);
+        strBuilder.append("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n");
+        strBuilder.append("<catalog xmlns:th=\"http://www.thymeleaf.org\">\n");
+        strBuilder.append("  <title id=\"title\">Parser benchmark</title>\n");
+        for (int s = 0; s < SECTION_COUNT; s++) {
+            strBuilder.append("  <!-- Section ").append(s).append(" -->\n");
+            strBuilder.append("  <section th:fragment=\"section").append(s).append("\" id=\"s").append(s).append("\">\n");
+            for (int r = 0; r < rows / SECTION_COUNT; r++) {
+                strBuilder.append("    <item th:each=\"row,rowStat : ${section").append(s).append("}\" th:attr=\"id=${row.id}\">\n");
+                strBuilder.append("      <name th:text=\"${row.name}\">Product name &amp; description ").append(r).append("</name>\n");
+                strBuilder.append("      <price currency=\"EUR\" th:text=\"${row.price}\">12.50</price>\n");
+                strBuilder.append("      <description><![CDATA[Some <b>unparsed</b> description for ").append(r).append("]]></description>\n");
+                strBuilder.append("      <available/>\n");
+                strBuilder.append("    </item>\n");
+            }
+            strBuilder.append("  </section>\n");
+        }
+        strBuilder.append("</catalog>\n");
+        return strBuilder.toString();
+
+    }
+
+
+    private static String generateText(final int rows) {
+
+        final StringBuilder strBuilder = new StringBuilder(rows * 200);
+        strBuilder.append("Dear [(${user.name})],\n\n");
+        strBuilder.append("These are the products in your order:\n\n");
+        for (int r = 0; r < rows; r++) {
+            strBuilder.append("[# th:each=\"row : ${section").append(r % SECTION_COUNT).append("}\"]\n");
+            strBuilder.append("  - [(${row.name})] (").append(r).append("): [(${row.price})] EUR");
+            strBuilder.append("[# th:if=\"${row.discounted}\"] (discounted)[/]\n");
+            strBuilder.append("[/]\n");
+        }
+        strBuilder.append("\nThanks for your order, the Thymeleaf team.\n");
+        return strBuilder.toString();
+
+    }
+
+
+    private static String generateJavaScript(final int rows) {
+
+        final StringBuilder strBuilder = new StringBuilder(rows * 250);
+        strBuilder.append("/* Parser benchmark script */\n");
+        strBuilder.append("var title = /*[[${title}]]*/ \"Parser benchmark\";\n");
+        for (int r = 0; r < rows; r++) {
+            strBuilder.append("/*[# th:each=\"row : ${section").append(r % SECTION_COUNT).append("}\"]*/\n");
+            strBuilder.append("function row").append(r).append("(param) {\n");
+            strBuilder.append("    var name = /*[[${row.name}]]*/ 'Product \\'").append(r).append("\\'';\n");
+            strBuilder.append("    var re = /[a-z]+\\/[0-9]*/g; // Some regular expression\n");
+            strBuilder.append("    return { id: ").append(r).append(", name: name, price: /*[[${row.price}]]*/ 12.5 };\n");
+            strBuilder.append("}\n");
+            strBuilder.append("/*[/]*/\n");
+        }
+        return strBuilder.toString();
+
+    }
+
+
+    private static String generateCSS(final int rows) {
+
+        final StringBuilder strBuilder = new StringBuilder(rows * 200);
+        strBuilder.append("/* Parser benchmark stylesheet */\n");
+        for (int r = 0; r < rows; r++) {
+            strBuilder.append(".row-").append(r).append(" > td, .row-").append(r).append(":hover {\n");
+            strBuilder.append("    color: /*[[${colors[").append(r % SECTION_COUNT).append("]}]]*/ #336699;\n");
+            strBuilder.append("    background: url(\"images/row-").append(r).append(".png\") no-repeat;\n");
+            strBuilder.append("    font-family: \"Helvetica Neue\", Arial, sans-serif;\n");
+            strBuilder.append("}\n");
+        }
+        return strBuilder.toString();
+
+    }
+
+
+
+
+    private ParserDocuments() {
+        super();
+    }
+
+}
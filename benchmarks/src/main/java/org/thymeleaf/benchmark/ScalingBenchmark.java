@@ -0,0 +1,88 @@
+/*
+ * =============================================================================
+ *
+ *   Copyright (c) 2011-2016, The THYMELEAF team (http://www.thymeleaf.org)
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ * =============================================================================
+ */
+package org.thymeleaf.benchmark;
+
+import java.util.Date;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.thymeleaf.TemplateEngine;
+import org.thymeleaf.context.Context;
+
+/**
+ * <p>
+ *   Workload for measuring how the engine scales with the amount of threads. A single template engine is shared
+ *   by all benchmark threads, which render a template exercising the structures shared among threads: the template
+ *   cache and fragment resolution, element and attribute definitions, message resolution, expression evaluation
+ *   (including the OGNL runtime caches), <tt>#dates</tt> formatters and JavaScript serialization. When the
+ *   template is not cacheable, the parsers' buffer pools are exercised too.
+ * </p>
+ * <p>
+ *   This benchmark is normally executed by means of {@link ScalingBenchmarkRunner}, which runs it at an
+ *   increasing amount of threads and reports scaling efficiency and lock contention.
+ * </p>
+ *
+ * @author Daniel Fern&aacute;ndez
+ *
+ * @since 3.0.10
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ScalingBenchmark {
+
+    @Param({"true", "false"})
+    public boolean cacheable;
+
+    private TemplateEngine templateEngine;
+    private Context context;
+
+
+    @Setup
+    public void setup() {
+        this.templateEngine = BenchmarkEngines.createTemplateEngine(this.cacheable);
+        this.context = BenchmarkData.createContext(Locale.US, 3, 10);
+        this.context.setVariable("now", new Date(1514764800000L)); // 2018-01-01T00:00:00Z
+    }
+
+
+    @Benchmark
+    public long render() {
+        final NullWriter writer = new NullWriter();
+        this.templateEngine.process("scaling.html", this.context, writer);
+        return writer.getCount();
+    }
+
+}
@@ -0,0 +1,188 @@
+/*
+ * =============================================================================
+ *
+ *   Copyright (c) 2011-2016, The THYMELEAF team (http://www.thymeleaf.org)
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ * =============================================================================
+ */
+package org.thymeleaf.benchmark;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.VerboseMode;
+
+/**
+ * <p>
+ *   Runs {@link ScalingBenchmark} at 1, 2, 4... up to N threads and reports, for each amount of threads, the
+ *   throughput, the speedup and the scaling efficiency (<tt>throughput(n) / (n &times; throughput(1))</tt>),
+ *   along with the lock contention recorded by Java Flight Recorder during the run (see {@link ContentionReport}).
+ * </p>
+ * <p>
+ *   Usage: <tt>ScalingBenchmarkRunner [--max-threads N] [--threshold MICROS] [--no-jfr] [--output DIR]
+ *   [--param name=value]</tt>. Maximum threads default to the amount of available processors, and the contention
+ *   threshold to {@value ContentionReport#DEFAULT_THRESHOLD_MICROS} microseconds. Recordings are left in the
+ *   output directory (<tt>target/scaling</tt> by default) so that they can be further analyzed with JDK Mission
+ *   Control. Flight recording requires a JVM with JFR support (OpenJDK 8u262+ or 11+).
+ * </p>
+ *
+ * @author Daniel Fern&aacute;ndez
+ *
+ * @since 3.0.10
+ *
+ */
+public final class ScalingBenchmarkRunner {
+
+    private static final int MAX_CONTENTION_ENTRIES = 10;
+
+
+
+    public static void main(final String[] args) throws Exception {
+
+        int maxThreads = Runtime.getRuntime().availableProcessors();
+        long thresholdMicros = ContentionReport.DEFAULT_THRESHOLD_MICROS;
+        boolean jfr = true;
+        File outputDir = new File("target/scaling");
+        final Map<String,String> params = new LinkedHashMap<String, String>();
+        params.put("cacheable", "true");
+
+        for (int i = 0; i < args.length; i++) {
+            if ("--max-threads".equals(args[i])) {
+                maxThreads = Integer.parseInt(args[++i]);
+            } else if ("--threshold".equals(args[i])) {
+                thresholdMicros = Long.parseLong(args[++i]);
+            } else if ("--no-jfr".equals(args[i])) {
+                jfr = false;
+            } else if ("--output".equals(args[i])) {
+                outputDir = new File(args[++i]);
+            } else if ("--param".equals(args[i])) {
+                final String param = args[++i];
+                final int equalsPos = param.indexOf('=');
+                params.put(param.substring(0, equalsPos), param.substring(equalsPos + 1));
+            } else {
+                throw new IllegalArgumentException("Unknown argument: " + args[i]);
+            }
+        }
+
+        if (!outputDir.isDirectory() && !outputDir.mkdirs()) {
+            throw new IllegalStateException("Could not create output directory " + outputDir);
+        }
+
+        final File settings = new File(outputDir, "contention.jfc");
+        if (jfr) {
+            ContentionReport.writeSettings(settings, thresholdMicros);
+        }
+
+        final List<Integer> threadCounts = computeThreadCounts(maxThreads);
+        final Map<Integer,Double> throughputs = new LinkedHashMap<Integer, Double>();
+        final Map<Integer,ContentionReport> reports = new LinkedHashMap<Integer, ContentionReport>();
+
+        for (final Integer threads : threadCounts) {
+
+            System.out.println("Running " + ScalingBenchmark.class.getSimpleName() + " with " + threads + " thread(s)...");
+
+            final ChainedOptionsBuilder options =
+                    new OptionsBuilder()
+                            .include(ScalingBenchmark.class.getName())
+                            .threads(threads.intValue())
+                            .verbosity(VerboseMode.SILENT);
+            for (final Map.Entry<String,String> param : params.entrySet()) {
+                options.param(param.getKey(), param.getValue());
+            }
+
+            final File recording = new File(outputDir, "scaling-" + threads + ".jfr");
+            if (jfr) {
+                recording.delete();
+                options.jvmArgsAppend(
+                        "-XX:StartFlightRecording=settings=" + settings.getAbsolutePath() +
+                        ",filename=" + recording.getAbsolutePath() + ",dumponexit=true");
+            }
+
+            final Collection<RunResult> results = new Runner(options.build()).run();
+            if (results.isEmpty()) {
+                throw new IllegalStateException(
+                        "No results obtained for " + threads + " thread(s). Execute the benchmark directly to see errors.");
+            }
+            final RunResult result = results.iterator().next();
+            throughputs.put(threads, Double.valueOf(result.getPrimaryResult().getScore()));
+
+            if (jfr && recording.exists()) {
+                reports.put(threads, ContentionReport.read(recording));
+            }
+
+        }
+
+        printReport(throughputs, reports, thresholdMicros, params);
+
+    }
+
+
+
+
+    static List<Integer> computeThreadCounts(final int maxThreads) {
+        final List<Integer> threadCounts = new ArrayList<Integer>();
+        for (int threads = 1; threads < maxThreads; threads *= 2) {
+            threadCounts.add(Integer.valueOf(threads));
+        }
+        threadCounts.add(Integer.valueOf(maxThreads));
+        return threadCounts;
+    }
+
+
+    private static void printReport(
+            final Map<Integer,Double> throughputs, final Map<Integer,ContentionReport> reports,
+            final long thresholdMicros, final Map<String,String> params) {
+
+        final double baseThroughput = throughputs.values().iterator().next().doubleValue();
+
+        System.out.println();
+        System.out.println("Scaling of " + ScalingBenchmark.class.getSimpleName() + " " + params);
+        System.out.println();
+        System.out.println(String.format("%8s %14s %10s %12s", "threads", "ops/ms", "speedup", "efficiency"));
+        for (final Map.Entry<Integer,Double> throughput : throughputs.entrySet()) {
+            final int threads = throughput.getKey().intValue();
+            final double speedup = throughput.getValue().doubleValue() / baseThroughput;
+            System.out.println(String.format(
+                    "%8d %14.3f %10.2f %11.1f%%",
+                    Integer.valueOf(threads), throughput.getValue(),
+                    Double.valueOf(speedup), Double.valueOf((speedup / threads) * 100.0d)));
+        }
+
+        for (final Map.Entry<Integer,ContentionReport> report : reports.entrySet()) {
+            System.out.println();
+            System.out.println(
+                    "Contention with " + report.getKey() + " thread(s), events longer than " + thresholdMicros + " us " +
+                    "(including warmup):");
+            report.getValue().print(System.out, MAX_CONTENTION_ENTRIES);
+        }
+
+    }
+
+
+
+
+    private ScalingBenchmarkRunner() {
+        super();
+    }
+
+}
@@ -0,0 +1,216 @@
+/*
+ * =============================================================================
+ *
+ *   Copyright (c) 2011-2016, The THYMELEAF team (http://www.thymeleaf.org)
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ * =============================================================================
+ */
+package org.thymeleaf.benchmark;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.thymeleaf.IEngineConfiguration;
+import org.thymeleaf.TemplateEngine;
+import org.thymeleaf.templatemode.TemplateMode;
+import org.thymeleaf.templateparser.ITemplateParser;
+import org.thymeleaf.templateresource.FileTemplateResource;
+
+/**
+ * <p>
+ *   Measures the JAVASCRIPT and CSS template parsers on large scripts, i.e. library-like code with long runs of
+ *   text containing no parser structures, which is the case in which scanning speed matters the most. The
+ *   engine's full parsing chain is used (including comment processing and the pre-processing of inlined output
+ *   expressions).
+ * </p>
+ * <p>
+ *   Real scripts (e.g. application bundles or third-party libraries) can be specified as a comma-separated list of
+ *   file paths with <tt>-p scripts=...</tt>, in which case all of them are parsed on each operation. Otherwise, a
+ *   generated library-like script of <tt>bundleKB</tt> kilobytes is used. Parsing speed (chars/s) is reported as
+ *   the <tt>chars</tt> secondary result.
+ * </p>
+ *
+ * @author Daniel Fern&aacute;ndez
+ *
+ * @since 3.0.10
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ScriptParserBenchmark {
+
+    @Param({"JAVASCRIPT", "CSS"})
+    public TemplateMode templateMode;
+
+    @Param({""})
+    public String scripts;
+
+    @Param({"1024"})
+    public int bundleKB;
+
+    private File directory;
+    private IEngineConfiguration configuration;
+    private ITemplateParser parser;
+    private final List<FileTemplateResource> resources = new ArrayList<FileTemplateResource>();
+    private final List<String> templates = new ArrayList<String>();
+    private long totalLength;
+
+
+    @Setup
+    public void setup() throws IOException {
+
+        this.configuration = new TemplateEngine().getConfiguration();
+        this.parser = TextParserBenchmark.createParser(this.templateMode, 1);
+
+        if (this.scripts.trim().length() > 0) {
+            for (final String script : this.scripts.split(",")) {
+                final File file = new File(script.trim());
+                if (!file.isFile()) {
+                    throw new IllegalArgumentException("Script file not found: " + file.getAbsolutePath());
+                }
+                addResource(file);
+            }
+        } else {
+            final String document =
+                    (this.templateMode == TemplateMode.CSS?
+                            generateStyleSheet(this.bundleKB * 1024) : generateScript(this.bundleKB * 1024));
+            this.directory = ParserDocuments.createDirectory();
+            final File file = new File(this.directory, ParserDocuments.getFileName(this.templateMode));
+            ParserDocuments.write(file, document);
+            addResource(file);
+        }
+
+    }
+
+
+    @TearDown
+    public void tearDown() {
+        if (this.directory != null) {
+            ParserDocuments.delete(this.directory);
+        }
+    }
+
+
+    @Benchmark
+    public long parse(final ParsedChars parsedChars) {
+        final CountingTemplateHandler handler = new CountingTemplateHandler();
+        for (int i = 0; i < this.resources.size(); i++) {
+            this.parser.parseStandalone(
+                    this.configuration, null, this.templates.get(i), null, this.resources.get(i),
+                    this.templateMode, false, handler);
+        }
+        parsedChars.chars += this.totalLength;
+        return handler.getCount();
+    }
+
+
+
+
+    private void addResource(final File file) {
+        this.resources.add(new FileTemplateResource(file, "UTF-8"));
+        this.templates.add(file.getName());
+        this.totalLength += file.length();
+    }
+
+
+    private static String generateScript(final int length) {
+
+        final StringBuilder strBuilder = new StringBuilder(length + 2048);
+        strBuilder.append("/*!\n");
+        strBuilder.append(" * Benchmark library v1.0.0\n");
+        strBuilder.append(" * Released under the MIT license\n");
+        strBuilder.append(" */\n");
+        strBuilder.append("(function (global, factory) {\n");
+        strBuilder.append("    \"use strict\";\n");
+        strBuilder.append("    global.Library = factory(global);\n");
+        strBuilder.append("})(typeof window !== \"undefined\" ? window : this, function (window) {\n\n");
+
+        int f = 0;
+        while (strBuilder.length() < length) {
+            strBuilder.append("    /**\n");
+            strBuilder.append("     * Computes the options for component number ").append(f).append(", merging the\n");
+            strBuilder.append("     * defaults with the ones specified by the caller and validating the result.\n");
+            strBuilder.append("     *\n");
+            strBuilder.append("     * @param {Object} options the options specified by the caller.\n");
+            strBuilder.append("     * @returns {Object} the computed options.\n");
+            strBuilder.append("     */\n");
+            strBuilder.append("    function computeOptions").append(f).append("(options) {\n");
+            strBuilder.append("        var result = extend({}, defaults, options || {}), key, value;\n");
+            strBuilder.append("        for (key in result) {\n");
+            strBuilder.append("            if (hasOwnProperty.call(result, key)) {\n");
+            strBuilder.append("                value = result[key];\n");
+            strBuilder.append("                // Normalize values coming from data attributes\n");
+            strBuilder.append("                if (typeof value === \"string\" && rnumber.test(value)) {\n");
+            strBuilder.append("                    result[key] = parseFloat(value.replace(/,/g, \".\"));\n");
+            strBuilder.append("                }\n");
+            strBuilder.append("            }\n");
+            strBuilder.append("        }\n");
+            strBuilder.append("        return result.enabled !== false ? result : null;\n");
+            strBuilder.append("    }\n\n");
+            f++;
+        }
+
+        strBuilder.append("    return { version: '1.0.0' };\n");
+        strBuilder.append("});\n");
+        return strBuilder.toString();
+
+    }
+
+
+    private static String generateStyleSheet(final int length) {
+
+        final StringBuilder strBuilder = new StringBuilder(length + 2048);
+        strBuilder.append("/*!\n");
+        strBuilder.append(" * Benchmark stylesheet v1.0.0\n");
+        strBuilder.append(" * Released under the MIT license\n");
+        strBuilder.append(" */\n");
+
+        int r = 0;
+        while (strBuilder.length() < length) {
+            strBuilder.append("/* Component ").append(r).append(" */\n");
+            strBuilder.append(".component-").append(r).append(" > .header, .component-").append(r).append(" .title {\n");
+            strBuilder.append("  font-family: \"Helvetica Neue\", Helvetica, Arial, sans-serif;\n");
+            strBuilder.append("  margin: 0 auto 12px auto;\n");
+            strBuilder.append("  padding: 4px 8px;\n");
+            strBuilder.append("  border-bottom: 1px solid rgba(0, 0, 0, 0.125);\n");
+            strBuilder.append("  background: url('images/component-").append(r).append(".png') no-repeat right center;\n");
+            strBuilder.append("}\n");
+            r++;
+        }
+
+        return strBuilder.toString();
+
+    }
+
+}
@@ -0,0 +1,103 @@
+/*
+ * =============================================================================
+ *
+ *   Copyright (c) 2011-2016, The THYMELEAF team (http://www.thymeleaf.org)
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ * =============================================================================
+ */
+package org.thymeleaf.benchmark;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * <p>
+ *   Stand-in for the writers returned by servlet containers (e.g. Tomcat's <tt>CoyoteWriter</tt>), which have a
+ *   significant per-call overhead: every write is synchronized and goes through a charset encoder into a byte
+ *   buffer, which is sent to the (here, discarded) network output when full.
+ * </p>
+ *
+ * @author Daniel Fern&aacute;ndez
+ *
+ * @since 3.0.10
+ *
+ */
+public final class ServletLikeWriter extends Writer {
+
+    private static final int BYTE_BUFFER_SIZE = 8192;
+
+    private final CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder();
+    private final ByteBuffer byteBuffer = ByteBuffer.allocate(BYTE_BUFFER_SIZE);
+    private long bytesSent = 0L;
+
+
+    public ServletLikeWriter() {
+        super();
+    }
+
+
+    public synchronized long getBytesSent() {
+        return this.bytesSent + this.byteBuffer.position();
+    }
+
+
+    @Override
+    public synchronized void write(final int c) throws IOException {
+        encode(CharBuffer.wrap(new char[] { (char) c }));
+    }
+
+    @Override
+    public synchronized void write(final char[] cbuf, final int off, final int len) throws IOException {
+        encode(CharBuffer.wrap(cbuf, off, len));
+    }
+
+    @Override
+    public synchronized void write(final String str, final int off, final int len) throws IOException {
+        encode(CharBuffer.wrap(str, off, off + len));
+    }
+
+    @Override
+    public synchronized void flush() throws IOException {
+        send();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        send();
+    }
+
+
+    private void encode(final CharBuffer chars) {
+        while (true) {
+            final CoderResult result = this.encoder.encode(chars, this.byteBuffer, false);
+            if (!result.isOverflow()) {
+                return;
+            }
+            send();
+        }
+    }
+
+
+    private void send() {
+        this.bytesSent += this.byteBuffer.position();
+        this.byteBuffer.clear();
+    }
+
+}
@@ -0,0 +1,93 @@
+/*
+ * =============================================================================
+ *
+ *   Copyright (c) 2011-2016, The THYMELEAF team (http://www.thymeleaf.org)
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ * =============================================================================
+ */
+package org.thymeleaf.benchmark;
+
+import java.io.Writer;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.thymeleaf.TemplateEngine;
+import org.thymeleaf.TemplateSpec;
+import org.thymeleaf.context.Context;
+import org.thymeleaf.templatemode.TemplateMode;
+import org.thymeleaf.util.FastStringWriter;
+
+/**
+ * <p>
+ *   Compares the String-returning <tt>process(...)</tt> methods, which presize their output buffer with the output
+ *   size estimated from previous executions of the same template, with processing into a writer with a small
+ *   fixed initial size (the previous behaviour), which has to grow its buffer (and copy it) many times for large
+ *   outputs. The difference is best observed in allocation rate by means of <tt>-prof gc</tt>.
+ * </p>
+ *
+ * @author Daniel Fern&aacute;ndez
+ *
+ * @since 3.0.10
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StringOutputBenchmark {
+
+    private static final TemplateSpec TEMPLATE_SPEC = new TemplateSpec("table.html", TemplateMode.HTML);
+
+    @Param({"10", "1000"})
+    public int rows;
+
+    private TemplateEngine templateEngine;
+    private Context context;
+
+
+    @Setup
+    public void setup() {
+        this.templateEngine = BenchmarkEngines.createTemplateEngine();
+        this.context = BenchmarkData.createTableContext(Locale.US, this.rows);
+    }
+
+
+    @Benchmark
+    public String estimatedInitialSize() {
+        return this.templateEngine.process(TEMPLATE_SPEC, this.context);
+    }
+
+
+    @Benchmark
+    public String fixedInitialSize() {
+        final Writer writer = new FastStringWriter(100);
+        this.templateEngine.process(TEMPLATE_SPEC, this.context, writer);
+        return writer.toString();
+    }
+
+}
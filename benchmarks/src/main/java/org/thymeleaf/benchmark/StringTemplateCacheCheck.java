@@ -0,0 +1,199 @@
+/*
+ * =============================================================================
+ *
+ *   Copyright (c) 2011-2016, The THYMELEAF team (http://www.thymeleaf.org)
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ * =============================================================================
+ */
+package org.thymeleaf.benchmark;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+
+import org.thymeleaf.TemplateEngine;
+import org.thymeleaf.TemplateSpec;
+import org.thymeleaf.context.Context;
+import org.thymeleaf.engine.StringTemplateCache;
+import org.thymeleaf.templatemode.TemplateMode;
+import org.thymeleaf.templateresolver.StringTemplateResolver;
+
+/**
+ * <p>
+ *   Measures the time needed for rendering user-authored templates resolved by {@link StringTemplateResolver}
+ *   when they are not cached (the default), when they are cached at the template cache (cacheable resolver) and
+ *   when they are cached at a string template cache (see {@link TemplateEngine#setStringTemplateCache(StringTemplateCache)}),
+ *   and reports the amount of cached templates.
+ * </p>
+ * <p>
+ *   A set of snippets is rendered for each of a set of tenants. Each tenant renders its own copy of each snippet
+ *   (a different <tt>String</tt> object, as if just read from a database) using template resolution attributes
+ *   that identify the tenant, so that the standard template cache keeps a separate entry for each tenant.
+ * </p>
+ * <p>
+ *   Usage: <tt>StringTemplateCacheCheck [--snippets N] [--tenants N] [--lines N] [--rounds N]</tt>. Defaults are
+ *   50 snippets of 100 lines each, 20 tenants and 20 rounds, plus the same amount of rounds for warming up.
+ * </p>
+ *
+ * @author Daniel Fern&aacute;ndez
+ *
+ * @since 3.0.10
+ *
+ */
+public final class StringTemplateCacheCheck {
+
+    private static final int DEFAULT_SNIPPETS = 50;
+    private static final int DEFAULT_TENANTS = 20;
+    private static final int DEFAULT_LINES = 100;
+    private static final int DEFAULT_ROUNDS = 20;
+
+
+
+    public static void main(final String[] args) throws Exception {
+
+        int snippets = DEFAULT_SNIPPETS;
+        int tenants = DEFAULT_TENANTS;
+        int lines = DEFAULT_LINES;
+        int rounds = DEFAULT_ROUNDS;
+        for (int i = 0; i < args.length; i++) {
+            if ("--snippets".equals(args[i])) {
+                snippets = Integer.parseInt(args[++i]);
+            } else if ("--tenants".equals(args[i])) {
+                tenants = Integer.parseInt(args[++i]);
+            } else if ("--lines".equals(args[i])) {
+                lines = Integer.parseInt(args[++i]);
+            } else if ("--rounds".equals(args[i])) {
+                rounds = Integer.parseInt(args[++i]);
+            } else {
+                System.err.println(
+                        "Usage: " + StringTemplateCacheCheck.class.getName() +
+                        " [--snippets N] [--tenants N] [--lines N] [--rounds N]");
+                System.exit(2);
+            }
+        }
+
+        final String[] templates = new String[snippets];
+        for (int i = 0; i < snippets; i++) {
+            templates[i] = generateSnippet(i, lines);
+        }
+
+        System.out.println(String.format(
+                "%-16s %14s %16s %16s",
+                "cache", "render (us)", "cached entries", "estimated bytes"));
+
+        final StringTemplateResolver nonCacheableResolver = new StringTemplateResolver();
+        final StringTemplateResolver cacheableResolver = new StringTemplateResolver();
+        cacheableResolver.setCacheable(true);
+        final StringTemplateCache stringTemplateCache = new StringTemplateCache();
+
+        final String expected = check("none", createTemplateEngine(nonCacheableResolver, null), templates, tenants, rounds, null);
+        final String cached = check("template cache", createTemplateEngine(cacheableResolver, null), templates, tenants, rounds, null);
+        final String stringCached =
+                check("string cache", createTemplateEngine(cacheableResolver, stringTemplateCache), templates, tenants, rounds, stringTemplateCache);
+
+        if (!expected.equals(cached) || !expected.equals(stringCached)) {
+            throw new IllegalStateException("Output differs among cache configurations");
+        }
+
+        System.out.println();
+        System.out.println(stringTemplateCache);
+
+    }
+
+
+
+
+    private static String check(
+            final String name, final TemplateEngine templateEngine, final String[] templates,
+            final int tenants, final int rounds, final StringTemplateCache stringTemplateCache) {
+
+        final Context context = new Context();
+        context.setVariable("title", "Snippet title");
+        context.setVariable("items", Arrays.asList("one", "two", "three", "four"));
+
+        final NullWriter writer = new NullWriter();
+        long nanos = 0L;
+        int renders = 0;
+
+        for (int r = 0; r < 2 * rounds; r++) {
+            final boolean measured = (r >= rounds);
+            for (int t = 0; t < tenants; t++) {
+                final Map<String,Object> templateResolutionAttributes =
+                        Collections.<String,Object>singletonMap("tenant", Integer.valueOf(t));
+                for (int i = 0; i < templates.length; i++) {
+                    // Each tenant renders its own copy of the snippet
+                    final TemplateSpec templateSpec =
+                            new TemplateSpec(new String(templates[i]), null, TemplateMode.HTML, templateResolutionAttributes);
+                    final long start = System.nanoTime();
+                    templateEngine.process(templateSpec, context, writer);
+                    if (measured) {
+                        nanos += System.nanoTime() - start;
+                        renders++;
+                    }
+                }
+            }
+        }
+
+        // Output of all snippets, for checking that it is the same for every configuration
+        final StringBuilder output = new StringBuilder();
+        for (int i = 0; i < templates.length; i++) {
+            output.append(templateEngine.process(templates[i], context));
+        }
+
+        final int cachedEntries =
+                (stringTemplateCache != null?
+                        stringTemplateCache.size() : templateEngine.getCacheManager().getTemplateCache().keySet().size());
+        System.out.println(String.format(
+                "%-16s %14.1f %16d %16s",
+                name, nanos / 1000.0d / renders, cachedEntries,
+                (stringTemplateCache != null? String.valueOf(stringTemplateCache.getSizeInBytes()) : "-")));
+
+        return output.toString();
+
+    }
+
+
+    private static TemplateEngine createTemplateEngine(
+            final StringTemplateResolver templateResolver, final StringTemplateCache stringTemplateCache) {
+        final TemplateEngine templateEngine = new TemplateEngine();
+        templateEngine.setTemplateResolver(templateResolver);
+        templateEngine.setStringTemplateCache(stringTemplateCache);
+        return templateEngine;
+    }
+
+
+    private static String generateSnippet(final int index, final int lines) {
+        final StringBuilder strBuilder = new StringBuilder(lines * 64);
+        strBuilder.append("<div class=\"snippet\" data-snippet=\"").append(index).append("\">\n");
+        strBuilder.append("  <h3 th:text=\"${title}\">Title</h3>\n");
+        strBuilder.append("  <ul>\n");
+        strBuilder.append("    <li th:each=\"item : ${items}\" th:text=\"${item}\">Item</li>\n");
+        strBuilder.append("  </ul>\n");
+        for (int i = 0; i < lines - 6; i++) {
+            strBuilder.append("  <p class=\"line\">Static content of line ").append(i);
+            strBuilder.append(" in snippet ").append(index).append(", <b>authored</b> by the tenant.</p>\n");
+        }
+        strBuilder.append("</div>\n");
+        return strBuilder.toString();
+    }
+
+
+
+
+    private StringTemplateCacheCheck() {
+        super();
+    }
+
+}
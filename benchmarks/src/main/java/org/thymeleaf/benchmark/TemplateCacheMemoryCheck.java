@@ -0,0 +1,197 @@
+/*
+ * =============================================================================
+ *
+ *   Copyright (c) 2011-2016, The THYMELEAF team (http://www.thymeleaf.org)
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ * =============================================================================
+ */
+package org.thymeleaf.benchmark;
+
+import java.io.File;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.util.Collections;
+
+import org.thymeleaf.TemplateEngine;
+import org.thymeleaf.TemplateSpec;
+import org.thymeleaf.cache.StandardCacheManager;
+import org.thymeleaf.engine.TemplateManager;
+import org.thymeleaf.engine.TemplateStringPool;
+import org.thymeleaf.templatemode.TemplateMode;
+import org.thymeleaf.templateresolver.FileTemplateResolver;
+
+/**
+ * <p>
+ *   Measures the heap retained by the template cache for a generated corpus of large pages, with no optimizations,
+ *   with a String pool used by the parsers (see {@link TemplateEngine#setTemplateStringPool(TemplateStringPool)})
+ *   and with compaction of cached templates (see {@link TemplateEngine#setCompactTemplateCache(boolean)}).
+ * </p>
+ * <p>
+ *   The corpus is made of HTML and XML documents generated by {@link ParserDocuments} (each page with its own
+ *   title, so that no two pages are equal). Each page is cached both entire and as each of its fragments, as
+ *   would happen in an application inserting page sections with <tt>th:replace</tt>. Retained heap is measured
+ *   as the difference in used heap (after full garbage collections) before and after filling the cache.
+ * </p>
+ * <p>
+ *   Usage: <tt>TemplateCacheMemoryCheck [--pages N] [--rows N]</tt>. Defaults are 40 pages of 500 rows each.
+ *   Use a heap large enough for the whole corpus (e.g. <tt>-Xmx2g</tt>).
+ * </p>
+ *
+ * @author Daniel Fern&aacute;ndez
+ *
+ * @since 3.0.10
+ *
+ */
+public final class TemplateCacheMemoryCheck {
+
+    private static final int DEFAULT_PAGES = 40;
+    private static final int DEFAULT_ROWS = 500;
+
+
+
+    public static void main(final String[] args) throws Exception {
+
+        int pages = DEFAULT_PAGES;
+        int rows = DEFAULT_ROWS;
+        for (int i = 0; i < args.length; i++) {
+            if ("--pages".equals(args[i])) {
+                pages = Integer.parseInt(args[++i]);
+            } else if ("--rows".equals(args[i])) {
+                rows = Integer.parseInt(args[++i]);
+            } else {
+                System.err.println("Usage: " + TemplateCacheMemoryCheck.class.getName() + " [--pages N] [--rows N]");
+                System.exit(2);
+            }
+        }
+
+        final File directory = ParserDocuments.createDirectory();
+        try {
+
+            long totalChars = 0L;
+            for (int p = 0; p < pages; p++) {
+                final TemplateMode templateMode = (p % 2 == 0? TemplateMode.HTML : TemplateMode.XML);
+                final String document =
+                        ParserDocuments.generate(templateMode, rows).replace("Parser benchmark", "Page " + p);
+                ParserDocuments.write(new File(directory, getPageName(p)), document);
+                totalChars += document.length();
+            }
+
+            System.out.println(String.format(
+                    "Corpus: %d pages (%d rows each, %.1f MB of source), cached entire and as %d fragments each",
+                    pages, rows, totalChars / (1024.0d * 1024.0d), ParserDocuments.SECTION_COUNT));
+            System.out.println();
+            System.out.println(String.format(
+                    "%-12s %14s %14s %10s", "mode", "retained (MB)", "per page (KB)", "savings"));
+
+            final TemplateStringPool stringPool = new TemplateStringPool();
+
+            final long baseline = measure(directory, pages, false, null);
+            print("none", baseline, baseline, pages);
+            print("string pool", measure(directory, pages, false, stringPool), baseline, pages);
+            print("compaction", measure(directory, pages, true, null), baseline, pages);
+
+            System.out.println();
+            System.out.println(String.format(
+                    "String pool: %d lookups, %d hits, %.1f MB saved (estimated)",
+                    stringPool.getLookupCount(), stringPool.getHitCount(),
+                    stringPool.getSavedBytes() / (1024.0d * 1024.0d)));
+
+        } finally {
+            ParserDocuments.delete(directory);
+        }
+
+    }
+
+
+
+
+    private static void print(final String mode, final long retained, final long baseline, final int pages) {
+        System.out.println(String.format(
+                "%-12s %14.1f %14.1f %9.1f%%",
+                mode, retained / (1024.0d * 1024.0d), retained / 1024.0d / pages,
+                (100.0d * (baseline - retained)) / baseline));
+    }
+
+
+    private static long measure(
+            final File directory, final int pages, final boolean compact, final TemplateStringPool stringPool) {
+
+        final FileTemplateResolver templateResolver = new FileTemplateResolver();
+        templateResolver.setPrefix(directory.getAbsolutePath() + File.separator);
+        templateResolver.setCharacterEncoding("UTF-8");
+        templateResolver.setCacheable(true);
+
+        // Soft references could be cleared by the collections performed for measuring
+        final StandardCacheManager cacheManager = new StandardCacheManager();
+        cacheManager.setTemplateCacheMaxSize(-1);
+        cacheManager.setTemplateCacheUseSoftReferences(false);
+
+        final TemplateEngine templateEngine = new TemplateEngine();
+        templateEngine.setTemplateResolver(templateResolver);
+        templateEngine.setCacheManager(cacheManager);
+        templateEngine.setCompactTemplateCache(compact);
+        templateEngine.setTemplateStringPool(stringPool);
+
+        final TemplateManager templateManager = templateEngine.getConfiguration().getTemplateManager();
+
+        final long before = usedHeapAfterGC();
+
+        for (int p = 0; p < pages; p++) {
+            final TemplateMode templateMode = (p % 2 == 0? TemplateMode.HTML : TemplateMode.XML);
+            templateManager.parseStandalone(new TemplateSpec(getPageName(p), templateMode));
+            for (int s = 0; s < ParserDocuments.SECTION_COUNT; s++) {
+                templateManager.parseStandalone(
+                        new TemplateSpec(getPageName(p), Collections.singleton("section" + s), templateMode, null));
+            }
+        }
+
+        final long after = usedHeapAfterGC();
+
+        // Keep the engine (and therefore its cache) reachable until the measurement is done
+        if (cacheManager.getTemplateCache().keySet().isEmpty()) {
+            throw new IllegalStateException("Template cache is empty");
+        }
+
+        return after - before;
+
+    }
+
+
+    private static long usedHeapAfterGC() {
+        final MemoryMXBean memoryBean = ManagementFactory.getMemoryMXBean();
+        for (int i = 0; i < 5; i++) {
+            System.gc();
+            try {
+                Thread.sleep(50L);
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        return memoryBean.getHeapMemoryUsage().getUsed();
+    }
+
+
+    private static String getPageName(final int page) {
+        return "page-" + page + "." + (page % 2 == 0? "html" : "xml");
+    }
+
+
+
+
+    private TemplateCacheMemoryCheck() {
+        super();
+    }
+
+}
@@ -0,0 +1,102 @@
+/*
+ * =============================================================================
+ *
+ *   Copyright (c) 2011-2016, The THYMELEAF team (http://www.thymeleaf.org)
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ * =============================================================================
+ */
+package org.thymeleaf.benchmark;
+
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.thymeleaf.IThrottledTemplateProcessor;
+import org.thymeleaf.TemplateEngine;
+import org.thymeleaf.TemplateSpec;
+import org.thymeleaf.context.Context;
+
+/**
+ * <p>
+ *   Renders a large table by means of throttled processing, writing output in chunks of a limited size
+ *   (as reactive/streaming integrations do), both as plain HTML and as Server-Sent Events.
+ * </p>
+ *
+ * @author Daniel Fern&aacute;ndez
+ *
+ * @since 3.0.10
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ThrottledOutputBenchmark {
+
+    @Param({"1000"})
+    public int rows;
+
+    @Param({"1024", "8192"})
+    public int chunkSize;
+
+    private TemplateEngine templateEngine;
+    private Context context;
+    private TemplateSpec htmlTemplateSpec;
+    private TemplateSpec sseTemplateSpec;
+
+
+    @Setup
+    public void setup() {
+        this.templateEngine = BenchmarkEngines.createTemplateEngine();
+        this.context = BenchmarkData.createTableContext(Locale.US, this.rows);
+        this.htmlTemplateSpec = new TemplateSpec("table.html", null, "text/html", null);
+        this.sseTemplateSpec = new TemplateSpec("table.html", null, "text/event-stream", null);
+    }
+
+
+    @Benchmark
+    public long throttled() {
+        return processInChunks(this.htmlTemplateSpec);
+    }
+
+
+    @Benchmark
+    public long sse() {
+        return processInChunks(this.sseTemplateSpec);
+    }
+
+
+    private long processInChunks(final TemplateSpec templateSpec) {
+        final NullWriter writer = new NullWriter();
+        final IThrottledTemplateProcessor processor = this.templateEngine.processThrottled(templateSpec, this.context);
+        while (!processor.isFinished()) {
+            processor.process(this.chunkSize, writer);
+        }
+        return writer.getCount();
+    }
+
+}
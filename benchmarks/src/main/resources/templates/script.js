@@ -0,0 +1,9 @@
+var config = {
+    user: /*[[${user}]]*/ null,
+    sections: /*[[${sections}]]*/ [],
+    tags: /*[[${tags}]]*/ [],
+    year: /*[[${year}]]*/ 2018
+};
+[# th:each="product : ${products}"]
+register([[${product.id}]], [[${product.name}]], [[${product}]]);
+[/]
@@ -0,0 +1,122 @@
+/*
+ * =============================================================================
+ *
+ *   Copyright (c) 2011-2016, The THYMELEAF team (http://www.thymeleaf.org)
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ * =============================================================================
+ */
+package org.thymeleaf;
+
+import java.io.IOException;
+import java.io.Writer;
+
+
+/*
+ * Writer wrapper that counts the chars written to the delegate writer, used for reporting output size to the
+ * engine metrics listener (if one has been configured).
+ *
+ * @author Daniel Fernandez
+ * @since 3.0.10
+ *
+ */
+final class CharCountingWriter extends Writer {
+
+    private final Writer writer;
+    private long count;
+
+
+    CharCountingWriter(final Writer writer) {
+        super();
+        this.writer = writer;
+        this.count = 0L;
+    }
+
+
+    long getCount() {
+        return this.count;
+    }
+
+
+    @Override
+    public void write(final int c) throws IOException {
+        this.writer.write(c);
+        this.count++;
+    }
+
+
+    @Override
+    public void write(final char[] cbuf) throws IOException {
+        this.writer.write(cbuf);
+        this.count += cbuf.length;
+    }
+
+
+    @Override
+    public void write(final char[] cbuf, final int off, final int len) throws IOException {
+        this.writer.write(cbuf, off, len);
+        this.count += len;
+    }
+
+
+    @Override
+    public void write(final String str) throws IOException {
+        this.writer.write(str);
+        this.count += str.length();
+    }
+
+
+    @Override
+    public void write(final String str, final int off, final int len) throws IOException {
+        this.writer.write(str, off, len);
+        this.count += len;
+    }
+
+
+    @Override
+    public Writer append(final CharSequence csq) throws IOException {
+        this.writer.append(csq);
+        this.count += (csq == null? 4 : csq.length()); // "null"
+        return this;
+    }
+
+
+    @Override
+    public Writer append(final CharSequence csq, final int start, final int end) throws IOException {
+        this.writer.append(csq, start, end);
+        this.count += (end - start);
+        return this;
+    }
+
+
+    @Override
+    public Writer append(final char c) throws IOException {
+        this.writer.append(c);
+        this.count++;
+        return this;
+    }
+
+
+    @Override
+    public void flush() throws IOException {
+        this.writer.flush();
+    }
+
+
+    @Override
+    public void close() throws IOException {
+        this.writer.close();
+    }
+
+}
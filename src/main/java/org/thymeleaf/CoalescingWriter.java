@@ -0,0 +1,168 @@
+/*
+ * =============================================================================
+ *
+ *   Copyright (c) 2011-2016, The THYMELEAF team (http://www.thymeleaf.org)
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ * =============================================================================
+ */
+package org.thymeleaf;
+
+import java.io.IOException;
+import java.io.Writer;
+
+
+/*
+ * Writer wrapper that coalesces the many small writes performed by the output stage of the engine (one per text,
+ * tag, attribute...) into a char buffer, writing to the delegate writer only in large blocks. This greatly reduces
+ * the amount of calls to writers with a high per-call overhead, like the (synchronized, encoding) writers returned
+ * by servlet containers.
+ *
+ * Explicit flushes are respected, i.e. flush() writes all buffered output before flushing the delegate writer.
+ * Buffers are reused among executions in the same thread (and also among different engines if buffer sizes are
+ * equal). Note instances of this class are not thread-safe, and they must be released after use.
+ *
+ * @author Daniel Fernandez
+ * @since 3.0.10
+ *
+ */
+final class CoalescingWriter extends Writer {
+
+    private static final ThreadLocal<char[]> BUFFERS = new ThreadLocal<char[]>();
+
+    private final Writer writer;
+    private char[] buffer;
+    private int pos;
+
+
+
+    static CoalescingWriter acquire(final Writer writer, final int bufferSize) {
+        char[] buffer = BUFFERS.get();
+        if (buffer != null && buffer.length == bufferSize) {
+            // Remove it while in use, so that nested executions in the same thread do not share it
+            BUFFERS.set(null);
+        } else {
+            buffer = new char[bufferSize];
+        }
+        return new CoalescingWriter(writer, buffer);
+    }
+
+
+    private CoalescingWriter(final Writer writer, final char[] buffer) {
+        super();
+        this.writer = writer;
+        this.buffer = buffer;
+        this.pos = 0;
+    }
+
+
+    /*
+     * Writes all buffered output to the delegate writer (without flushing it) and returns the buffer so that it
+     * can be reused by other executions in the same thread. The writer must not be used after being released.
+     */
+    void release() throws IOException {
+        if (this.buffer == null) {
+            return;
+        }
+        final char[] releasedBuffer = this.buffer;
+        try {
+            drain();
+        } finally {
+            this.buffer = null;
+            this.pos = 0;
+            BUFFERS.set(releasedBuffer);
+        }
+    }
+
+
+    private void drain() throws IOException {
+        if (this.pos > 0) {
+            final int len = this.pos;
+            this.pos = 0; // Reset before writing, so that a failing writer does not get the same chars again
+            this.writer.write(this.buffer, 0, len);
+        }
+    }
+
+
+
+
+    @Override
+    public void write(final int c) throws IOException {
+        if (this.pos == this.buffer.length) {
+            drain();
+        }
+        this.buffer[this.pos++] = (char) c;
+    }
+
+
+    @Override
+    public void write(final char[] cbuf, final int off, final int len) throws IOException {
+        if (len > this.buffer.length - this.pos) {
+            drain();
+            if (len >= this.buffer.length) {
+                // Too large to be buffered: just write it directly
+                this.writer.write(cbuf, off, len);
+                return;
+            }
+        }
+        System.arraycopy(cbuf, off, this.buffer, this.pos, len);
+        this.pos += len;
+    }
+
+
+    @Override
+    public void write(final String str) throws IOException {
+        write(str, 0, str.length());
+    }
+
+
+    @Override
+    public void write(final String str, final int off, final int len) throws IOException {
+        if (len > this.buffer.length - this.pos) {
+            drain();
+            if (len >= this.buffer.length) {
+                // Too large to be buffered: just write it directly
+                this.writer.write(str, off, len);
+                return;
+            }
+        }
+        str.getChars(off, off + len, this.buffer, this.pos);
+        this.pos += len;
+    }
+
+
+    @Override
+    public Writer append(final CharSequence csq) throws IOException {
+        if (csq instanceof String) {
+            write((String) csq);
+            return this;
+        }
+        return super.append(csq);
+    }
+
+
+    @Override
+    public void flush() throws IOException {
+        drain();
+        this.writer.flush();
+    }
+
+
+    @Override
+    public void close() throws IOException {
+        drain();
+        this.writer.close();
+    }
+
+}
@@ -35,9 +35,14 @@
 import org.thymeleaf.engine.ElementDefinitions;
 import org.thymeleaf.engine.StandardModelFactory;
 import org.thymeleaf.engine.TemplateManager;
+import org.thymeleaf.engine.IncrementalTemplateParsing;
+import org.thymeleaf.engine.StringTemplateCache;
+import org.thymeleaf.engine.TemplateStringPool;
 import org.thymeleaf.expression.IExpressionObjectFactory;
 import org.thymeleaf.linkbuilder.ILinkBuilder;
 import org.thymeleaf.messageresolver.IMessageResolver;
+import org.thymeleaf.metrics.IEngineMetricsListener;
+import org.thymeleaf.metrics.TemplateProfiler;
 import org.thymeleaf.model.IModelFactory;
 import org.thymeleaf.postprocessor.IPostProcessor;
 import org.thymeleaf.preprocessor.IPreProcessor;
@@ -75,6 +80,12 @@ public class EngineConfiguration implements IEngineConfiguration {
     private final ICacheManager cacheManager;
     private final IEngineContextFactory engineContextFactory;
     private final IDecoupledTemplateLogicResolver decoupledTemplateLogicResolver;
+    private final IEngineMetricsListener metricsListener;
+    private final TemplateProfiler templateProfiler;
+    private final boolean compactTemplateCache;
+    private final TemplateStringPool templateStringPool;
+    private final IncrementalTemplateParsing incrementalTemplateParsing;
+    private final StringTemplateCache stringTemplateCache;
     private TemplateManager templateManager;
     private final ConcurrentHashMap<TemplateMode,IModelFactory> modelFactories;
 
@@ -89,7 +100,13 @@ public class EngineConfiguration implements IEngineConfiguration {
             final Set<DialectConfiguration> dialectConfigurations,
             final ICacheManager cacheManager,
             final IEngineContextFactory engineContextFactory,
-            final IDecoupledTemplateLogicResolver decoupledTemplateLogicResolver) {
+            final IDecoupledTemplateLogicResolver decoupledTemplateLogicResolver,
+            final IEngineMetricsListener metricsListener,
+            final TemplateProfiler templateProfiler,
+            final boolean compactTemplateCache,
+            final TemplateStringPool templateStringPool,
+            final IncrementalTemplateParsing incrementalTemplateParsing,
+            final StringTemplateCache stringTemplateCache) {
 
         super();
 
@@ -101,6 +118,11 @@ public class EngineConfiguration implements IEngineConfiguration {
         // Cache Manager CAN be null
         Validate.notNull(engineContextFactory, "Engine Context Factory cannot be null");
         Validate.notNull(decoupledTemplateLogicResolver, "Decoupled Template Logic Resolver cannot be null");
+        // Metrics Listener CAN be null
+        // Template Profiler CAN be null
+        // Template String Pool CAN be null
+        // Incremental Template Parsing CAN be null
+        // String Template Cache CAN be null
 
         final List<ITemplateResolver> templateResolversList = new ArrayList<ITemplateResolver>(templateResolvers);
         Collections.sort(templateResolversList, TemplateResolverComparator.INSTANCE);
@@ -120,6 +142,18 @@ public class EngineConfiguration implements IEngineConfiguration {
 
         this.decoupledTemplateLogicResolver = decoupledTemplateLogicResolver;
 
+        this.metricsListener = metricsListener;
+
+        this.templateProfiler = templateProfiler;
+
+        this.compactTemplateCache = compactTemplateCache;
+
+        this.templateStringPool = templateStringPool;
+
+        this.incrementalTemplateParsing = incrementalTemplateParsing;
+
+        this.stringTemplateCache = stringTemplateCache;
+
         this.dialectSetConfiguration = DialectSetConfiguration.build(dialectConfigurations);
 
         // NOTE we are NOT initializing the templateManager here, but in #initialize()
@@ -171,6 +205,68 @@ public IDecoupledTemplateLogicResolver getDecoupledTemplateLogicResolver() {
 
 
 
+    /*
+     * Listener metrics are reported to, or null if no metrics are computed (see
+     * TemplateEngine#setMetricsListener(IEngineMetricsListener)). Not part of IEngineConfiguration so that
+     * other implementations of that interface are not affected.
+     */
+    public IEngineMetricsListener getMetricsListener() {
+        return this.metricsListener;
+    }
+
+
+
+    /*
+     * Profiler accumulating processor and expression execution times, or null if no profiling is performed (see
+     * TemplateEngine#setTemplateProfiler(TemplateProfiler)). Not part of IEngineConfiguration for the same reason
+     * as #getMetricsListener().
+     */
+    public TemplateProfiler getTemplateProfiler() {
+        return this.templateProfiler;
+    }
+
+
+
+    /*
+     * Whether template models should be compacted before being stored at the template cache (see
+     * TemplateEngine#setCompactTemplateCache(boolean))
+     */
+    public boolean isCompactTemplateCache() {
+        return this.compactTemplateCache;
+    }
+
+
+
+    /*
+     * String pool to be used for canonicalizing the texts, names and values of parsed templates, or null if
+     * none (see TemplateEngine#setTemplateStringPool(TemplateStringPool))
+     */
+    public TemplateStringPool getTemplateStringPool() {
+        return this.templateStringPool;
+    }
+
+
+
+    /*
+     * Incremental parsing of cached templates that need to be parsed again, or null if disabled (see
+     * TemplateEngine#setIncrementalTemplateParsing(IncrementalTemplateParsing))
+     */
+    public IncrementalTemplateParsing getIncrementalTemplateParsing() {
+        return this.incrementalTemplateParsing;
+    }
+
+
+
+    /*
+     * Cache for templates resolved as Strings, keyed by their contents, or null if these templates are cached at
+     * the template cache like any other (see TemplateEngine#setStringTemplateCache(StringTemplateCache))
+     */
+    public StringTemplateCache getStringTemplateCache() {
+        return this.stringTemplateCache;
+    }
+
+
+
 
     public Set<DialectConfiguration> getDialectConfigurations() {
         return this.dialectSetConfiguration.getDialectConfigurations();
@@ -21,6 +21,7 @@
 
 import java.io.Writer;
 import java.util.Set;
+import java.util.concurrent.Executor;
 
 import org.thymeleaf.context.IContext;
 
@@ -279,4 +280,65 @@ public interface ITemplateEngine {
      */
     public IThrottledTemplateProcessor processThrottled(final TemplateSpec templateSpec, final IContext context);
 
+
+
+    /**
+     * <p>
+     * Process a template starting from a {@link TemplateSpec} once for each of the specified contexts, writing
+     * the output of each of these executions to the writer provided by the specified {@link ITemplateOutputSink}.
+     * This is specially useful for scenarios in which the same template has to be rendered for a large number
+     * of different sets of data (e.g. emails or notifications for a list of recipients).
+     * </p>
+     * <p>
+     * The template will be resolved and parsed only once for the whole batch, and the resulting template model
+     * will be reused for processing every context, even if the template is not cacheable.
+     * </p>
+     * <p>
+     * Contexts will be processed sequentially in the calling thread. Processing will stop at the first
+     * context that produces an error.
+     * </p>
+     *
+     * @param templateSpec the template spec containing the template to be resolved (usually its name only),
+     *                     template selectors if they are to be applied, a template mode if it should be forced
+     *                     (instead of computing it at resolution time), and other attributes.
+     * @param contexts     the contexts the template will be processed with.
+     * @param outputSink   the sink providing the writers the results will be output to.
+     *
+     * @since 3.0.10
+     */
+    public void processBatch(final TemplateSpec templateSpec, final Iterable<? extends IContext> contexts, final ITemplateOutputSink outputSink);
+
+
+    /**
+     * <p>
+     * Process a template starting from a {@link TemplateSpec} once for each of the specified contexts, writing
+     * the output of each of these executions to the writer provided by the specified {@link ITemplateOutputSink},
+     * and distributing these executions among the threads of the specified {@link Executor}.
+     * </p>
+     * <p>
+     * The template will be resolved and parsed only once (in the calling thread) for the whole batch, and the
+     * resulting template model will be reused for processing every context, even if the template is not cacheable.
+     * </p>
+     * <p>
+     * Contexts are obtained from the iterable as the executor makes progress, so that only a limited amount
+     * of them are waiting for or being processed at the same time. This method will not return until all contexts
+     * have been processed. If any errors happen during processing, all the remaining contexts will be processed
+     * anyway and the first error will be thrown at the end. If the executor rejects a context (or iterating
+     * the contexts fails), no more contexts will be processed and the error will be thrown once all the
+     * contexts already being processed have finished. Note the output sink must be thread-safe if the
+     * executor uses more than one thread.
+     * </p>
+     *
+     * @param templateSpec the template spec containing the template to be resolved (usually its name only),
+     *                     template selectors if they are to be applied, a template mode if it should be forced
+     *                     (instead of computing it at resolution time), and other attributes.
+     * @param contexts     the contexts the template will be processed with.
+     * @param outputSink   the sink providing the writers the results will be output to.
+     * @param executor     the executor that will process each of the contexts. If null, all contexts will be
+     *                     processed sequentially in the calling thread.
+     *
+     * @since 3.0.10
+     */
+    public void processBatch(final TemplateSpec templateSpec, final Iterable<? extends IContext> contexts, final ITemplateOutputSink outputSink, final Executor executor);
+
 }
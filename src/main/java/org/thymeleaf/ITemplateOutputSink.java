@@ -0,0 +1,90 @@
+/*
+ * =============================================================================
+ *
+ *   Copyright (c) 2011-2016, The THYMELEAF team (http://www.thymeleaf.org)
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ * =============================================================================
+ */
+package org.thymeleaf;
+
+import java.io.Writer;
+
+import org.thymeleaf.context.IContext;
+
+/**
+ * <p>
+ *   Interface defining the output means for each of the items processed by the <tt>processBatch(...)</tt>
+ *   methods at {@link ITemplateEngine}, i.e. for each of the contexts a template is processed with.
+ * </p>
+ * <p>
+ *   For each context, the engine will first call {@link #openWriter(int, IContext)} in order to obtain the
+ *   {@link Writer} output should be written to, then process the template writing its results to that writer,
+ *   then flush the writer and finally call {@link #closeWriter(int, IContext, Writer, Throwable)}, so that the sink
+ *   can deliver the output (e.g. send an email) and release any resources.
+ * </p>
+ * <p>
+ *   {@link #closeWriter(int, IContext, Writer, Throwable)} is called for every writer returned by
+ *   {@link #openWriter(int, IContext)}, also when processing or flushing fails. In that case the error is
+ *   specified so that the sink can discard the (incomplete) output instead of delivering it, but still
+ *   release its resources.
+ * </p>
+ * <p>
+ *   Note that when an {@link java.util.concurrent.Executor} is specified for batch processing, the methods of
+ *   this interface will be called from the executor threads, so implementations must be <strong>thread-safe</strong>
+ *   in that case.
+ * </p>
+ *
+ * @author Daniel Fern&aacute;ndez
+ *
+ * @see ITemplateEngine#processBatch(TemplateSpec, Iterable, ITemplateOutputSink)
+ *
+ * @since 3.0.10
+ *
+ */
+public interface ITemplateOutputSink {
+
+
+    /**
+     * <p>
+     *   Returns the writer the output of processing the template with the specified context should be written to.
+     * </p>
+     *
+     * @param index the position of the context in the batch (starting at 0).
+     * @param context the context the template is going to be processed with.
+     * @return the writer to be used (cannot be null).
+     */
+    public Writer openWriter(final int index, final IContext context);
+
+
+    /**
+     * <p>
+     *   Signals that the processing of the template with the specified context has finished. If
+     *   <tt>failure</tt> is null, all its output has been written (and flushed) to the specified writer.
+     *   Otherwise processing or flushing failed, output might be incomplete and should not be delivered.
+     * </p>
+     * <p>
+     *   This method is called exactly once for each writer returned by {@link #openWriter(int, IContext)}, and
+     *   is where any resources associated with it should be released. If processing failed, any exceptions
+     *   thrown by this method will be ignored and the processing error will be propagated instead.
+     * </p>
+     *
+     * @param index the position of the context in the batch (starting at 0).
+     * @param context the context the template was processed with.
+     * @param writer the writer that was returned by {@link #openWriter(int, IContext)} for this context.
+     * @param failure the error that made processing fail, or null if it was successful.
+     */
+    public void closeWriter(final int index, final IContext context, final Writer writer, final Throwable failure);
+
+}
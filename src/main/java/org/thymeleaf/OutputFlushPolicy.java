@@ -0,0 +1,143 @@
+/*
+ * =============================================================================
+ *
+ *   Copyright (c) 2011-2016, The THYMELEAF team (http://www.thymeleaf.org)
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ * =============================================================================
+ */
+package org.thymeleaf;
+
+import org.thymeleaf.util.Validate;
+
+/**
+ * <p>
+ *   Policy specifying the points at which the output of a template being processed should be flushed to
+ *   the writer specified at the {@link ITemplateEngine#process(TemplateSpec, org.thymeleaf.context.IContext, java.io.Writer)}
+ *   methods before processing has finished.
+ * </p>
+ * <p>
+ *   By default, the writer used for output is only flushed once the whole template has been processed. For
+ *   large pages written to an HTTP response, this means browsers receive nothing until rendering has completed,
+ *   and cannot start fetching the stylesheets and scripts linked at the <tt>&lt;head&gt;</tt> of the page in
+ *   the meantime. A flush policy allows to send the first part of the output early, by flushing the writer:
+ * </p>
+ * <ul>
+ *   <li>Once, after the first <em>N</em> chars of output have been written.</li>
+ *   <li>After the <tt>&lt;/head&gt;</tt> close tag has been written (<tt>HTML</tt> template mode only).</li>
+ *   <li>After writing each open or standalone element tag that is marked with a specific flush attribute
+ *       (e.g. <tt>&lt;div data-flush&gt;</tt>). This attribute is removed from output.</li>
+ * </ul>
+ * <p>
+ *   Note that flushing applies to the output as it reaches the writer, i.e. after processors have been executed.
+ *   For this reason, the flush attribute should not be one that is handled by a dialect (note attributes
+ *   with the prefix of the Standard Dialect, like <tt>th:flush</tt>, would be processed and removed by it).
+ *   The contents of an element that is marked with the flush attribute will be processed and written
+ *   after the flush, so markers should be placed at the element whose body is slow to produce (or before it).
+ * </p>
+ * <p>
+ *   Flush policies are set at the template engine by means of
+ *   {@link TemplateEngine#setOutputFlushPolicy(OutputFlushPolicy)}, and apply to the <tt>process(...)</tt>
+ *   methods. Throttled executions control their own output and are not affected.
+ * </p>
+ * <p>
+ *   Objects of this class are <strong>immutable</strong>, and therefore thread-safe.
+ * </p>
+ *
+ * @author Daniel Fern&aacute;ndez
+ *
+ * @since 3.0.10
+ *
+ */
+public final class OutputFlushPolicy {
+
+    private final int firstFlushChars;
+    private final boolean flushAfterHead;
+    private final String flushAttributeName;
+
+
+
+    /**
+     * <p>
+     *   Creates a new flush policy.
+     * </p>
+     *
+     * @param firstFlushChars the amount of chars after which the output will be flushed for the first time,
+     *                        or zero if no flush should be performed based on output size.
+     * @param flushAfterHead whether output should be flushed after the <tt>&lt;/head&gt;</tt> close tag.
+     * @param flushAttributeName the complete name of the attribute marking the elements after which output
+     *                           should be flushed (e.g. <tt>data-flush</tt>), or null if no attribute should be used.
+     */
+    public OutputFlushPolicy(final int firstFlushChars, final boolean flushAfterHead, final String flushAttributeName) {
+        super();
+        Validate.isTrue(firstFlushChars >= 0, "Amount of chars before first flush cannot be negative");
+        // flushAttributeName CAN be null
+        Validate.isTrue(
+                flushAttributeName == null || flushAttributeName.trim().length() > 0,
+                "Flush attribute name cannot be empty");
+        this.firstFlushChars = firstFlushChars;
+        this.flushAfterHead = flushAfterHead;
+        this.flushAttributeName = (flushAttributeName == null? null : flushAttributeName.trim());
+    }
+
+
+
+
+    /**
+     * <p>
+     *   Returns the amount of chars after which the output will be flushed for the first time, or
+     *   zero if no flush will be performed based on output size.
+     * </p>
+     *
+     * @return the amount of chars.
+     */
+    public int getFirstFlushChars() {
+        return this.firstFlushChars;
+    }
+
+
+    /**
+     * <p>
+     *   Returns whether output will be flushed after the <tt>&lt;/head&gt;</tt> close tag.
+     * </p>
+     *
+     * @return whether output will be flushed after <tt>&lt;/head&gt;</tt>.
+     */
+    public boolean isFlushAfterHead() {
+        return this.flushAfterHead;
+    }
+
+
+    /**
+     * <p>
+     *   Returns the complete name of the attribute marking the elements after which output will be
+     *   flushed, or null if no attribute is used.
+     * </p>
+     *
+     * @return the name of the flush attribute (might be null).
+     */
+    public String getFlushAttributeName() {
+        return this.flushAttributeName;
+    }
+
+
+
+    @Override
+    public String toString() {
+        return "{firstFlushChars=" + this.firstFlushChars + ", flushAfterHead=" + this.flushAfterHead +
+                ", flushAttributeName=" + this.flushAttributeName + "}";
+    }
+
+
+}
@@ -0,0 +1,202 @@
+/*
+ * =============================================================================
+ *
+ *   Copyright (c) 2011-2016, The THYMELEAF team (http://www.thymeleaf.org)
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ * =============================================================================
+ */
+package org.thymeleaf;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import org.thymeleaf.templatemode.TemplateMode;
+
+
+/*
+ * Per-template estimate of output size, used for presizing the writer used by the String-returning process(...)
+ * methods at TemplateEngine. Without it, output would be accumulated into a small buffer which would have to be
+ * grown (and copied) many times for large outputs.
+ *
+ * The estimate jumps up immediately when a larger output is observed, and decays slowly when outputs are smaller,
+ * so that presized buffers are large enough in most executions. The initial size that can be estimated is limited,
+ * so that an exceptionally large output does not make every subsequent execution allocate a huge buffer.
+ *
+ * Estimates are keyed by template name, template mode and selectors only (resolution attributes are not retained).
+ * Templates with very long names (e.g. templates resolved as Strings, whose name is their whole contents) are not
+ * tracked. The amount of templates tracked is limited, and estimates are evicted following a CLOCK (second chance)
+ * policy: templates are queued in insertion order, and those used since they were last checked are queued again
+ * instead of being evicted.
+ *
+ * @author Daniel Fernandez
+ * @since 3.0.10
+ *
+ */
+final class OutputSizeEstimator {
+
+    static final int DEFAULT_INITIAL_SIZE = 100;
+
+    private static final int MAX_TEMPLATES = 1000;
+    private static final int MAX_TEMPLATE_NAME_LENGTH = 512;
+    private static final int MAX_INITIAL_SIZE = 4 * 1024 * 1024;
+
+    private final ConcurrentHashMap<Key,Estimate> estimates;
+    private final ConcurrentLinkedQueue<Key> clock;
+
+
+    OutputSizeEstimator() {
+        super();
+        this.estimates = new ConcurrentHashMap<Key, Estimate>(32, 0.75f, 4);
+        this.clock = new ConcurrentLinkedQueue<Key>();
+    }
+
+
+    int getInitialSize(final TemplateSpec templateSpec) {
+        if (templateSpec == null || !isTracked(templateSpec)) {
+            // A null spec will be validated (and rejected) later on
+            return DEFAULT_INITIAL_SIZE;
+        }
+        final Estimate estimate = this.estimates.get(new Key(templateSpec));
+        if (estimate == null) {
+            return DEFAULT_INITIAL_SIZE;
+        }
+        estimate.referenced = true;
+        // Leave some slack so that small variations in output size do not make the buffer grow
+        final int size = estimate.size;
+        return Math.min(size + (size >> 4), MAX_INITIAL_SIZE);
+    }
+
+
+    void recordSize(final TemplateSpec templateSpec, final int size) {
+        if (!isTracked(templateSpec)) {
+            return;
+        }
+        final Key key = new Key(templateSpec);
+        final Estimate estimate = this.estimates.get(key);
+        if (estimate == null) {
+            if (this.estimates.putIfAbsent(key, new Estimate(size)) == null) {
+                this.clock.offer(key);
+                if (this.estimates.size() > MAX_TEMPLATES) {
+                    evict();
+                }
+            }
+            return;
+        }
+        final int current = estimate.size;
+        if (size == current) {
+            return;
+        }
+        // Grow immediately, shrink by 1/8 of the difference each time. Note races here are harmless, as the
+        // estimate is only a hint.
+        estimate.size = (size > current? size : current - ((current - size) >> 3));
+    }
+
+
+    void clear() {
+        this.estimates.clear();
+        this.clock.clear();
+    }
+
+
+    private static boolean isTracked(final TemplateSpec templateSpec) {
+        final String template = templateSpec.getTemplate();
+        return template != null && template.length() <= MAX_TEMPLATE_NAME_LENGTH;
+    }
+
+
+    /*
+     * Evicts one estimate not used since it was last checked. The loop is bounded because each referenced estimate
+     * is unmarked when it is queued again, so (without concurrent uses) one full turn is enough.
+     */
+    private void evict() {
+        for (int i = 0, n = MAX_TEMPLATES * 2; i < n; i++) {
+            final Key key = this.clock.poll();
+            if (key == null) {
+                return;
+            }
+            final Estimate estimate = this.estimates.get(key);
+            if (estimate == null) {
+                // Removed by clear()
+                continue;
+            }
+            if (!estimate.referenced) {
+                this.estimates.remove(key, estimate);
+                return;
+            }
+            estimate.referenced = false;
+            this.clock.offer(key);
+        }
+    }
+
+
+
+
+    private static final class Key {
+
+        private final String template;
+        private final TemplateMode templateMode;
+        private final Set<String> templateSelectors;
+        private final int h;
+
+        Key(final TemplateSpec templateSpec) {
+            super();
+            this.template = templateSpec.getTemplate();
+            this.templateMode = templateSpec.getTemplateMode();
+            this.templateSelectors = templateSpec.getTemplateSelectors();
+            int result = this.template.hashCode();
+            result = 31 * result + (this.templateMode != null ? this.templateMode.hashCode() : 0);
+            result = 31 * result + (this.templateSelectors != null ? this.templateSelectors.hashCode() : 0);
+            this.h = result;
+        }
+
+        @Override
+        public boolean equals(final Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            final Key key = (Key) o;
+            return this.h == key.h
+                    && this.template.equals(key.template)
+                    && this.templateMode == key.templateMode
+                    && (this.templateSelectors != null ?
+                            this.templateSelectors.equals(key.templateSelectors) : key.templateSelectors == null);
+        }
+
+        @Override
+        public int hashCode() {
+            return this.h;
+        }
+
+    }
+
+
+    private static final class Estimate {
+
+        volatile int size;
+        volatile boolean referenced;
+
+        Estimate(final int size) {
+            super();
+            this.size = size;
+            this.referenced = false;
+        }
+
+    }
+
+}
@@ -28,6 +28,9 @@
 import java.util.LinkedHashSet;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicReference;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -38,6 +41,10 @@
 import org.thymeleaf.context.StandardEngineContextFactory;
 import org.thymeleaf.dialect.IDialect;
 import org.thymeleaf.engine.TemplateManager;
+import org.thymeleaf.engine.TemplateModel;
+import org.thymeleaf.engine.IncrementalTemplateParsing;
+import org.thymeleaf.engine.StringTemplateCache;
+import org.thymeleaf.engine.TemplateStringPool;
 import org.thymeleaf.exceptions.TemplateEngineException;
 import org.thymeleaf.exceptions.TemplateOutputException;
 import org.thymeleaf.exceptions.TemplateProcessingException;
@@ -45,6 +52,8 @@
 import org.thymeleaf.linkbuilder.StandardLinkBuilder;
 import org.thymeleaf.messageresolver.IMessageResolver;
 import org.thymeleaf.messageresolver.StandardMessageResolver;
+import org.thymeleaf.metrics.IEngineMetricsListener;
+import org.thymeleaf.metrics.TemplateProfiler;
 import org.thymeleaf.standard.StandardDialect;
 import org.thymeleaf.templateparser.markup.decoupled.IDecoupledTemplateLogicResolver;
 import org.thymeleaf.templateparser.markup.decoupled.StandardDecoupledTemplateLogicResolver;
@@ -241,6 +250,11 @@ public class TemplateEngine implements ITemplateEngine {
 
     private static final int NANOS_IN_SECOND = 1000000;
 
+    /*
+     * Maximum amount of batch items that can be waiting for or being processed by an executor at the same time
+     */
+    private static final int BATCH_MAX_TASKS_IN_FLIGHT = Math.max(16, 4 * Runtime.getRuntime().availableProcessors());
+
     private volatile boolean initialized = false;
 
     private final Set<DialectConfiguration> dialectConfigurations = new LinkedHashSet<DialectConfiguration>(3);
@@ -250,6 +264,15 @@ public class TemplateEngine implements ITemplateEngine {
     private ICacheManager cacheManager = null;
     private IEngineContextFactory engineContextFactory = null;
     private IDecoupledTemplateLogicResolver decoupledTemplateLogicResolver = null;
+    private IEngineMetricsListener metricsListener = null;
+    private TemplateProfiler templateProfiler = null;
+    private boolean compactTemplateCache = false;
+    private TemplateStringPool templateStringPool = null;
+    private IncrementalTemplateParsing incrementalTemplateParsing = null;
+    private StringTemplateCache stringTemplateCache = null;
+    private int outputBufferSize = 0;
+    private OutputFlushPolicy outputFlushPolicy = null;
+    private final OutputSizeEstimator outputSizeEstimator = new OutputSizeEstimator();
 
 
     private IEngineConfiguration configuration = null;
@@ -337,7 +360,9 @@ final void initialize() {
                             new EngineConfiguration(
                                     this.templateResolvers, this.messageResolvers, this.linkBuilders,
                                     this.dialectConfigurations, this.cacheManager, this.engineContextFactory,
-                                    this.decoupledTemplateLogicResolver);
+                                    this.decoupledTemplateLogicResolver, this.metricsListener,
+                                    this.templateProfiler, this.compactTemplateCache, this.templateStringPool,
+                                    this.incrementalTemplateParsing, this.stringTemplateCache);
                     ((EngineConfiguration)this.configuration).initialize();
 
                     this.initialized = true;
@@ -816,6 +841,392 @@ public void setDecoupledTemplateLogicResolver(final IDecoupledTemplateLogicResol
         this.decoupledTemplateLogicResolver = decoupledTemplateLogicResolver;
     }
 
+
+    /**
+     * <p>
+     *   Returns the Metrics Listener in effect, which will receive metrics about template resolution,
+     *   parsing, cache usage, processing and output.
+     * </p>
+     * <p>
+     *   By default, no metrics listener is set (and no metrics are computed).
+     * </p>
+     *
+     * @return the metrics listener (might be null).
+     * @since 3.0.10
+     */
+    public final IEngineMetricsListener getMetricsListener() {
+        if (this.initialized) {
+            return ((EngineConfiguration) this.configuration).getMetricsListener();
+        }
+        return this.metricsListener;
+    }
+
+    /**
+     * <p>
+     *   Sets the Metrics Listener (implementation of {@link IEngineMetricsListener}) to be used for reporting
+     *   metrics about the execution of this engine. If set to null, no metrics will be computed.
+     * </p>
+     * <p>
+     *   By default, no metrics listener is set. An in-memory implementation is provided at
+     *   {@link org.thymeleaf.metrics.StandardEngineMetricsListener}.
+     * </p>
+     * <p>
+     *   This operation can only be executed before processing templates for the first
+     *   time. Once a template is processed, the template engine is considered to be
+     *   <i>initialized</i>, and from then on any attempt to change its configuration
+     *   will result in an exception.
+     * </p>
+     *
+     * @param metricsListener the metrics listener to be used.
+     * @since 3.0.10
+     */
+    public void setMetricsListener(final IEngineMetricsListener metricsListener) {
+        // Can be set to null (= no metrics at all)
+        checkNotInitialized();
+        this.metricsListener = metricsListener;
+    }
+
+
+    /**
+     * <p>
+     *   Returns the Template Profiler in effect, which accumulates execution counts and times for the
+     *   processors and variable expressions executed in (a sample of) template executions.
+     * </p>
+     * <p>
+     *   By default, no template profiler is set (and no profiling is performed).
+     * </p>
+     *
+     * @return the template profiler (might be null).
+     * @since 3.0.10
+     */
+    public final TemplateProfiler getTemplateProfiler() {
+        if (this.initialized) {
+            return ((EngineConfiguration) this.configuration).getTemplateProfiler();
+        }
+        return this.templateProfiler;
+    }
+
+    /**
+     * <p>
+     *   Sets the Template Profiler to be used for profiling template executions. If set to null, no
+     *   profiling will be performed.
+     * </p>
+     * <p>
+     *   Note profiling is only applied to templates executed by means of the <tt>process(...)</tt> and
+     *   <tt>processBatch(...)</tt> methods, not to throttled executions.
+     * </p>
+     * <p>
+     *   This operation can only be executed before processing templates for the first
+     *   time. Once a template is processed, the template engine is considered to be
+     *   <i>initialized</i>, and from then on any attempt to change its configuration
+     *   will result in an exception.
+     * </p>
+     *
+     * @param templateProfiler the template profiler to be used.
+     * @since 3.0.10
+     */
+    public void setTemplateProfiler(final TemplateProfiler templateProfiler) {
+        // Can be set to null (= no profiling at all)
+        checkNotInitialized();
+        this.templateProfiler = templateProfiler;
+    }
+
+
+
+    /**
+     * <p>
+     *   Returns whether template models are compacted before being stored at the template cache.
+     * </p>
+     *
+     * @return whether compaction of cached templates is enabled.
+     * @since 3.0.10
+     */
+    public final boolean isCompactTemplateCache() {
+        if (this.initialized) {
+            return ((EngineConfiguration) this.configuration).isCompactTemplateCache();
+        }
+        return this.compactTemplateCache;
+    }
+
+    /**
+     * <p>
+     *   Sets whether template models should be compacted before being stored at the template cache.
+     * </p>
+     * <p>
+     *   Parsed templates contain a separate String instance for each element name, attribute name, attribute value
+     *   or piece of whitespace appearing on them. When compaction is enabled, templates are copied before being
+     *   cached so that equal Strings (and equal arrays of whitespace between attributes) are shared among all
+     *   events and all the templates in the cache, which can greatly reduce the memory used by the template cache
+     *   for large pages. Compaction is performed only once for each template, when it is first parsed, and does not
+     *   affect the results of processing.
+     * </p>
+     * <p>
+     *   Default value is <tt>false</tt>.
+     * </p>
+     * <p>
+     *   This operation can only be executed before processing templates for the first
+     *   time. Once a template is processed, the template engine is considered to be
+     *   <i>initialized</i>, and from then on any attempt to change its configuration
+     *   will result in an exception.
+     * </p>
+     *
+     * @param compactTemplateCache whether cached templates should be compacted.
+     * @since 3.0.10
+     */
+    public void setCompactTemplateCache(final boolean compactTemplateCache) {
+        checkNotInitialized();
+        this.compactTemplateCache = compactTemplateCache;
+    }
+
+
+    /**
+     * <p>
+     *   Returns the String pool used for canonicalizing the texts, names and values of parsed templates,
+     *   or <tt>null</tt> if none has been set.
+     * </p>
+     *
+     * @return the template String pool (might be null).
+     * @since 3.0.10
+     */
+    public final TemplateStringPool getTemplateStringPool() {
+        if (this.initialized) {
+            return ((EngineConfiguration) this.configuration).getTemplateStringPool();
+        }
+        return this.templateStringPool;
+    }
+
+    /**
+     * <p>
+     *   Sets the String pool to be used by the template parsers for canonicalizing the static texts, whitespace,
+     *   element and attribute names, and attribute values of parsed templates.
+     * </p>
+     * <p>
+     *   When a pool is set, equal Strings are shared among all the templates parsed by the engine, which reduces
+     *   the memory used by the template cache when many templates contain the same markup. Strings are weakly held
+     *   by the pool, so they are released once the templates referencing them are evicted from the cache. The pool
+     *   also keeps statistics about the amount of bytes saved (see {@link TemplateStringPool#getSavedBytes()}).
+     *   If template cache compaction is also enabled (see {@link #setCompactTemplateCache(boolean)}), it will use
+     *   this same pool.
+     * </p>
+     * <p>
+     *   Default value is <tt>null</tt> (no pooling).
+     * </p>
+     * <p>
+     *   This operation can only be executed before processing templates for the first
+     *   time. Once a template is processed, the template engine is considered to be
+     *   <i>initialized</i>, and from then on any attempt to change its configuration
+     *   will result in an exception.
+     * </p>
+     *
+     * @param templateStringPool the template String pool to be used (can be null).
+     * @since 3.0.10
+     */
+    public void setTemplateStringPool(final TemplateStringPool templateStringPool) {
+        // Can be set to null (= no pooling at all)
+        checkNotInitialized();
+        this.templateStringPool = templateStringPool;
+    }
+
+
+    /**
+     * <p>
+     *   Returns the configuration (and statistics) of the incremental parsing of cached templates, or
+     *   <tt>null</tt> if incremental parsing is not enabled.
+     * </p>
+     *
+     * @return the incremental template parsing object (might be null).
+     * @since 3.0.10
+     */
+    public final IncrementalTemplateParsing getIncrementalTemplateParsing() {
+        if (this.initialized) {
+            return ((EngineConfiguration) this.configuration).getIncrementalTemplateParsing();
+        }
+        return this.incrementalTemplateParsing;
+    }
+
+    /**
+     * <p>
+     *   Enables the incremental parsing of cached templates that need to be parsed again (e.g. because their
+     *   cache entries have expired), by setting the object that will keep the required snapshots of their
+     *   previously parsed sources and models.
+     * </p>
+     * <p>
+     *   When enabled, templates whose source has not changed since they were last parsed will reuse their previous
+     *   models without being parsed at all, and markup templates with localized changes will only have the
+     *   affected sequences of elements parsed again. See {@link IncrementalTemplateParsing} for details, and for
+     *   the statistics it keeps about the amount of events reused and parsed again. Incremental parsing only
+     *   applies to templates being cached, and does not affect the results of processing.
+     * </p>
+     * <p>
+     *   Each {@link IncrementalTemplateParsing} object should be set at only one template engine.
+     * </p>
+     * <p>
+     *   Default value is <tt>null</tt> (incremental parsing disabled).
+     * </p>
+     * <p>
+     *   This operation can only be executed before processing templates for the first
+     *   time. Once a template is processed, the template engine is considered to be
+     *   <i>initialized</i>, and from then on any attempt to change its configuration
+     *   will result in an exception.
+     * </p>
+     *
+     * @param incrementalTemplateParsing the incremental template parsing object to be used (can be null).
+     * @since 3.0.10
+     */
+    public void setIncrementalTemplateParsing(final IncrementalTemplateParsing incrementalTemplateParsing) {
+        // Can be set to null (= no incremental parsing)
+        checkNotInitialized();
+        this.incrementalTemplateParsing = incrementalTemplateParsing;
+    }
+
+
+    /**
+     * <p>
+     *   Returns the cache used for templates resolved as <tt>String</tt> objects, or <tt>null</tt> if these
+     *   templates are cached at the template cache like any other.
+     * </p>
+     *
+     * @return the string template cache (might be null).
+     * @since 3.0.10
+     */
+    public final StringTemplateCache getStringTemplateCache() {
+        if (this.initialized) {
+            return ((EngineConfiguration) this.configuration).getStringTemplateCache();
+        }
+        return this.stringTemplateCache;
+    }
+
+    /**
+     * <p>
+     *   Sets a specific cache for the templates resolved as <tt>String</tt> objects (e.g. by
+     *   {@link org.thymeleaf.templateresolver.StringTemplateResolver}), i.e. templates whose name is their own
+     *   contents.
+     * </p>
+     * <p>
+     *   When set, these templates will be cached by a hash of their contents (verified on each hit) instead of
+     *   at the template cache, sharing a single entry for equal templates whatever their template resolution
+     *   attributes, and limited by a memory budget independent from the template cache. See
+     *   {@link StringTemplateCache} for details. Note these templates will only be cached if their template
+     *   resolver considers them cacheable (which is not the default for
+     *   {@link org.thymeleaf.templateresolver.StringTemplateResolver}, see
+     *   {@link org.thymeleaf.templateresolver.StringTemplateResolver#setCacheable(boolean)}), though any cache TTL
+     *   will be ignored.
+     * </p>
+     * <p>
+     *   Each {@link StringTemplateCache} object should be set at only one template engine.
+     * </p>
+     * <p>
+     *   Default value is <tt>null</tt> (templates resolved as <tt>String</tt> objects are cached at the template
+     *   cache, if their resolver considers them cacheable).
+     * </p>
+     * <p>
+     *   This operation can only be executed before processing templates for the first
+     *   time. Once a template is processed, the template engine is considered to be
+     *   <i>initialized</i>, and from then on any attempt to change its configuration
+     *   will result in an exception.
+     * </p>
+     *
+     * @param stringTemplateCache the string template cache to be used (can be null).
+     * @since 3.0.10
+     */
+    public void setStringTemplateCache(final StringTemplateCache stringTemplateCache) {
+        // Can be set to null (= String templates are cached at the template cache)
+        checkNotInitialized();
+        this.stringTemplateCache = stringTemplateCache;
+    }
+
+
+    /**
+     * <p>
+     *   Returns the size (in chars) of the output buffer used for coalescing output writes, or zero if output
+     *   is written directly to the writers specified at the <tt>process(...)</tt> methods.
+     * </p>
+     *
+     * @return the output buffer size.
+     * @since 3.0.10
+     */
+    public final int getOutputBufferSize() {
+        return this.outputBufferSize;
+    }
+
+    /**
+     * <p>
+     *   Sets the size (in chars) of the output buffer used for coalescing output writes.
+     * </p>
+     * <p>
+     *   By default (size zero), output is written to the writer specified at the <tt>process(...)</tt>
+     *   methods as it is produced, which means one call to the writer for each text, tag, attribute, etc. This can
+     *   be expensive for writers with a high per-call overhead, like the ones returned by servlet containers (which
+     *   are normally synchronized and encode each written fragment). When a buffer size is set, output will be
+     *   accumulated into a char buffer of this size (reused among executions in the same thread) and written to
+     *   the writer in large blocks, whenever the buffer is full, when the writer is explicitly flushed, and at the
+     *   end of template processing.
+     * </p>
+     * <p>
+     *   This setting only applies to the <tt>process(...)</tt> and <tt>processBatch(...)</tt> methods. Throttled
+     *   executions already manage their output in their own buffers.
+     * </p>
+     * <p>
+     *   This operation can only be executed before processing templates for the first
+     *   time. Once a template is processed, the template engine is considered to be
+     *   <i>initialized</i>, and from then on any attempt to change its configuration
+     *   will result in an exception.
+     * </p>
+     *
+     * @param outputBufferSize the size of the output buffer, or zero for no buffering.
+     * @since 3.0.10
+     */
+    public void setOutputBufferSize(final int outputBufferSize) {
+        Validate.isTrue(outputBufferSize >= 0, "Output buffer size cannot be negative");
+        checkNotInitialized();
+        this.outputBufferSize = outputBufferSize;
+    }
+
+
+    /**
+     * <p>
+     *   Returns the policy specifying when output should be flushed before template processing has
+     *   finished, or null if output is only flushed at the end of processing.
+     * </p>
+     *
+     * @return the output flush policy (might be null).
+     * @since 3.0.10
+     */
+    public final OutputFlushPolicy getOutputFlushPolicy() {
+        return this.outputFlushPolicy;
+    }
+
+    /**
+     * <p>
+     *   Sets the policy specifying when output should be flushed before template processing has finished.
+     * </p>
+     * <p>
+     *   By default (no policy), the writer specified at the <tt>process(...)</tt> methods is only flushed once
+     *   the whole template has been processed. Setting a policy allows to flush it earlier (e.g. right after
+     *   the <tt>&lt;/head&gt;</tt> close tag) so that clients can start receiving the first part of a large
+     *   page while the rest of it is still being rendered. See {@link OutputFlushPolicy} for details.
+     * </p>
+     * <p>
+     *   This setting only applies to the <tt>process(...)</tt> methods (flushing will obviously make no
+     *   difference for the ones returning a <tt>String</tt>). Throttled executions control output flushing by
+     *   themselves.
+     * </p>
+     * <p>
+     *   This operation can only be executed before processing templates for the first
+     *   time. Once a template is processed, the template engine is considered to be
+     *   <i>initialized</i>, and from then on any attempt to change its configuration
+     *   will result in an exception.
+     * </p>
+     *
+     * @param outputFlushPolicy the output flush policy, or null for flushing only at the end of processing.
+     * @since 3.0.10
+     */
+    public void setOutputFlushPolicy(final OutputFlushPolicy outputFlushPolicy) {
+        // Can be set to null (= flush only at the end)
+        checkNotInitialized();
+        this.outputFlushPolicy = outputFlushPolicy;
+    }
+
     
     /**
      * <p>
@@ -998,6 +1409,7 @@ public void clearTemplateCache() {
             initialize();
         }
         this.configuration.getTemplateManager().clearCaches();
+        this.outputSizeEstimator.clear();
     }
 
 
@@ -1055,9 +1467,13 @@ public final String process(final String template, final Set<String> templateSel
 
 
     public final String process(final TemplateSpec templateSpec, final IContext context) {
-        final Writer stringWriter = new FastStringWriter(100);
+        // The writer is presized with the output size estimated from previous executions of the same template
+        // spec (if any), so that large outputs do not need to grow the buffer (and copy it) many times
+        final Writer stringWriter = new FastStringWriter(this.outputSizeEstimator.getInitialSize(templateSpec));
         process(templateSpec, context, stringWriter);
-        return stringWriter.toString();
+        final String result = stringWriter.toString();
+        this.outputSizeEstimator.recordSize(templateSpec, result.length());
+        return result;
     }
 
 
@@ -1094,8 +1510,28 @@ public final void process(final TemplateSpec templateSpec, final IContext contex
 
             final long startNanos = System.nanoTime();
 
+            final IEngineMetricsListener metricsListener = ((EngineConfiguration) this.configuration).getMetricsListener();
+            final Writer countingWriter = (metricsListener == null? writer : new CharCountingWriter(writer));
+            final CoalescingWriter coalescingWriter =
+                    (this.outputBufferSize > 0? CoalescingWriter.acquire(countingWriter, this.outputBufferSize) : null);
+            final Writer processingWriter = (coalescingWriter == null? countingWriter : coalescingWriter);
+
+            final TemplateProfiler templateProfiler = ((EngineConfiguration) this.configuration).getTemplateProfiler();
+            final boolean profiled = (templateProfiler != null && templateProfiler.startExecution());
+
             final TemplateManager templateManager = this.configuration.getTemplateManager();
-            templateManager.parseAndProcess(templateSpec, context, writer);
+            boolean processed = false;
+            try {
+                templateManager.parseAndProcess(templateSpec, context, processingWriter, this.outputFlushPolicy);
+                processed = true;
+            } finally {
+                if (profiled) {
+                    templateProfiler.endExecution(true);
+                }
+                if (coalescingWriter != null) {
+                    releaseCoalescingWriter(coalescingWriter, templateSpec, processed);
+                }
+            }
 
             final long endNanos = System.nanoTime();
             
@@ -1123,21 +1559,32 @@ public final void process(final TemplateSpec templateSpec, final IContext contex
             } catch (final IOException e) {
                 throw new TemplateOutputException("An error happened while flushing output writer", templateSpec.getTemplate(), -1, -1, e);
             }
+
+            if (metricsListener != null) {
+                metricsListener.templateProcessed(
+                        templateSpec.getTemplate(), endNanos - startNanos, ((CharCountingWriter) countingWriter).getCount());
+            }
             
         } catch (final TemplateOutputException e) {
 
+            notifyTemplateFailed(templateSpec, e);
+
             // We log the exception just in case higher levels do not end up logging it (e.g. they could simply display traces in the browser
             logger.error(String.format("[THYMELEAF][%s] Exception processing template \"%s\": %s", new Object[] {TemplateEngine.threadIndex(), templateSpec, e.getMessage()}), e);
             throw e;
             
         } catch (final TemplateEngineException e) {
 
+            notifyTemplateFailed(templateSpec, e);
+
             // We log the exception just in case higher levels do not end up logging it (e.g. they could simply display traces in the browser
             logger.error(String.format("[THYMELEAF][%s] Exception processing template \"%s\": %s", new Object[] {TemplateEngine.threadIndex(), templateSpec, e.getMessage()}), e);
             throw e;
             
         } catch (final RuntimeException e) {
 
+            notifyTemplateFailed(templateSpec, e);
+
             // We log the exception just in case higher levels do not end up logging it (e.g. they could simply display traces in the browser
             logger.error(String.format("[THYMELEAF][%s] Exception processing template \"%s\": %s", new Object[] {TemplateEngine.threadIndex(), templateSpec, e.getMessage()}), e);
             throw new TemplateProcessingException("Exception processing template", templateSpec.toString(), e);
@@ -1203,18 +1650,24 @@ public final IThrottledTemplateProcessor processThrottled(final TemplateSpec tem
 
         } catch (final TemplateOutputException e) {
 
+            notifyTemplateFailed(templateSpec, e);
+
             // We log the exception just in case higher levels do not end up logging it (e.g. they could simply display traces in the browser
             logger.error(String.format("[THYMELEAF][%s] Exception preparing throttled template \"%s\": %s", new Object[] {TemplateEngine.threadIndex(), templateSpec, e.getMessage()}), e);
             throw e;
 
         } catch (final TemplateEngineException e) {
 
+            notifyTemplateFailed(templateSpec, e);
+
             // We log the exception just in case higher levels do not end up logging it (e.g. they could simply display traces in the browser
             logger.error(String.format("[THYMELEAF][%s] Exception preparing throttled template \"%s\": %s", new Object[] {TemplateEngine.threadIndex(), templateSpec, e.getMessage()}), e);
             throw e;
 
         } catch (final RuntimeException e) {
 
+            notifyTemplateFailed(templateSpec, e);
+
             // We log the exception just in case higher levels do not end up logging it (e.g. they could simply display traces in the browser
             logger.error(String.format("[THYMELEAF][%s] Exception preparing throttled template \"%s\": %s", new Object[] {TemplateEngine.threadIndex(), templateSpec, e.getMessage()}), e);
             throw new TemplateProcessingException("Exception preparing throttled template", templateSpec.toString(), e);
@@ -1229,4 +1682,353 @@ public final IThrottledTemplateProcessor processThrottled(final TemplateSpec tem
 
 
 
+    public final void processBatch(
+            final TemplateSpec templateSpec, final Iterable<? extends IContext> contexts, final ITemplateOutputSink outputSink) {
+        processBatch(templateSpec, contexts, outputSink, null);
+    }
+
+
+    public final void processBatch(
+            final TemplateSpec templateSpec, final Iterable<? extends IContext> contexts, final ITemplateOutputSink outputSink,
+            final Executor executor) {
+
+        if (!this.initialized) {
+            initialize();
+        }
+
+        try {
+
+            Validate.notNull(templateSpec, "Template Specification cannot be null");
+            Validate.notNull(contexts, "Contexts cannot be null");
+            Validate.notNull(outputSink, "Output sink cannot be null");
+            // executor CAN be null, in which case all contexts will be processed sequentially in the current thread
+
+            if (logger.isTraceEnabled()) {
+                logger.trace("[THYMELEAF][{}] STARTING BATCH PROCESS OF TEMPLATE \"{}\"",
+                        new Object[]{TemplateEngine.threadIndex(), templateSpec});
+            }
+
+            final long startNanos = System.nanoTime();
+
+            /*
+             * The template is resolved and parsed only once for the whole batch (even if it is not cacheable), and
+             * then the resulting TemplateModel is processed once for each context.
+             */
+            final TemplateManager templateManager = this.configuration.getTemplateManager();
+            final TemplateModel templateModel = templateManager.parseStandalone(templateSpec);
+            final IEngineMetricsListener metricsListener = ((EngineConfiguration) this.configuration).getMetricsListener();
+
+            int count = 0;
+
+            if (executor == null) {
+
+                for (final IContext context : contexts) {
+                    processBatchItem(
+                            templateManager, metricsListener, this.outputBufferSize, templateModel, templateSpec,
+                            count++, context, outputSink);
+                }
+
+            } else {
+
+                /*
+                 * Only a limited amount of tasks is submitted to the executor at a time, so that (possibly lazily
+                 * computed) contexts do not need to be retained all at once. If submitting fails, no tasks still
+                 * waiting to be executed will process their contexts, and the tasks already running will be
+                 * waited for before the error is thrown, so that nothing is written to the sink after that.
+                 */
+                final BatchExecution batchExecution = new BatchExecution(BATCH_MAX_TASKS_IN_FLIGHT);
+                try {
+                    for (final IContext context : contexts) {
+                        batchExecution.submit(
+                                executor,
+                                new BatchItemProcessor(
+                                        templateManager, metricsListener, this.outputBufferSize, templateModel,
+                                        templateSpec, count++, context, outputSink, batchExecution));
+                    }
+                } catch (final RuntimeException e) {
+                    batchExecution.abortAndAwait();
+                    throw e;
+                } catch (final Error e) {
+                    batchExecution.abortAndAwait();
+                    throw e;
+                }
+
+                // We wait for all tasks to finish (whatever their result) before reporting the first error, if any
+                final Throwable firstError = batchExecution.await(templateSpec);
+
+                if (firstError instanceof RuntimeException) {
+                    throw (RuntimeException) firstError;
+                }
+                if (firstError instanceof Error) {
+                    throw (Error) firstError;
+                }
+
+            }
+
+            final long endNanos = System.nanoTime();
+
+            if (logger.isTraceEnabled()) {
+                logger.trace("[THYMELEAF][{}] FINISHED BATCH PROCESS AND OUTPUT OF TEMPLATE \"{}\" FOR {} CONTEXTS",
+                        new Object[]{TemplateEngine.threadIndex(), templateSpec, Integer.valueOf(count)});
+            }
+
+            if (timerLogger.isTraceEnabled()) {
+                final BigDecimal elapsed = BigDecimal.valueOf(endNanos - startNanos);
+                final BigDecimal elapsedMs = elapsed.divide(BigDecimal.valueOf(NANOS_IN_SECOND), RoundingMode.HALF_UP);
+                timerLogger.trace(
+                        "[THYMELEAF][{}][{}][{}][{}][{}] TEMPLATE \"{}\" BATCH-PROCESSED FOR {} CONTEXTS IN {} nanoseconds (approx. {}ms)",
+                        new Object[]{
+                                TemplateEngine.threadIndex(),
+                                LoggingUtils.loggifyTemplateName(templateSpec.getTemplate()), Integer.valueOf(count), elapsed, elapsedMs,
+                                templateSpec, Integer.valueOf(count), elapsed, elapsedMs});
+            }
+
+        } catch (final TemplateOutputException e) {
+
+            notifyTemplateFailed(templateSpec, e);
+
+            // We log the exception just in case higher levels do not end up logging it (e.g. they could simply display traces in the browser
+            logger.error(String.format("[THYMELEAF][%s] Exception batch-processing template \"%s\": %s", new Object[] {TemplateEngine.threadIndex(), templateSpec, e.getMessage()}), e);
+            throw e;
+
+        } catch (final TemplateEngineException e) {
+
+            notifyTemplateFailed(templateSpec, e);
+
+            // We log the exception just in case higher levels do not end up logging it (e.g. they could simply display traces in the browser
+            logger.error(String.format("[THYMELEAF][%s] Exception batch-processing template \"%s\": %s", new Object[] {TemplateEngine.threadIndex(), templateSpec, e.getMessage()}), e);
+            throw e;
+
+        } catch (final RuntimeException e) {
+
+            notifyTemplateFailed(templateSpec, e);
+
+            // We log the exception just in case higher levels do not end up logging it (e.g. they could simply display traces in the browser
+            logger.error(String.format("[THYMELEAF][%s] Exception batch-processing template \"%s\": %s", new Object[] {TemplateEngine.threadIndex(), templateSpec, e.getMessage()}), e);
+            throw new TemplateProcessingException("Exception batch-processing template", templateSpec.toString(), e);
+
+        }
+
+    }
+
+
+    private void notifyTemplateFailed(final TemplateSpec templateSpec, final RuntimeException exception) {
+        final IEngineMetricsListener metricsListener = ((EngineConfiguration) this.configuration).getMetricsListener();
+        if (metricsListener != null) {
+            metricsListener.templateFailed((templateSpec == null? null : templateSpec.getTemplate()), exception);
+        }
+    }
+
+
+    private static void processBatchItem(
+            final TemplateManager templateManager, final IEngineMetricsListener metricsListener,
+            final int outputBufferSize, final TemplateModel templateModel, final TemplateSpec templateSpec,
+            final int index, final IContext context, final ITemplateOutputSink outputSink) {
+
+        Validate.notNull(context, "Context cannot be null");
+
+        final Writer writer = outputSink.openWriter(index, context);
+        Validate.notNull(writer, "Writer returned by output sink cannot be null");
+
+        // The writer is always handed back to the sink once opened, whether processing succeeded or not
+        Throwable failure = null;
+        try {
+
+            final long startNanos = System.nanoTime();
+
+            final Writer countingWriter = (metricsListener == null? writer : new CharCountingWriter(writer));
+            final CoalescingWriter coalescingWriter =
+                    (outputBufferSize > 0? CoalescingWriter.acquire(countingWriter, outputBufferSize) : null);
+            final Writer processingWriter = (coalescingWriter == null? countingWriter : coalescingWriter);
+
+            final IEngineConfiguration configuration = templateModel.getConfiguration();
+            final TemplateProfiler templateProfiler =
+                    (configuration instanceof EngineConfiguration?
+                            ((EngineConfiguration) configuration).getTemplateProfiler() : null);
+            final boolean profiled = (templateProfiler != null && templateProfiler.startExecution());
+            boolean processed = false;
+            try {
+                templateManager.processStandalone(templateModel, templateSpec.getTemplateResolutionAttributes(), context, processingWriter);
+                processed = true;
+            } finally {
+                if (profiled) {
+                    templateProfiler.endExecution(true);
+                }
+                if (coalescingWriter != null) {
+                    releaseCoalescingWriter(coalescingWriter, templateSpec, processed);
+                }
+            }
+
+            final long endNanos = System.nanoTime();
+
+            /*
+             * Flush the writer in order to make sure that everything has been written to output before handing it
+             * back to the sink
+             */
+            try {
+                writer.flush();
+            } catch (final IOException e) {
+                throw new TemplateOutputException("An error happened while flushing output writer", templateSpec.getTemplate(), -1, -1, e);
+            }
+
+            if (metricsListener != null) {
+                metricsListener.templateProcessed(
+                        templateSpec.getTemplate(), endNanos - startNanos, ((CharCountingWriter) countingWriter).getCount());
+            }
+
+        } catch (final RuntimeException e) {
+            failure = e;
+            throw e;
+        } catch (final Error e) {
+            failure = e;
+            throw e;
+        } finally {
+            closeSinkWriter(outputSink, index, context, writer, failure);
+        }
+
+    }
+
+
+    private static void closeSinkWriter(
+            final ITemplateOutputSink outputSink, final int index, final IContext context, final Writer writer,
+            final Throwable failure) {
+        if (failure == null) {
+            outputSink.closeWriter(index, context, writer, null);
+            return;
+        }
+        try {
+            outputSink.closeWriter(index, context, writer, failure);
+        } catch (final RuntimeException ignored) {
+            // If processing failed, the exception that made it fail is the one that should be propagated
+        }
+    }
+
+
+    private static void releaseCoalescingWriter(
+            final CoalescingWriter coalescingWriter, final TemplateSpec templateSpec, final boolean processed) {
+        try {
+            coalescingWriter.release();
+        } catch (final IOException e) {
+            // If processing failed, the exception that made it fail is the one that should be propagated
+            if (processed) {
+                throw new TemplateOutputException("An error happened while writing output", templateSpec.getTemplate(), -1, -1, e);
+            }
+        }
+    }
+
+
+    private static final class BatchItemProcessor implements Runnable {
+
+        private final TemplateManager templateManager;
+        private final IEngineMetricsListener metricsListener;
+        private final int outputBufferSize;
+        private final TemplateModel templateModel;
+        private final TemplateSpec templateSpec;
+        private final int index;
+        private final IContext context;
+        private final ITemplateOutputSink outputSink;
+        private final BatchExecution batchExecution;
+
+        BatchItemProcessor(
+                final TemplateManager templateManager, final IEngineMetricsListener metricsListener,
+                final int outputBufferSize, final TemplateModel templateModel, final TemplateSpec templateSpec,
+                final int index, final IContext context, final ITemplateOutputSink outputSink,
+                final BatchExecution batchExecution) {
+            super();
+            this.templateManager = templateManager;
+            this.metricsListener = metricsListener;
+            this.outputBufferSize = outputBufferSize;
+            this.templateModel = templateModel;
+            this.templateSpec = templateSpec;
+            this.index = index;
+            this.context = context;
+            this.outputSink = outputSink;
+            this.batchExecution = batchExecution;
+        }
+
+        public void run() {
+            try {
+                if (!this.batchExecution.aborted) {
+                    processBatchItem(
+                            this.templateManager, this.metricsListener, this.outputBufferSize, this.templateModel,
+                            this.templateSpec, this.index, this.context, this.outputSink);
+                }
+            } catch (final Throwable t) {
+                this.batchExecution.recordError(t);
+            } finally {
+                this.batchExecution.taskFinished();
+            }
+        }
+
+    }
+
+
+    /*
+     * State of a batch execution distributed among the threads of an executor. Each task in flight holds one of
+     * the permits of a semaphore, so that all the tasks submitted have finished when all permits are available.
+     */
+    private static final class BatchExecution {
+
+        private final int maxTasksInFlight;
+        private final Semaphore permits;
+        private final AtomicReference<Throwable> firstError;
+        volatile boolean aborted;
+
+        BatchExecution(final int maxTasksInFlight) {
+            super();
+            this.maxTasksInFlight = maxTasksInFlight;
+            this.permits = new Semaphore(maxTasksInFlight);
+            this.firstError = new AtomicReference<Throwable>(null);
+            this.aborted = false;
+        }
+
+        void submit(final Executor executor, final BatchItemProcessor task) {
+            try {
+                this.permits.acquire();
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new TemplateProcessingException(
+                        "Interrupted while waiting for batch processing to finish", task.templateSpec.toString(), e);
+            }
+            try {
+                executor.execute(task);
+            } catch (final RuntimeException e) {
+                // The task was not accepted, so it will never release its permit
+                this.permits.release();
+                throw e;
+            }
+        }
+
+        Throwable await(final TemplateSpec templateSpec) {
+            try {
+                this.permits.acquire(this.maxTasksInFlight);
+            } catch (final InterruptedException e) {
+                abortAndAwait();
+                Thread.currentThread().interrupt();
+                throw new TemplateProcessingException(
+                        "Interrupted while waiting for batch processing to finish", templateSpec.toString(), e);
+            }
+            return this.firstError.get();
+        }
+
+        void abortAndAwait() {
+            this.aborted = true;
+            // Tasks not yet started will finish immediately, but the running ones need to be waited for
+            this.permits.acquireUninterruptibly(this.maxTasksInFlight);
+        }
+
+        void recordError(final Throwable t) {
+            this.firstError.compareAndSet(null, t);
+        }
+
+        void taskFinished() {
+            this.permits.release();
+        }
+
+    }
+
+
+
+
+
 }
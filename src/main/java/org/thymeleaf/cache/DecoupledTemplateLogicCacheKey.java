@@ -0,0 +1,141 @@
+/*
+ * =============================================================================
+ *
+ *   Copyright (c) 2011-2016, The THYMELEAF team (http://www.thymeleaf.org)
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ * =============================================================================
+ */
+package org.thymeleaf.cache;
+
+import java.io.Serializable;
+
+import org.thymeleaf.templatemode.TemplateMode;
+import org.thymeleaf.util.LoggingUtils;
+import org.thymeleaf.util.Validate;
+
+
+/**
+ * <p>
+ *   This class models objects used as keys in the Decoupled Template Logic Cache (see
+ *   {@link StandardCacheManager#DECOUPLED_TEMPLATE_LOGIC_CACHE_NAME}).
+ * </p>
+ * <p>
+ *   Entries are keyed by the description of the resource the decoupled logic was read from, along with the
+ *   template the logic applies to and its template mode (which affects case-sensitivity of the selectors).
+ * </p>
+ * <p>
+ *   Objects of this class <strong>should only be created from inside the engine</strong>.
+ * </p>
+ *
+ * @author Daniel Fern&aacute;ndez
+ *
+ * @since 3.0.10
+ */
+public final class DecoupledTemplateLogicCacheKey implements Serializable {
+
+    private static final long serialVersionUID = 3857491226084117L;
+
+    private final String template;
+    private final String resourceDescription;
+    private final TemplateMode templateMode;
+    private final int h;
+
+
+    public DecoupledTemplateLogicCacheKey(
+            final String template, final String resourceDescription, final TemplateMode templateMode) {
+
+        super();
+
+        Validate.notNull(template, "Template cannot be null");
+        Validate.notNull(resourceDescription, "Resource description cannot be null");
+        Validate.notNull(templateMode, "Template mode cannot be null");
+
+        this.template = template;
+        this.resourceDescription = resourceDescription;
+        this.templateMode = templateMode;
+
+        this.h = computeHashCode();
+
+    }
+
+    public String getTemplate() {
+        return this.template;
+    }
+
+    public String getResourceDescription() {
+        return this.resourceDescription;
+    }
+
+    public TemplateMode getTemplateMode() {
+        return this.templateMode;
+    }
+
+
+    @Override
+    public boolean equals(final Object o) {
+
+        if (this == o) {
+            return true;
+        }
+
+        if (!(o instanceof DecoupledTemplateLogicCacheKey)) {
+            return false;
+        }
+
+        final DecoupledTemplateLogicCacheKey that = (DecoupledTemplateLogicCacheKey) o;
+
+        if (this.h != that.h) { // fail fast
+            return false;
+        }
+
+        if (this.templateMode != that.templateMode) {
+            return false;
+        }
+        if (!this.resourceDescription.equals(that.resourceDescription)) {
+            return false;
+        }
+        return this.template.equals(that.template);
+
+    }
+
+
+    @Override
+    public int hashCode() {
+        return this.h;
+    }
+
+
+    private int computeHashCode() {
+        int result = this.template.hashCode();
+        result = 31 * result + this.resourceDescription.hashCode();
+        result = 31 * result + this.templateMode.hashCode();
+        return result;
+    }
+
+
+
+
+    @Override
+    public String toString() {
+        final StringBuilder strBuilder = new StringBuilder();
+        strBuilder.append(LoggingUtils.loggifyTemplateName(this.template));
+        strBuilder.append(" [");
+        strBuilder.append(this.resourceDescription);
+        strBuilder.append("] @");
+        strBuilder.append(this.templateMode);
+        return strBuilder.toString();
+    }
+
+}
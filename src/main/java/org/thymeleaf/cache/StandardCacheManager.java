@@ -19,10 +19,14 @@
  */
 package org.thymeleaf.cache;
 
+import java.util.Collections;
+import java.util.List;
+
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.thymeleaf.TemplateEngine;
 import org.thymeleaf.engine.TemplateModel;
+import org.thymeleaf.templateparser.markup.decoupled.DecoupledTemplateLogic;
 
 
 /**
@@ -59,6 +63,12 @@
  *       it is still valid and can be used.
  * </ul>
  * <p>
+ *   Besides the template and expression caches, this cache manager also provides a <i>specific</i> cache
+ *   for parsed decoupled template logic, available from {@link #getSpecificCache(String)} under the name
+ *   {@link #DECOUPLED_TEMPLATE_LOGIC_CACHE_NAME}. This cache allows the configuration of the same parameters
+ *   as the others, except for its name.
+ * </p>
+ * <p>
  *   Note a class with this name existed since 2.0.0, but it was completely reimplemented
  *   in Thymeleaf 3.0
  * </p>
@@ -142,6 +152,57 @@ public class StandardCacheManager extends AbstractCacheManager {
      */
     public static final ICacheEntryValidityChecker<ExpressionCacheKey,Object> DEFAULT_EXPRESSION_CACHE_VALIDITY_CHECKER = null;
 
+
+    /**
+     * Name of the decoupled template logic cache, used for obtaining it by means of
+     * {@link #getSpecificCache(String)}: {@value}
+     *
+     * @since 3.0.10
+     */
+    public static final String DECOUPLED_TEMPLATE_LOGIC_CACHE_NAME = "DECOUPLED_TEMPLATE_LOGIC_CACHE";
+
+    /**
+     * Default decoupled template logic cache initial size: {@value}
+     *
+     * @since 3.0.10
+     */
+    public static final int DEFAULT_DECOUPLED_TEMPLATE_LOGIC_CACHE_INITIAL_SIZE = 20;
+
+    /**
+     * Default decoupled template logic cache maximum size: {@value}
+     *
+     * @since 3.0.10
+     */
+    public static final int DEFAULT_DECOUPLED_TEMPLATE_LOGIC_CACHE_MAX_SIZE = 200;
+
+    /**
+     * Default decoupled template logic cache "enable counters" flag: {@value}
+     *
+     * @since 3.0.10
+     */
+    public static final boolean DEFAULT_DECOUPLED_TEMPLATE_LOGIC_CACHE_ENABLE_COUNTERS = false;
+
+    /**
+     * Default decoupled template logic cache "use soft references" flag: {@value}
+     *
+     * @since 3.0.10
+     */
+    public static final boolean DEFAULT_DECOUPLED_TEMPLATE_LOGIC_CACHE_USE_SOFT_REFERENCES = true;
+
+    /**
+     * Default decoupled template logic cache logger name: null (default behaviour = org.thymeleaf.TemplateEngine.cache.DECOUPLED_TEMPLATE_LOGIC_CACHE)
+     *
+     * @since 3.0.10
+     */
+    public static final String DEFAULT_DECOUPLED_TEMPLATE_LOGIC_CACHE_LOGGER_NAME = null;
+
+    /**
+     * Default decoupled template logic cache validity checker: an instance of {@link StandardDecoupledTemplateLogicEntryValidator}.
+     *
+     * @since 3.0.10
+     */
+    public static final ICacheEntryValidityChecker<DecoupledTemplateLogicCacheKey,DecoupledTemplateLogic> DEFAULT_DECOUPLED_TEMPLATE_LOGIC_CACHE_VALIDITY_CHECKER = new StandardDecoupledTemplateLogicEntryValidator();
+
     
     
     
@@ -160,6 +221,16 @@ public class StandardCacheManager extends AbstractCacheManager {
     private boolean expressionCacheUseSoftReferences = DEFAULT_EXPRESSION_CACHE_USE_SOFT_REFERENCES;
     private String expressionCacheLoggerName = DEFAULT_EXPRESSION_CACHE_LOGGER_NAME;
     private ICacheEntryValidityChecker<ExpressionCacheKey,Object> expressionCacheValidityChecker = DEFAULT_EXPRESSION_CACHE_VALIDITY_CHECKER;
+
+    private int decoupledTemplateLogicCacheInitialSize = DEFAULT_DECOUPLED_TEMPLATE_LOGIC_CACHE_INITIAL_SIZE;
+    private int decoupledTemplateLogicCacheMaxSize = DEFAULT_DECOUPLED_TEMPLATE_LOGIC_CACHE_MAX_SIZE;
+    private boolean decoupledTemplateLogicCacheEnableCounters = DEFAULT_DECOUPLED_TEMPLATE_LOGIC_CACHE_ENABLE_COUNTERS;
+    private boolean decoupledTemplateLogicCacheUseSoftReferences = DEFAULT_DECOUPLED_TEMPLATE_LOGIC_CACHE_USE_SOFT_REFERENCES;
+    private String decoupledTemplateLogicCacheLoggerName = DEFAULT_DECOUPLED_TEMPLATE_LOGIC_CACHE_LOGGER_NAME;
+    private ICacheEntryValidityChecker<DecoupledTemplateLogicCacheKey,DecoupledTemplateLogic> decoupledTemplateLogicCacheValidityChecker = DEFAULT_DECOUPLED_TEMPLATE_LOGIC_CACHE_VALIDITY_CHECKER;
+
+    private volatile ICache<DecoupledTemplateLogicCacheKey,DecoupledTemplateLogic> decoupledTemplateLogicCache;
+    private volatile boolean decoupledTemplateLogicCacheInitialized = false;
     
     
     
@@ -193,6 +264,56 @@ protected final ICache<ExpressionCacheKey, Object> initializeExpressionCache() {
                 getExpressionCacheInitialSize(), maxSize,
                 getExpressionCacheValidityChecker(), getExpressionCacheLogger(), getExpressionCacheEnableCounters());
     }
+
+
+    protected final ICache<DecoupledTemplateLogicCacheKey, DecoupledTemplateLogic> initializeDecoupledTemplateLogicCache() {
+        final int maxSize = getDecoupledTemplateLogicCacheMaxSize();
+        if (maxSize == 0) {
+            return null;
+        }
+        return new StandardCache<DecoupledTemplateLogicCacheKey, DecoupledTemplateLogic>(
+                DECOUPLED_TEMPLATE_LOGIC_CACHE_NAME, getDecoupledTemplateLogicCacheUseSoftReferences(),
+                getDecoupledTemplateLogicCacheInitialSize(), maxSize,
+                getDecoupledTemplateLogicCacheValidityChecker(), getDecoupledTemplateLogicCacheLogger(),
+                getDecoupledTemplateLogicCacheEnableCounters());
+    }
+
+
+    /**
+     * <p>
+     *   Returns the decoupled template logic cache, initializing it if needed.
+     * </p>
+     *
+     * @return the decoupled template logic cache, or null if it has been disabled (maximum size = 0).
+     * @since 3.0.10
+     */
+    public final ICache<DecoupledTemplateLogicCacheKey, DecoupledTemplateLogic> getDecoupledTemplateLogicCache() {
+        if (!this.decoupledTemplateLogicCacheInitialized) {
+            synchronized(this) {
+                if (!this.decoupledTemplateLogicCacheInitialized) {
+                    this.decoupledTemplateLogicCache = initializeDecoupledTemplateLogicCache();
+                    this.decoupledTemplateLogicCacheInitialized = true;
+                }
+            }
+        }
+        return this.decoupledTemplateLogicCache;
+    }
+
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <K, V> ICache<K, V> getSpecificCache(final String name) {
+        if (DECOUPLED_TEMPLATE_LOGIC_CACHE_NAME.equals(name)) {
+            return (ICache<K, V>) getDecoupledTemplateLogicCache();
+        }
+        return super.getSpecificCache(name);
+    }
+
+
+    @Override
+    public List<String> getAllSpecificCacheNames() {
+        return Collections.singletonList(DECOUPLED_TEMPLATE_LOGIC_CACHE_NAME);
+    }
     
     
     
@@ -274,6 +395,42 @@ public final Logger getExpressionCacheLogger() {
 
 
 
+
+
+    public boolean getDecoupledTemplateLogicCacheUseSoftReferences() {
+        return this.decoupledTemplateLogicCacheUseSoftReferences;
+    }
+
+    private boolean getDecoupledTemplateLogicCacheEnableCounters() {
+        return this.decoupledTemplateLogicCacheEnableCounters;
+    }
+
+    public int getDecoupledTemplateLogicCacheInitialSize() {
+        return this.decoupledTemplateLogicCacheInitialSize;
+    }
+
+    public int getDecoupledTemplateLogicCacheMaxSize() {
+        return this.decoupledTemplateLogicCacheMaxSize;
+    }
+
+    public String getDecoupledTemplateLogicCacheLoggerName() {
+        return this.decoupledTemplateLogicCacheLoggerName;
+    }
+
+    public ICacheEntryValidityChecker<DecoupledTemplateLogicCacheKey,DecoupledTemplateLogic> getDecoupledTemplateLogicCacheValidityChecker() {
+        return this.decoupledTemplateLogicCacheValidityChecker;
+    }
+
+    public final Logger getDecoupledTemplateLogicCacheLogger() {
+        final String loggerName = getDecoupledTemplateLogicCacheLoggerName();
+        if (loggerName != null) {
+            return LoggerFactory.getLogger(loggerName);
+        }
+        return LoggerFactory.getLogger(TemplateEngine.class.getName() + ".cache." + DECOUPLED_TEMPLATE_LOGIC_CACHE_NAME);
+    }
+
+
+
     
     
     public void setTemplateCacheName(final String templateCacheName) {
@@ -332,6 +489,32 @@ public void setExpressionCacheValidityChecker(final ICacheEntryValidityChecker<E
     public void setExpressionCacheEnableCounters(boolean expressionCacheEnableCounters) {
         this.expressionCacheEnableCounters = expressionCacheEnableCounters;
     }
+
+
+
+    public void setDecoupledTemplateLogicCacheInitialSize(final int decoupledTemplateLogicCacheInitialSize) {
+        this.decoupledTemplateLogicCacheInitialSize = decoupledTemplateLogicCacheInitialSize;
+    }
+
+    public void setDecoupledTemplateLogicCacheMaxSize(final int decoupledTemplateLogicCacheMaxSize) {
+        this.decoupledTemplateLogicCacheMaxSize = decoupledTemplateLogicCacheMaxSize;
+    }
+
+    public void setDecoupledTemplateLogicCacheUseSoftReferences(final boolean decoupledTemplateLogicCacheUseSoftReferences) {
+        this.decoupledTemplateLogicCacheUseSoftReferences = decoupledTemplateLogicCacheUseSoftReferences;
+    }
+
+    public void setDecoupledTemplateLogicCacheLoggerName(final String decoupledTemplateLogicCacheLoggerName) {
+        this.decoupledTemplateLogicCacheLoggerName = decoupledTemplateLogicCacheLoggerName;
+    }
+
+    public void setDecoupledTemplateLogicCacheValidityChecker(final ICacheEntryValidityChecker<DecoupledTemplateLogicCacheKey, DecoupledTemplateLogic> decoupledTemplateLogicCacheValidityChecker) {
+        this.decoupledTemplateLogicCacheValidityChecker = decoupledTemplateLogicCacheValidityChecker;
+    }
+
+    public void setDecoupledTemplateLogicCacheEnableCounters(final boolean decoupledTemplateLogicCacheEnableCounters) {
+        this.decoupledTemplateLogicCacheEnableCounters = decoupledTemplateLogicCacheEnableCounters;
+    }
     
     
     
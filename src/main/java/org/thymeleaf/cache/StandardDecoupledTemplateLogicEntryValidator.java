@@ -0,0 +1,53 @@
+/*
+ * =============================================================================
+ *
+ *   Copyright (c) 2011-2016, The THYMELEAF team (http://www.thymeleaf.org)
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ * =============================================================================
+ */
+package org.thymeleaf.cache;
+
+
+import org.thymeleaf.templateparser.markup.decoupled.DecoupledTemplateLogic;
+
+/**
+ * <p>
+ *   Default validity checker for the Decoupled Template Logic Cache, which checks the validity
+ *   set on the cached decoupled logic: its own TTL if one has been configured at the
+ *   {@link org.thymeleaf.templateparser.markup.decoupled.StandardDecoupledTemplateLogicResolver}, or else
+ *   the validity of the template resolution it was computed for.
+ * </p>
+ *
+ * @author Daniel Fern&aacute;ndez
+ *
+ * @since 3.0.10
+ *
+ */
+public final class StandardDecoupledTemplateLogicEntryValidator
+        implements ICacheEntryValidityChecker<DecoupledTemplateLogicCacheKey,DecoupledTemplateLogic> {
+
+    private static final long serialVersionUID = -6305187430219386622L;
+
+    public StandardDecoupledTemplateLogicEntryValidator() {
+        super();
+    }
+
+    public boolean checkIsValueStillValid(
+            final DecoupledTemplateLogicCacheKey key, final DecoupledTemplateLogic value, final long entryCreationTimestamp) {
+        final ICacheEntryValidity validity = value.getValidity();
+        return validity == null || validity.isCacheStillValid();
+    }
+
+}
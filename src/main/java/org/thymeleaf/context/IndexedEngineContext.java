@@ -0,0 +1,685 @@
+/*
+ * =============================================================================
+ *
+ *   Copyright (c) 2011-2016, The THYMELEAF team (http://www.thymeleaf.org)
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ * =============================================================================
+ */
+package org.thymeleaf.context;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+import org.thymeleaf.IEngineConfiguration;
+import org.thymeleaf.engine.TemplateData;
+import org.thymeleaf.inline.IInliner;
+import org.thymeleaf.inline.NoOpInliner;
+import org.thymeleaf.model.IProcessableElementTag;
+import org.thymeleaf.util.Validate;
+
+/**
+ * <p>
+ *   Alternative non-web implementation of the {@link IEngineContext} interface, which stores local variables
+ *   in integer-indexed <em>slots</em> instead of per-level maps.
+ * </p>
+ * <p>
+ *   Context variables (those at level 0) are kept in a map, same as in {@link EngineContext}. But local variables
+ *   (those set by <tt>th:each</tt>, <tt>th:with</tt>, fragment parameters, etc.) are kept in a flat stack of
+ *   entries, and the slot assigned to each local variable name (by a shared {@link LocalVariableSlots} registry)
+ *   points to the most modern entry for that name. This makes reading a local variable a constant-time operation
+ *   independent of the current nesting level, and makes increasing and decreasing levels allocation-free.
+ * </p>
+ * <p>
+ *   Instances of this class are normally created by {@link IndexedEngineContextFactory}. Note that <b>this is an
+ *   internal implementation, and that there is no reason for users' code to directly reference or use it instead
+ *   of its implemented interfaces</b>.
+ * </p>
+ * <p>
+ *   This class is NOT thread-safe. Thread-safety is not a requirement for context implementations.
+ * </p>
+ *
+ * @author Daniel Fern&aacute;ndez
+ *
+ * @since 3.0.10
+ *
+ */
+public class IndexedEngineContext extends AbstractEngineContext implements IEngineContext {
+
+    private static final int DEFAULT_ELEMENT_HIERARCHY_SIZE = 20;
+    private static final int DEFAULT_LEVELS_SIZE = 10;
+    private static final int DEFAULT_ENTRIES_SIZE = 20;
+    private static final int DEFAULT_MAP_SIZE = 5;
+
+
+    private final LocalVariableSlots slots;
+
+    // Level 0 (context) variables
+    private final HashMap<String,Object> variables;
+
+    // Local variable entries, ordered by level
+    private int entryCount = 0;
+    private int overflowEntryCount = 0;
+    private String[] entryNames;
+    private int[] entrySlots;
+    private int[] entryLevels;
+    private int[] entryPrevious;
+    private Object[] entryValues;
+
+    // Index of the most modern entry for each slot (-1 if none)
+    private int[] slotEntries;
+
+    private int level = 0;
+    private SelectionTarget[] selectionTargets;
+    private IInliner[] inliners;
+    private TemplateData[] templateDatas;
+    private IProcessableElementTag[] elementTags;
+
+    private SelectionTarget lastSelectionTarget = null;
+    private IInliner lastInliner = null;
+    private TemplateData lastTemplateData = null;
+
+
+    private static final Object NON_EXISTING = new Object() {
+        @Override
+        public String toString() {
+            return "(*removed*)";
+        }
+    };
+
+    // Using a constant for NULL will avoid the need to perform contains() calls on the map to determine if an entry exists
+    private static final Object NULL = new Object() {
+        @Override
+        public String toString() {
+            return "null";
+        }
+    };
+
+
+
+    /**
+     * <p>
+     *   Creates a new instance of this {@link IEngineContext} implementation.
+     * </p>
+     * <p>
+     *   Note that implementations of {@link IEngineContext} are not meant to be used in order to call
+     *   the template engine (use implementations of {@link IContext} such as {@link Context} or {@link WebContext}
+     *   instead). This is therefore mostly an <b>internal</b> implementation, and users should have no reason
+     *   to ever call this constructor except in very specific integration/extension scenarios.
+     * </p>
+     *
+     * @param configuration the configuration instance being used.
+     * @param templateData the template data for the template to be processed.
+     * @param templateResolutionAttributes the template resolution attributes.
+     * @param locale the locale.
+     * @param variables the context variables, probably coming from another {@link IContext} implementation.
+     * @param slots the (shared) registry of slots assigned to local variable names.
+     */
+    public IndexedEngineContext(
+            final IEngineConfiguration configuration,
+            final TemplateData templateData,
+            final Map<String,Object> templateResolutionAttributes,
+            final Locale locale,
+            final Map<String, Object> variables,
+            final LocalVariableSlots slots) {
+
+        super(configuration, templateResolutionAttributes, locale);
+
+        Validate.notNull(slots, "Local variable slots cannot be null");
+
+        this.slots = slots;
+
+        this.variables =
+                new HashMap<String, Object>(
+                        (variables == null? DEFAULT_MAP_SIZE : Math.max(DEFAULT_MAP_SIZE, variables.size() + 2)), 1.0f);
+
+        this.entryNames = new String[DEFAULT_ENTRIES_SIZE];
+        this.entrySlots = new int[DEFAULT_ENTRIES_SIZE];
+        this.entryLevels = new int[DEFAULT_ENTRIES_SIZE];
+        this.entryPrevious = new int[DEFAULT_ENTRIES_SIZE];
+        this.entryValues = new Object[DEFAULT_ENTRIES_SIZE];
+
+        this.slotEntries = new int[Math.max(DEFAULT_ENTRIES_SIZE, slots.size())];
+        Arrays.fill(this.slotEntries, -1);
+
+        this.selectionTargets = new SelectionTarget[DEFAULT_LEVELS_SIZE];
+        this.inliners = new IInliner[DEFAULT_LEVELS_SIZE];
+        this.templateDatas = new TemplateData[DEFAULT_LEVELS_SIZE];
+        this.elementTags = new IProcessableElementTag[DEFAULT_ELEMENT_HIERARCHY_SIZE];
+
+        this.templateDatas[0] = templateData;
+        this.lastTemplateData = templateData;
+
+        if (variables != null) {
+            setVariables(variables);
+        }
+
+    }
+
+
+
+
+    /*
+     * Returns the index of the most modern local variable entry for this name, or -1 if there is none
+     */
+    private int findEntry(final String name) {
+
+        if (this.entryCount == 0) {
+            return -1;
+        }
+
+        final int slot = this.slots.getSlot(name);
+        if (slot != LocalVariableSlots.NO_SLOT) {
+            return (slot < this.slotEntries.length? this.slotEntries[slot] : -1);
+        }
+
+        if (this.overflowEntryCount > 0) {
+            int n = this.entryCount;
+            while (n-- != 0) {
+                if (this.entrySlots[n] == LocalVariableSlots.NO_SLOT && this.entryNames[n].equals(name)) {
+                    return n;
+                }
+            }
+        }
+
+        return -1;
+
+    }
+
+
+    public boolean containsVariable(final String name) {
+        final int entry = findEntry(name);
+        if (entry >= 0) {
+            // The most modern entry we find for this key could be a removal --> false
+            return this.entryValues[entry] != NON_EXISTING;
+        }
+        return this.variables.containsKey(name);
+    }
+
+
+    public Object getVariable(final String key) {
+        final int entry = findEntry(key);
+        final Object value = (entry >= 0? this.entryValues[entry] : this.variables.get(key));
+        if (value == null || value == NON_EXISTING || value == NULL) {
+            return null;
+        }
+        return resolveLazy(value);
+    }
+
+
+    public Set<String> getVariableNames() {
+
+        final Set<String> variableNames = new HashSet<String>(this.variables.keySet());
+        // Entries are ordered by level, so the most modern ones will be processed last
+        for (int i = 0; i < this.entryCount; i++) {
+            if (this.entryValues[i] == NON_EXISTING) {
+                variableNames.remove(this.entryNames[i]);
+                continue;
+            }
+            variableNames.add(this.entryNames[i]);
+        }
+        return variableNames;
+
+    }
+
+
+    public void setVariable(final String name, final Object value) {
+
+        if (this.level == 0) {
+            if (value == NON_EXISTING) {
+                this.variables.remove(name);
+            } else {
+                this.variables.put(name, (value == null? NULL : value));
+            }
+            return;
+        }
+
+        final Object entryValue = (value == null? NULL : value);
+
+        final int slot = this.slots.getOrAssignSlot(name);
+        final int previous;
+        if (slot != LocalVariableSlots.NO_SLOT) {
+            if (slot >= this.slotEntries.length) {
+                final int oldLength = this.slotEntries.length;
+                this.slotEntries = Arrays.copyOf(this.slotEntries, Math.max(slot + 1, oldLength + DEFAULT_ENTRIES_SIZE));
+                Arrays.fill(this.slotEntries, oldLength, this.slotEntries.length, -1);
+            }
+            previous = this.slotEntries[slot];
+        } else {
+            previous = findEntry(name);
+        }
+
+        if (previous >= 0 && this.entryLevels[previous] == this.level) {
+            // The variable already exists at this level, so we just need to replace its value
+            this.entryValues[previous] = entryValue;
+            return;
+        }
+
+        if (this.entryCount == this.entryValues.length) {
+            final int newLength = this.entryValues.length + DEFAULT_ENTRIES_SIZE;
+            this.entryNames = Arrays.copyOf(this.entryNames, newLength);
+            this.entrySlots = Arrays.copyOf(this.entrySlots, newLength);
+            this.entryLevels = Arrays.copyOf(this.entryLevels, newLength);
+            this.entryPrevious = Arrays.copyOf(this.entryPrevious, newLength);
+            this.entryValues = Arrays.copyOf(this.entryValues, newLength);
+        }
+
+        final int entry = this.entryCount++;
+        this.entryNames[entry] = name;
+        this.entrySlots[entry] = slot;
+        this.entryLevels[entry] = this.level;
+        this.entryPrevious[entry] = previous;
+        this.entryValues[entry] = entryValue;
+
+        if (slot != LocalVariableSlots.NO_SLOT) {
+            this.slotEntries[slot] = entry;
+        } else {
+            this.overflowEntryCount++;
+        }
+
+    }
+
+
+    public void setVariables(final Map<String, Object> variables) {
+
+        if (variables == null || variables.isEmpty()) {
+            return;
+        }
+
+        for (final Map.Entry<String, Object> entry : variables.entrySet()) {
+            setVariable(entry.getKey(), entry.getValue());
+        }
+
+    }
+
+
+
+
+    public void removeVariable(final String name) {
+        if (containsVariable(name)) {
+            setVariable(name, NON_EXISTING);
+        }
+    }
+
+
+
+
+    public boolean isVariableLocal(final String name) {
+        final int entry = findEntry(name);
+        // We return false for "non existing"
+        return (entry >= 0 && this.entryValues[entry] != NON_EXISTING);
+    }
+
+
+
+
+    public boolean hasSelectionTarget() {
+        if (this.lastSelectionTarget != null) {
+            return true;
+        }
+        int n = Math.min(this.level, this.selectionTargets.length - 1) + 1;
+        while (n-- != 0) {
+            if (this.selectionTargets[n] != null) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+
+    public Object getSelectionTarget() {
+        if (this.lastSelectionTarget != null) {
+            return this.lastSelectionTarget.selectionTarget;
+        }
+        int n = Math.min(this.level, this.selectionTargets.length - 1) + 1;
+        while (n-- != 0) {
+            if (this.selectionTargets[n] != null) {
+                this.lastSelectionTarget = this.selectionTargets[n];
+                return this.lastSelectionTarget.selectionTarget;
+            }
+        }
+        return null;
+    }
+
+
+    public void setSelectionTarget(final Object selectionTarget) {
+        ensureLevelCapacity();
+        this.lastSelectionTarget = new SelectionTarget(selectionTarget);
+        this.selectionTargets[this.level] = this.lastSelectionTarget;
+    }
+
+
+
+
+    public IInliner getInliner() {
+        if (this.lastInliner != null) {
+            if (this.lastInliner == NoOpInliner.INSTANCE) {
+                return null;
+            }
+            return this.lastInliner;
+        }
+        int n = Math.min(this.level, this.inliners.length - 1) + 1;
+        while (n-- != 0) {
+            if (this.inliners[n] != null) {
+                this.lastInliner = this.inliners[n];
+                if (this.lastInliner == NoOpInliner.INSTANCE) {
+                    return null;
+                }
+                return this.lastInliner;
+            }
+        }
+        return null;
+    }
+
+
+    public void setInliner(final IInliner inliner) {
+        ensureLevelCapacity();
+        // We use NoOpInliner.INSTANCE in order to signal when inlining has actually been disabled
+        this.lastInliner = (inliner == null? NoOpInliner.INSTANCE : inliner);
+        this.inliners[this.level] = this.lastInliner;
+    }
+
+
+
+
+    public TemplateData getTemplateData() {
+        if (this.lastTemplateData != null) {
+            return this.lastTemplateData;
+        }
+        int n = Math.min(this.level, this.templateDatas.length - 1) + 1;
+        while (n-- != 0) {
+            if (this.templateDatas[n] != null) {
+                this.lastTemplateData = this.templateDatas[n];
+                return this.lastTemplateData;
+            }
+        }
+        return null;
+    }
+
+
+    public void setTemplateData(final TemplateData templateData) {
+        Validate.notNull(templateData, "Template Data cannot be null");
+        ensureLevelCapacity();
+        this.lastTemplateData = templateData;
+        this.templateDatas[this.level] = this.lastTemplateData;
+    }
+
+
+
+
+    public List<TemplateData> getTemplateStack() {
+        final List<TemplateData> templateStack = new ArrayList<TemplateData>(DEFAULT_LEVELS_SIZE);
+        for (int i = 0; i <= this.level && i < this.templateDatas.length; i++) {
+            if (this.templateDatas[i] != null) {
+                templateStack.add(this.templateDatas[i]);
+            }
+        }
+        return Collections.unmodifiableList(templateStack);
+    }
+
+
+
+
+    public void setElementTag(final IProcessableElementTag elementTag) {
+        if (this.elementTags.length <= this.level) {
+            this.elementTags = Arrays.copyOf(this.elementTags, Math.max(this.level, this.elementTags.length + DEFAULT_ELEMENT_HIERARCHY_SIZE));
+        }
+        this.elementTags[this.level] = elementTag;
+    }
+
+
+
+
+    public List<IProcessableElementTag> getElementStack() {
+        final List<IProcessableElementTag> elementStack = new ArrayList<IProcessableElementTag>(this.level);
+        for (int i = 0; i <= this.level && i < this.elementTags.length; i++) {
+            if (this.elementTags[i] != null) {
+                elementStack.add(this.elementTags[i]);
+            }
+        }
+
+        return Collections.unmodifiableList(elementStack);
+    }
+
+
+    public List<IProcessableElementTag> getElementStackAbove(final int contextLevel) {
+        final List<IProcessableElementTag> elementStack = new ArrayList<IProcessableElementTag>(this.level);
+        for (int i = contextLevel + 1; i <= this.level && i < this.elementTags.length; i++) {
+            if (this.elementTags[i] != null) {
+                elementStack.add(this.elementTags[i]);
+            }
+        }
+
+        return Collections.unmodifiableList(elementStack);
+    }
+
+
+
+
+    private void ensureLevelCapacity() {
+        if (this.level >= this.templateDatas.length) {
+            final int newLength = Math.max(this.level + 1, this.templateDatas.length + DEFAULT_LEVELS_SIZE);
+            this.selectionTargets = Arrays.copyOf(this.selectionTargets, newLength);
+            this.inliners = Arrays.copyOf(this.inliners, newLength);
+            this.templateDatas = Arrays.copyOf(this.templateDatas, newLength);
+        }
+    }
+
+
+    public int level() {
+        return this.level;
+    }
+
+
+    public void increaseLevel() {
+        this.level++;
+    }
+
+
+    public void decreaseLevel() {
+
+        Validate.isTrue(this.level > 0, "Cannot decrease variable map level below 0");
+
+        // Entries are ordered by level, so those for the current level will be at the top of the stack
+        while (this.entryCount > 0 && this.entryLevels[this.entryCount - 1] == this.level) {
+            final int entry = --this.entryCount;
+            final int slot = this.entrySlots[entry];
+            if (slot != LocalVariableSlots.NO_SLOT) {
+                this.slotEntries[slot] = this.entryPrevious[entry];
+            } else {
+                this.overflowEntryCount--;
+            }
+            this.entryNames[entry] = null;
+            this.entryValues[entry] = null;
+        }
+
+        if (this.level < this.templateDatas.length) {
+            if (this.selectionTargets[this.level] != null) {
+                this.selectionTargets[this.level] = null;
+                this.lastSelectionTarget = null;
+            }
+            if (this.inliners[this.level] != null) {
+                this.inliners[this.level] = null;
+                this.lastInliner = null;
+            }
+            if (this.templateDatas[this.level] != null) {
+                this.templateDatas[this.level] = null;
+                this.lastTemplateData = null;
+            }
+        }
+
+        if (this.level < this.elementTags.length) {
+            this.elementTags[this.level] = null;
+        }
+
+        this.level--;
+
+    }
+
+
+    public String getStringRepresentationByLevel() {
+
+        final StringBuilder strBuilder = new StringBuilder();
+        strBuilder.append('{');
+        int l = this.level + 1;
+        int entry = this.entryCount;
+        while (l-- != 0) {
+            final Map<String,Object> levelVars = new LinkedHashMap<String, Object>();
+            if (l == 0) {
+                final List<String> entryNames = new ArrayList<String>(this.variables.keySet());
+                Collections.sort(entryNames);
+                for (final String name : entryNames) {
+                    levelVars.put(name, this.variables.get(name));
+                }
+            } else {
+                final int levelEnd = entry;
+                while (entry > 0 && this.entryLevels[entry - 1] == l) {
+                    entry--;
+                }
+                final List<String> entryNames = new ArrayList<String>();
+                final Map<String,Object> entryValues = new HashMap<String, Object>();
+                for (int i = entry; i < levelEnd; i++) {
+                    if (this.entryValues[i] == NON_EXISTING && !existsBelow(this.entryNames[i], i)) {
+                        // We only have to add this if it is really removing anything
+                        continue;
+                    }
+                    entryNames.add(this.entryNames[i]);
+                    entryValues.put(this.entryNames[i], this.entryValues[i]);
+                }
+                Collections.sort(entryNames);
+                for (final String name : entryNames) {
+                    levelVars.put(name, entryValues.get(name));
+                }
+            }
+            final boolean hasLevelData =
+                    (l < this.templateDatas.length &&
+                            (this.selectionTargets[l] != null || this.inliners[l] != null || this.templateDatas[l] != null));
+            if (l == 0 || !levelVars.isEmpty() || hasLevelData) {
+                if (strBuilder.length() > 1) {
+                    strBuilder.append(',');
+                }
+                strBuilder.append(l).append(":");
+                if (!levelVars.isEmpty() || l == 0) {
+                    strBuilder.append(levelVars);
+                }
+                if (hasLevelData) {
+                    if (this.selectionTargets[l] != null) {
+                        strBuilder.append("<").append(this.selectionTargets[l].selectionTarget).append(">");
+                    }
+                    if (this.inliners[l] != null) {
+                        strBuilder.append("[").append(this.inliners[l].getName()).append("]");
+                    }
+                    if (this.templateDatas[l] != null) {
+                        strBuilder.append("(").append(this.templateDatas[l].getTemplate()).append(")");
+                    }
+                }
+            }
+        }
+        strBuilder.append("}[");
+        strBuilder.append(this.level);
+        strBuilder.append(']');
+        return strBuilder.toString();
+
+    }
+
+
+    private boolean existsBelow(final String name, final int entry) {
+        int n = entry;
+        while (n-- != 0) {
+            if (this.entryNames[n].equals(name)) {
+                return this.entryValues[n] != NON_EXISTING;
+            }
+        }
+        return this.variables.containsKey(name);
+    }
+
+
+
+
+    @Override
+    public String toString() {
+
+        final Map<String,Object> equivalentMap = new LinkedHashMap<String, Object>();
+        final List<String> variableNames = new ArrayList<String>(this.variables.keySet());
+        Collections.sort(variableNames);
+        for (final String name : variableNames) {
+            equivalentMap.put(name, this.variables.get(name));
+        }
+        int levelStart = 0;
+        while (levelStart < this.entryCount) {
+            int levelEnd = levelStart;
+            final Map<String,Object> levelVars = new HashMap<String, Object>();
+            while (levelEnd < this.entryCount && this.entryLevels[levelEnd] == this.entryLevels[levelStart]) {
+                levelVars.put(this.entryNames[levelEnd], this.entryValues[levelEnd]);
+                levelEnd++;
+            }
+            final List<String> entryNames = new ArrayList<String>(levelVars.keySet());
+            Collections.sort(entryNames);
+            for (final String name : entryNames) {
+                final Object value = levelVars.get(name);
+                if (value == NON_EXISTING) {
+                    equivalentMap.remove(name);
+                    continue;
+                }
+                equivalentMap.put(name, value);
+            }
+            levelStart = levelEnd;
+        }
+        final String textInliningStr = (getInliner() != null? "[" + getInliner().getName() + "]" : "" );
+        final String templateDataStr = "(" + getTemplateData().getTemplate() + ")";
+        return equivalentMap.toString() + (hasSelectionTarget()? "<" + getSelectionTarget() + ">" : "") + textInliningStr + templateDataStr;
+
+    }
+
+
+
+
+    private static Object resolveLazy(final Object variable) {
+        /*
+         * Check the possibility that this variable is a lazy one, in which case we should not return it directly
+         * but instead make sure it is initialized and return its value.
+         */
+        if (variable != null && variable instanceof ILazyContextVariable) {
+            return ((ILazyContextVariable)variable).getValue();
+        }
+        return variable;
+    }
+
+
+
+    /*
+     * This class works as a wrapper for the selection target, in order to differentiate whether we
+     * have set a selection target, we have not, or we have set it but it's null
+     */
+    private static final class SelectionTarget {
+
+        final Object selectionTarget;
+
+        SelectionTarget(final Object selectionTarget) {
+            super();
+            this.selectionTarget = selectionTarget;
+        }
+
+    }
+
+
+}
@@ -0,0 +1,114 @@
+/*
+ * =============================================================================
+ *
+ *   Copyright (c) 2011-2016, The THYMELEAF team (http://www.thymeleaf.org)
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ * =============================================================================
+ */
+package org.thymeleaf.context;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+import org.thymeleaf.IEngineConfiguration;
+import org.thymeleaf.engine.TemplateData;
+import org.thymeleaf.util.Validate;
+
+/**
+ * <p>
+ *   Implementation of the {@link IEngineContextFactory} interface that creates {@link IndexedEngineContext}
+ *   instances for non-web contexts.
+ * </p>
+ * <p>
+ *   All the engine contexts created by the same factory share a single {@link LocalVariableSlots} registry, so
+ *   that the slot assigned to each local variable name is computed only once for the whole application.
+ * </p>
+ * <p>
+ *   Web contexts (implementations of {@link IWebContext}) will be handled in the same way as in
+ *   {@link StandardEngineContextFactory}, i.e. by creating {@link WebEngineContext} instances.
+ * </p>
+ * <p>
+ *   This factory can be set at {@link org.thymeleaf.TemplateEngine} instances by means of their
+ *   {@link org.thymeleaf.TemplateEngine#setEngineContextFactory(IEngineContextFactory)} method.
+ * </p>
+ *
+ * @author Daniel Fern&aacute;ndez
+ *
+ * @since 3.0.10
+ *
+ */
+public final class IndexedEngineContextFactory implements IEngineContextFactory {
+
+    private final LocalVariableSlots slots;
+    private final StandardEngineContextFactory webEngineContextFactory;
+
+
+
+    public IndexedEngineContextFactory() {
+        this(new LocalVariableSlots());
+    }
+
+
+    public IndexedEngineContextFactory(final LocalVariableSlots slots) {
+        super();
+        Validate.notNull(slots, "Local variable slots cannot be null");
+        this.slots = slots;
+        this.webEngineContextFactory = new StandardEngineContextFactory();
+    }
+
+
+
+
+    public LocalVariableSlots getSlots() {
+        return this.slots;
+    }
+
+
+
+
+    public IEngineContext createEngineContext(
+            final IEngineConfiguration configuration, final TemplateData templateData,
+            final Map<String, Object> templateResolutionAttributes, final IContext context) {
+
+        Validate.notNull(context, "Context object cannot be null");
+
+        if (context instanceof IWebContext) {
+            return this.webEngineContextFactory.createEngineContext(
+                    configuration, templateData, templateResolutionAttributes, context);
+        }
+
+        final Set<String> variableNames = context.getVariableNames();
+
+        if (variableNames == null || variableNames.isEmpty()) {
+            return new IndexedEngineContext(
+                    configuration, templateData, templateResolutionAttributes,
+                    context.getLocale(), Collections.EMPTY_MAP, this.slots);
+        }
+
+        final Map<String,Object> variables = new LinkedHashMap<String, Object>(variableNames.size() + 1, 1.0f);
+        for (final String variableName : variableNames) {
+            variables.put(variableName, context.getVariable(variableName));
+        }
+
+        return new IndexedEngineContext(
+                configuration, templateData, templateResolutionAttributes,
+                context.getLocale(), variables, this.slots);
+
+    }
+
+
+}
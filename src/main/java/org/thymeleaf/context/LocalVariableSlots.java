@@ -0,0 +1,155 @@
+/*
+ * =============================================================================
+ *
+ *   Copyright (c) 2011-2016, The THYMELEAF team (http://www.thymeleaf.org)
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ * =============================================================================
+ */
+package org.thymeleaf.context;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.thymeleaf.util.Validate;
+
+/**
+ * <p>
+ *   Registry of integer <em>slots</em> assigned to the names of local variables, used by
+ *   {@link IndexedEngineContext} in order to store and resolve local variables in flat arrays
+ *   instead of per-level maps.
+ * </p>
+ * <p>
+ *   Local variable names come from templates (<tt>th:each</tt> and <tt>th:with</tt> declarations, fragment
+ *   signatures, etc.), so the set of names is normally small and stable for a given application. Names are assigned
+ *   a slot the first time they are used as local variables, and keep it for the whole life of the registry. In order
+ *   to avoid unbounded growth in the case of applications creating local variables with dynamically-generated
+ *   names, the amount of slots is limited, and names arriving after this limit has been reached will receive no slot
+ *   (and will be handled by the engine context in a slower, but equivalent way).
+ * </p>
+ * <p>
+ *   Objects of this class are <strong>thread-safe</strong>, and are meant to be shared among all the engine
+ *   contexts created by the same {@link IndexedEngineContextFactory}.
+ * </p>
+ *
+ * @author Daniel Fern&aacute;ndez
+ *
+ * @since 3.0.10
+ *
+ */
+public final class LocalVariableSlots {
+
+    /**
+     * Value returned when a variable name has no slot assigned.
+     */
+    public static final int NO_SLOT = -1;
+
+    /**
+     * Default maximum amount of slots: {@value}
+     */
+    public static final int DEFAULT_MAX_SLOTS = 1024;
+
+
+    private final ConcurrentHashMap<String,Integer> slotsByName;
+    private final int maxSlots;
+    private int slotCount; // Only modified while holding the lock on slotsByName
+
+
+
+
+    public LocalVariableSlots() {
+        this(DEFAULT_MAX_SLOTS);
+    }
+
+
+    public LocalVariableSlots(final int maxSlots) {
+        super();
+        Validate.isTrue(maxSlots > 0, "Maximum amount of slots must be greater than zero");
+        this.maxSlots = maxSlots;
+        this.slotsByName = new ConcurrentHashMap<String, Integer>(32, 0.75f, 4);
+        this.slotCount = 0;
+    }
+
+
+
+
+    /**
+     * <p>
+     *   Returns the slot assigned to the specified variable name, or {@link #NO_SLOT} if the name
+     *   has no slot assigned (yet).
+     * </p>
+     *
+     * @param name the variable name.
+     * @return the slot, or {@link #NO_SLOT}.
+     */
+    public int getSlot(final String name) {
+        final Integer slot = this.slotsByName.get(name);
+        return (slot == null? NO_SLOT : slot.intValue());
+    }
+
+
+    /**
+     * <p>
+     *   Returns the slot assigned to the specified variable name, assigning a new one if the name had no
+     *   slot yet. Returns {@link #NO_SLOT} if no slot could be assigned because the maximum amount of slots
+     *   has been reached.
+     * </p>
+     *
+     * @param name the variable name.
+     * @return the slot, or {@link #NO_SLOT}.
+     */
+    public int getOrAssignSlot(final String name) {
+        final Integer slot = this.slotsByName.get(name);
+        if (slot != null) {
+            return slot.intValue();
+        }
+        synchronized (this.slotsByName) {
+            final Integer existingSlot = this.slotsByName.get(name);
+            if (existingSlot != null) {
+                return existingSlot.intValue();
+            }
+            if (this.slotCount >= this.maxSlots) {
+                return NO_SLOT;
+            }
+            final int newSlot = this.slotCount++;
+            this.slotsByName.put(name, Integer.valueOf(newSlot));
+            return newSlot;
+        }
+    }
+
+
+    /**
+     * <p>
+     *   Returns the amount of slots assigned so far.
+     * </p>
+     *
+     * @return the amount of slots.
+     */
+    public int size() {
+        return this.slotsByName.size();
+    }
+
+
+    /**
+     * <p>
+     *   Returns the maximum amount of slots that can be assigned by this registry.
+     * </p>
+     *
+     * @return the maximum amount of slots.
+     */
+    public int getMaxSlots() {
+        return this.maxSlots;
+    }
+
+
+}
@@ -0,0 +1,156 @@
+/*
+ * =============================================================================
+ *
+ *   Copyright (c) 2011-2016, The THYMELEAF team (http://www.thymeleaf.org)
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ * =============================================================================
+ */
+package org.thymeleaf.engine;
+
+import java.io.IOException;
+import java.io.Writer;
+
+
+/*
+ * Writer wrapper that flushes the delegate writer once, as soon as a specified amount of chars has been written
+ * to it. Used by OutputTemplateHandler for applying the first-flush threshold of an OutputFlushPolicy.
+ *
+ * Note the flush might happen in the middle of an event being written (e.g. a large text). This is not a problem,
+ * as the only aim of this flush is sending the first part of the output as soon as possible.
+ *
+ * @author Daniel Fernandez
+ * @since 3.0.10
+ *
+ */
+final class FlushThresholdWriter extends Writer {
+
+    private final Writer writer;
+    private final int threshold;
+    private int count;
+    private boolean flushed;
+
+
+    FlushThresholdWriter(final Writer writer, final int threshold) {
+        super();
+        this.writer = writer;
+        this.threshold = threshold;
+        this.count = 0;
+        this.flushed = false;
+    }
+
+
+    private void checkThreshold() throws IOException {
+        if (this.count >= this.threshold) {
+            this.flushed = true;
+            this.writer.flush();
+        }
+    }
+
+
+    @Override
+    public void write(final int c) throws IOException {
+        this.writer.write(c);
+        if (!this.flushed) {
+            this.count++;
+            checkThreshold();
+        }
+    }
+
+
+    @Override
+    public void write(final char[] cbuf) throws IOException {
+        this.writer.write(cbuf);
+        if (!this.flushed) {
+            this.count += cbuf.length;
+            checkThreshold();
+        }
+    }
+
+
+    @Override
+    public void write(final char[] cbuf, final int off, final int len) throws IOException {
+        this.writer.write(cbuf, off, len);
+        if (!this.flushed) {
+            this.count += len;
+            checkThreshold();
+        }
+    }
+
+
+    @Override
+    public void write(final String str) throws IOException {
+        this.writer.write(str);
+        if (!this.flushed) {
+            this.count += str.length();
+            checkThreshold();
+        }
+    }
+
+
+    @Override
+    public void write(final String str, final int off, final int len) throws IOException {
+        this.writer.write(str, off, len);
+        if (!this.flushed) {
+            this.count += len;
+            checkThreshold();
+        }
+    }
+
+
+    @Override
+    public Writer append(final CharSequence csq) throws IOException {
+        this.writer.append(csq);
+        if (!this.flushed) {
+            this.count += (csq == null? 4 : csq.length()); // "null"
+            checkThreshold();
+        }
+        return this;
+    }
+
+
+    @Override
+    public Writer append(final CharSequence csq, final int start, final int end) throws IOException {
+        this.writer.append(csq, start, end);
+        if (!this.flushed) {
+            this.count += (end - start);
+            checkThreshold();
+        }
+        return this;
+    }
+
+
+    @Override
+    public Writer append(final char c) throws IOException {
+        this.writer.append(c);
+        if (!this.flushed) {
+            this.count++;
+            checkThreshold();
+        }
+        return this;
+    }
+
+
+    @Override
+    public void flush() throws IOException {
+        this.writer.flush();
+    }
+
+
+    @Override
+    public void close() throws IOException {
+        this.writer.close();
+    }
+
+}
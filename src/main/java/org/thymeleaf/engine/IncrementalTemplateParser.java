@@ -0,0 +1,800 @@
+/*
+ * =============================================================================
+ *
+ *   Copyright (c) 2011-2016, The THYMELEAF team (http://www.thymeleaf.org)
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ * =============================================================================
+ */
+package org.thymeleaf.engine;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.Arrays;
+import java.util.Set;
+
+import org.thymeleaf.IEngineConfiguration;
+import org.thymeleaf.cache.TemplateCacheKey;
+import org.thymeleaf.exceptions.TemplateInputException;
+import org.thymeleaf.templatemode.TemplateMode;
+import org.thymeleaf.templateparser.ITemplateParser;
+import org.thymeleaf.templateresource.ITemplateResource;
+
+
+/*
+ * Parses cacheable templates making use of the snapshots kept by an IncrementalTemplateParsing object.
+ *
+ * When the source of a template has changed, the previous model is used for locating the smallest sequence of
+ * sibling events (a "region") that contains the changed chars. Offsets of events are computed from their line and
+ * column, and the region is extended to its neighbour events so that the events right outside it are not affected
+ * by the change (e.g. by texts merging). Only the region is then parsed again, wrapped by the open and close tags
+ * of its ancestors so that it is parsed in the same context (HTML element rules, th:inline...). The events before
+ * the region are reused as they are, and the events after it are reused too, but relocated to their new lines and
+ * columns if the length of the template changed.
+ *
+ * Any condition that could make the result differ from a full parse (elements auto-balanced by the parser, events
+ * not matching their source chars exactly, texts at the limits of the region...) makes the template be parsed
+ * entirely instead.
+ *
+ * @author Daniel Fernandez
+ * @since 3.0.10
+ *
+ */
+final class IncrementalTemplateParser {
+
+    // Parser-level and prototype-only comment blocks are removed before parsing, so events do not map to the
+    // source chars of templates containing them
+    private static final String COMMENT_BLOCK_START = "<!--/*";
+    private static final String COMMENT_BLOCK_END = "*/-->";
+
+    // Marks the end of top-level regions, which have no ancestor close tags after them
+    private static final String REGION_END_MARK = "<!---->";
+
+    // Maximum amount of times a region will be extended in order to find events matching their source chars
+    private static final int MAX_REGION_EXTENSIONS = 4;
+
+
+    private final IEngineConfiguration configuration;
+    private final IncrementalTemplateParsing incrementalTemplateParsing;
+
+
+
+    IncrementalTemplateParser(
+            final IEngineConfiguration configuration, final IncrementalTemplateParsing incrementalTemplateParsing) {
+        super();
+        this.configuration = configuration;
+        this.incrementalTemplateParsing = incrementalTemplateParsing;
+    }
+
+
+
+
+    /*
+     * Returns null if the template source could not be read, so that it is parsed (and the error reported) in
+     * the usual way.
+     */
+    TemplateModel parse(
+            final TemplateCacheKey cacheKey, final ITemplateParser parser,
+            final String ownerTemplate, final String template, final Set<String> templateSelectors,
+            final TemplateData templateData) {
+
+        final ITemplateResource resource = templateData.getTemplateResource();
+        final TemplateMode templateMode = templateData.getTemplateMode();
+
+        final String source;
+        try {
+            source = readSource(resource);
+        } catch (final IOException e) {
+            return null;
+        }
+
+        final IncrementalTemplateParsing.Snapshot snapshot = this.incrementalTemplateParsing.getSnapshot(cacheKey);
+
+        if (snapshot != null) {
+
+            final IEngineTemplateEvent[] previousQueue = snapshot.model.queue;
+
+            if (snapshot.source.equals(source)) {
+                this.incrementalTemplateParsing.recordUnchanged(previousQueue.length - 2);
+                return new TemplateModel(this.configuration, templateData, previousQueue);
+            }
+
+            if ((templateSelectors == null || templateSelectors.isEmpty())
+                    && templateMode.isMarkup() && !snapshot.commentBlocks) {
+                final IncrementalTemplateParsing.Snapshot newSnapshot =
+                        parseChangedRegion(parser, template, templateMode, templateData, snapshot, source);
+                if (newSnapshot != null) {
+                    this.incrementalTemplateParsing.putSnapshot(cacheKey, newSnapshot);
+                    return newSnapshot.model;
+                }
+            }
+
+        }
+
+        final ModelBuilderTemplateHandler builderHandler = new ModelBuilderTemplateHandler(this.configuration, templateData);
+        parser.parseStandalone(
+                this.configuration,
+                ownerTemplate, template, templateSelectors, new SourceTemplateResource(resource, source),
+                templateMode, false, builderHandler);
+        final TemplateModel templateModel = builderHandler.getModel();
+
+        this.incrementalTemplateParsing.recordFullParse(templateModel.queue.length - 2);
+        this.incrementalTemplateParsing.putSnapshot(
+                cacheKey,
+                new IncrementalTemplateParsing.Snapshot(
+                        source, templateModel, containsCommentBlocks(source, 0, source.length()), null, null, null));
+
+        return templateModel;
+
+    }
+
+
+
+
+    private IncrementalTemplateParsing.Snapshot parseChangedRegion(
+            final ITemplateParser parser, final String template, final TemplateMode templateMode,
+            final TemplateData templateData, final IncrementalTemplateParsing.Snapshot snapshot, final String source) {
+
+        final String previousSource = snapshot.source;
+        final IEngineTemplateEvent[] previousQueue = snapshot.model.queue;
+
+        // Events are numbered from 0 here, skipping the TemplateStart/TemplateEnd events at both ends of the queue
+        final int eventCount = previousQueue.length - 2;
+        if (eventCount == 0) {
+            return null;
+        }
+
+        final int previousLen = previousSource.length();
+        final int len = source.length();
+
+        /*
+         * Obtain the layout of the previous model, computing it if this is the first time it is needed
+         */
+        final int[] previousLineStarts;
+        final int[] offsets;
+        final int[] depths;
+        if (snapshot.offsets != null) {
+            previousLineStarts = snapshot.lineStarts;
+            offsets = snapshot.offsets;
+            depths = snapshot.depths;
+        } else {
+            previousLineStarts = computeLineStarts(previousSource, 0, previousLen, new int[64], 0);
+            offsets = new int[eventCount + 1];
+            depths = new int[eventCount + 1];
+            if (!computeLayout(previousQueue, previousLineStarts, previousLen, offsets, depths)) {
+                return null;
+            }
+        }
+
+        /*
+         * Compute the changed chars: both sources share their first 'prefix' and their last 'suffix' chars
+         */
+        final int maxCommon = Math.min(previousLen, len);
+        int prefix = 0;
+        while (prefix < maxCommon && previousSource.charAt(prefix) == source.charAt(prefix)) {
+            prefix++;
+        }
+        int suffix = 0;
+        while (suffix < maxCommon - prefix
+                && previousSource.charAt(previousLen - 1 - suffix) == source.charAt(len - 1 - suffix)) {
+            suffix++;
+        }
+        final int delta = len - previousLen;
+
+        // The previous source had no comment blocks, so only the changed chars (and their surroundings) can add them
+        if (containsCommentBlocks(source, prefix - COMMENT_BLOCK_START.length(), len - suffix + COMMENT_BLOCK_START.length())) {
+            return null;
+        }
+
+        /*
+         * Compute the region [start, end) of events to be parsed again: the events containing the changed chars
+         * plus one neighbour at each side, extended so that it starts and ends at the same depth and never goes
+         * above it (i.e. a sequence of complete sibling elements and texts).
+         *
+         * The events right outside the region, the first and last events in it, and the open tags of its ancestors
+         * must correspond exactly to their source chars, or their offsets could not be trusted (this is not the
+         * case e.g. for the events created from inlined output expressions). If they do not, the region is
+         * extended a bit more.
+         */
+        int start = Math.max(findEventAt(offsets, eventCount, prefix) - 1, 0);
+        int end = Math.min(findEventAt(offsets, eventCount, Math.max(previousLen - suffix - 1, prefix)) + 2, eventCount);
+        int regionDepth;
+        int[] ancestors;
+        int extensions = 0;
+        while (true) {
+
+            regionDepth = Integer.MAX_VALUE;
+            for (int i = start; i <= end; i++) {
+                regionDepth = Math.min(regionDepth, depths[i]);
+            }
+            while (depths[start] != regionDepth) {
+                start--;
+            }
+            while (depths[end] != regionDepth) {
+                end++;
+            }
+
+            // Regions spanning most of the template are not worth the effort
+            if ((end - start) * 2 > eventCount) {
+                return null;
+            }
+
+            ancestors = new int[regionDepth];
+            int ancestorDepth = regionDepth - 1;
+            for (int i = start - 1; i >= 0 && ancestorDepth >= 0; i--) {
+                if (depths[i] == ancestorDepth) {
+                    ancestors[ancestorDepth--] = i;
+                }
+            }
+
+            if (hasExactLimits(previousQueue, previousSource, offsets, eventCount, start, end, ancestors)) {
+                break;
+            }
+
+            if (++extensions > MAX_REGION_EXTENSIONS) {
+                return null;
+            }
+            start = Math.max(start - 1, 0);
+            end = Math.min(end + 1, eventCount);
+
+        }
+
+        final int regionOffset = offsets[start];
+        final int regionLen = (offsets[end] + delta) - regionOffset;
+
+        final StringBuilder wrapperBuilder = new StringBuilder(regionLen + 64 * regionDepth);
+        for (int i = 0; i < regionDepth; i++) {
+            final int ancestor = ancestors[i];
+            wrapperBuilder.append(previousSource, offsets[ancestor], offsets[ancestor + 1]);
+        }
+        final int wrapperPrefixLen = wrapperBuilder.length();
+        wrapperBuilder.append(source, regionOffset, regionOffset + regionLen);
+        // Any structures left unclosed in the region (comments, tags...) will swallow the close tags of the
+        // ancestors or, if there are none, the end mark
+        final boolean endMarked = (regionDepth == 0);
+        if (endMarked) {
+            wrapperBuilder.append(REGION_END_MARK);
+        }
+        for (int i = regionDepth - 1; i >= 0; i--) {
+            wrapperBuilder.append("</");
+            wrapperBuilder.append(((OpenElementTag) previousQueue[ancestors[i] + 1]).elementCompleteName);
+            wrapperBuilder.append('>');
+        }
+        final String wrapper = wrapperBuilder.toString();
+
+        /*
+         * Parse the region (wrapped by its ancestors)
+         */
+        final ModelBuilderTemplateHandler builderHandler = new ModelBuilderTemplateHandler(this.configuration, templateData);
+        try {
+            parser.parseString(this.configuration, template, wrapper, 0, 0, templateMode, builderHandler);
+        } catch (final TemplateInputException e) {
+            // The region might not be parseable on its own: the entire template will be parsed (and any errors reported)
+            return null;
+        }
+        final IEngineTemplateEvent[] wrapperQueue = builderHandler.getModel().queue;
+        final int wrapperEventCount = wrapperQueue.length - 2;
+        final int regionEventCount = wrapperEventCount - 2 * regionDepth - (endMarked? 1 : 0);
+        if (regionEventCount < 0) {
+            return null;
+        }
+
+        /*
+         * Check the region has been parsed in the same way it would be as a part of the template: the ancestors must
+         * be the same and the region must contain complete elements, starting and ending at the limits of the region
+         */
+        final int[] wrapperLineStarts = computeLineStarts(wrapper, 0, wrapper.length(), new int[16], 0);
+        for (int i = 0; i < regionDepth; i++) {
+            final IEngineTemplateEvent open = wrapperQueue[i + 1];
+            final IEngineTemplateEvent close = wrapperQueue[wrapperEventCount - i];
+            final String name = ((OpenElementTag) previousQueue[ancestors[i] + 1]).elementCompleteName;
+            if (!(open instanceof OpenElementTag) || ((OpenElementTag) open).synthetic
+                    || !name.equals(((OpenElementTag) open).elementCompleteName)) {
+                return null;
+            }
+            if (!(close instanceof CloseElementTag) || ((CloseElementTag) close).synthetic
+                    || ((CloseElementTag) close).unmatched
+                    || !name.equals(((CloseElementTag) close).elementCompleteName)) {
+                return null;
+            }
+        }
+        final IEngineTemplateEvent regionEnd = wrapperQueue[wrapperEventCount - regionDepth + (endMarked? 0 : 1)];
+        if (!(regionEnd instanceof AbstractTemplateEvent)
+                || computeOffset(wrapperLineStarts, ((AbstractTemplateEvent) regionEnd).line, ((AbstractTemplateEvent) regionEnd).col) != wrapperPrefixLen + regionLen
+                || (endMarked && !(regionEnd instanceof Comment && matchesSource(regionEnd, wrapper, wrapperPrefixLen + regionLen, wrapper.length())))) {
+            return null;
+        }
+
+        final IEngineTemplateEvent[] regionEvents = new IEngineTemplateEvent[regionEventCount];
+        final int[] regionOffsets = new int[regionEventCount];
+        final int[] regionDepths = new int[regionEventCount];
+        int regionEventDepth = 0;
+        int previousOffset = wrapperPrefixLen;
+        for (int i = 0; i < regionEventCount; i++) {
+            final IEngineTemplateEvent event = wrapperQueue[regionDepth + 1 + i];
+            if (!(event instanceof AbstractTemplateEvent)) {
+                return null;
+            }
+            if (event instanceof AbstractElementTag && ((AbstractElementTag) event).synthetic) {
+                return null;
+            }
+            regionDepths[i] = regionDepth + regionEventDepth;
+            if (event instanceof OpenElementTag) {
+                regionEventDepth++;
+            } else if (event instanceof CloseElementTag) {
+                if (((CloseElementTag) event).unmatched || --regionEventDepth < 0) {
+                    return null;
+                }
+            }
+            final AbstractTemplateEvent templateEvent = (AbstractTemplateEvent) event;
+            final int offset = computeOffset(wrapperLineStarts, templateEvent.line, templateEvent.col);
+            if (i == 0? offset != wrapperPrefixLen : (offset < previousOffset || offset > wrapperPrefixLen + regionLen)) {
+                return null;
+            }
+            previousOffset = offset;
+            regionEvents[i] = event;
+            regionOffsets[i] = offset - wrapperPrefixLen + regionOffset;
+        }
+        if (regionEventDepth != 0) {
+            return null;
+        }
+
+        // Texts at the limits of the region would have been merged with texts right outside it
+        final IEngineTemplateEvent before = (start > 0? previousQueue[start] : null);
+        final IEngineTemplateEvent after = (end < eventCount? previousQueue[end + 1] : null);
+        if (regionEventCount == 0) {
+            if (before instanceof Text && after instanceof Text) {
+                return null;
+            }
+        } else if ((before instanceof Text && regionEvents[0] instanceof Text)
+                || (after instanceof Text && regionEvents[regionEventCount - 1] instanceof Text)) {
+            return null;
+        }
+
+        /*
+         * Compute the start offset of each line in the new source: lines starting in the shared prefix and suffix
+         * are taken from the previous source
+         */
+        int lineCount = 0;
+        while (lineCount < previousLineStarts.length && previousLineStarts[lineCount] <= prefix) {
+            lineCount++;
+        }
+        int[] lineStarts = Arrays.copyOf(previousLineStarts, Math.max(previousLineStarts.length + 16, 64));
+        lineStarts = computeLineStarts(source, prefix, len - suffix, lineStarts, lineCount);
+        final int changedLineCount = lineStarts.length;
+        int firstSuffixLine = previousLineStarts.length;
+        while (firstSuffixLine > 0 && previousLineStarts[firstSuffixLine - 1] > previousLen - suffix) {
+            firstSuffixLine--;
+        }
+        lineStarts = Arrays.copyOf(lineStarts, changedLineCount + (previousLineStarts.length - firstSuffixLine));
+        for (int i = firstSuffixLine; i < previousLineStarts.length; i++) {
+            lineStarts[changedLineCount + i - firstSuffixLine] = previousLineStarts[i] + delta;
+        }
+
+        /*
+         * Build the new queue (and its layout): previous events before the region, region events and previous
+         * events after the region (relocated)
+         */
+        final int newEventCount = start + regionEventCount + (eventCount - end);
+        final IEngineTemplateEvent[] queue = new IEngineTemplateEvent[newEventCount + 2];
+        final int[] newOffsets = new int[newEventCount + 1];
+        final int[] newDepths = new int[newEventCount + 1];
+        queue[0] = TemplateStart.TEMPLATE_START_INSTANCE;
+        System.arraycopy(previousQueue, 1, queue, 1, start);
+        System.arraycopy(offsets, 0, newOffsets, 0, start);
+        System.arraycopy(depths, 0, newDepths, 0, start);
+        System.arraycopy(regionOffsets, 0, newOffsets, start, regionEventCount);
+        System.arraycopy(regionDepths, 0, newDepths, start, regionEventCount);
+        int pos = start;
+
+        final Relocation regionRelocation =
+                new Relocation(wrapperLineStarts, regionOffset - wrapperPrefixLen, lineStarts, Integer.MAX_VALUE, 0);
+        for (int i = 0; i < regionEventCount; i++) {
+            final IEngineTemplateEvent event = relocate(regionEvents[i], regionRelocation);
+            if (event == null) {
+                return null;
+            }
+            queue[1 + pos++] = event;
+        }
+
+        // Events after the last changed line only need their line to be shifted (if the amount of lines changed)
+        final Relocation tailRelocation =
+                new Relocation(
+                        previousLineStarts, delta, lineStarts,
+                        computeLine(previousLineStarts, previousLen - suffix), lineStarts.length - previousLineStarts.length);
+        for (int i = end; i < eventCount; i++) {
+            final IEngineTemplateEvent event = (delta == 0? previousQueue[i + 1] : relocate(previousQueue[i + 1], tailRelocation));
+            if (event == null) {
+                return null;
+            }
+            newOffsets[pos] = offsets[i] + delta;
+            newDepths[pos] = depths[i];
+            queue[1 + pos++] = event;
+        }
+        newOffsets[newEventCount] = len;
+        queue[newEventCount + 1] = TemplateEnd.TEMPLATE_END_INSTANCE;
+
+        this.incrementalTemplateParsing.recordIncrementalParse(start + (eventCount - end), regionEventCount);
+
+        return new IncrementalTemplateParsing.Snapshot(
+                source, new TemplateModel(this.configuration, templateData, queue), false,
+                lineStarts, newOffsets, newDepths);
+
+    }
+
+
+
+
+    /*
+     * Computes the offset of each event and the depth (number of open elements) before it. Returns false if the
+     * model cannot be incrementally parsed.
+     */
+    private static boolean computeLayout(
+            final IEngineTemplateEvent[] queue, final int[] lineStarts, final int len,
+            final int[] offsets, final int[] depths) {
+
+        final int eventCount = queue.length - 2;
+        int depth = 0;
+        for (int i = 0; i < eventCount; i++) {
+            final IEngineTemplateEvent event = queue[i + 1];
+            if (!(event instanceof AbstractTemplateEvent)) {
+                return false;
+            }
+            if (event instanceof AbstractElementTag && ((AbstractElementTag) event).synthetic) {
+                return false;
+            }
+            if (event instanceof CloseElementTag && ((CloseElementTag) event).unmatched) {
+                return false;
+            }
+            final AbstractTemplateEvent templateEvent = (AbstractTemplateEvent) event;
+            final int offset = computeOffset(lineStarts, templateEvent.line, templateEvent.col);
+            if (offset < 0 || offset > len || (i == 0? offset != 0 : offset < offsets[i - 1])) {
+                return false;
+            }
+            offsets[i] = offset;
+            depths[i] = depth;
+            if (event instanceof OpenElementTag) {
+                depth++;
+            } else if (event instanceof CloseElementTag) {
+                if (--depth < 0) {
+                    return false;
+                }
+            }
+        }
+        offsets[eventCount] = len;
+        depths[eventCount] = depth;
+        return (depth == 0);
+
+    }
+
+
+
+
+    private static String readSource(final ITemplateResource resource) throws IOException {
+        final Reader reader = resource.reader();
+        try {
+            final StringBuilder strBuilder = new StringBuilder(4096);
+            final char[] buffer = new char[4096];
+            int read;
+            while ((read = reader.read(buffer)) != -1) {
+                strBuilder.append(buffer, 0, read);
+            }
+            return strBuilder.toString();
+        } finally {
+            reader.close();
+        }
+    }
+
+
+    private static boolean containsCommentBlocks(final String source, final int from, final int to) {
+        final String str = source.substring(Math.max(from, 0), Math.min(to, source.length()));
+        return str.contains(COMMENT_BLOCK_START) || str.contains(COMMENT_BLOCK_END);
+    }
+
+
+    /*
+     * Adds the start offsets of the lines starting in [from, to) to the lineCount already computed ones. Lines are
+     * only delimited by \n, in the same way the parser computes them.
+     */
+    private static int[] computeLineStarts(
+            final String source, final int from, final int to, final int[] lineStarts, final int lineCount) {
+        int[] starts = lineStarts;
+        int count = lineCount;
+        if (count == 0) {
+            starts[count++] = 0;
+        }
+        for (int i = from; i < to; i++) {
+            if (source.charAt(i) == '\n') {
+                if (count == starts.length) {
+                    starts = Arrays.copyOf(starts, count * 2);
+                }
+                starts[count++] = i + 1;
+            }
+        }
+        return Arrays.copyOf(starts, count);
+    }
+
+
+    private static int computeOffset(final int[] lineStarts, final int line, final int col) {
+        if (line < 1 || line > lineStarts.length || col < 1) {
+            return -1;
+        }
+        return lineStarts[line - 1] + col - 1;
+    }
+
+
+    private static int computeLine(final int[] lineStarts, final int offset) {
+        final int pos = Arrays.binarySearch(lineStarts, offset);
+        return (pos >= 0? pos + 1 : -pos - 1);
+    }
+
+
+    private static int findEventAt(final int[] offsets, final int eventCount, final int offset) {
+        // Last event starting at or before the offset
+        int pos = Arrays.binarySearch(offsets, 0, eventCount, offset);
+        if (pos < 0) {
+            return Math.max(-pos - 2, 0);
+        }
+        // Several events might start at the same offset
+        while (pos + 1 < eventCount && offsets[pos + 1] == offset) {
+            pos++;
+        }
+        return pos;
+    }
+
+
+    private static boolean hasExactLimits(
+            final IEngineTemplateEvent[] queue, final String source, final int[] offsets, final int eventCount,
+            final int start, final int end, final int[] ancestors) {
+        // Note event i is at position i + 1 in the queue
+        if ((start > 0 && !matchesSource(queue[start], source, offsets[start - 1], offsets[start]))
+                || !matchesSource(queue[start + 1], source, offsets[start], offsets[start + 1])
+                || !matchesSource(queue[end], source, offsets[end - 1], offsets[end])
+                || (end < eventCount && !matchesSource(queue[end + 1], source, offsets[end], offsets[end + 1]))) {
+            return false;
+        }
+        for (int i = 0; i < ancestors.length; i++) {
+            final int ancestor = ancestors[i];
+            if (!(queue[ancestor + 1] instanceof OpenElementTag)
+                    || !matchesSource(queue[ancestor + 1], source, offsets[ancestor], offsets[ancestor + 1])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+
+    private static boolean matchesSource(
+            final IEngineTemplateEvent event, final String source, final int startOffset, final int endOffset) {
+        final StringWriter writer = new StringWriter(endOffset - startOffset);
+        try {
+            event.write(writer);
+        } catch (final IOException e) {
+            return false; // Cannot happen with a StringWriter
+        }
+        final StringBuffer written = writer.getBuffer();
+        return written.length() == endOffset - startOffset
+                && source.regionMatches(startOffset, written.toString(), 0, written.length());
+    }
+
+
+
+
+    /*
+     * Returns a copy of the event located at its new line and column, computed by shifting its previous offset (or
+     * the event itself if its location does not change). Returns null for events that cannot be relocated.
+     */
+    private static IEngineTemplateEvent relocate(final IEngineTemplateEvent event, final Relocation relocation) {
+
+        final AbstractTemplateEvent templateEvent = (AbstractTemplateEvent) event;
+        final int line = relocation.line(templateEvent.line, templateEvent.col);
+        final int col = relocation.col(templateEvent.line, templateEvent.col);
+        final String templateName = templateEvent.templateName;
+
+        if (line == templateEvent.line && col == templateEvent.col
+                && (!(event instanceof AbstractProcessableElementTag)
+                        || isLocationUnchanged(((AbstractProcessableElementTag) event).attributes, relocation))) {
+            return event;
+        }
+
+        if (event instanceof Text) {
+            return new Text(((Text) event).getText(), templateName, line, col);
+        }
+
+        if (event instanceof OpenElementTag) {
+            final OpenElementTag tag = (OpenElementTag) event;
+            return new OpenElementTag(
+                    tag.templateMode, tag.elementDefinition, tag.elementCompleteName,
+                    relocate(tag.attributes, relocation), tag.synthetic,
+                    templateName, line, col);
+        }
+
+        if (event instanceof CloseElementTag) {
+            final CloseElementTag tag = (CloseElementTag) event;
+            return new CloseElementTag(
+                    tag.templateMode, tag.elementDefinition, tag.elementCompleteName, tag.trailingWhiteSpace,
+                    tag.synthetic, tag.unmatched,
+                    templateName, line, col);
+        }
+
+        if (event instanceof StandaloneElementTag) {
+            final StandaloneElementTag tag = (StandaloneElementTag) event;
+            return new StandaloneElementTag(
+                    tag.templateMode, tag.elementDefinition, tag.elementCompleteName,
+                    relocate(tag.attributes, relocation), tag.synthetic, tag.minimized,
+                    templateName, line, col);
+        }
+
+        if (event instanceof Comment) {
+            final Comment comment = (Comment) event;
+            return new Comment(comment.prefix, comment.getContent(), comment.suffix, templateName, line, col);
+        }
+
+        if (event instanceof CDATASection) {
+            final CDATASection cdataSection = (CDATASection) event;
+            return new CDATASection(
+                    cdataSection.prefix, cdataSection.getContent(), cdataSection.suffix, templateName, line, col);
+        }
+
+        if (event instanceof DocType) {
+            final DocType docType = (DocType) event;
+            return new DocType(
+                    docType.getDocType(), docType.getKeyword(), docType.getElementName(),
+                    docType.getPublicId(), docType.getSystemId(), docType.getInternalSubset(),
+                    templateName, line, col);
+        }
+
+        if (event instanceof XMLDeclaration) {
+            final XMLDeclaration xmlDeclaration = (XMLDeclaration) event;
+            return new XMLDeclaration(
+                    xmlDeclaration.getXmlDeclaration(), xmlDeclaration.getKeyword(), xmlDeclaration.getVersion(),
+                    xmlDeclaration.getEncoding(), xmlDeclaration.getStandalone(),
+                    templateName, line, col);
+        }
+
+        if (event instanceof ProcessingInstruction) {
+            final ProcessingInstruction processingInstruction = (ProcessingInstruction) event;
+            return new ProcessingInstruction(
+                    processingInstruction.getProcessingInstruction(), processingInstruction.getTarget(),
+                    processingInstruction.getContent(),
+                    templateName, line, col);
+        }
+
+        return null;
+
+    }
+
+
+    private static boolean isLocationUnchanged(final Attributes attributes, final Relocation relocation) {
+        if (attributes == null || attributes.attributes == null) {
+            return true;
+        }
+        for (int i = 0; i < attributes.attributes.length; i++) {
+            final Attribute attribute = attributes.attributes[i];
+            if (relocation.line(attribute.line, attribute.col) != attribute.line
+                    || relocation.col(attribute.line, attribute.col) != attribute.col) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+
+    private static Attributes relocate(final Attributes attributes, final Relocation relocation) {
+
+        if (attributes == null || attributes.attributes == null || attributes.attributes.length == 0) {
+            return attributes;
+        }
+
+        final Attribute[] relocatedAttributes = new Attribute[attributes.attributes.length];
+        for (int i = 0; i < relocatedAttributes.length; i++) {
+            final Attribute attribute = attributes.attributes[i];
+            relocatedAttributes[i] =
+                    new Attribute(
+                            attribute.definition, attribute.completeName, attribute.operator, attribute.value,
+                            attribute.valueQuotes, attribute.templateName,
+                            relocation.line(attribute.line, attribute.col), relocation.col(attribute.line, attribute.col));
+        }
+
+        return new Attributes(relocatedAttributes, attributes.innerWhiteSpaces);
+
+    }
+
+
+
+
+    /*
+     * Maps locations (line and column) to a new source, by shifting their offsets. Locations in lines after
+     * lastChangedLine only need their line number to be shifted by lineShift, and keep their column.
+     */
+    private static final class Relocation {
+
+        private final int[] fromLineStarts;
+        private final int shift;
+        private final int[] toLineStarts;
+        private final int lastChangedLine;
+        private final int lineShift;
+
+        Relocation(
+                final int[] fromLineStarts, final int shift, final int[] toLineStarts,
+                final int lastChangedLine, final int lineShift) {
+            super();
+            this.fromLineStarts = fromLineStarts;
+            this.shift = shift;
+            this.toLineStarts = toLineStarts;
+            this.lastChangedLine = lastChangedLine;
+            this.lineShift = lineShift;
+        }
+
+        int line(final int line, final int col) {
+            if (line > this.lastChangedLine) {
+                return line + this.lineShift;
+            }
+            return computeLine(this.toLineStarts, computeOffset(this.fromLineStarts, line, col) + this.shift);
+        }
+
+        int col(final int line, final int col) {
+            if (line > this.lastChangedLine) {
+                return col;
+            }
+            final int offset = computeOffset(this.fromLineStarts, line, col) + this.shift;
+            return offset - this.toLineStarts[computeLine(this.toLineStarts, offset) - 1] + 1;
+        }
+
+    }
+
+
+
+
+    /*
+     * Resource returning the already-read source of a template, but reporting the description (e.g. in parsing
+     * errors) and relative resources of the original one.
+     */
+    private static final class SourceTemplateResource implements ITemplateResource {
+
+        private final ITemplateResource resource;
+        private final String source;
+
+        SourceTemplateResource(final ITemplateResource resource, final String source) {
+            super();
+            this.resource = resource;
+            this.source = source;
+        }
+
+        public String getDescription() {
+            return this.resource.getDescription();
+        }
+
+        public String getBaseName() {
+            return this.resource.getBaseName();
+        }
+
+        public boolean exists() {
+            return true;
+        }
+
+        public Reader reader() throws IOException {
+            return new StringReader(this.source);
+        }
+
+        public ITemplateResource relative(final String relativeLocation) {
+            return this.resource.relative(relativeLocation);
+        }
+
+    }
+
+
+}
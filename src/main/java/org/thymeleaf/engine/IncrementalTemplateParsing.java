@@ -0,0 +1,307 @@
+/*
+ * =============================================================================
+ *
+ *   Copyright (c) 2011-2016, The THYMELEAF team (http://www.thymeleaf.org)
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ * =============================================================================
+ */
+package org.thymeleaf.engine;
+
+import java.lang.ref.SoftReference;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.thymeleaf.cache.TemplateCacheKey;
+import org.thymeleaf.util.Validate;
+
+
+/**
+ * <p>
+ *   Configuration and statistics of the <em>incremental parsing</em> of cached templates.
+ * </p>
+ * <p>
+ *   When a cached template expires (e.g. because of a TTL-based validity) it has to be read and parsed again, even
+ *   if it has not changed at all or only a single line of it has changed. When incremental parsing is enabled, the
+ *   engine keeps a <em>snapshot</em> of each cached template (its source and the resulting model), so that when the
+ *   template needs to be parsed again:
+ * </p>
+ * <ul>
+ *   <li>If its source has not changed, the previous model is reused with no parsing at all.</li>
+ *   <li>If its source has changed and the template is a markup (<tt>HTML</tt> or <tt>XML</tt>) template being
+ *       parsed entirely (i.e. with no template selectors), only the smallest sequence of sibling elements
+ *       containing the change is parsed again, and the events before and after it are reused from the previous
+ *       model (relocated to their new lines and columns if needed).</li>
+ *   <li>Otherwise (or if the template contains any parser-level or prototype-only comment blocks, any elements
+ *       that had to be automatically balanced by the parser, or uses decoupled template logic), the template is
+ *       parsed entirely as usual.</li>
+ * </ul>
+ * <p>
+ *   Snapshots are kept for a maximum amount of templates (those most recently parsed), and are softly referenced so
+ *   that they can be released under memory pressure. They are removed when
+ *   {@link TemplateManager#clearCaches()} is called, but not by {@link TemplateManager#clearCachesFor(String)},
+ *   because reusing a snapshot always requires its source to be compared with the current source of the template.
+ * </p>
+ * <p>
+ *   Objects of this class also keep statistics about the amount of templates parsed entirely or incrementally, and
+ *   about the amount of events that were reused versus parsed again.
+ * </p>
+ * <p>
+ *   Incremental parsing can be enabled at {@link org.thymeleaf.TemplateEngine} instances by means of their
+ *   {@link org.thymeleaf.TemplateEngine#setIncrementalTemplateParsing(IncrementalTemplateParsing)} method. Objects
+ *   of this class are <strong>thread-safe</strong>.
+ * </p>
+ *
+ * @author Daniel Fern&aacute;ndez
+ *
+ * @since 3.0.10
+ *
+ */
+public final class IncrementalTemplateParsing {
+
+    /**
+     * Default maximum amount of templates for which snapshots are kept: {@value}
+     */
+    public static final int DEFAULT_MAX_TEMPLATES = 256;
+
+
+    private final int maxTemplates;
+    private final Map<TemplateCacheKey,SoftReference<Snapshot>> snapshots;
+
+    private final AtomicLong fullParseCount = new AtomicLong(0L);
+    private final AtomicLong incrementalParseCount = new AtomicLong(0L);
+    private final AtomicLong unchangedCount = new AtomicLong(0L);
+    private final AtomicLong reusedEventCount = new AtomicLong(0L);
+    private final AtomicLong reparsedEventCount = new AtomicLong(0L);
+
+
+
+    public IncrementalTemplateParsing() {
+        this(DEFAULT_MAX_TEMPLATES);
+    }
+
+
+    public IncrementalTemplateParsing(final int maxTemplates) {
+        super();
+        Validate.isTrue(maxTemplates > 0, "Maximum amount of templates must be greater than zero");
+        this.maxTemplates = maxTemplates;
+        this.snapshots = new LinkedHashMap<TemplateCacheKey, SoftReference<Snapshot>>(32, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(final Map.Entry<TemplateCacheKey, SoftReference<Snapshot>> eldest) {
+                return size() > IncrementalTemplateParsing.this.maxTemplates;
+            }
+        };
+    }
+
+
+
+
+    /**
+     * <p>
+     *   Returns the maximum amount of templates for which snapshots are kept.
+     * </p>
+     *
+     * @return the maximum amount of templates.
+     */
+    public int getMaxTemplates() {
+        return this.maxTemplates;
+    }
+
+
+    /**
+     * <p>
+     *   Returns the amount of templates for which snapshots are currently kept. This is an approximation, as it
+     *   might include snapshots that have been released by the garbage collector.
+     * </p>
+     *
+     * @return the amount of snapshots.
+     */
+    public int size() {
+        synchronized (this.snapshots) {
+            return this.snapshots.size();
+        }
+    }
+
+
+    /**
+     * <p>
+     *   Returns the amount of times a template had to be parsed entirely (including the first time each template
+     *   is parsed).
+     * </p>
+     *
+     * @return the amount of full parses.
+     */
+    public long getFullParseCount() {
+        return this.fullParseCount.get();
+    }
+
+
+    /**
+     * <p>
+     *   Returns the amount of times a changed template could be parsed incrementally.
+     * </p>
+     *
+     * @return the amount of incremental parses.
+     */
+    public long getIncrementalParseCount() {
+        return this.incrementalParseCount.get();
+    }
+
+
+    /**
+     * <p>
+     *   Returns the amount of times a template needed to be parsed again but its source had not changed, so that
+     *   its previous model could be reused.
+     * </p>
+     *
+     * @return the amount of unchanged templates.
+     */
+    public long getUnchangedCount() {
+        return this.unchangedCount.get();
+    }
+
+
+    /**
+     * <p>
+     *   Returns the amount of events that were reused from previous models instead of being parsed again.
+     * </p>
+     *
+     * @return the amount of reused events.
+     */
+    public long getReusedEventCount() {
+        return this.reusedEventCount.get();
+    }
+
+
+    /**
+     * <p>
+     *   Returns the amount of events that were created by parsing (either entire templates or the changed parts
+     *   of them).
+     * </p>
+     *
+     * @return the amount of parsed events.
+     */
+    public long getReparsedEventCount() {
+        return this.reparsedEventCount.get();
+    }
+
+
+
+
+    @Override
+    public String toString() {
+        return "IncrementalTemplateParsing [fullParses=" + getFullParseCount() +
+                ", incrementalParses=" + getIncrementalParseCount() + ", unchanged=" + getUnchangedCount() +
+                ", reusedEvents=" + getReusedEventCount() + ", reparsedEvents=" + getReparsedEventCount() + "]";
+    }
+
+
+
+
+    Snapshot getSnapshot(final TemplateCacheKey cacheKey) {
+        final SoftReference<Snapshot> snapshotRef;
+        synchronized (this.snapshots) {
+            snapshotRef = this.snapshots.get(cacheKey);
+        }
+        return (snapshotRef == null? null : snapshotRef.get());
+    }
+
+
+    void putSnapshot(final TemplateCacheKey cacheKey, final Snapshot snapshot) {
+        synchronized (this.snapshots) {
+            this.snapshots.put(cacheKey, new SoftReference<Snapshot>(snapshot));
+        }
+    }
+
+
+    /*
+     * Called when the model stored at the template cache is not the one that was parsed (e.g. it is a compact copy
+     * of it), so that snapshots do not retain both.
+     */
+    void replaceSnapshotModel(
+            final TemplateCacheKey cacheKey, final TemplateModel parsedModel, final TemplateModel cachedModel) {
+        synchronized (this.snapshots) {
+            final SoftReference<Snapshot> snapshotRef = this.snapshots.get(cacheKey);
+            final Snapshot snapshot = (snapshotRef == null? null : snapshotRef.get());
+            if (snapshot != null && snapshot.model.queue == parsedModel.queue) {
+                this.snapshots.put(
+                        cacheKey,
+                        new SoftReference<Snapshot>(
+                                new Snapshot(
+                                        snapshot.source, cachedModel, snapshot.commentBlocks,
+                                        snapshot.lineStarts, snapshot.offsets, snapshot.depths)));
+            }
+        }
+    }
+
+
+    void clear() {
+        synchronized (this.snapshots) {
+            this.snapshots.clear();
+        }
+    }
+
+
+    void recordFullParse(final int eventCount) {
+        this.fullParseCount.incrementAndGet();
+        this.reparsedEventCount.addAndGet(eventCount);
+    }
+
+
+    void recordIncrementalParse(final int reusedEvents, final int reparsedEvents) {
+        this.incrementalParseCount.incrementAndGet();
+        this.reusedEventCount.addAndGet(reusedEvents);
+        this.reparsedEventCount.addAndGet(reparsedEvents);
+    }
+
+
+    void recordUnchanged(final int eventCount) {
+        this.unchangedCount.incrementAndGet();
+        this.reusedEventCount.addAndGet(eventCount);
+    }
+
+
+
+
+    /*
+     * The source of a template and the model that resulted from parsing it, along with the layout of the model:
+     * the offset of the start of each line in the source, and the offset of (and depth before) each event. The
+     * layout is null if it has not been computed yet.
+     */
+    static final class Snapshot {
+
+        final String source;
+        final TemplateModel model;
+        final boolean commentBlocks; // Whether the source contains parser-level or prototype-only comment blocks
+        final int[] lineStarts;
+        final int[] offsets;
+        final int[] depths;
+
+        Snapshot(
+                final String source, final TemplateModel model, final boolean commentBlocks,
+                final int[] lineStarts, final int[] offsets, final int[] depths) {
+            super();
+            this.source = source;
+            this.model = model;
+            this.commentBlocks = commentBlocks;
+            this.lineStarts = lineStarts;
+            this.offsets = offsets;
+            this.depths = depths;
+        }
+
+    }
+
+
+}
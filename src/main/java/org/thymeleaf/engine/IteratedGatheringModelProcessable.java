@@ -92,7 +92,16 @@ enum IterationWhiteSpaceHandling {ZERO_ITER, SINGLE_ITER, MULTIPLE_ITER}
 
         this.iterStatusVariable = new IterationStatusVar();
         this.iterStatusVariable.index = 0;
-        this.iterStatusVariable.size = computeIteratedObjectSize(iteratedObject);
+        if (this.iterator instanceof StreamIterator) {
+            // Streams can only be traversed once, so their size can only be obtained from the iterator
+            this.iterStatusVariable.size = ((StreamIterator) this.iterator).getSize();
+            // Throttled executions might be paused (and then discarded) in the middle of the iteration
+            if (getFlowController() != null) {
+                getFlowController().registerStreamIterator((StreamIterator) this.iterator);
+            }
+        } else {
+            this.iterStatusVariable.size = computeIteratedObjectSize(iteratedObject);
+        }
 
         this.precedingWhitespace = precedingWhitespace;
 
@@ -121,6 +130,27 @@ public ProcessorExecutionVars initializeProcessorExecutionVars() {
 
     public boolean process() {
 
+        // If processing fails, the iterated stream (if any) is closed so that any resources it holds are released
+        boolean failed = true;
+        try {
+            final boolean processed = processIterations();
+            failed = false;
+            return processed;
+        } finally {
+            if (failed) {
+                try {
+                    closeIteratedStream();
+                } catch (final RuntimeException ignored) {
+                    // The exception that made processing fail is the one to be reported
+                }
+            }
+        }
+
+    }
+
+
+    private boolean processIterations() {
+
         final TemplateFlowController flowController = getFlowController();
 
         /*
@@ -314,6 +344,12 @@ public boolean process() {
         }
 
 
+        /*
+         * CLOSE THE ITERATED STREAM, if that is what we were iterating, so that any resources it holds are released
+         */
+        closeIteratedStream();
+
+
         /*
          * DECREASE THE CONTEXT LEVEL
          * This was increased before starting gathering, when the handling of the first gathered event started.
@@ -329,6 +365,16 @@ public boolean process() {
     }
 
 
+    private void closeIteratedStream() {
+        if (this.iterator instanceof StreamIterator) {
+            if (getFlowController() != null) {
+                getFlowController().unregisterStreamIterator((StreamIterator) this.iterator);
+            }
+            ((StreamIterator) this.iterator).close();
+        }
+    }
+
+
 
     private boolean processIterationModel(final TemplateFlowController flowController, final boolean iterationIsNew) {
 
@@ -491,6 +537,10 @@ public void remove() {
 
             };
         }
+        if (StreamIterator.isStreamOrSpliterator(iteratedObject)) {
+            // Elements will be lazily pulled from the stream, without collecting them first
+            return StreamIterator.forStreamOrSpliterator(iteratedObject);
+        }
         return Collections.singletonList(iteratedObject).iterator();
     }
 
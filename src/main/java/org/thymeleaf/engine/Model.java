@@ -58,8 +58,18 @@ final class Model implements IModel {
     private TemplateMode templateMode;
 
     IEngineTemplateEvent[] queue;
+    int queueOffset;
     int queueSize;
 
+    /*
+     * When the queue is shared, it is not owned by this model but by an (immutable) TemplateModel, which means
+     * its events can be read (and processed) directly, but it must be copied to an owned array before being
+     * modified in any way (copy-on-write). This avoids copying the entire set of events of a cached template or
+     * fragment every time it is inserted and processed without modifications.
+     */
+    private boolean sharedQueue;
+    private IEngineTemplateEvent[] spareQueue; // Owned array kept for reuse while a shared queue is being used
+
 
 
 
@@ -76,7 +86,10 @@ final class Model implements IModel {
         this.queue = new IEngineTemplateEvent[INITIAL_EVENT_QUEUE_SIZE];
         Arrays.fill(this.queue, null);
 
+        this.queueOffset = 0;
         this.queueSize = 0;
+        this.sharedQueue = false;
+        this.spareQueue = null;
 
     }
 
@@ -90,23 +103,38 @@ final class Model implements IModel {
         this.configuration = model.getConfiguration();
         this.templateMode = model.getTemplateMode();
 
-        if (model instanceof Model) {
+        this.sharedQueue = false;
+        this.spareQueue = null;
+
+        if (model instanceof Model && ((Model) model).sharedQueue) {
+
+            final Model mmodel = (Model) model;
+            this.queue = mmodel.queue;
+            this.queueOffset = mmodel.queueOffset;
+            this.queueSize = mmodel.queueSize;
+            this.sharedQueue = true;
+
+        } else if (model instanceof Model) {
 
             final Model mmodel = (Model) model;
             this.queue = mmodel.queue.clone();
+            this.queueOffset = 0;
             this.queueSize = mmodel.queueSize;
 
         } else if (model instanceof TemplateModel) {
 
+            // No need to copy anything until (and unless) this model is modified
             final TemplateModel templateModel = (TemplateModel) model;
-            this.queue = new IEngineTemplateEvent[templateModel.queue.length + INITIAL_EVENT_QUEUE_SIZE/2];
-            System.arraycopy(templateModel.queue, 1, this.queue, 0, templateModel.queue.length - 2);
-            this.queueSize = templateModel.queue.length - 2;
+            this.queue = templateModel.queue;
+            this.queueOffset = 1; // We skip the TemplateStart event
+            this.queueSize = templateModel.queue.length - 2; // We skip TemplateStart/TemplateEnd
+            this.sharedQueue = true;
 
         } else {
 
             this.queue = new IEngineTemplateEvent[INITIAL_EVENT_QUEUE_SIZE];
             Arrays.fill(this.queue, null);
+            this.queueOffset = 0;
             this.queueSize = 0;
             insertModel(0, model);
 
@@ -133,7 +161,7 @@ public int size() {
 
 
     public ITemplateEvent get(final int pos) {
-        return this.queue[pos];
+        return this.queue[this.queueOffset + pos];
     }
 
 
@@ -158,7 +186,9 @@ public void insert(final int pos, final ITemplateEvent event) {
         }
 
         // Check there is room for a new event, or grow the queue if not
-        if (this.queue.length == this.queueSize) {
+        if (this.sharedQueue) {
+            unshareQueue(this.queueSize + 1);
+        } else if (this.queue.length == this.queueSize) {
             this.queue = Arrays.copyOf(this.queue, this.queue.length + INITIAL_EVENT_QUEUE_SIZE/2);
         }
 
@@ -190,6 +220,10 @@ public void replace(final int pos, final ITemplateEvent event) {
                     "events can only be added to models internally during template parsing.");
         }
 
+        if (this.sharedQueue) {
+            unshareQueue(this.queueSize);
+        }
+
         // Set the new event in its new position
         this.queue[pos] = engineEvent;
 
@@ -220,7 +254,15 @@ public void insertModel(final int pos, final IModel model) {
                     "the current " + this.templateMode);
         }
 
-        if (this.queue.length <= (this.queueSize + model.size())) {
+        if (this.queueSize == 0 && canShareQueue(model)) {
+            // Nothing to copy: we will directly use the (immutable) events of the model being inserted
+            shareQueue(model);
+            return;
+        }
+
+        if (this.sharedQueue) {
+            unshareQueue(this.queueSize + model.size());
+        } else if (this.queue.length <= (this.queueSize + model.size())) {
             // We need to grow the queue!
             this.queue = Arrays.copyOf(this.queue, Math.max(this.queueSize + model.size(), this.queue.length + INITIAL_EVENT_QUEUE_SIZE/2));
         }
@@ -240,7 +282,7 @@ private void doInsertModel(final int pos, final Model model) {
         // Make room for the new events (if necessary because pos < this.queueSize)
         System.arraycopy(this.queue, pos, this.queue, pos + model.queueSize, this.queueSize - pos);
         // Copy the new events to their new position
-        System.arraycopy(model.queue, 0, this.queue, pos, model.queueSize);
+        System.arraycopy(model.queue, model.queueOffset, this.queue, pos, model.queueSize);
         this.queueSize += model.queueSize;
     }
 
@@ -266,19 +308,68 @@ private void doInsertOtherModel(final int pos, final IModel model) {
 
 
     public void remove(final int pos) {
+        if (this.sharedQueue) {
+            unshareQueue(this.queueSize);
+        }
         System.arraycopy(this.queue, pos + 1, this.queue, pos, this.queueSize - (pos + 1));
         this.queueSize--;
     }
 
 
     public void reset() {
+        if (this.sharedQueue) {
+            this.queue = (this.spareQueue != null? this.spareQueue : new IEngineTemplateEvent[INITIAL_EVENT_QUEUE_SIZE]);
+            this.spareQueue = null;
+            this.sharedQueue = false;
+        }
+        this.queueOffset = 0;
         this.queueSize = 0;
     }
 
 
 
+    private boolean canShareQueue(final IModel model) {
+        return (model instanceof TemplateModel || (model instanceof Model && ((Model) model).sharedQueue));
+    }
+
+
+    private void shareQueue(final IModel model) {
+        if (!this.sharedQueue) {
+            this.spareQueue = this.queue;
+        }
+        if (model instanceof TemplateModel) {
+            final TemplateModel templateModel = (TemplateModel) model;
+            this.queue = templateModel.queue;
+            this.queueOffset = 1; // We skip the TemplateStart event
+            this.queueSize = templateModel.queue.length - 2; // We skip TemplateStart/TemplateEnd
+        } else {
+            final Model mmodel = (Model) model;
+            this.queue = mmodel.queue;
+            this.queueOffset = mmodel.queueOffset;
+            this.queueSize = mmodel.queueSize;
+        }
+        this.sharedQueue = true;
+    }
+
+
+    private void unshareQueue(final int minCapacity) {
+        // Copy-on-write: copy the shared events into an owned queue, big enough for the modification to come
+        IEngineTemplateEvent[] ownQueue = this.spareQueue;
+        if (ownQueue == null || ownQueue.length <= minCapacity) {
+            ownQueue = new IEngineTemplateEvent[Math.max(minCapacity + 1, this.queueSize + INITIAL_EVENT_QUEUE_SIZE/2)];
+        }
+        System.arraycopy(this.queue, this.queueOffset, ownQueue, 0, this.queueSize);
+        this.queue = ownQueue;
+        this.queueOffset = 0;
+        this.spareQueue = null;
+        this.sharedQueue = false;
+    }
+
+
+
     void process(final ITemplateHandler handler) {
-        for (int i = 0; i < this.queueSize; i++) {
+        final int queueEnd = this.queueOffset + this.queueSize;
+        for (int i = this.queueOffset; i < queueEnd; i++) {
             this.queue[i].beHandled(handler);
         }
     }
@@ -297,7 +388,7 @@ int process(final ITemplateHandler handler, final int offset, final TemplateFlow
 
         int i = offset;
         while (i < this.queueSize && !controller.stopProcessing) {
-            this.queue[i++].beHandled(handler);
+            this.queue[this.queueOffset + i++].beHandled(handler);
         }
 
         return (i - offset);
@@ -317,10 +408,15 @@ public IModel cloneModel() {
     void resetAsCloneOf(final Model model) {
         this.configuration = model.configuration;
         this.templateMode = model.templateMode;
+        if (model.sharedQueue) {
+            shareQueue(model);
+            return;
+        }
+        reset();
         if (this.queue.length < model.queueSize) {
             this.queue = new IEngineTemplateEvent[model.queueSize];
         }
-        System.arraycopy(model.queue, 0, this.queue, 0, model.queueSize);
+        System.arraycopy(model.queue, model.queueOffset, this.queue, 0, model.queueSize);
         this.queueSize = model.queueSize;
     }
 
@@ -328,7 +424,8 @@ void resetAsCloneOf(final Model model) {
 
 
     public final void write(final Writer writer) throws IOException {
-        for (int i = 0; i < this.queueSize; i++) {
+        final int queueEnd = this.queueOffset + this.queueSize;
+        for (int i = this.queueOffset; i < queueEnd; i++) {
             this.queue[i].write(writer);
         }
     }
@@ -337,7 +434,8 @@ public final void write(final Writer writer) throws IOException {
 
 
     public void accept(final IModelVisitor visitor) {
-        for (int i = 0; i < this.queueSize; i++) {
+        final int queueEnd = this.queueOffset + this.queueSize;
+        for (int i = this.queueOffset; i < queueEnd; i++) {
             // We will execute the visitor on the Immutable events, that we need to create during the visit
             this.queue[i].accept(visitor);
         }
@@ -353,8 +451,11 @@ boolean sameAs(final Model model) {
         if (model == null || model.queueSize != this.queueSize) {
             return false;
         }
+        if (this.queue == model.queue && this.queueOffset == model.queueOffset) {
+            return true;
+        }
         for (int i = 0; i < this.queueSize; i++) {
-            if (this.queue[i] != model.queue[i]) {
+            if (this.queue[this.queueOffset + i] != model.queue[model.queueOffset + i]) {
                 return false;
             }
         }
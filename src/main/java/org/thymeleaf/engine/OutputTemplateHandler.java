@@ -21,16 +21,20 @@
 
 import java.io.Writer;
 
+import org.thymeleaf.OutputFlushPolicy;
+import org.thymeleaf.context.ITemplateContext;
 import org.thymeleaf.exceptions.TemplateOutputException;
 import org.thymeleaf.model.ICDATASection;
 import org.thymeleaf.model.ICloseElementTag;
 import org.thymeleaf.model.IComment;
 import org.thymeleaf.model.IDocType;
 import org.thymeleaf.model.IOpenElementTag;
+import org.thymeleaf.model.IProcessableElementTag;
 import org.thymeleaf.model.IProcessingInstruction;
 import org.thymeleaf.model.IStandaloneElementTag;
 import org.thymeleaf.model.IText;
 import org.thymeleaf.model.IXMLDeclaration;
+import org.thymeleaf.templatemode.TemplateMode;
 
 
 /**
@@ -43,6 +47,8 @@ public final class OutputTemplateHandler extends AbstractTemplateHandler {
 
 
     private final Writer writer;
+    private final boolean flushAfterHead;
+    private final String flushAttributeName;
 
 
 
@@ -54,11 +60,33 @@ public final class OutputTemplateHandler extends AbstractTemplateHandler {
      * @param writer the writer to which output will be written.
      */
     public OutputTemplateHandler(final Writer writer) {
+        this(writer, null);
+    }
+
+
+    /**
+     * <p>
+     *   Creates a new instance of this handler, which will flush the writer before processing has finished
+     *   according to the specified flush policy.
+     * </p>
+     *
+     * @param writer the writer to which output will be written.
+     * @param flushPolicy the flush policy to be applied (can be null).
+     * @since 3.0.10
+     */
+    public OutputTemplateHandler(final Writer writer, final OutputFlushPolicy flushPolicy) {
         super();
         if (writer == null) {
             throw new IllegalArgumentException("Writer cannot be null");
         }
-        this.writer = writer;
+        // flushPolicy CAN be null
+        if (flushPolicy != null && flushPolicy.getFirstFlushChars() > 0) {
+            this.writer = new FlushThresholdWriter(writer, flushPolicy.getFirstFlushChars());
+        } else {
+            this.writer = writer;
+        }
+        this.flushAfterHead = (flushPolicy != null && flushPolicy.isFlushAfterHead());
+        this.flushAttributeName = (flushPolicy != null? flushPolicy.getFlushAttributeName() : null);
     }
 
 
@@ -122,7 +150,13 @@ public void handleCDATASection(final ICDATASection cdataSection) {
     public void handleStandaloneElement(final IStandaloneElementTag standaloneElementTag) {
 
         try {
-            standaloneElementTag.write(this.writer);
+            if (this.flushAttributeName != null && standaloneElementTag.hasAttribute(this.flushAttributeName)) {
+                // Flush markers are not written to output
+                removeFlushAttribute(standaloneElementTag).write(this.writer);
+                this.writer.flush();
+            } else {
+                standaloneElementTag.write(this.writer);
+            }
         } catch (final Exception e) {
             throw new TemplateOutputException(
                     "An error happened during template rendering",
@@ -139,7 +173,13 @@ public void handleStandaloneElement(final IStandaloneElementTag standaloneElemen
     public void handleOpenElement(final IOpenElementTag openElementTag) {
 
         try {
-            openElementTag.write(this.writer);
+            if (this.flushAttributeName != null && openElementTag.hasAttribute(this.flushAttributeName)) {
+                // Flush markers are not written to output
+                removeFlushAttribute(openElementTag).write(this.writer);
+                this.writer.flush();
+            } else {
+                openElementTag.write(this.writer);
+            }
         } catch (final Exception e) {
             throw new TemplateOutputException(
                     "An error happened during template rendering",
@@ -157,6 +197,9 @@ public void handleCloseElement(final ICloseElementTag closeElementTag) {
 
         try {
             closeElementTag.write(this.writer);
+            if (this.flushAfterHead && isHeadCloseElement(closeElementTag)) {
+                this.writer.flush();
+            }
         } catch (final Exception e) {
             throw new TemplateOutputException(
                     "An error happened during template rendering",
@@ -228,6 +271,27 @@ public void handleProcessingInstruction(final IProcessingInstruction processingI
     }
 
 
-    
-    
-}
\ No newline at end of file
+
+
+    private static boolean isHeadCloseElement(final ICloseElementTag closeElementTag) {
+        return closeElementTag.getTemplateMode() == TemplateMode.HTML
+                && "head".equals(closeElementTag.getElementDefinition().getElementName().getElementName());
+    }
+
+
+
+
+    /*
+     * Flush markers are removed by means of the model factory, so that any implementation of the element tag
+     * interfaces (not only the engine's own) is supported. If no context has been set, the tag is left untouched.
+     */
+    private <T extends IProcessableElementTag> T removeFlushAttribute(final T elementTag) {
+        final ITemplateContext context = getContext();
+        if (context == null) {
+            return elementTag;
+        }
+        return context.getModelFactory().removeAttribute(elementTag, this.flushAttributeName);
+    }
+
+
+}
@@ -25,11 +25,13 @@
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.thymeleaf.EngineConfiguration;
 import org.thymeleaf.IEngineConfiguration;
 import org.thymeleaf.context.IEngineContext;
 import org.thymeleaf.context.ITemplateContext;
 import org.thymeleaf.engine.TemplateModelController.SkipBody;
 import org.thymeleaf.exceptions.TemplateProcessingException;
+import org.thymeleaf.metrics.TemplateProfiler;
 import org.thymeleaf.model.ICDATASection;
 import org.thymeleaf.model.ICloseElementTag;
 import org.thymeleaf.model.IComment;
@@ -43,6 +45,7 @@
 import org.thymeleaf.model.ITemplateStart;
 import org.thymeleaf.model.IText;
 import org.thymeleaf.model.IXMLDeclaration;
+import org.thymeleaf.processor.IProcessor;
 import org.thymeleaf.processor.cdatasection.ICDATASectionProcessor;
 import org.thymeleaf.processor.comment.ICommentProcessor;
 import org.thymeleaf.processor.doctype.IDocTypeProcessor;
@@ -162,6 +165,9 @@ public final class ProcessorTemplateHandler implements ITemplateHandler {
     // so we can just create one and use it everytime it is needed.
     private DecreaseContextLevelProcessable decreaseContextLevelProcessable = null;
 
+    // Will only be non-null if the current template execution is being profiled
+    private TemplateProfiler profiler = null;
+
 
 
     /**
@@ -213,6 +219,11 @@ public void setContext(final ITemplateContext context) {
 
         this.templateMode = this.context.getTemplateMode(); // Just a way to avoid doing the call each time
 
+        final TemplateProfiler templateProfiler =
+                (this.configuration instanceof EngineConfiguration?
+                        ((EngineConfiguration) this.configuration).getTemplateProfiler() : null);
+        this.profiler = (templateProfiler != null && templateProfiler.isProfiling()? templateProfiler : null);
+
         if (this.context instanceof IEngineContext) {
             this.engineContext = (IEngineContext) this.context;
         } else {
@@ -557,7 +568,11 @@ public void handleText(final IText itext) {
 
             structureHandler.reset();
 
+            final long profilingStartNanos = (this.profiler != null? System.nanoTime() : 0L);
             this.textProcessors[i].process(this.context, text, structureHandler);
+            if (this.profiler != null) {
+                recordProfiling(text, this.textProcessors[i], profilingStartNanos);
+            }
 
             if (structureHandler.setText) {
 
@@ -662,7 +677,11 @@ public void handleComment(final IComment icomment) {
 
             structureHandler.reset();
 
+            final long profilingStartNanos = (this.profiler != null? System.nanoTime() : 0L);
             this.commentProcessors[i].process(this.context, comment, structureHandler);
+            if (this.profiler != null) {
+                recordProfiling(comment, this.commentProcessors[i], profilingStartNanos);
+            }
 
             if (structureHandler.setContent) {
 
@@ -767,7 +786,11 @@ public void handleCDATASection(final ICDATASection icdataSection) {
 
             structureHandler.reset();
 
+            final long profilingStartNanos = (this.profiler != null? System.nanoTime() : 0L);
             this.cdataSectionProcessors[i].process(this.context, cdataSection, structureHandler);
+            if (this.profiler != null) {
+                recordProfiling(cdataSection, this.cdataSectionProcessors[i], profilingStartNanos);
+            }
 
             if (structureHandler.setContent) {
 
@@ -915,7 +938,11 @@ public void handleStandaloneElement(final IStandaloneElementTag istandaloneEleme
             if (processor instanceof IElementTagProcessor) {
 
                 final IElementTagProcessor elementProcessor = ((IElementTagProcessor)processor);
+                final long profilingStartNanos = (this.profiler != null? System.nanoTime() : 0L);
                 elementProcessor.process(this.context, standaloneElementTag, tagStructureHandler);
+                if (this.profiler != null) {
+                    recordProfiling(standaloneElementTag, elementProcessor, profilingStartNanos);
+                }
 
                 // Apply any context modifications made by the processor (local vars, inlining, etc.)
                 tagStructureHandler.applyContextModifications(this.engineContext);
@@ -1128,7 +1155,11 @@ public void handleStandaloneElement(final IStandaloneElementTag istandaloneEleme
                 final Model processedModel = new Model(gatheredModel);
 
                 // Execute the processor on the just-created Model
+                final long profilingStartNanos = (this.profiler != null? System.nanoTime() : 0L);
                 ((IElementModelProcessor) processor).process(this.context, processedModel, modelStructureHandler);
+                if (this.profiler != null) {
+                    recordProfiling(standaloneElementTag, processor, profilingStartNanos);
+                }
 
                 // Apply any context modifications made by the processor (local vars, inlining, etc.)
                 modelStructureHandler.applyContextModifications(this.engineContext);
@@ -1311,7 +1342,11 @@ public void handleOpenElement(final IOpenElementTag iopenElementTag) {
             if (processor instanceof IElementTagProcessor) {
 
                 final IElementTagProcessor elementProcessor = ((IElementTagProcessor)processor);
+                final long profilingStartNanos = (this.profiler != null? System.nanoTime() : 0L);
                 elementProcessor.process(this.context, openElementTag, tagStructureHandler);
+                if (this.profiler != null) {
+                    recordProfiling(openElementTag, elementProcessor, profilingStartNanos);
+                }
 
                 // Apply any context modifications made by the processor (local vars, inlining, etc.)
                 tagStructureHandler.applyContextModifications(this.engineContext);
@@ -1507,7 +1542,11 @@ public void handleOpenElement(final IOpenElementTag iopenElementTag) {
                 final Model processedModel = new Model(gatheredModel);
 
                 // Execute the processor on the just-created Model
+                final long profilingStartNanos = (this.profiler != null? System.nanoTime() : 0L);
                 ((IElementModelProcessor) processor).process(this.context, processedModel, modelStructureHandler);
+                if (this.profiler != null) {
+                    recordProfiling(openElementTag, processor, profilingStartNanos);
+                }
 
                 // Apply any context modifications made by the processor (local vars, inlining, etc.)
                 modelStructureHandler.applyContextModifications(this.engineContext);
@@ -1755,7 +1794,11 @@ public void handleDocType(final IDocType idocType) {
 
             structureHandler.reset();
 
+            final long profilingStartNanos = (this.profiler != null? System.nanoTime() : 0L);
             this.docTypeProcessors[i].process(this.context, docType, structureHandler);
+            if (this.profiler != null) {
+                recordProfiling(docType, this.docTypeProcessors[i], profilingStartNanos);
+            }
 
             if (structureHandler.setDocType) {
 
@@ -1866,7 +1909,11 @@ public void handleXMLDeclaration(final IXMLDeclaration ixmlDeclaration) {
 
             structureHandler.reset();
 
+            final long profilingStartNanos = (this.profiler != null? System.nanoTime() : 0L);
             this.xmlDeclarationProcessors[i].process(this.context, xmlDeclaration, structureHandler);
+            if (this.profiler != null) {
+                recordProfiling(xmlDeclaration, this.xmlDeclarationProcessors[i], profilingStartNanos);
+            }
 
             if (structureHandler.setXMLDeclaration) {
 
@@ -1976,7 +2023,11 @@ public void handleProcessingInstruction(final IProcessingInstruction iprocessing
 
             structureHandler.reset();
 
+            final long profilingStartNanos = (this.profiler != null? System.nanoTime() : 0L);
             this.processingInstructionProcessors[i].process(this.context, processingInstruction, structureHandler);
+            if (this.profiler != null) {
+                recordProfiling(processingInstruction, this.processingInstructionProcessors[i], profilingStartNanos);
+            }
 
             if (structureHandler.setProcessingInstruction) {
 
@@ -2163,6 +2214,14 @@ private void queueEvent(final ITemplateEvent event) {
 
 
 
+    private void recordProfiling(final ITemplateEvent event, final IProcessor processor, final long startNanos) {
+        this.profiler.recordProcessor(
+                event.getTemplateName(), event.getLine(), event.getCol(), processor, System.nanoTime() - startNanos);
+    }
+
+
+
+
     private IGatheringModelProcessable obtainCurrentGatheringModel() {
         final IGatheringModelProcessable gatheringModel = this.currentGatheringModel;
         this.currentGatheringModel = null;
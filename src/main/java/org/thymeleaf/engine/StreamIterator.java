@@ -0,0 +1,181 @@
+/*
+ * =============================================================================
+ *
+ *   Copyright (c) 2011-2016, The THYMELEAF team (http://www.thymeleaf.org)
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ * =============================================================================
+ */
+package org.thymeleaf.engine;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.Iterator;
+
+import org.thymeleaf.exceptions.TemplateProcessingException;
+import org.thymeleaf.util.ClassLoaderUtils;
+
+
+/*
+ * Iterator that lazily pulls elements from a java.util.stream.BaseStream or a java.util.Spliterator, so that
+ * iterating these objects (e.g. in th:each) does not require collecting them first.
+ *
+ * Streams and spliterators are Java SE 8 classes, so (in order to keep compatibility with previous versions of the
+ * JVM) they are accessed by reflection. Note however that reflection is only used for creating the iterator and
+ * closing the stream, not for obtaining each of the iterated elements.
+ *
+ * @author Daniel Fernandez
+ * @since 3.0.10
+ *
+ */
+final class StreamIterator implements Iterator<Object> {
+
+    private static final int SPLITERATOR_SIZED = 0x00000040; // Value of java.util.Spliterator.SIZED
+
+    private static final Class<?> BASE_STREAM_CLASS = ClassLoaderUtils.findClass("java.util.stream.BaseStream");
+    private static final Class<?> SPLITERATOR_CLASS = ClassLoaderUtils.findClass("java.util.Spliterator");
+
+    private static final Method BASE_STREAM_SPLITERATOR_METHOD;
+    private static final Method BASE_STREAM_CLOSE_METHOD;
+    private static final Method SPLITERATOR_CHARACTERISTICS_METHOD;
+    private static final Method SPLITERATOR_ESTIMATE_SIZE_METHOD;
+    private static final Method SPLITERATORS_ITERATOR_METHOD;
+
+
+    static {
+
+        Method baseStreamSpliteratorMethod = null;
+        Method baseStreamCloseMethod = null;
+        Method spliteratorCharacteristicsMethod = null;
+        Method spliteratorEstimateSizeMethod = null;
+        Method spliteratorsIteratorMethod = null;
+
+        if (BASE_STREAM_CLASS != null && SPLITERATOR_CLASS != null) {
+            try {
+                final Class<?> spliteratorsClass = ClassLoaderUtils.loadClass("java.util.Spliterators");
+                baseStreamSpliteratorMethod = BASE_STREAM_CLASS.getMethod("spliterator");
+                baseStreamCloseMethod = BASE_STREAM_CLASS.getMethod("close");
+                spliteratorCharacteristicsMethod = SPLITERATOR_CLASS.getMethod("characteristics");
+                spliteratorEstimateSizeMethod = SPLITERATOR_CLASS.getMethod("estimateSize");
+                spliteratorsIteratorMethod = spliteratorsClass.getMethod("iterator", SPLITERATOR_CLASS);
+            } catch (final Exception e) {
+                // Should never happen in a Java SE 8+ JVM: stream support will just be disabled
+                baseStreamSpliteratorMethod = null;
+            }
+        }
+
+        BASE_STREAM_SPLITERATOR_METHOD = baseStreamSpliteratorMethod;
+        BASE_STREAM_CLOSE_METHOD = baseStreamCloseMethod;
+        SPLITERATOR_CHARACTERISTICS_METHOD = spliteratorCharacteristicsMethod;
+        SPLITERATOR_ESTIMATE_SIZE_METHOD = spliteratorEstimateSizeMethod;
+        SPLITERATORS_ITERATOR_METHOD = spliteratorsIteratorMethod;
+
+    }
+
+
+    private final Object stream; // Will be null if we are directly iterating a spliterator
+    private final Iterator<?> iterator;
+    private final Integer size;
+    private boolean closed;
+
+
+
+    static boolean isStreamOrSpliterator(final Object object) {
+        return BASE_STREAM_SPLITERATOR_METHOD != null &&
+                (BASE_STREAM_CLASS.isInstance(object) || SPLITERATOR_CLASS.isInstance(object));
+    }
+
+
+    static StreamIterator forStreamOrSpliterator(final Object object) {
+        if (BASE_STREAM_CLASS.isInstance(object)) {
+            return new StreamIterator(object, invoke(BASE_STREAM_SPLITERATOR_METHOD, object));
+        }
+        return new StreamIterator(null, object);
+    }
+
+
+
+
+    private StreamIterator(final Object stream, final Object spliterator) {
+
+        super();
+
+        this.stream = stream;
+        this.closed = false;
+
+        /*
+         * Compute the size only if the spliterator reports it as exact (SIZED). Note this is a property of the
+         * spliterator, which will not traverse any elements in order to compute it.
+         */
+        final int characteristics = ((Integer) invoke(SPLITERATOR_CHARACTERISTICS_METHOD, spliterator)).intValue();
+        if ((characteristics & SPLITERATOR_SIZED) != 0) {
+            final long estimatedSize = ((Long) invoke(SPLITERATOR_ESTIMATE_SIZE_METHOD, spliterator)).longValue();
+            this.size = (estimatedSize <= Integer.MAX_VALUE? Integer.valueOf((int) estimatedSize) : null);
+        } else {
+            this.size = null;
+        }
+
+        this.iterator = (Iterator<?>) invoke(SPLITERATORS_ITERATOR_METHOD, null, spliterator);
+
+    }
+
+
+
+
+    Integer getSize() {
+        return this.size;
+    }
+
+
+    public boolean hasNext() {
+        return this.iterator.hasNext();
+    }
+
+
+    public Object next() {
+        return this.iterator.next();
+    }
+
+
+    public void remove() {
+        throw new UnsupportedOperationException("Cannot remove from a Stream or Spliterator iterator");
+    }
+
+
+    void close() {
+        if (this.stream != null && !this.closed) {
+            this.closed = true;
+            invoke(BASE_STREAM_CLOSE_METHOD, this.stream);
+        }
+    }
+
+
+
+
+    private static Object invoke(final Method method, final Object target, final Object... args) {
+        try {
+            return method.invoke(target, args);
+        } catch (final InvocationTargetException e) {
+            final Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new TemplateProcessingException("Error iterating Stream or Spliterator object", cause);
+        } catch (final IllegalAccessException e) {
+            throw new TemplateProcessingException("Error iterating Stream or Spliterator object", e);
+        }
+    }
+
+
+}
@@ -0,0 +1,443 @@
+/*
+ * =============================================================================
+ *
+ *   Copyright (c) 2011-2016, The THYMELEAF team (http://www.thymeleaf.org)
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ * =============================================================================
+ */
+package org.thymeleaf.engine;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.thymeleaf.templatemode.TemplateMode;
+import org.thymeleaf.util.Validate;
+
+
+/**
+ * <p>
+ *   Cache for the models of templates resolved as <tt>String</tt> objects, i.e. templates whose name is their
+ *   own contents (as resolved by {@link org.thymeleaf.templateresolver.StringTemplateResolver}).
+ * </p>
+ * <p>
+ *   Caching these templates at the standard template cache is not well suited to scenarios in which many (and
+ *   possibly large) user-authored templates are processed: entries are keyed by the entire template contents along
+ *   with the owner template and the template resolution attributes, so equal templates processed with different
+ *   resolution attributes are parsed and cached separately, and these entries compete for space with the templates
+ *   resolved from files or other resources.
+ * </p>
+ * <p>
+ *   When a cache of this class is set, templates resolved as <tt>String</tt> objects are cached here instead, and
+ *   never at the standard template cache. Entries are keyed by a hash of the template contents (the one computed
+ *   by {@link String#hashCode()}, which is computed once per <tt>String</tt> object and is already needed for
+ *   looking up the standard template cache), its length, its template mode and its template selectors. The contents
+ *   of each entry are compared with the template being looked up before using it, so that a hash collision only
+ *   results in a cache miss. Owner templates and template resolution attributes are not part of the key, so equal
+ *   templates share a single entry whatever the context they are processed in.
+ * </p>
+ * <p>
+ *   Templates are only cached here if their resolver considers them cacheable (note
+ *   {@link org.thymeleaf.templateresolver.StringTemplateResolver} considers them non-cacheable by default, so its
+ *   <tt>cacheable</tt> flag needs to be set to <tt>true</tt>). But, the contents of these templates being their
+ *   own key, entries never become invalid, so any TTL established by the resolver will be ignored. The events
+ *   of an entry are shared by all lookups of equal templates, but the template data (resource, validity, etc.)
+ *   of the returned models is always the one computed for each specific resolution.
+ * </p>
+ * <p>
+ *   Cached models are limited by a <em>memory budget</em>, independent from the size of the standard template cache:
+ *   the size in bytes of each model is estimated from the length of its template and the amount of events in it,
+ *   and the least recently used entries are evicted when the estimated size of all entries exceeds the maximum.
+ *   In order to avoid contention, entries are distributed among a fixed amount of independently locked segments
+ *   and recency of use is tracked per segment, so eviction is only approximately LRU: the entry evicted is the
+ *   least recently used one of the segment the new entry was added to (or, if that segment becomes empty, of the
+ *   next ones).
+ *   Templates whose estimated size exceeds the maximum by themselves are not cached. Entries are removed when
+ *   {@link TemplateManager#clearCaches()} or {@link TemplateManager#clearCachesFor(String)} are called.
+ * </p>
+ * <p>
+ *   Objects of this class also keep statistics about hits, misses, hash collisions and evictions.
+ * </p>
+ * <p>
+ *   This cache can be set at {@link org.thymeleaf.TemplateEngine} instances by means of their
+ *   {@link org.thymeleaf.TemplateEngine#setStringTemplateCache(StringTemplateCache)} method. Objects of this class
+ *   are <strong>thread-safe</strong>.
+ * </p>
+ *
+ * @author Daniel Fern&aacute;ndez
+ *
+ * @since 3.0.10
+ *
+ */
+public final class StringTemplateCache {
+
+    /**
+     * Default maximum estimated size of all the cached models: {@value} bytes (32 MB)
+     */
+    public static final long DEFAULT_MAX_SIZE_IN_BYTES = 32L * 1024L * 1024L;
+
+    /*
+     * Each char in a template is estimated to be retained twice: once by the template name (which is the template
+     * itself) and once by the texts and attribute values of its events. Each event is estimated to add a fixed
+     * amount of bytes for object headers, location fields and references.
+     */
+    private static final long ESTIMATED_BYTES_PER_CHAR = 4L;
+    private static final long ESTIMATED_BYTES_PER_EVENT = 64L;
+
+    // Must be a power of two
+    private static final int SEGMENT_COUNT = 16;
+
+
+    private final long maxSizeInBytes;
+    private final Segment[] segments;
+    private final AtomicLong sizeInBytes = new AtomicLong(0L);
+
+    private final AtomicLong hitCount = new AtomicLong(0L);
+    private final AtomicLong missCount = new AtomicLong(0L);
+    private final AtomicLong collisionCount = new AtomicLong(0L);
+    private final AtomicLong evictionCount = new AtomicLong(0L);
+
+
+
+    public StringTemplateCache() {
+        this(DEFAULT_MAX_SIZE_IN_BYTES);
+    }
+
+
+    public StringTemplateCache(final long maxSizeInBytes) {
+        super();
+        Validate.isTrue(maxSizeInBytes > 0L, "Maximum size in bytes must be greater than zero");
+        this.maxSizeInBytes = maxSizeInBytes;
+        this.segments = new Segment[SEGMENT_COUNT];
+        for (int i = 0; i < SEGMENT_COUNT; i++) {
+            this.segments[i] = new Segment();
+        }
+    }
+
+
+
+
+    /**
+     * <p>
+     *   Returns the maximum estimated size (in bytes) of all the cached models.
+     * </p>
+     *
+     * @return the maximum size in bytes.
+     */
+    public long getMaxSizeInBytes() {
+        return this.maxSizeInBytes;
+    }
+
+
+    /**
+     * <p>
+     *   Returns the estimated size (in bytes) of all the currently cached models.
+     * </p>
+     *
+     * @return the estimated size in bytes.
+     */
+    public long getSizeInBytes() {
+        return this.sizeInBytes.get();
+    }
+
+
+    /**
+     * <p>
+     *   Returns the amount of currently cached templates.
+     * </p>
+     *
+     * @return the amount of entries.
+     */
+    public int size() {
+        int size = 0;
+        for (final Segment segment : this.segments) {
+            synchronized (segment) {
+                size += segment.entries.size();
+            }
+        }
+        return size;
+    }
+
+
+    /**
+     * <p>
+     *   Returns the amount of lookups that found the template in the cache.
+     * </p>
+     *
+     * @return the amount of hits.
+     */
+    public long getHitCount() {
+        return this.hitCount.get();
+    }
+
+
+    /**
+     * <p>
+     *   Returns the amount of lookups that did not find the template in the cache (including those caused by
+     *   hash collisions).
+     * </p>
+     *
+     * @return the amount of misses.
+     */
+    public long getMissCount() {
+        return this.missCount.get();
+    }
+
+
+    /**
+     * <p>
+     *   Returns the amount of lookups that found an entry for a different template with the same hash, length,
+     *   template mode and selectors.
+     * </p>
+     *
+     * @return the amount of hash collisions.
+     */
+    public long getCollisionCount() {
+        return this.collisionCount.get();
+    }
+
+
+    /**
+     * <p>
+     *   Returns the amount of entries that have been evicted in order to keep the estimated size of the cached
+     *   models below the maximum.
+     * </p>
+     *
+     * @return the amount of evictions.
+     */
+    public long getEvictionCount() {
+        return this.evictionCount.get();
+    }
+
+
+
+
+    @Override
+    public String toString() {
+        return "StringTemplateCache [size=" + size() + ", sizeInBytes=" + getSizeInBytes() +
+                ", maxSizeInBytes=" + getMaxSizeInBytes() + ", hits=" + getHitCount() + ", misses=" + getMissCount() +
+                ", collisions=" + getCollisionCount() + ", evictions=" + getEvictionCount() + "]";
+    }
+
+
+
+
+    TemplateModel get(final String template, final Set<String> templateSelectors, final TemplateMode templateMode) {
+
+        final Key key = new Key(template, templateSelectors, templateMode);
+        final Segment segment = segmentFor(key);
+
+        final Entry entry;
+        synchronized (segment) {
+            entry = segment.entries.get(key);
+        }
+
+        if (entry == null) {
+            this.missCount.incrementAndGet();
+            return null;
+        }
+
+        // Contents are compared out of the lock. Note this comparison will be immediate if both templates are
+        // the same String object.
+        if (!entry.template.equals(template)) {
+            this.collisionCount.incrementAndGet();
+            this.missCount.incrementAndGet();
+            return null;
+        }
+
+        this.hitCount.incrementAndGet();
+        return entry.model;
+
+    }
+
+
+    void put(
+            final String template, final Set<String> templateSelectors, final TemplateMode templateMode,
+            final TemplateModel templateModel) {
+
+        final long entrySizeInBytes =
+                ESTIMATED_BYTES_PER_CHAR * template.length() + ESTIMATED_BYTES_PER_EVENT * templateModel.size();
+        if (entrySizeInBytes > this.maxSizeInBytes) {
+            return;
+        }
+
+        final Key key = new Key(template, templateSelectors, templateMode);
+        final int segmentIndex = segmentIndexFor(key);
+        final Segment segment = this.segments[segmentIndex];
+
+        synchronized (segment) {
+            // In case of a hash collision, the new template replaces the previous one
+            final Entry previous = segment.entries.put(key, new Entry(template, templateModel, entrySizeInBytes));
+            long delta = entrySizeInBytes;
+            if (previous != null) {
+                delta -= previous.sizeInBytes;
+            }
+            segment.sizeInBytes += delta;
+            this.sizeInBytes.addAndGet(delta);
+        }
+
+        // Eviction starts at the segment the entry was added to, and only moves on to the following ones if it
+        // becomes empty. Only one segment lock is held at a time.
+        for (int i = 0; i < SEGMENT_COUNT && this.sizeInBytes.get() > this.maxSizeInBytes; i++) {
+            final Segment evictedSegment = this.segments[(segmentIndex + i) & (SEGMENT_COUNT - 1)];
+            synchronized (evictedSegment) {
+                final Iterator<Entry> entriesIterator = evictedSegment.entries.values().iterator();
+                while (this.sizeInBytes.get() > this.maxSizeInBytes && entriesIterator.hasNext()) {
+                    final Entry eldest = entriesIterator.next();
+                    entriesIterator.remove();
+                    evictedSegment.sizeInBytes -= eldest.sizeInBytes;
+                    this.sizeInBytes.addAndGet(-eldest.sizeInBytes);
+                    this.evictionCount.incrementAndGet();
+                }
+            }
+        }
+
+    }
+
+
+    void clear() {
+        for (final Segment segment : this.segments) {
+            synchronized (segment) {
+                segment.entries.clear();
+                this.sizeInBytes.addAndGet(-segment.sizeInBytes);
+                segment.sizeInBytes = 0L;
+            }
+        }
+    }
+
+
+    /*
+     * Removes the entries for the specified template (i.e. for all of its template modes and selectors)
+     */
+    void clearFor(final String template) {
+        final int hash = template.hashCode();
+        final int length = template.length();
+        // Entries for different template modes and selectors might live in any segment
+        for (final Segment segment : this.segments) {
+            synchronized (segment) {
+                final Iterator<Map.Entry<Key,Entry>> entriesIterator = segment.entries.entrySet().iterator();
+                while (entriesIterator.hasNext()) {
+                    final Map.Entry<Key,Entry> mapEntry = entriesIterator.next();
+                    final Key key = mapEntry.getKey();
+                    if (key.hash == hash && key.length == length && mapEntry.getValue().template.equals(template)) {
+                        entriesIterator.remove();
+                        segment.sizeInBytes -= mapEntry.getValue().sizeInBytes;
+                        this.sizeInBytes.addAndGet(-mapEntry.getValue().sizeInBytes);
+                    }
+                }
+            }
+        }
+    }
+
+
+    private Segment segmentFor(final Key key) {
+        return this.segments[segmentIndexFor(key)];
+    }
+
+
+    private static int segmentIndexFor(final Key key) {
+        // High bits are spread so that they also influence the selected segment
+        final int h = key.h;
+        return (h ^ (h >>> 16)) & (SEGMENT_COUNT - 1);
+    }
+
+
+
+
+    /*
+     * Segment monitors guard both the map and the segment size
+     */
+    private static final class Segment {
+
+        // Access-ordered, so that the eldest entry is always the least recently used one in the segment
+        private final LinkedHashMap<Key,Entry> entries = new LinkedHashMap<Key, Entry>(16, 0.75f, true);
+        private long sizeInBytes = 0L;
+
+        Segment() {
+            super();
+        }
+
+    }
+
+
+
+
+    private static final class Key {
+
+        private final int hash;
+        private final int length;
+        private final Set<String> templateSelectors;
+        private final TemplateMode templateMode;
+        private final int h;
+
+        Key(final String template, final Set<String> templateSelectors, final TemplateMode templateMode) {
+            super();
+            this.hash = template.hashCode();
+            this.length = template.length();
+            // Empty selector sets mean the entire template, in the same way as null
+            this.templateSelectors = (templateSelectors == null || templateSelectors.isEmpty()? null : templateSelectors);
+            this.templateMode = templateMode;
+            int result = this.hash;
+            result = 31 * result + this.length;
+            result = 31 * result + (this.templateSelectors != null ? this.templateSelectors.hashCode() : 0);
+            result = 31 * result + (this.templateMode != null ? this.templateMode.hashCode() : 0);
+            this.h = result;
+        }
+
+        @Override
+        public boolean equals(final Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            final Key key = (Key) o;
+            if (this.h != key.h || this.hash != key.hash || this.length != key.length) {
+                return false;
+            }
+            if (this.templateSelectors != null ? !this.templateSelectors.equals(key.templateSelectors) : key.templateSelectors != null) {
+                return false;
+            }
+            return this.templateMode == key.templateMode;
+        }
+
+        @Override
+        public int hashCode() {
+            return this.h;
+        }
+
+    }
+
+
+    private static final class Entry {
+
+        private final String template;
+        private final TemplateModel model;
+        private final long sizeInBytes;
+
+        Entry(final String template, final TemplateModel model, final long sizeInBytes) {
+            super();
+            this.template = template;
+            this.model = model;
+            this.sizeInBytes = sizeInBytes;
+        }
+
+    }
+
+
+}
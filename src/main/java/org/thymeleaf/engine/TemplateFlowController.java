@@ -19,7 +19,12 @@
  */
 package org.thymeleaf.engine;
 
+import java.util.ArrayList;
+import java.util.List;
+
 /*
+ * Flow controller for throttled executions. It also keeps the streams being iterated (which might be left open
+ * when an execution is paused), so that they can be closed if the execution fails or is discarded.
  *
  * @author Daniel Fernandez
  * @since 3.0.0
@@ -31,6 +36,8 @@ final class TemplateFlowController {
     boolean stopProcessing = false;
     boolean processorTemplateHandlerPending = false;
 
+    private List<StreamIterator> openStreamIterators = null;
+
 
 
     TemplateFlowController() {
@@ -38,4 +45,44 @@ final class TemplateFlowController {
     }
 
 
+
+
+    void registerStreamIterator(final StreamIterator streamIterator) {
+        if (this.openStreamIterators == null) {
+            this.openStreamIterators = new ArrayList<StreamIterator>(2);
+        }
+        this.openStreamIterators.add(streamIterator);
+    }
+
+
+    void unregisterStreamIterator(final StreamIterator streamIterator) {
+        if (this.openStreamIterators != null) {
+            this.openStreamIterators.remove(streamIterator);
+        }
+    }
+
+
+    void closeStreamIterators() {
+        if (this.openStreamIterators == null) {
+            return;
+        }
+        final List<StreamIterator> streamIterators = this.openStreamIterators;
+        this.openStreamIterators = null;
+        // Innermost iterations are closed first. Every stream is closed even if closing one of them fails.
+        RuntimeException exception = null;
+        for (int i = streamIterators.size() - 1; i >= 0; i--) {
+            try {
+                streamIterators.get(i).close();
+            } catch (final RuntimeException e) {
+                if (exception == null) {
+                    exception = e;
+                }
+            }
+        }
+        if (exception != null) {
+            throw exception;
+        }
+    }
+
+
 }
\ No newline at end of file
@@ -44,6 +44,7 @@ public final class TemplateHandlerAdapterMarkupHandler extends AbstractMarkupHan
     private final TemplateMode templateMode;
     private final int lineOffset;
     private final int colOffset;
+    private final TemplateStringPool stringPool; // can be null
 
     private int currentElementLine = -1;
     private int currentElementCol = -1;
@@ -58,6 +59,20 @@ public TemplateHandlerAdapterMarkupHandler(final String templateName,
                                                final AttributeDefinitions attributeDefinitions,
                                                final TemplateMode templateMode,
                                                final int lineOffset, final int colOffset) {
+        this(templateName, templateHandler, elementDefinitions, attributeDefinitions, templateMode, lineOffset, colOffset, null);
+    }
+
+
+    /*
+     * @since 3.0.10
+     */
+    public TemplateHandlerAdapterMarkupHandler(final String templateName,
+                                               final ITemplateHandler templateHandler,
+                                               final ElementDefinitions elementDefinitions,
+                                               final AttributeDefinitions attributeDefinitions,
+                                               final TemplateMode templateMode,
+                                               final int lineOffset, final int colOffset,
+                                               final TemplateStringPool stringPool) {
         super();
 
         Validate.notNull(templateHandler, "Template handler cannot be null");
@@ -75,6 +90,7 @@ public TemplateHandlerAdapterMarkupHandler(final String templateName,
         this.templateMode = templateMode;
         this.lineOffset = (lineOffset > 0 ? lineOffset - 1 : lineOffset); // line n for offset will be line 1 for the newly parsed template
         this.colOffset = (colOffset > 0 ? colOffset - 1 : colOffset); // line n for offset will be line 1 for the newly parsed template
+        this.stringPool = stringPool; // If not null, static texts, names and values will be canonicalized
 
         // We will use these for gathering the attributes and/or inner white spaces of elements
         this.currentElementAttributes = new ArrayList<Attribute>(10);
@@ -216,7 +232,7 @@ public void handleText(
             final int line, final int col)
             throws ParseException {
         this.templateHandler.handleText(
-                new Text(new String(buffer, offset, len), this.templateName, this.lineOffset + line, (line == 1? this.colOffset : 0) + col));
+                new Text(newString(buffer, offset, len), this.templateName, this.lineOffset + line, (line == 1? this.colOffset : 0) + col));
     }
 
 
@@ -243,7 +259,7 @@ public void handleStandaloneElementEnd(
             final boolean minimized, final int line, final int col)
             throws ParseException {
 
-        final String elementCompleteName = new String(buffer, nameOffset, nameLen);
+        final String elementCompleteName = newString(buffer, nameOffset, nameLen);
         final ElementDefinition elementDefinition = this.elementDefinitions.forName(this.templateMode, elementCompleteName);
 
         final Attributes attributes;
@@ -287,7 +303,7 @@ public void handleOpenElementEnd(
             final int line, final int col)
             throws ParseException {
 
-        final String elementCompleteName = new String(buffer, nameOffset, nameLen);
+        final String elementCompleteName = newString(buffer, nameOffset, nameLen);
         final ElementDefinition elementDefinition = this.elementDefinitions.forName(this.templateMode, elementCompleteName);
 
         final Attributes attributes;
@@ -331,7 +347,7 @@ public void handleAutoOpenElementEnd(
             final int line, final int col)
             throws ParseException {
 
-        final String elementCompleteName = new String(buffer, nameOffset, nameLen);
+        final String elementCompleteName = newString(buffer, nameOffset, nameLen);
         final ElementDefinition elementDefinition = this.elementDefinitions.forName(this.templateMode, elementCompleteName);
 
         final Attributes attributes;
@@ -375,7 +391,7 @@ public void handleCloseElementEnd(
             final int line, final int col)
             throws ParseException {
 
-        final String elementCompleteName = new String(buffer, nameOffset, nameLen);
+        final String elementCompleteName = newString(buffer, nameOffset, nameLen);
         final ElementDefinition elementDefinition = this.elementDefinitions.forName(this.templateMode, elementCompleteName);
 
         final String trailingWhiteSpace;
@@ -415,7 +431,7 @@ public void handleAutoCloseElementEnd(
             final int line, final int col)
             throws ParseException {
 
-        final String elementCompleteName = new String(buffer, nameOffset, nameLen);
+        final String elementCompleteName = newString(buffer, nameOffset, nameLen);
         final ElementDefinition elementDefinition = this.elementDefinitions.forName(this.templateMode, elementCompleteName);
 
         final String trailingWhiteSpace;
@@ -456,7 +472,7 @@ public void handleUnmatchedCloseElementEnd(
             final int line, final int col)
             throws ParseException {
 
-        final String elementCompleteName = new String(buffer, nameOffset, nameLen);
+        final String elementCompleteName = newString(buffer, nameOffset, nameLen);
         final ElementDefinition elementDefinition = this.elementDefinitions.forName(this.templateMode, elementCompleteName);
 
         final String trailingWhiteSpace;
@@ -487,7 +503,7 @@ public void handleAttribute(
             final int valueLine, final int valueCol)
             throws ParseException {
 
-        final String attributeName = new String(buffer, nameOffset, nameLen);
+        final String attributeName = newString(buffer, nameOffset, nameLen);
 
         final AttributeDefinition attributeDefinition = this.attributeDefinitions.forName(this.templateMode, attributeName);
 
@@ -495,11 +511,11 @@ public void handleAttribute(
                 (operatorLen > 0 ?
                         (operatorLen == 1 && buffer[operatorOffset] == '=' ?
                                 Attribute.DEFAULT_OPERATOR : // Shortcut for the most common case
-                                new String(buffer, operatorOffset, operatorLen)) :
+                                newString(buffer, operatorOffset, operatorLen)) :
                         null);
 
         final String value =
-                (attributeOperator != null ? new String(buffer, valueContentOffset, valueContentLen) : null);
+                (attributeOperator != null ? newString(buffer, valueContentOffset, valueContentLen) : null);
 
         final AttributeValueQuotes valueQuotes;
         if (value == null) {
@@ -541,7 +557,7 @@ public void handleInnerWhiteSpace(
         if (len == 1 && buffer[offset] == ' ') {
             elementWhiteSpace = Attributes.DEFAULT_WHITE_SPACE;
         } else {
-            elementWhiteSpace = new String(buffer, offset, len);
+            elementWhiteSpace = newString(buffer, offset, len);
         }
 
         this.currentElementInnerWhiteSpaces.add(elementWhiteSpace);
@@ -572,4 +588,12 @@ public void handleProcessingInstruction(
 
 
 
+    private String newString(final char[] buffer, final int offset, final int len) {
+        if (this.stringPool == null) {
+            return new String(buffer, offset, len);
+        }
+        return this.stringPool.pool(buffer, offset, len);
+    }
+
+
 }
@@ -53,6 +53,7 @@ public final class TemplateHandlerAdapterTextHandler extends AbstractTextHandler
     private final TemplateMode templateMode;
     private final int lineOffset;
     private final int colOffset;
+    private final TemplateStringPool stringPool; // can be null
 
     private int currentElementLine = -1;
     private int currentElementCol = -1;
@@ -65,6 +66,20 @@ public TemplateHandlerAdapterTextHandler(final String templateName,
                                              final AttributeDefinitions attributeDefinitions,
                                              final TemplateMode templateMode,
                                              final int lineOffset, final int colOffset) {
+        this(templateName, templateHandler, elementDefinitions, attributeDefinitions, templateMode, lineOffset, colOffset, null);
+    }
+
+
+    /*
+     * @since 3.0.10
+     */
+    public TemplateHandlerAdapterTextHandler(final String templateName,
+                                             final ITemplateHandler templateHandler,
+                                             final ElementDefinitions elementDefinitions,
+                                             final AttributeDefinitions attributeDefinitions,
+                                             final TemplateMode templateMode,
+                                             final int lineOffset, final int colOffset,
+                                             final TemplateStringPool stringPool) {
         super();
 
         Validate.notNull(templateHandler, "Template handler cannot be null");
@@ -82,6 +97,7 @@ public TemplateHandlerAdapterTextHandler(final String templateName,
         this.templateMode = templateMode;
         this.lineOffset = (lineOffset > 0 ? lineOffset - 1 : lineOffset); // line n for offset will be line 1 for the newly parsed template
         this.colOffset = (colOffset > 0 ? colOffset - 1 : colOffset); // line n for offset will be line 1 for the newly parsed template
+        this.stringPool = stringPool; // If not null, static texts, names and values will be canonicalized
 
         // We will use these for gathering the attributes and/or inner white spaces of elements
         this.currentElementAttributes = new ArrayList<Attribute>(10);
@@ -116,7 +132,7 @@ public void handleText(
             final int line, final int col)
             throws TextParseException {
         this.templateHandler.handleText(
-                new Text(new String(buffer, offset, len), this.templateName, this.lineOffset + line, (line == 1? this.colOffset : 0) + col));
+                new Text(newString(buffer, offset, len), this.templateName, this.lineOffset + line, (line == 1? this.colOffset : 0) + col));
     }
 
 
@@ -142,7 +158,7 @@ public void handleStandaloneElementEnd(
             final boolean minimized, final int line, final int col)
             throws TextParseException {
 
-        final String elementCompleteName = new String(buffer, nameOffset, nameLen);
+        final String elementCompleteName = newString(buffer, nameOffset, nameLen);
         final ElementDefinition elementDefinition = this.elementDefinitions.forName(this.templateMode, elementCompleteName);
 
         final Attributes attributes;
@@ -191,7 +207,7 @@ public void handleOpenElementEnd(
             final int line, final int col)
             throws TextParseException {
 
-        final String elementCompleteName = new String(buffer, nameOffset, nameLen);
+        final String elementCompleteName = newString(buffer, nameOffset, nameLen);
         final ElementDefinition elementDefinition = this.elementDefinitions.forName(this.templateMode, elementCompleteName);
 
         final Attributes attributes;
@@ -240,7 +256,7 @@ public void handleCloseElementEnd(
             final int line, final int col)
             throws TextParseException {
 
-        final String elementCompleteName = new String(buffer, nameOffset, nameLen);
+        final String elementCompleteName = newString(buffer, nameOffset, nameLen);
         final ElementDefinition elementDefinition = this.elementDefinitions.forName(this.templateMode, elementCompleteName);
 
         this.templateHandler.handleCloseElement(
@@ -264,7 +280,7 @@ public void handleAttribute(
             final int valueLine, final int valueCol)
             throws TextParseException {
 
-        final String attributeName = new String(buffer, nameOffset, nameLen);
+        final String attributeName = newString(buffer, nameOffset, nameLen);
 
         final AttributeDefinition attributeDefinition = this.attributeDefinitions.forName(this.templateMode, attributeName);
 
@@ -272,12 +288,12 @@ public void handleAttribute(
                 (operatorLen > 0 ?
                         (operatorLen == 1 && buffer[operatorOffset] == '=' ?
                                 Attribute.DEFAULT_OPERATOR : // Shortcut for the most common case
-                                new String(buffer, operatorOffset, operatorLen)) :
+                                newString(buffer, operatorOffset, operatorLen)) :
                         null);
 
         final String value =
                 (attributeOperator != null ?
-                        new String(buffer, valueContentOffset, valueContentLen) :
+                        newString(buffer, valueContentOffset, valueContentLen) :
                         null);
 
         final AttributeValueQuotes valueQuotes;
@@ -304,4 +320,12 @@ public void handleAttribute(
 
 
 
+    private String newString(final char[] buffer, final int offset, final int len) {
+        if (this.stringPool == null) {
+            return new String(buffer, offset, len);
+        }
+        return this.stringPool.pool(buffer, offset, len);
+    }
+
+
 }
@@ -28,33 +28,41 @@
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.thymeleaf.EngineConfiguration;
 import org.thymeleaf.IEngineConfiguration;
+import org.thymeleaf.OutputFlushPolicy;
 import org.thymeleaf.TemplateEngine;
 import org.thymeleaf.TemplateSpec;
 import org.thymeleaf.cache.AlwaysValidCacheEntryValidity;
+import org.thymeleaf.cache.DecoupledTemplateLogicCacheKey;
 import org.thymeleaf.cache.ICache;
 import org.thymeleaf.cache.ICacheEntryValidity;
 import org.thymeleaf.cache.ICacheManager;
 import org.thymeleaf.cache.NonCacheableCacheEntryValidity;
+import org.thymeleaf.cache.StandardCacheManager;
 import org.thymeleaf.cache.TemplateCacheKey;
 import org.thymeleaf.context.IContext;
 import org.thymeleaf.context.IEngineContext;
 import org.thymeleaf.context.ITemplateContext;
 import org.thymeleaf.exceptions.TemplateInputException;
 import org.thymeleaf.exceptions.TemplateProcessingException;
+import org.thymeleaf.metrics.IEngineMetricsListener;
 import org.thymeleaf.postprocessor.IPostProcessor;
 import org.thymeleaf.preprocessor.IPreProcessor;
 import org.thymeleaf.templatemode.TemplateMode;
 import org.thymeleaf.templateparser.ITemplateParser;
+import org.thymeleaf.templateparser.markup.AbstractMarkupTemplateParser;
 import org.thymeleaf.templateparser.markup.HTMLTemplateParser;
 import org.thymeleaf.templateparser.markup.XMLTemplateParser;
 import org.thymeleaf.templateparser.raw.RawTemplateParser;
 import org.thymeleaf.templateparser.text.CSSTemplateParser;
 import org.thymeleaf.templateparser.text.JavaScriptTemplateParser;
+import org.thymeleaf.templateparser.markup.decoupled.DecoupledTemplateLogic;
 import org.thymeleaf.templateparser.text.TextTemplateParser;
 import org.thymeleaf.templateresolver.ITemplateResolver;
 import org.thymeleaf.templateresolver.TemplateResolution;
 import org.thymeleaf.templateresource.ITemplateResource;
+import org.thymeleaf.templateresource.StringTemplateResource;
 import org.thymeleaf.util.LoggingUtils;
 import org.thymeleaf.util.Validate;
 
@@ -84,6 +92,13 @@ public final class TemplateManager {
 
 
     private final ICache<TemplateCacheKey,TemplateModel> templateCache; // might be null! (= no cache)
+    private final ICache<DecoupledTemplateLogicCacheKey,DecoupledTemplateLogic> decoupledTemplateLogicCache; // might be null! (= no cache)
+    private final TemplateResolverRouter templateResolverRouter;
+    private final TemplateModelCompactor templateModelCompactor; // might be null! (= no compaction)
+    private final IncrementalTemplateParser incrementalTemplateParser; // might be null! (= no incremental parsing)
+    private final StringTemplateCache stringTemplateCache; // might be null! (= String templates in the template cache)
+
+    private final IEngineMetricsListener metricsListener; // might be null! (= no metrics)
 
 
 
@@ -107,8 +122,48 @@ public TemplateManager(final IEngineConfiguration configuration) {
 
         if (cacheManager == null) {
             this.templateCache = null;
+            this.decoupledTemplateLogicCache = null;
         } else {
             this.templateCache = cacheManager.getTemplateCache();
+            this.decoupledTemplateLogicCache =
+                    cacheManager.getSpecificCache(StandardCacheManager.DECOUPLED_TEMPLATE_LOGIC_CACHE_NAME);
+        }
+
+        this.templateResolverRouter = new TemplateResolverRouter(this.configuration);
+
+        if (this.templateCache != null
+                && this.configuration instanceof EngineConfiguration
+                && ((EngineConfiguration) this.configuration).isCompactTemplateCache()) {
+            // Compaction will share the engine-wide String pool used by the parsers, if there is one
+            final TemplateStringPool templateStringPool =
+                    ((EngineConfiguration) this.configuration).getTemplateStringPool();
+            this.templateModelCompactor =
+                    new TemplateModelCompactor(
+                            templateStringPool != null? templateStringPool : new TemplateStringPool());
+        } else {
+            this.templateModelCompactor = null;
+        }
+
+        if (this.templateCache != null
+                && this.configuration instanceof EngineConfiguration
+                && ((EngineConfiguration) this.configuration).getIncrementalTemplateParsing() != null) {
+            this.incrementalTemplateParser =
+                    new IncrementalTemplateParser(
+                            this.configuration, ((EngineConfiguration) this.configuration).getIncrementalTemplateParsing());
+        } else {
+            this.incrementalTemplateParser = null;
+        }
+
+        if (this.configuration instanceof EngineConfiguration) {
+            this.stringTemplateCache = ((EngineConfiguration) this.configuration).getStringTemplateCache();
+        } else {
+            this.stringTemplateCache = null;
+        }
+
+        if (this.configuration instanceof EngineConfiguration) {
+            this.metricsListener = ((EngineConfiguration) this.configuration).getMetricsListener();
+        } else {
+            this.metricsListener = null;
         }
 
         final boolean standardDialectPresent = this.configuration.isStandardDialectPresent();
@@ -129,20 +184,32 @@ public TemplateManager(final IEngineConfiguration configuration) {
     
     /**
      * <p>
-     *   Clears the template cache.
+     *   Clears the template cache (and the decoupled template logic cache, if any). Also clears the
+     *   template name routing decisions cached for the configured template resolvers, the snapshots
+     *   kept for incremental template parsing (if enabled) and the string template cache (if any).
      * </p>
      */
     public void clearCaches() {
         if (this.templateCache != null) {
             this.templateCache.clear();
         }
+        if (this.decoupledTemplateLogicCache != null) {
+            this.decoupledTemplateLogicCache.clear();
+        }
+        this.templateResolverRouter.clear();
+        if (this.incrementalTemplateParser != null) {
+            ((EngineConfiguration) this.configuration).getIncrementalTemplateParsing().clear();
+        }
+        if (this.stringTemplateCache != null) {
+            this.stringTemplateCache.clear();
+        }
     }
 
     
     /**
      * <p>
      *   Clears any existing entries for template of the specified
-     *   name at the template cache.
+     *   name at the template cache (and the decoupled template logic cache and string template cache, if any).
      * </p>
      * 
      * @param template the name of the template whose entries have to be cleared.
@@ -171,6 +238,20 @@ public void clearCachesFor(final String template) {
                 this.templateCache.clearKey(keyToBeRemoved);
             }
         }
+        if (this.decoupledTemplateLogicCache != null) {
+            final Set<DecoupledTemplateLogicCacheKey> keysToBeRemoved = new HashSet<DecoupledTemplateLogicCacheKey>(4);
+            for (final DecoupledTemplateLogicCacheKey decoupledCacheKey : this.decoupledTemplateLogicCache.keySet()) {
+                if (decoupledCacheKey.getTemplate().equals(template)) {
+                    keysToBeRemoved.add(decoupledCacheKey);
+                }
+            }
+            for (final DecoupledTemplateLogicCacheKey keyToBeRemoved : keysToBeRemoved) {
+                this.decoupledTemplateLogicCache.clearKey(keyToBeRemoved);
+            }
+        }
+        if (this.stringTemplateCache != null) {
+            this.stringTemplateCache.clearFor(template);
+        }
     }
 
 
@@ -232,7 +313,7 @@ public TemplateModel parseStandalone(
          * First look at the cache - it might be already cached
          */
         if (useCache && this.templateCache != null) {
-            final TemplateModel cached =  this.templateCache.get(cacheKey);
+            final TemplateModel cached =  getFromTemplateCache(cacheKey);
             if (cached != null) {
                 /*
                  * Just at the end, and importantly AFTER CACHING, check if we need to apply any pre-processors
@@ -247,7 +328,7 @@ public TemplateModel parseStandalone(
          * Resolve the template
          */
         final TemplateResolution templateResolution =
-                resolveTemplate(this.configuration, ownerTemplate, template, templateResolutionAttributes, failIfNotExists);
+                resolveTemplate(this.configuration, this.templateResolverRouter, ownerTemplate, template, templateResolutionAttributes, failIfNotExists);
 
 
         /*
@@ -290,38 +371,104 @@ public TemplateModel parseStandalone(
 
 
         /*
-         *  Create the Template Handler that will be in charge of building the TemplateModel
+         * PROCESS THE TEMPLATE
          */
-        final ModelBuilderTemplateHandler builderHandler = new ModelBuilderTemplateHandler(this.configuration, templateData);
+        final ITemplateParser parser = getParserForTemplateMode(templateData.getTemplateMode());
+        final TemplateModel templateModel;
+        if (useCache && isStringTemplateCached(template, templateResolution)) {
+            templateModel =
+                    parseStringTemplateModel(
+                            parser, ownerTemplate, template, cleanTemplateSelectors, templateData, templateResolution);
+        } else {
+            templateModel =
+                    parseTemplateModel(
+                            (this.templateCache != null? cacheKey : null), parser,
+                            ownerTemplate, template, cleanTemplateSelectors, templateData, templateResolution);
+            /*
+             * Cache the template if it is cacheable
+             */
+            if (useCache && this.templateCache != null) {
+                if (templateResolution.getValidity().isCacheable()) {
+                    putInTemplateCache(cacheKey, templateModel);
+                }
+            }
+        }
 
 
         /*
-         * PROCESS THE TEMPLATE
+         * Last step: just at the end, and importantly AFTER CACHING, check if we need to apply any pre-processors
+         * to this model before returning and letting the engine insert the model in any way it needs.
          */
-        final ITemplateParser parser = getParserForTemplateMode(templateData.getTemplateMode());
-        parser.parseStandalone(
-                this.configuration,
-                ownerTemplate, template, cleanTemplateSelectors, templateData.getTemplateResource(),
-                templateData.getTemplateMode(), templateResolution.getUseDecoupledLogic(), builderHandler);
+        return applyPreProcessorsIfNeeded(context, templateModel);
+
+    }
+
 
-        final TemplateModel templateModel = builderHandler.getModel();
 
 
+    /*
+     * Parses a top-level template (i.e. one being directly executed by the TemplateEngine, not inserted) into a
+     * TemplateModel, looking first at the cache and caching the result if possible. Note that, unlike
+     * parseAndProcess(...), this always produces a TemplateModel even if the template is not cacheable.
+     * Pre-processors are NOT applied to the returned model, as they will be applied when processing it by means
+     * of processStandalone(...).
+     */
+    public TemplateModel parseStandalone(final TemplateSpec templateSpec) {
+
+        Validate.notNull(templateSpec, "Template Specification cannot be null");
+
+        final String template = templateSpec.getTemplate();
+        final Set<String> templateSelectors = templateSpec.getTemplateSelectors();
+        final TemplateMode templateMode = templateSpec.getTemplateMode();
+        final Map<String, Object> templateResolutionAttributes = templateSpec.getTemplateResolutionAttributes();
+
+        final TemplateCacheKey cacheKey =
+                new TemplateCacheKey(
+                        null, // ownerTemplate
+                        template, templateSelectors,
+                        0, 0, // lineOffset, colOffset
+                        templateMode,
+                        templateResolutionAttributes);
+
         /*
-         * Cache the template if it is cacheable
+         * First look at the cache - it might be already cached
          */
-        if (useCache && this.templateCache != null) {
-            if (templateResolution.getValidity().isCacheable()) {
-                this.templateCache.put(cacheKey, templateModel);
+        if (this.templateCache != null) {
+            final TemplateModel cached =  getFromTemplateCache(cacheKey);
+            if (cached != null) {
+                return cached;
             }
         }
 
+        /*
+         * Resolve the template and build the TemplateData object
+         */
+        final TemplateResolution templateResolution =
+                resolveTemplate(this.configuration, this.templateResolverRouter, null, template, templateResolutionAttributes, true);
+        final TemplateData templateData =
+                buildTemplateData(templateResolution, template, templateSelectors, templateMode, true);
 
         /*
-         * Last step: just at the end, and importantly AFTER CACHING, check if we need to apply any pre-processors
-         * to this model before returning and letting the engine insert the model in any way it needs.
+         * Parse the template into a TemplateModel
          */
-        return applyPreProcessorsIfNeeded(context, templateModel);
+        final ITemplateParser parser = getParserForTemplateMode(templateData.getTemplateMode());
+        if (isStringTemplateCached(template, templateResolution)) {
+            return parseStringTemplateModel(
+                    parser, null, template, templateSelectors, templateData, templateResolution);
+        }
+        final TemplateModel templateModel =
+                parseTemplateModel(
+                        (this.templateCache != null? cacheKey : null), parser,
+                        null, template, templateSelectors, templateData, templateResolution);
+
+        /*
+         * Cache the template if it is cacheable
+         */
+        if (this.templateCache != null && templateResolution.getValidity().isCacheable()) {
+            putInTemplateCache(cacheKey, templateModel);
+        }
+
+        return templateModel;
 
     }
 
@@ -355,7 +502,7 @@ private TemplateModel applyPreProcessorsIfNeeded(final ITemplateContext context,
 
         final ModelBuilderTemplateHandler builderHandler = new ModelBuilderTemplateHandler(this.configuration, templateData);
         final ITemplateHandler processingHandlerChain =
-                createTemplateProcessingHandlerChain(engineContext, true, false, builderHandler, null);
+                createTemplateProcessingHandlerChain(engineContext, true, false, builderHandler, null, null);
 
         templateModel.process(processingHandlerChain);
 
@@ -399,7 +546,7 @@ public TemplateModel parseString(
          * First look at the cache - it might be already cached
          */
         if (useCache && this.templateCache != null) {
-            final TemplateModel cached =  this.templateCache.get(cacheKey);
+            final TemplateModel cached =  getFromTemplateCache(cacheKey);
             if (cached != null) {
                 return cached;
             }
@@ -449,9 +596,12 @@ public TemplateModel parseString(
          */
         final ITemplateParser parser = getParserForTemplateMode(templateData.getTemplateMode());
         // NO RESOURCE is sent to the parser, in this case. We simply pass the String template
+        final long parseStartNanos = (this.metricsListener != null? System.nanoTime() : 0L);
         parser.parseString(this.configuration, ownerTemplate, template, lineOffset, colOffset, definitiveTemplateMode, builderHandler);
 
         final TemplateModel parsedTemplate = builderHandler.getModel();
+        // Metrics for String fragments are reported as belonging to the owner template
+        notifyTemplateParsed(ownerTemplate, parsedTemplate, parseStartNanos);
 
 
         /*
@@ -459,7 +609,7 @@ public TemplateModel parseString(
          */
         if (useCache && this.templateCache != null) {
             if (cacheValidity.isCacheable()) {
-                this.templateCache.put(cacheKey, parsedTemplate);
+                putInTemplateCache(cacheKey, parsedTemplate);
             }
         }
         
@@ -511,7 +661,7 @@ public void process(
          */
         final ProcessorTemplateHandler processorTemplateHandler = new ProcessorTemplateHandler();
         final ITemplateHandler processingHandlerChain =
-                createTemplateProcessingHandlerChain(engineContext, false, false, processorTemplateHandler, writer);
+                createTemplateProcessingHandlerChain(engineContext, false, false, processorTemplateHandler, writer, null);
 
         /*
          *  Process the template
@@ -531,6 +681,41 @@ public void process(
 
 
 
+    /*
+     * Processes a top-level template model (normally obtained by means of parseStandalone(TemplateSpec)) in the
+     * same way parseAndProcess(...) would do it, i.e. applying both pre-processors and post-processors.
+     */
+    public void processStandalone(
+            final TemplateModel template,
+            final Map<String, Object> templateResolutionAttributes,
+            final IContext context,
+            final Writer writer) {
+
+        Validate.notNull(template, "Template cannot be null");
+        Validate.notNull(context, "Context cannot be null");
+        Validate.notNull(writer, "Writer cannot be null");
+        Validate.isTrue(
+                this.configuration == template.getConfiguration(),
+                "Specified template was built by a different Template Engine instance");
+
+        final IEngineContext engineContext =
+                EngineContextManager.prepareEngineContext(this.configuration, template.getTemplateData(), templateResolutionAttributes, context);
+
+        final ProcessorTemplateHandler processorTemplateHandler = new ProcessorTemplateHandler();
+        final ITemplateHandler processingHandlerChain =
+                createTemplateProcessingHandlerChain(engineContext, true, true, processorTemplateHandler, writer, null);
+
+        template.process(processingHandlerChain);
+
+        EngineContextManager.disposeEngineContext(engineContext);
+
+    }
+
+
+
+
+
+
     /*
      * -------------------------
      * PARSE-AND-PROCESS methods
@@ -545,10 +730,20 @@ public void parseAndProcess(
             final TemplateSpec templateSpec,
             final IContext context,
             final Writer writer) {
+        parseAndProcess(templateSpec, context, writer, null);
+    }
+
+
+    public void parseAndProcess(
+            final TemplateSpec templateSpec,
+            final IContext context,
+            final Writer writer,
+            final OutputFlushPolicy flushPolicy) {
 
         Validate.notNull(templateSpec, "Template Specification cannot be null");
         Validate.notNull(context, "Context cannot be null");
         Validate.notNull(writer, "Writer cannot be null");
+        // flushPolicy CAN be null
 
 
         // TemplateSpec will already have validated its contents, so need to do it here (template selectors,
@@ -573,7 +768,7 @@ public void parseAndProcess(
          */
         if (this.templateCache != null) {
 
-            final TemplateModel cached =  this.templateCache.get(cacheKey);
+            final TemplateModel cached =  getFromTemplateCache(cacheKey);
 
             if (cached != null) {
 
@@ -587,7 +782,7 @@ public void parseAndProcess(
                  */
                 final ProcessorTemplateHandler processorTemplateHandler = new ProcessorTemplateHandler();
                 final ITemplateHandler processingHandlerChain =
-                        createTemplateProcessingHandlerChain(engineContext, true, true, processorTemplateHandler, writer);
+                        createTemplateProcessingHandlerChain(engineContext, true, true, processorTemplateHandler, writer, flushPolicy);
 
                 cached.process(processingHandlerChain);
 
@@ -604,7 +799,7 @@ public void parseAndProcess(
          * Resolve the template
          */
         final TemplateResolution templateResolution =
-                resolveTemplate(this.configuration, null, template, templateResolutionAttributes, true);
+                resolveTemplate(this.configuration, this.templateResolverRouter, null, template, templateResolutionAttributes, true);
 
 
         /*
@@ -628,7 +823,7 @@ public void parseAndProcess(
          */
         final ProcessorTemplateHandler processorTemplateHandler = new ProcessorTemplateHandler();
         final ITemplateHandler processingHandlerChain =
-                createTemplateProcessingHandlerChain(engineContext, true, true, processorTemplateHandler, writer);
+                createTemplateProcessingHandlerChain(engineContext, true, true, processorTemplateHandler, writer, flushPolicy);
 
 
         /*
@@ -640,22 +835,25 @@ public void parseAndProcess(
         /*
          * If the resolved template is cacheable, so we will first read it as an object, cache it, and then process it
          */
-        if (templateResolution.getValidity().isCacheable() && this.templateCache != null) {
+        if (isStringTemplateCached(template, templateResolution)) {
 
-            // Create the handler chain to create the Template object
-            final ModelBuilderTemplateHandler builderHandler = new ModelBuilderTemplateHandler(this.configuration, templateData);
+            // Obtain the TemplateModel from the string template cache (or parse and cache it)
+            final TemplateModel templateModel =
+                    parseStringTemplateModel(
+                            parser, null, template, templateSelectors, templateData, templateResolution);
 
-            // Process the template into a TemplateModel
-            parser.parseStandalone(
-                    this.configuration,
-                    null, template, templateSelectors, templateData.getTemplateResource(),
-                    engineContext.getTemplateMode(), templateResolution.getUseDecoupledLogic(), builderHandler);
+            // Process the (cached) template itself
+            templateModel.process(processingHandlerChain);
+
+        } else if (templateResolution.getValidity().isCacheable() && this.templateCache != null) {
 
-            // Obtain the TemplateModel
-            final TemplateModel templateModel = builderHandler.getModel();
+            // Process the template into a TemplateModel
+            final TemplateModel templateModel =
+                    parseTemplateModel(
+                            cacheKey, parser, null, template, templateSelectors, templateData, templateResolution);
 
             // Put the new template into cache
-            this.templateCache.put(cacheKey, templateModel);
+            putInTemplateCache(cacheKey, templateModel);
 
             // Process the read (+cached) template itself
             templateModel.process(processingHandlerChain);
@@ -663,10 +861,10 @@ public void parseAndProcess(
         } else {
 
             //  Process the template, which is not cacheable (so no worry about caching)
-            parser.parseStandalone(
-                    this.configuration,
+            parseStandalone(
+                    parser,
                     null, template, templateSelectors, templateData.getTemplateResource(),
-                    engineContext.getTemplateMode(), templateResolution.getUseDecoupledLogic(),  processingHandlerChain);
+                    engineContext.getTemplateMode(), templateResolution, processingHandlerChain);
 
         }
 
@@ -721,7 +919,7 @@ public ThrottledTemplateProcessor parseAndProcessThrottled(final TemplateSpec te
          */
         if (this.templateCache != null) {
 
-            final TemplateModel cached =  this.templateCache.get(cacheKey);
+            final TemplateModel cached =  getFromTemplateCache(cacheKey);
 
             if (cached != null) {
 
@@ -736,7 +934,7 @@ public ThrottledTemplateProcessor parseAndProcessThrottled(final TemplateSpec te
                 final ProcessorTemplateHandler processorTemplateHandler = new ProcessorTemplateHandler();
                 processorTemplateHandler.setFlowController(flowController);
                 final ITemplateHandler processingHandlerChain =
-                        createTemplateProcessingHandlerChain(engineContext, true, true, processorTemplateHandler, throttledTemplateWriter);
+                        createTemplateProcessingHandlerChain(engineContext, true, true, processorTemplateHandler, throttledTemplateWriter, null);
 
                 /*
                  * Return the throttled template processor
@@ -754,7 +952,7 @@ public ThrottledTemplateProcessor parseAndProcessThrottled(final TemplateSpec te
          * Resolve the template
          */
         final TemplateResolution templateResolution =
-                resolveTemplate(this.configuration, null, template, templateResolutionAttributes, true);
+                resolveTemplate(this.configuration, this.templateResolverRouter, null, template, templateResolutionAttributes, true);
 
 
         /*
@@ -779,7 +977,7 @@ public ThrottledTemplateProcessor parseAndProcessThrottled(final TemplateSpec te
         final ProcessorTemplateHandler processorTemplateHandler = new ProcessorTemplateHandler();
         processorTemplateHandler.setFlowController(flowController);
         final ITemplateHandler processingHandlerChain =
-                createTemplateProcessingHandlerChain(engineContext, true, true, processorTemplateHandler, throttledTemplateWriter);
+                createTemplateProcessingHandlerChain(engineContext, true, true, processorTemplateHandler, throttledTemplateWriter, null);
 
 
         /*
@@ -793,21 +991,23 @@ public ThrottledTemplateProcessor parseAndProcessThrottled(final TemplateSpec te
          * will always be processed first into a TemplateModel, so that throttling can then be applied on an
          * already-in-memory sequence of events
          */
-        final ModelBuilderTemplateHandler builderHandler = new ModelBuilderTemplateHandler(this.configuration, templateData);
-        parser.parseStandalone(
-                this.configuration,
-                null, template, templateSelectors, templateData.getTemplateResource(),
-                engineContext.getTemplateMode(), templateResolution.getUseDecoupledLogic(), builderHandler);
-        final TemplateModel templateModel = builderHandler.getModel();
+        final boolean stringTemplateCached = isStringTemplateCached(template, templateResolution);
+        final TemplateModel templateModel =
+                (stringTemplateCached?
+                        parseStringTemplateModel(
+                                parser, null, template, templateSelectors, templateData, templateResolution) :
+                        parseTemplateModel(
+                                (this.templateCache != null? cacheKey : null), parser,
+                                null, template, templateSelectors, templateData, templateResolution));
 
 
         /*
          * If cache is active, put the cached TemplateModel into cache
          */
-        if (templateResolution.getValidity().isCacheable() && this.templateCache != null) {
+        if (!stringTemplateCached && templateResolution.getValidity().isCacheable() && this.templateCache != null) {
 
             // Put the new template into cache
-            this.templateCache.put(cacheKey, templateModel);
+            putInTemplateCache(cacheKey, templateModel);
 
         }
 
@@ -828,6 +1028,7 @@ public ThrottledTemplateProcessor parseAndProcessThrottled(final TemplateSpec te
 
     private static TemplateResolution resolveTemplate(
             final IEngineConfiguration configuration,
+            final TemplateResolverRouter templateResolverRouter,
             final String ownerTemplate,
             final String template,
             final Map<String, Object> templateResolutionAttributes,
@@ -839,7 +1040,13 @@ private static TemplateResolution resolveTemplate(
         // (like e.g. omitting some output from the resource) could harm the correctness of the selection operation
         // performed by the parser.
 
-        for (final ITemplateResolver templateResolver : configuration.getTemplateResolvers()) {
+        final IEngineMetricsListener metricsListener =
+                (configuration instanceof EngineConfiguration?
+                        ((EngineConfiguration) configuration).getMetricsListener() : null);
+        final long startNanos = (metricsListener != null? System.nanoTime() : 0L);
+
+        // Only the resolvers that can possibly resolve a template with this name will be asked
+        for (final ITemplateResolver templateResolver : templateResolverRouter.getCandidateTemplateResolvers(template)) {
 
             final TemplateResolution templateResolution =
                     templateResolver.resolveTemplate(configuration, ownerTemplate, template, templateResolutionAttributes);
@@ -849,6 +1056,9 @@ private static TemplateResolution resolveTemplate(
                             "[THYMELEAF][{}] Template resolver match! Resolver \"{}\" will resolve template \"{}\"",
                             new Object[] {TemplateEngine.threadIndex(), templateResolver.getName(), LoggingUtils.loggifyTemplateName(template)});
                 }
+                if (metricsListener != null) {
+                    metricsListener.templateResolved(template, true, System.nanoTime() - startNanos);
+                }
                 return templateResolution;
             }
 
@@ -860,6 +1070,10 @@ private static TemplateResolution resolveTemplate(
 
         }
 
+        if (metricsListener != null) {
+            metricsListener.templateResolved(template, false, System.nanoTime() - startNanos);
+        }
+
         if (!failIfNotExists) {
             // In this case we will not consider that a "not exists" means a failure. Maybe we are in a scenario
             // (e.g. some types of operations with FragmentExpressions) in which we desire this.
@@ -876,6 +1090,28 @@ private static TemplateResolution resolveTemplate(
 
 
 
+    private TemplateModel getFromTemplateCache(final TemplateCacheKey cacheKey) {
+        final TemplateModel cached = this.templateCache.get(cacheKey);
+        if (this.metricsListener != null) {
+            this.metricsListener.cacheAccessed(IEngineMetricsListener.TEMPLATE_CACHE_NAME, cached != null);
+        }
+        return cached;
+    }
+
+
+
+
+    private void notifyTemplateParsed(final String template, final TemplateModel templateModel, final long startNanos) {
+        if (this.metricsListener != null) {
+            this.metricsListener.templateParsed(
+                    template, templateModel.getTemplateData().getTemplateMode(), templateModel.size(),
+                    System.nanoTime() - startNanos);
+        }
+    }
+
+
+
+
     private static TemplateData buildTemplateData(
             final TemplateResolution templateResolution,
             final String template,
@@ -898,6 +1134,24 @@ private static TemplateData buildTemplateData(
 
 
 
+    private void putInTemplateCache(final TemplateCacheKey cacheKey, final TemplateModel templateModel) {
+        // If compaction is enabled, the cache will store a compact copy. The original model can still be used by
+        // the current execution, and will be discarded afterwards.
+        if (this.templateModelCompactor != null) {
+            final TemplateModel compactTemplateModel = this.templateModelCompactor.compact(templateModel);
+            this.templateCache.put(cacheKey, compactTemplateModel);
+            if (this.incrementalTemplateParser != null) {
+                ((EngineConfiguration) this.configuration).getIncrementalTemplateParsing().replaceSnapshotModel(
+                        cacheKey, templateModel, compactTemplateModel);
+            }
+        } else {
+            this.templateCache.put(cacheKey, templateModel);
+        }
+    }
+
+
+
+
     private ITemplateParser getParserForTemplateMode(final TemplateMode templateMode) {
         switch (templateMode) {
             case HTML:       return this.htmlParser;
@@ -914,11 +1168,126 @@ private ITemplateParser getParserForTemplateMode(final TemplateMode templateMode
 
 
 
+    /*
+     * Templates resolved as Strings (i.e. whose resource contents are their own name) are cached at the string
+     * template cache, if there is one, instead of the template cache, as long as their resolver considers them
+     * cacheable. Note comparing the template with the description of the resource (its contents) will be
+     * immediate if they are the same String object, as is the case for StringTemplateResolver.
+     */
+    private boolean isStringTemplateCached(final String template, final TemplateResolution templateResolution) {
+        if (this.stringTemplateCache == null || templateResolution.getUseDecoupledLogic()) {
+            return false;
+        }
+        if (!templateResolution.getValidity().isCacheable()) {
+            return false;
+        }
+        final ITemplateResource resource = templateResolution.getTemplateResource();
+        return resource instanceof StringTemplateResource && template.equals(resource.getDescription());
+    }
+
+
+    private TemplateModel parseStringTemplateModel(
+            final ITemplateParser parser,
+            final String ownerTemplate, final String template, final Set<String> templateSelectors,
+            final TemplateData templateData, final TemplateResolution templateResolution) {
+
+        final TemplateModel cached =
+                this.stringTemplateCache.get(template, templateSelectors, templateData.getTemplateMode());
+        if (this.metricsListener != null) {
+            this.metricsListener.cacheAccessed(IEngineMetricsListener.STRING_TEMPLATE_CACHE_NAME, cached != null);
+        }
+        if (cached != null) {
+            // The cached events are shared, but the TemplateData (resource, validity...) of the entry might come
+            // from a different resolution, so it is replaced with the one for this resolution.
+            return new TemplateModel(cached.configuration, templateData, cached.queue);
+        }
+
+        final TemplateModel templateModel =
+                parseTemplateModel(null, parser, ownerTemplate, template, templateSelectors, templateData, templateResolution);
+
+        // If compaction is enabled, the cache will store a compact copy (the parsed model is returned anyway)
+        this.stringTemplateCache.put(
+                template, templateSelectors, templateData.getTemplateMode(),
+                (this.templateModelCompactor != null? this.templateModelCompactor.compact(templateModel) : templateModel));
+
+        return templateModel;
+
+    }
+
+
+
+
+    /*
+     * Parses a template that is going to be cached (if cacheKey is not null) into a TemplateModel, incrementally
+     * if enabled and the template does not use decoupled logic.
+     */
+    private TemplateModel parseTemplateModel(
+            final TemplateCacheKey cacheKey, final ITemplateParser parser,
+            final String ownerTemplate, final String template, final Set<String> templateSelectors,
+            final TemplateData templateData, final TemplateResolution templateResolution) {
+
+        final long parseStartNanos = (this.metricsListener != null? System.nanoTime() : 0L);
+
+        TemplateModel templateModel = null;
+        if (this.incrementalTemplateParser != null && cacheKey != null
+                && templateResolution.getValidity().isCacheable() && !templateResolution.getUseDecoupledLogic()) {
+            templateModel =
+                    this.incrementalTemplateParser.parse(
+                            cacheKey, parser, ownerTemplate, template, templateSelectors, templateData);
+        }
+
+        if (templateModel == null) {
+            final ModelBuilderTemplateHandler builderHandler = new ModelBuilderTemplateHandler(this.configuration, templateData);
+            parseStandalone(
+                    parser,
+                    ownerTemplate, template, templateSelectors, templateData.getTemplateResource(),
+                    templateData.getTemplateMode(), templateResolution, builderHandler);
+            templateModel = builderHandler.getModel();
+        }
+
+        notifyTemplateParsed(template, templateModel, parseStartNanos);
+
+        return templateModel;
+
+    }
+
+
+
+
+    /*
+     * Markup parsers receive the validity of the template resolution, so that the decoupled template logic
+     * they compute (if any) can be cached and reused when parsing the same template (or its fragments) again.
+     */
+    private void parseStandalone(
+            final ITemplateParser parser,
+            final String ownerTemplate, final String template, final Set<String> templateSelectors,
+            final ITemplateResource resource, final TemplateMode templateMode,
+            final TemplateResolution templateResolution, final ITemplateHandler handler) {
+
+        if (this.decoupledTemplateLogicCache != null
+                && templateResolution.getUseDecoupledLogic() && parser instanceof AbstractMarkupTemplateParser) {
+            ((AbstractMarkupTemplateParser) parser).parseStandalone(
+                    this.configuration,
+                    ownerTemplate, template, templateSelectors, resource,
+                    templateMode, true, templateResolution.getValidity(), handler);
+            return;
+        }
+
+        parser.parseStandalone(
+                this.configuration,
+                ownerTemplate, template, templateSelectors, resource,
+                templateMode, templateResolution.getUseDecoupledLogic(), handler);
+
+    }
+
+
+
+
 
     private static ITemplateHandler createTemplateProcessingHandlerChain(
             final IEngineContext context,
             final boolean setPreProcessors, final boolean setPostProcessors,
-            final ITemplateHandler handler, final Writer writer) {
+            final ITemplateHandler handler, final Writer writer, final OutputFlushPolicy flushPolicy) {
 
         final IEngineConfiguration configuration = context.getConfiguration();
 
@@ -1005,7 +1374,7 @@ private static ITemplateHandler createTemplateProcessingHandlerChain(
          * Last step: the OUTPUT HANDLER
          */
         if (writer != null) {
-            final OutputTemplateHandler outputHandler = new OutputTemplateHandler(writer);
+            final OutputTemplateHandler outputHandler = new OutputTemplateHandler(writer, flushPolicy);
             outputHandler.setContext(context);
             if (firstHandler == null) {
                 firstHandler = outputHandler;
@@ -0,0 +1,212 @@
+/*
+ * =============================================================================
+ *
+ *   Copyright (c) 2011-2016, The THYMELEAF team (http://www.thymeleaf.org)
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ * =============================================================================
+ */
+package org.thymeleaf.engine;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+
+/*
+ * Creates compact copies of template models before they are stored at the template cache.
+ *
+ * Template models created by the parsers hold their own String instance for each element name, attribute name,
+ * attribute value and piece of whitespace appearing on the template, and their own array of inner whitespace for
+ * each element. In large pages most of these are repeated many times ("div", "class", " ", "\n    "...), so the
+ * copies created here share a single instance of each (by means of an engine-wide TemplateStringPool), both
+ * inside each template and among all the templates in the cache.
+ *
+ * The compact copies contain exactly the same events (same types, values and locations), so they behave exactly
+ * the same during processing. Note template models are immutable and their events are handed directly to
+ * processors, so they are not encoded in any other way (which would require materializing event objects again
+ * each time a template is processed).
+ *
+ * @author Daniel Fernandez
+ * @since 3.0.10
+ *
+ */
+final class TemplateModelCompactor {
+
+    // Long texts are rarely repeated, so pooling them would only add overhead
+    static final int MAX_POOLED_TEXT_LENGTH = 64;
+    static final int MAX_POOLED_ATTRIBUTE_VALUE_LENGTH = 128;
+
+    // Arrays of inner whitespace are canonicalized only if they are short (the usual case)
+    private static final int MAX_CANONICAL_WHITE_SPACES_LENGTH = 8;
+    private static final int MAX_CANONICAL_WHITE_SPACE_LENGTH = 8;
+    private static final int MAX_CANONICAL_WHITE_SPACE_ARRAYS = 256;
+
+
+    private final TemplateStringPool stringPool;
+    private final ConcurrentHashMap<String,String[]> canonicalWhiteSpaces;
+
+
+
+    TemplateModelCompactor(final TemplateStringPool stringPool) {
+        super();
+        this.stringPool = stringPool;
+        this.canonicalWhiteSpaces = new ConcurrentHashMap<String, String[]>(32, 0.75f, 4);
+    }
+
+
+
+
+    TemplateModel compact(final TemplateModel templateModel) {
+
+        final IEngineTemplateEvent[] queue = templateModel.queue;
+        final IEngineTemplateEvent[] compactQueue = new IEngineTemplateEvent[queue.length];
+
+        for (int i = 0; i < queue.length; i++) {
+            compactQueue[i] = compactEvent(queue[i]);
+        }
+
+        return new TemplateModel(templateModel.configuration, templateModel.templateData, compactQueue);
+
+    }
+
+
+
+
+    private IEngineTemplateEvent compactEvent(final IEngineTemplateEvent event) {
+
+        if (event instanceof Text) {
+            final Text text = (Text) event;
+            if (text.length() > MAX_POOLED_TEXT_LENGTH) {
+                return text;
+            }
+            return new Text(
+                    this.stringPool.pool(text.getText()),
+                    this.stringPool.pool(text.templateName), text.line, text.col);
+        }
+
+        if (event instanceof OpenElementTag) {
+            final OpenElementTag tag = (OpenElementTag) event;
+            return new OpenElementTag(
+                    tag.templateMode, tag.elementDefinition,
+                    this.stringPool.pool(tag.elementCompleteName), compactAttributes(tag.attributes), tag.synthetic,
+                    this.stringPool.pool(tag.templateName), tag.line, tag.col);
+        }
+
+        if (event instanceof CloseElementTag) {
+            final CloseElementTag tag = (CloseElementTag) event;
+            return new CloseElementTag(
+                    tag.templateMode, tag.elementDefinition,
+                    this.stringPool.pool(tag.elementCompleteName), this.stringPool.pool(tag.trailingWhiteSpace),
+                    tag.synthetic, tag.unmatched,
+                    this.stringPool.pool(tag.templateName), tag.line, tag.col);
+        }
+
+        if (event instanceof StandaloneElementTag) {
+            final StandaloneElementTag tag = (StandaloneElementTag) event;
+            return new StandaloneElementTag(
+                    tag.templateMode, tag.elementDefinition,
+                    this.stringPool.pool(tag.elementCompleteName), compactAttributes(tag.attributes), tag.synthetic,
+                    tag.minimized,
+                    this.stringPool.pool(tag.templateName), tag.line, tag.col);
+        }
+
+        // Any other events (comments, CDATA sections, DOCTYPEs...) are few, so they are not worth compacting
+        return event;
+
+    }
+
+
+
+
+    private Attributes compactAttributes(final Attributes attributes) {
+
+        if (attributes == null || attributes == Attributes.EMPTY_ATTRIBUTES) {
+            return attributes;
+        }
+
+        final Attribute[] attributeArray = attributes.attributes;
+        final Attribute[] compactAttributeArray;
+        if (attributeArray == null || attributeArray.length == 0) {
+            compactAttributeArray = attributeArray;
+        } else {
+            compactAttributeArray = new Attribute[attributeArray.length];
+            for (int i = 0; i < attributeArray.length; i++) {
+                compactAttributeArray[i] = compactAttribute(attributeArray[i]);
+            }
+        }
+
+        return new Attributes(compactAttributeArray, compactWhiteSpaces(attributes.innerWhiteSpaces));
+
+    }
+
+
+    private Attribute compactAttribute(final Attribute attribute) {
+
+        final String value = attribute.value;
+        final String compactValue =
+                (value == null || value.length() > MAX_POOLED_ATTRIBUTE_VALUE_LENGTH? value : this.stringPool.pool(value));
+
+        return new Attribute(
+                attribute.definition, this.stringPool.pool(attribute.completeName),
+                this.stringPool.pool(attribute.operator), compactValue, attribute.valueQuotes,
+                this.stringPool.pool(attribute.templateName), attribute.line, attribute.col);
+
+    }
+
+
+    private String[] compactWhiteSpaces(final String[] innerWhiteSpaces) {
+
+        if (innerWhiteSpaces == null || innerWhiteSpaces.length == 0) {
+            return innerWhiteSpaces;
+        }
+
+        if (innerWhiteSpaces.length > MAX_CANONICAL_WHITE_SPACES_LENGTH) {
+            return poolWhiteSpaces(innerWhiteSpaces);
+        }
+
+        // Whitespace cannot contain the NUL character, so we can use it as separator for the key
+        final StringBuilder keyBuilder = new StringBuilder(innerWhiteSpaces.length * 2);
+        for (int i = 0; i < innerWhiteSpaces.length; i++) {
+            if (innerWhiteSpaces[i].length() > MAX_CANONICAL_WHITE_SPACE_LENGTH) {
+                return poolWhiteSpaces(innerWhiteSpaces);
+            }
+            keyBuilder.append(innerWhiteSpaces[i]);
+            keyBuilder.append('\u0000');
+        }
+        final String key = keyBuilder.toString();
+
+        final String[] canonical = this.canonicalWhiteSpaces.get(key);
+        if (canonical != null) {
+            return canonical;
+        }
+
+        final String[] pooled = poolWhiteSpaces(innerWhiteSpaces);
+        if (this.canonicalWhiteSpaces.size() < MAX_CANONICAL_WHITE_SPACE_ARRAYS) {
+            final String[] existing = this.canonicalWhiteSpaces.putIfAbsent(key, pooled);
+            return (existing != null? existing : pooled);
+        }
+        return pooled;
+
+    }
+
+
+    private String[] poolWhiteSpaces(final String[] innerWhiteSpaces) {
+        final String[] pooled = new String[innerWhiteSpaces.length];
+        for (int i = 0; i < innerWhiteSpaces.length; i++) {
+            pooled[i] = this.stringPool.pool(innerWhiteSpaces[i]);
+        }
+        return pooled;
+    }
+
+
+}
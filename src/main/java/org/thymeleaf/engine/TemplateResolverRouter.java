@@ -0,0 +1,176 @@
+/*
+ * =============================================================================
+ *
+ *   Copyright (c) 2011-2016, The THYMELEAF team (http://www.thymeleaf.org)
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ * =============================================================================
+ */
+package org.thymeleaf.engine;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.thymeleaf.IEngineConfiguration;
+import org.thymeleaf.templateresolver.AbstractTemplateResolver;
+import org.thymeleaf.templateresolver.ITemplateResolver;
+import org.thymeleaf.util.PatternSpec;
+
+
+/*
+ * Routing index for the chain of template resolvers configured at the engine, used by TemplateManager in order
+ * to avoid asking resolvers that cannot possibly resolve a template.
+ *
+ * Resolvers extending AbstractTemplateResolver that specify resolvable patterns (and do not override the way
+ * these patterns are applied) will never resolve a template whose name does not match these patterns, and this is
+ * a decision that only depends on the template name. So for each template name, the list of candidate resolvers
+ * (those whose patterns match, plus those that cannot be routed by name) is computed once and cached, and
+ * subsequent resolutions of the same name only ask those candidates. Note prefixes and suffixes cannot be used
+ * for this, as whether a resolver with a prefix/suffix can resolve a template depends on its resources.
+ *
+ * The index is built from the resolver configuration at the moment the TemplateManager is created (i.e. at engine
+ * initialization), so changes to resolvable patterns made afterwards will not be taken into account until
+ * caches are cleared.
+ *
+ * @author Daniel Fernandez
+ * @since 3.0.10
+ *
+ */
+final class TemplateResolverRouter {
+
+    // Maximum amount of template names the router will remember: names arriving after this limit will still be
+    // routed, just not cached. Also, very long names (e.g. String templates using their contents as names) are
+    // not cached either.
+    static final int MAX_CACHED_NAMES = 1000;
+    static final int MAX_CACHED_NAME_LENGTH = 256;
+
+    private final ITemplateResolver[] templateResolvers;
+    private final PatternSpec[] routingPatternSpecs; // null elements = resolver should always be asked
+    private final boolean routable;
+    private final ConcurrentHashMap<String,ITemplateResolver[]> candidatesByName;
+
+
+
+    TemplateResolverRouter(final IEngineConfiguration configuration) {
+
+        super();
+
+        final Set<ITemplateResolver> configuredTemplateResolvers = configuration.getTemplateResolvers();
+
+        this.templateResolvers = configuredTemplateResolvers.toArray(new ITemplateResolver[configuredTemplateResolvers.size()]);
+        this.routingPatternSpecs = new PatternSpec[this.templateResolvers.length];
+
+        boolean anyRoutable = false;
+        for (int i = 0; i < this.templateResolvers.length; i++) {
+            this.routingPatternSpecs[i] = computeRoutingPatternSpec(this.templateResolvers[i]);
+            anyRoutable |= (this.routingPatternSpecs[i] != null);
+        }
+
+        // If no resolver can be routed by name, all of them will always be asked, so there is nothing to cache
+        this.routable = anyRoutable;
+        this.candidatesByName =
+                (this.routable? new ConcurrentHashMap<String, ITemplateResolver[]>(64, 0.75f, 4) : null);
+
+    }
+
+
+
+
+    ITemplateResolver[] getCandidateTemplateResolvers(final String template) {
+
+        if (!this.routable) {
+            return this.templateResolvers;
+        }
+
+        final ITemplateResolver[] cached = this.candidatesByName.get(template);
+        if (cached != null) {
+            return cached;
+        }
+
+        final ITemplateResolver[] candidates = computeCandidateTemplateResolvers(template);
+
+        if (template.length() <= MAX_CACHED_NAME_LENGTH && this.candidatesByName.size() < MAX_CACHED_NAMES) {
+            this.candidatesByName.putIfAbsent(template, candidates);
+        }
+
+        return candidates;
+
+    }
+
+
+    void clear() {
+        if (this.candidatesByName != null) {
+            this.candidatesByName.clear();
+        }
+    }
+
+
+
+
+    private ITemplateResolver[] computeCandidateTemplateResolvers(final String template) {
+
+        final List<ITemplateResolver> candidates = new ArrayList<ITemplateResolver>(this.templateResolvers.length);
+        for (int i = 0; i < this.templateResolvers.length; i++) {
+            final PatternSpec routingPatternSpec = this.routingPatternSpecs[i];
+            if (routingPatternSpec == null || routingPatternSpec.matches(template)) {
+                candidates.add(this.templateResolvers[i]);
+            }
+        }
+
+        if (candidates.size() == this.templateResolvers.length) {
+            return this.templateResolvers;
+        }
+        return candidates.toArray(new ITemplateResolver[candidates.size()]);
+
+    }
+
+
+
+
+    private static PatternSpec computeRoutingPatternSpec(final ITemplateResolver templateResolver) {
+
+        if (!(templateResolver instanceof AbstractTemplateResolver)) {
+            return null;
+        }
+
+        final PatternSpec resolvablePatternSpec = ((AbstractTemplateResolver) templateResolver).getResolvablePatternSpec();
+        if (resolvablePatternSpec.isEmpty()) {
+            // No patterns means the resolver will try to resolve any template
+            return null;
+        }
+
+        // Subclasses overriding computeResolvable(...) might take their decision based on something more than the
+        // template name (or not use the patterns at all), so these cannot be routed
+        Class<?> resolverClass = templateResolver.getClass();
+        while (resolverClass != null && resolverClass != AbstractTemplateResolver.class) {
+            try {
+                resolverClass.getDeclaredMethod(
+                        "computeResolvable", IEngineConfiguration.class, String.class, String.class, Map.class);
+                return null;
+            } catch (final NoSuchMethodException e) {
+                resolverClass = resolverClass.getSuperclass();
+            } catch (final SecurityException e) {
+                return null;
+            }
+        }
+
+        return resolvablePatternSpec;
+
+    }
+
+
+}
@@ -0,0 +1,375 @@
+/*
+ * =============================================================================
+ *
+ *   Copyright (c) 2011-2016, The THYMELEAF team (http://www.thymeleaf.org)
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ * =============================================================================
+ */
+package org.thymeleaf.engine;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+
+import org.thymeleaf.util.Validate;
+
+
+/**
+ * <p>
+ *   Engine-wide pool of String instances, used by the parser adapters (markup and text) for canonicalizing the
+ *   static texts, whitespace, element and attribute names, and attribute values appearing on templates, so that
+ *   equal Strings are shared among all the templates stored at the template cache instead of each event holding
+ *   its own copy.
+ * </p>
+ * <p>
+ *   Strings are looked up directly from the parser buffers, so no String object is created when an equal one
+ *   already exists in the pool. Pooled Strings are <strong>weakly held</strong>, and are removed from the pool
+ *   once no template model references them anymore (e.g. when templates are evicted from the template cache).
+ *   Strings longer than a configurable maximum length are never pooled, as long texts are rarely repeated.
+ * </p>
+ * <p>
+ *   The pool also keeps statistics about the amount of lookups, hits and (estimated) bytes saved.
+ * </p>
+ * <p>
+ *   A pool can be set at {@link org.thymeleaf.TemplateEngine} instances by means of their
+ *   {@link org.thymeleaf.TemplateEngine#setTemplateStringPool(TemplateStringPool)} method. Objects of this class
+ *   are <strong>thread-safe</strong>.
+ * </p>
+ *
+ * @author Daniel Fern&aacute;ndez
+ *
+ * @since 3.0.10
+ *
+ */
+public final class TemplateStringPool {
+
+    /**
+     * Default maximum length of pooled Strings: {@value}
+     */
+    public static final int DEFAULT_MAX_LENGTH = 128;
+
+    // Lookups are distributed among several independently-locked segments in order to avoid contention
+    private static final int SEGMENT_COUNT = 16; // Must be a power of 2
+    private static final int INITIAL_SEGMENT_CAPACITY = 64; // Must be a power of 2
+
+
+    private final int maxLength;
+    private final Segment[] segments;
+
+
+
+    public TemplateStringPool() {
+        this(DEFAULT_MAX_LENGTH);
+    }
+
+
+    public TemplateStringPool(final int maxLength) {
+        super();
+        Validate.isTrue(maxLength > 0, "Maximum length must be greater than zero");
+        this.maxLength = maxLength;
+        this.segments = new Segment[SEGMENT_COUNT];
+        for (int i = 0; i < SEGMENT_COUNT; i++) {
+            this.segments[i] = new Segment();
+        }
+    }
+
+
+
+
+    /**
+     * <p>
+     *   Returns the maximum length of the Strings that will be pooled.
+     * </p>
+     *
+     * @return the maximum length.
+     */
+    public int getMaxLength() {
+        return this.maxLength;
+    }
+
+
+    /**
+     * <p>
+     *   Returns a String with the specified chars, which will be the pooled instance if one exists (or a new one,
+     *   which will be added to the pool, if it does not).
+     * </p>
+     *
+     * @param buffer the buffer containing the chars.
+     * @param offset the offset of the chars in the buffer.
+     * @param len the amount of chars.
+     * @return the String.
+     */
+    public String pool(final char[] buffer, final int offset, final int len) {
+        if (len > this.maxLength) {
+            return new String(buffer, offset, len);
+        }
+        if (len == 0) {
+            return "";
+        }
+        int h = 0;
+        for (int i = offset, n = offset + len; i < n; i++) {
+            h = 31 * h + buffer[i];
+        }
+        return segmentFor(h).pool(buffer, offset, len, null, h);
+    }
+
+
+    /**
+     * <p>
+     *   Returns the pooled instance of the specified String if one exists, or adds the specified String to the
+     *   pool (and returns it) if it does not.
+     * </p>
+     *
+     * @param str the String (can be null).
+     * @return the pooled String.
+     */
+    public String pool(final String str) {
+        if (str == null || str.length() > this.maxLength) {
+            return str;
+        }
+        if (str.length() == 0) {
+            return "";
+        }
+        final int h = str.hashCode();
+        return segmentFor(h).pool(null, 0, str.length(), str, h);
+    }
+
+
+
+
+    /**
+     * <p>
+     *   Returns the amount of Strings currently in the pool. This is an approximation, as it might still
+     *   include Strings that have been garbage-collected.
+     * </p>
+     *
+     * @return the amount of pooled Strings.
+     */
+    public int size() {
+        int size = 0;
+        for (final Segment segment : this.segments) {
+            synchronized (segment) {
+                size += segment.count;
+            }
+        }
+        return size;
+    }
+
+
+    /**
+     * <p>
+     *   Returns the amount of lookups performed on this pool.
+     * </p>
+     *
+     * @return the amount of lookups.
+     */
+    public long getLookupCount() {
+        long lookups = 0L;
+        for (final Segment segment : this.segments) {
+            synchronized (segment) {
+                lookups += segment.lookups;
+            }
+        }
+        return lookups;
+    }
+
+
+    /**
+     * <p>
+     *   Returns the amount of lookups that found an already-pooled String.
+     * </p>
+     *
+     * @return the amount of hits.
+     */
+    public long getHitCount() {
+        long hits = 0L;
+        for (final Segment segment : this.segments) {
+            synchronized (segment) {
+                hits += segment.hits;
+            }
+        }
+        return hits;
+    }
+
+
+    /**
+     * <p>
+     *   Returns an estimation of the amount of bytes saved by the pool, i.e. the size of all the String objects
+     *   that did not need to be retained because an equal pooled String was used instead. Estimations assume
+     *   a 64-bit JVM with compressed object pointers and UTF-16 String contents.
+     * </p>
+     *
+     * @return the estimated amount of bytes saved.
+     */
+    public long getSavedBytes() {
+        long savedBytes = 0L;
+        for (final Segment segment : this.segments) {
+            synchronized (segment) {
+                savedBytes += segment.savedBytes;
+            }
+        }
+        return savedBytes;
+    }
+
+
+
+
+    @Override
+    public String toString() {
+        return "TemplateStringPool [size=" + size() + ", lookups=" + getLookupCount() + ", hits=" + getHitCount() +
+                ", savedBytes=" + getSavedBytes() + "]";
+    }
+
+
+
+
+    private Segment segmentFor(final int hash) {
+        // Short Strings have hashes with no high bits set, so we need to spread them before selecting the segment
+        return this.segments[((hash * 0x9E3779B9) >>> 28) & (SEGMENT_COUNT - 1)];
+    }
+
+
+    private static int indexFor(final int hash, final int tableLength) {
+        return (hash ^ (hash >>> 16)) & (tableLength - 1);
+    }
+
+
+    private static long estimateSize(final int len) {
+        // String object (24 bytes) + char[] header (16 bytes) + contents, aligned to 8 bytes
+        return 24L + ((16L + 2L * len + 7L) & ~7L);
+    }
+
+
+    private static boolean regionEquals(final String str, final char[] buffer, final int offset, final int len) {
+        for (int i = 0; i < len; i++) {
+            if (str.charAt(i) != buffer[offset + i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+
+
+
+    private static final class Entry extends WeakReference<String> {
+
+        final int hash;
+        Entry next;
+
+        Entry(final String str, final int hash, final Entry next, final ReferenceQueue<String> queue) {
+            super(str, queue);
+            this.hash = hash;
+            this.next = next;
+        }
+
+    }
+
+
+
+
+    private static final class Segment {
+
+        private final ReferenceQueue<String> queue = new ReferenceQueue<String>();
+        private Entry[] table = new Entry[INITIAL_SEGMENT_CAPACITY];
+        int count = 0;
+        long lookups = 0L;
+        long hits = 0L;
+        long savedBytes = 0L;
+
+
+        Segment() {
+            super();
+        }
+
+
+        synchronized String pool(
+                final char[] buffer, final int offset, final int len, final String str, final int hash) {
+
+            this.lookups++;
+
+            for (Entry entry = this.table[indexFor(hash, this.table.length)]; entry != null; entry = entry.next) {
+                if (entry.hash == hash) {
+                    final String candidate = entry.get();
+                    if (candidate != null && candidate.length() == len &&
+                            (str != null? candidate.equals(str) : regionEquals(candidate, buffer, offset, len))) {
+                        this.hits++;
+                        this.savedBytes += estimateSize(len);
+                        return candidate;
+                    }
+                }
+            }
+
+            expungeStaleEntries();
+            if (this.count >= (this.table.length >> 1) + (this.table.length >> 2)) { // load factor: 0.75
+                resize();
+            }
+
+            final String newStr = (str != null? str : new String(buffer, offset, len));
+            final int index = indexFor(hash, this.table.length);
+            this.table[index] = new Entry(newStr, hash, this.table[index], this.queue);
+            this.count++;
+
+            return newStr;
+
+        }
+
+
+        private void expungeStaleEntries() {
+            Object stale;
+            while ((stale = this.queue.poll()) != null) {
+                final Entry staleEntry = (Entry) stale;
+                final int index = indexFor(staleEntry.hash, this.table.length);
+                Entry previous = null;
+                for (Entry entry = this.table[index]; entry != null; entry = entry.next) {
+                    if (entry == staleEntry) {
+                        if (previous == null) {
+                            this.table[index] = entry.next;
+                        } else {
+                            previous.next = entry.next;
+                        }
+                        this.count--;
+                        break;
+                    }
+                    previous = entry;
+                }
+            }
+        }
+
+
+        private void resize() {
+            final Entry[] oldTable = this.table;
+            final Entry[] newTable = new Entry[oldTable.length << 1];
+            for (int i = 0; i < oldTable.length; i++) {
+                Entry entry = oldTable[i];
+                while (entry != null) {
+                    final Entry next = entry.next;
+                    if (entry.get() == null) {
+                        // Cleared, but not yet enqueued: it will be ignored when polled from the queue
+                        this.count--;
+                    } else {
+                        final int index = indexFor(entry.hash, newTable.length);
+                        entry.next = newTable[index];
+                        newTable[index] = entry;
+                    }
+                    entry = next;
+                }
+            }
+            this.table = newTable;
+        }
+
+    }
+
+
+}
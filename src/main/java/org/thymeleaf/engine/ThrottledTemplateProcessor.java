@@ -155,6 +155,40 @@ private void reportFinish(final String outputType) {
 
 
 
+    /**
+     * <p>
+     *   Discards this processor before it has finished, releasing the resources held by the paused execution:
+     *   any streams being iterated (e.g. by <tt>th:each</tt>) are closed. The processor will be considered
+     *   finished afterwards.
+     * </p>
+     * <p>
+     *   This should be called when a throttled execution is abandoned (e.g. because the client disconnected)
+     *   before {@link #isFinished()} returns <tt>true</tt>. Calling it on a finished processor has no effect.
+     * </p>
+     *
+     * @since 3.0.10
+     */
+    public void discard() {
+        if (this.allProcessingFinished) {
+            return;
+        }
+        this.eventProcessingFinished = true;
+        this.allProcessingFinished = true;
+        this.flowController.closeStreamIterators();
+    }
+
+
+    private void closeStreamsAfterFailure() {
+        try {
+            this.flowController.closeStreamIterators();
+        } catch (final RuntimeException ignored) {
+            // The exception that made processing fail is the one to be reported
+        }
+    }
+
+
+
+
     @Override
     public String getProcessorIdentifier() {
         return this.identifier;
@@ -276,6 +310,7 @@ private int process(final int maxOutput, final String outputType) {
 
             this.eventProcessingFinished = true;
             this.allProcessingFinished = true;
+            closeStreamsAfterFailure();
             // We log the exception just in case higher levels do not end up logging it (e.g. they could simply display traces in the browser
             logger.error(String.format("[THYMELEAF][%s] Exception processing throttled template \"%s\": %s", new Object[] {TemplateEngine.threadIndex(), this.templateSpec, e.getMessage()}), e);
             throw e;
@@ -284,6 +319,7 @@ private int process(final int maxOutput, final String outputType) {
 
             this.eventProcessingFinished = true;
             this.allProcessingFinished = true;
+            closeStreamsAfterFailure();
             // We log the exception just in case higher levels do not end up logging it (e.g. they could simply display traces in the browser
             logger.error(String.format("[THYMELEAF][%s] Exception processing throttled template \"%s\": %s", new Object[] {TemplateEngine.threadIndex(), this.templateSpec, e.getMessage()}), e);
             throw e;
@@ -292,6 +328,7 @@ private int process(final int maxOutput, final String outputType) {
 
             this.eventProcessingFinished = true;
             this.allProcessingFinished = true;
+            closeStreamsAfterFailure();
             // We log the exception just in case higher levels do not end up logging it (e.g. they could simply display traces in the browser
             logger.error(String.format("[THYMELEAF][%s] Exception processing throttled template \"%s\": %s", new Object[] {TemplateEngine.threadIndex(), this.templateSpec, e.getMessage()}), e);
             throw new TemplateProcessingException("Exception processing throttled template", this.templateSpec.toString(), e);
@@ -0,0 +1,185 @@
+/*
+ * =============================================================================
+ *
+ *   Copyright (c) 2011-2016, The THYMELEAF team (http://www.thymeleaf.org)
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ * =============================================================================
+ */
+package org.thymeleaf.messageresolver;
+
+
+/**
+ * <p>
+ *   Snapshot of the metrics of the store used by {@link StandardMessageResolver} for keeping the
+ *   template-based messages of cacheable templates.
+ * </p>
+ * <p>
+ *   Memory figures are approximate: they are computed from the amount and length of the messages and keys
+ *   held by the store, assuming compressed object references.
+ * </p>
+ * <p>
+ *   Lookup figures will only be computed if lookup metrics have been enabled by means of
+ *   {@link StandardMessageResolver#setLookupMetricsEnabled(boolean)}. A lookup is each execution of the
+ *   template-based step of message resolution, including the examination of all the nested templates.
+ * </p>
+ * <p>
+ *   Objects of this class are <strong>immutable</strong>.
+ * </p>
+ *
+ * @author Daniel Fern&aacute;ndez
+ *
+ * @see StandardMessageResolver#getMessageStoreMetrics()
+ *
+ * @since 3.0.10
+ *
+ */
+public final class MessageStoreMetrics {
+
+    private final long tableCount;
+    private final long messageCount;
+    private final long keyCount;
+    private final long slotCount;
+    private final long estimatedMemory;
+    private final long lookupCount;
+    private final long lookupNanos;
+
+
+
+    MessageStoreMetrics(
+            final long tableCount, final long messageCount, final long keyCount, final long slotCount,
+            final long estimatedMemory, final long lookupCount, final long lookupNanos) {
+        super();
+        this.tableCount = tableCount;
+        this.messageCount = messageCount;
+        this.keyCount = keyCount;
+        this.slotCount = slotCount;
+        this.estimatedMemory = estimatedMemory;
+        this.lookupCount = lookupCount;
+        this.lookupNanos = lookupNanos;
+    }
+
+
+
+
+    /**
+     * <p>
+     *   Returns the amount of message tables in the store, i.e. the amount of <tt>.properties</tt>
+     *   files read and kept in memory.
+     * </p>
+     *
+     * @return the amount of tables.
+     */
+    public long getTableCount() {
+        return this.tableCount;
+    }
+
+
+    /**
+     * <p>
+     *   Returns the amount of messages in all tables. Messages for the same key in different files
+     *   are counted separately.
+     * </p>
+     *
+     * @return the amount of messages.
+     */
+    public long getMessageCount() {
+        return this.messageCount;
+    }
+
+
+    /**
+     * <p>
+     *   Returns the amount of distinct message keys in the files of each template, each of which is retained
+     *   only once for all the locales of the template.
+     * </p>
+     *
+     * @return the amount of keys.
+     */
+    public long getKeyCount() {
+        return this.keyCount;
+    }
+
+
+    /**
+     * <p>
+     *   Returns the total amount of slots in all tables, including empty ones.
+     * </p>
+     *
+     * @return the amount of slots.
+     */
+    public long getSlotCount() {
+        return this.slotCount;
+    }
+
+
+    /**
+     * <p>
+     *   Returns the approximate amount of memory (in bytes) retained by tables, messages and keys.
+     * </p>
+     *
+     * @return the estimated memory in bytes.
+     */
+    public long getEstimatedMemory() {
+        return this.estimatedMemory;
+    }
+
+
+    /**
+     * <p>
+     *   Returns the amount of lookups measured.
+     * </p>
+     *
+     * @return the amount of lookups.
+     */
+    public long getLookupCount() {
+        return this.lookupCount;
+    }
+
+
+    /**
+     * <p>
+     *   Returns the total time (in nanoseconds) spent in the lookups measured.
+     * </p>
+     *
+     * @return the total lookup time in nanoseconds.
+     */
+    public long getLookupNanos() {
+        return this.lookupNanos;
+    }
+
+
+    /**
+     * <p>
+     *   Returns the average time (in nanoseconds) of the lookups measured, or zero if no lookups have
+     *   been measured.
+     * </p>
+     *
+     * @return the average lookup time in nanoseconds.
+     */
+    public long getAverageLookupNanos() {
+        return (this.lookupCount == 0L? 0L : this.lookupNanos / this.lookupCount);
+    }
+
+
+
+    @Override
+    public String toString() {
+        return "{tables=" + this.tableCount + ", messages=" + this.messageCount + ", keys=" + this.keyCount +
+                ", slots=" + this.slotCount + ", estimatedMemory=" + this.estimatedMemory +
+                ", lookups=" + this.lookupCount + ", averageLookupNanos=" + getAverageLookupNanos() + "}";
+    }
+
+
+}
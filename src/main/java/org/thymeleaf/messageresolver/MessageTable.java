@@ -0,0 +1,193 @@
+/*
+ * =============================================================================
+ *
+ *   Copyright (c) 2011-2016, The THYMELEAF team (http://www.thymeleaf.org)
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ * =============================================================================
+ */
+package org.thymeleaf.messageresolver;
+
+import java.util.AbstractMap;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+
+/*
+ * Immutable, compact table containing the messages read from a single .properties file, linked to the table
+ * for the next less specific file in its locale chain (e.g. home_gl_ES -> home_gl -> home).
+ *
+ * Messages are stored in two parallel arrays using open addressing (linear probing), which avoids creating
+ * an entry object per message. Lookups will first examine this table and then its parents, so tables for less
+ * specific files can be shared by all the locales that fall back to them, instead of copying their messages
+ * into a merged map for each locale.
+ *
+ * The Map interface is implemented for compatibility with the StandardMessageResolver extension points, but only
+ * get(...) and containsKey(...) are optimized: iterating the table will create a merged view of the whole chain.
+ *
+ * @author Daniel Fernandez
+ * @since 3.0.10
+ *
+ */
+final class MessageTable extends AbstractMap<String,String> {
+
+    private final String[] keys;
+    private final String[] values;
+    private final int mask;
+    private final int ownSize;
+    private final MessageTable parent;
+
+
+
+    MessageTable(final Map<String,String> messages, final MessageTable parent) {
+
+        super();
+
+        // Capacity will be a power of two, keeping the load factor at 2/3 at most
+        int capacity = 2;
+        while (capacity < (messages.size() * 3 / 2) + 1) {
+            capacity <<= 1;
+        }
+
+        this.keys = new String[capacity];
+        this.values = new String[capacity];
+        this.mask = capacity - 1;
+        this.ownSize = messages.size();
+        this.parent = parent;
+
+        for (final Map.Entry<String,String> message : messages.entrySet()) {
+            final String key = message.getKey();
+            int i = hash(key) & this.mask;
+            while (this.keys[i] != null) {
+                i = (i + 1) & this.mask;
+            }
+            this.keys[i] = key;
+            this.values[i] = message.getValue();
+        }
+
+    }
+
+
+
+    private static int hash(final String key) {
+        final int h = key.hashCode();
+        return h ^ (h >>> 16);
+    }
+
+
+    private String lookup(final String key, final int hash) {
+        int i = hash & this.mask;
+        String k;
+        while ((k = this.keys[i]) != null) {
+            if (k == key || k.equals(key)) {
+                return this.values[i];
+            }
+            i = (i + 1) & this.mask;
+        }
+        return null;
+    }
+
+
+
+
+    @Override
+    public String get(final Object key) {
+        if (!(key instanceof String)) {
+            return null;
+        }
+        final String stringKey = (String) key;
+        final int hash = hash(stringKey);
+        MessageTable table = this;
+        while (table != null) {
+            final String value = table.lookup(stringKey, hash);
+            if (value != null) {
+                return value;
+            }
+            table = table.parent;
+        }
+        return null;
+    }
+
+
+    @Override
+    public boolean containsKey(final Object key) {
+        return get(key) != null;
+    }
+
+
+    @Override
+    public int size() {
+        return (this.parent == null? this.ownSize : toMap().size());
+    }
+
+
+    @Override
+    public boolean isEmpty() {
+        return this.ownSize == 0 && (this.parent == null || this.parent.isEmpty());
+    }
+
+
+    @Override
+    public Set<Map.Entry<String,String>> entrySet() {
+        return Collections.unmodifiableMap(toMap()).entrySet();
+    }
+
+
+    private Map<String,String> toMap() {
+        final Map<String,String> map =
+                (this.parent == null? new HashMap<String,String>(this.ownSize + 1, 1.0f) : this.parent.toMap());
+        for (int i = 0; i < this.keys.length; i++) {
+            if (this.keys[i] != null) {
+                map.put(this.keys[i], this.values[i]);
+            }
+        }
+        return map;
+    }
+
+
+
+
+    int getOwnSize() {
+        return this.ownSize;
+    }
+
+
+    int getSlotCount() {
+        return this.keys.length;
+    }
+
+
+    /*
+     * Approximate amount of memory retained by this table (not including parents or keys, which are shared),
+     * assuming compressed object references.
+     */
+    long estimateOwnMemory() {
+        long memory = 32L + 2L * (16L + 4L * this.keys.length); // table object + both arrays
+        for (int i = 0; i < this.values.length; i++) {
+            if (this.values[i] != null) {
+                memory += estimateStringMemory(this.values[i]);
+            }
+        }
+        return memory;
+    }
+
+
+    static long estimateStringMemory(final String string) {
+        return 40L + 2L * string.length(); // String object + char array
+    }
+
+
+}
@@ -19,7 +19,6 @@
  */
 package org.thymeleaf.messageresolver;
 
-import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.Reader;
@@ -34,7 +33,6 @@
 
 import org.thymeleaf.exceptions.TemplateInputException;
 import org.thymeleaf.exceptions.TemplateProcessingException;
-import org.thymeleaf.templateresource.ITemplateResource;
 import org.thymeleaf.util.StringUtils;
 
 /**
@@ -48,70 +46,11 @@ final class StandardMessageResolutionUtils {
 
 
     private static final Map<String,String> EMPTY_MESSAGES = Collections.emptyMap();
-    private static final String PROPERTIES_FILE_EXTENSION = ".properties";
+    static final String PROPERTIES_FILE_EXTENSION = ".properties";
     private static final Object[] EMPTY_MESSAGE_PARAMETERS = new Object[0];
 
 
 
-    static Map<String,String> resolveMessagesForTemplate(final ITemplateResource templateResource, final Locale locale) {
-
-        // Let the resource tell us about its 'base name'
-        final String resourceBaseName = templateResource.getBaseName();
-        if (resourceBaseName == null || resourceBaseName.length() == 0) {
-            // No way to compute base name -> no messages
-            return EMPTY_MESSAGES;
-        }
-
-        // Compute all the resource names we should use: *_gl_ES-gheada.properties, *_gl_ES.properties, _gl.properties...
-        // The order here is important: as we will let values from more specific files overwrite those in less specific,
-        // (e.g. a value for gl_ES will have more precedence than a value for gl). So we will iterate these resource
-        // names from less specific to more specific.
-        final List<String> messageResourceNames = computeMessageResourceNamesFromBase(resourceBaseName, locale);
-
-        // Build the combined messages
-        Map<String,String> combinedMessages = null;
-        for (final String messageResourceName : messageResourceNames) {
-
-            try {
-
-                final ITemplateResource messageResource = templateResource.relative(messageResourceName);
-                final Reader messageResourceReader = messageResource.reader();
-                if (messageResourceReader != null) {
-
-                    final Properties messageProperties = readMessagesResource(messageResourceReader);
-                    if (messageProperties != null && !messageProperties.isEmpty()) {
-
-                        if (combinedMessages == null) {
-                            combinedMessages = new HashMap<String,String>(20);
-                        }
-
-                        for (final Map.Entry<Object,Object> propertyEntry : messageProperties.entrySet()) {
-                            combinedMessages.put((String)propertyEntry.getKey(), (String)propertyEntry.getValue());
-                        }
-
-                    }
-
-                }
-
-            } catch (final IOException ignored) {
-                // File might not exist, simply try the next one
-            }
-
-        }
-
-        if (combinedMessages == null) {
-            return EMPTY_MESSAGES;
-        }
-
-        return Collections.unmodifiableMap(combinedMessages);
-
-    }
-
-
-
-
-
-
     static Map<String,String> resolveMessagesForOrigin(final Class<?> origin, final Locale locale) {
 
         final Map<String,String> combinedMessages = new HashMap<String, String>(20);
@@ -192,7 +131,7 @@ private static Map<String,String> resolveMessagesForSpecificClass(final Class<?>
 
 
 
-    private static List<String> computeMessageResourceNamesFromBase(
+    static List<String> computeMessageResourceNamesFromBase(
             final String resourceBaseName, final Locale locale) {
 
         final List<String> resourceNames = new ArrayList<String>(5);
@@ -223,7 +162,7 @@ private static List<String> computeMessageResourceNamesFromBase(
 
 
 
-    private static Properties readMessagesResource(final Reader propertiesReader) {
+    static Properties readMessagesResource(final Reader propertiesReader) {
         if (propertiesReader == null) {
             return null;
         }
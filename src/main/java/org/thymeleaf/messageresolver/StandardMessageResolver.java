@@ -120,7 +120,20 @@
  * <p>
  *   This implementation will cache template-based messages for those templates that are resolved (by their
  *   corresponding {@link org.thymeleaf.templateresolver.ITemplateResolver}) as <em>cacheable</em>. Non-cacheable
- *   templates will not have their messages cached.
+ *   templates will not have their messages cached by default, which means their <tt>.properties</tt> files
+ *   will be read again for each message being resolved. This can be avoided by setting a TTL for these messages
+ *   by means of {@link #setMessageCacheTTLMs(Long)}, so that they are cached independently from their templates.
+ * </p>
+ * <p>
+ *   Cached template-based messages can be removed (so that their files are read again) by means of
+ *   {@link #clearMessageCacheFor(String)} and {@link #clearMessageCache()}.
+ * </p>
+ * <p>
+ *   Template-based messages are kept in a store in which each <tt>.properties</tt> file is read only once and
+ *   converted into a compact, immutable table linked to the table of the next less specific file (e.g.
+ *   <tt>home_gl_ES</tt> &rarr; <tt>home_gl</tt> &rarr; <tt>home</tt>). This way the tables for less specific
+ *   files are shared by all the locales falling back to them, and message keys are retained only once. Metrics
+ *   about this store can be obtained by means of {@link #getMessageStoreMetrics()}.
  * </p>
  * <p>
  *   Origin-based messages will be always cached.
@@ -153,7 +166,12 @@ public class StandardMessageResolver extends AbstractMessageResolver {
             new ConcurrentHashMap<String,ConcurrentHashMap<Locale,Map<String,String>>>(20, 0.9f, 2);
     private final ConcurrentHashMap<Class<?>,ConcurrentHashMap<Locale,Map<String,String>>> messagesByLocaleByOrigin =
             new ConcurrentHashMap<Class<?>,ConcurrentHashMap<Locale,Map<String,String>>>(20, 0.9f, 2);
+    private final ConcurrentHashMap<String,ITemplateResource> templateResourcesByTemplate =
+            new ConcurrentHashMap<String,ITemplateResource>(20, 0.9f, 2);
+    private final StandardMessageStore messageStore = new StandardMessageStore();
     private final Properties defaultMessages;
+    private volatile boolean lookupMetricsEnabled = false;
+    private volatile Long messageCacheTTLMs = null;
 
 
     public StandardMessageResolver() {
@@ -218,6 +236,125 @@ public final void clearDefaultMessages() {
 
 
 
+    /**
+     * <p>
+     *   Returns the TTL (in milliseconds) for the cached messages of templates resolved as
+     *   <em>non-cacheable</em>, or null if these messages are not cached at all.
+     * </p>
+     *
+     * @return the TTL for the messages of non-cacheable templates.
+     * @since 3.0.10
+     */
+    public final Long getMessageCacheTTLMs() {
+        return this.messageCacheTTLMs;
+    }
+
+
+    /**
+     * <p>
+     *   Sets the TTL (in milliseconds) for the cached messages of templates resolved as
+     *   <em>non-cacheable</em>.
+     * </p>
+     * <p>
+     *   By default (null), the messages of non-cacheable templates are not cached, and their <tt>.properties</tt>
+     *   files are read again each time a message is resolved for them. When a TTL is set, these files will be read
+     *   only once per TTL period, which keeps messages reloadable (e.g. during development) without reading
+     *   files for every message being resolved. Messages of cacheable templates are not affected by this setting.
+     * </p>
+     *
+     * @param messageCacheTTLMs the TTL for the messages of non-cacheable templates, or null for no caching.
+     * @since 3.0.10
+     */
+    public final void setMessageCacheTTLMs(final Long messageCacheTTLMs) {
+        Validate.isTrue(
+                messageCacheTTLMs == null || messageCacheTTLMs.longValue() >= 0L, "Message cache TTL cannot be negative");
+        this.messageCacheTTLMs = messageCacheTTLMs;
+    }
+
+
+    /**
+     * <p>
+     *   Removes all cached messages, so that all <tt>.properties</tt> files are read again the next time a
+     *   message is resolved for them.
+     * </p>
+     *
+     * @since 3.0.10
+     */
+    public void clearMessageCache() {
+        this.messagesByLocaleByTemplate.clear();
+        this.messagesByLocaleByOrigin.clear();
+        this.templateResourcesByTemplate.clear();
+        this.messageStore.clear();
+    }
+
+
+    /**
+     * <p>
+     *   Removes the cached template-based messages for the specified template (for all locales), so that its
+     *   <tt>.properties</tt> files are read again the next time a message is resolved for it.
+     * </p>
+     * <p>
+     *   Note that messages are cached per <tt>.properties</tt> files, so the messages for other templates
+     *   sharing the same files (e.g. <tt>home.html</tt> and <tt>home.xml</tt>) will also be read again.
+     * </p>
+     *
+     * @param template the template, as specified when processing it (e.g. <tt>"home"</tt>).
+     * @since 3.0.10
+     */
+    public void clearMessageCacheFor(final String template) {
+        Validate.notNull(template, "Template cannot be null");
+        this.messagesByLocaleByTemplate.remove(template);
+        final ITemplateResource templateResource = this.templateResourcesByTemplate.remove(template);
+        if (templateResource != null) {
+            this.messageStore.removeMessages(templateResource);
+        }
+    }
+
+
+    /**
+     * <p>
+     *   Returns whether the time spent looking up template-based messages is being measured and
+     *   reported in the {@link #getMessageStoreMetrics()} metrics.
+     * </p>
+     *
+     * @return whether lookup metrics are enabled.
+     * @since 3.0.10
+     */
+    public final boolean isLookupMetricsEnabled() {
+        return this.lookupMetricsEnabled;
+    }
+
+
+    /**
+     * <p>
+     *   Sets whether the time spent looking up template-based messages should be measured and
+     *   reported in the {@link #getMessageStoreMetrics()} metrics. Disabled by default, as measuring
+     *   time adds a small overhead to each lookup.
+     * </p>
+     *
+     * @param lookupMetricsEnabled whether lookup metrics should be enabled.
+     * @since 3.0.10
+     */
+    public final void setLookupMetricsEnabled(final boolean lookupMetricsEnabled) {
+        this.lookupMetricsEnabled = lookupMetricsEnabled;
+    }
+
+
+    /**
+     * <p>
+     *   Returns a snapshot of the metrics of the store used for keeping template-based messages: amount of
+     *   tables and messages, estimated memory and (if enabled) lookup times.
+     * </p>
+     *
+     * @return the message store metrics.
+     * @since 3.0.10
+     */
+    public final MessageStoreMetrics getMessageStoreMetrics() {
+        return this.messageStore.getMetrics();
+    }
+
+
+
 
 
 
@@ -249,6 +386,8 @@ public final String resolveMessage(
          */
         if (performTemplateBasedResolution) {
 
+            final long startNanos = (this.lookupMetricsEnabled? System.nanoTime() : 0L);
+
             for (final TemplateData templateData : context.getTemplateStack()) {
 
                 final String template = templateData.getTemplate();
@@ -257,7 +396,10 @@ public final String resolveMessage(
 
                 Map<String, String> messagesForLocaleForTemplate;
 
-                // We will ONLY cache messages for cacheable templates. This should adequately control cache growth
+                final Long messageCacheTTLMs = this.messageCacheTTLMs;
+
+                // We will ONLY cache per-template message maps for cacheable templates. This should adequately
+                // control cache growth
                 if (templateCacheable) {
 
                     ConcurrentHashMap<Locale, Map<String, String>> messagesByLocaleForTemplate = this.messagesByLocaleByTemplate.get(template);
@@ -268,6 +410,7 @@ public final String resolveMessage(
 
                     messagesForLocaleForTemplate = messagesByLocaleForTemplate.get(locale);
                     if (messagesForLocaleForTemplate == null) {
+                        this.templateResourcesByTemplate.put(template, templateResource);
                         messagesForLocaleForTemplate = resolveMessagesForTemplate(template, templateResource, locale);
                         if (messagesForLocaleForTemplate == null) {
                             messagesForLocaleForTemplate = Collections.emptyMap();
@@ -279,6 +422,25 @@ public final String resolveMessage(
 
                 } else {
 
+                    // Tables for non-cacheable templates are removed from the store (unless a TTL has been set for
+                    // them and it has not expired yet) so that files are read again
+                    if (messageCacheTTLMs == null) {
+                        this.messageStore.removeMessages(templateResource);
+                    } else {
+                        // Resources are only recorded (so that clearMessageCacheFor(...) can find their tables) if
+                        // the store can actually keep tables for them, i.e. if they have a base name. Otherwise
+                        // (e.g. templates resolved as Strings, whose name is their entire contents) nothing is kept.
+                        // When the tables expire, the recorded resource is replaced so that the map never retains
+                        // resources other than the ones whose tables are currently in the store.
+                        final String resourceBaseName = templateResource.getBaseName();
+                        if (resourceBaseName != null && resourceBaseName.length() > 0) {
+                            if (this.messageStore.removeExpiredMessages(templateResource, messageCacheTTLMs.longValue())) {
+                                this.templateResourcesByTemplate.put(template, templateResource);
+                            } else {
+                                this.templateResourcesByTemplate.putIfAbsent(template, templateResource);
+                            }
+                        }
+                    }
                     messagesForLocaleForTemplate = resolveMessagesForTemplate(template, templateResource, locale);
                     if (messagesForLocaleForTemplate == null) {
                         messagesForLocaleForTemplate = Collections.emptyMap();
@@ -289,6 +451,9 @@ public final String resolveMessage(
                 // Once the messages map has been retrieved, just use it
                 final String message = messagesForLocaleForTemplate.get(key);
                 if (message != null) {
+                    if (this.lookupMetricsEnabled) {
+                        this.messageStore.recordLookup(System.nanoTime() - startNanos);
+                    }
                     return formatMessage(locale, message, messageParameters);
                 }
 
@@ -296,6 +461,10 @@ public final String resolveMessage(
 
             }
 
+            if (this.lookupMetricsEnabled) {
+                this.messageStore.recordLookup(System.nanoTime() - startNanos);
+            }
+
         }
 
 
@@ -367,7 +536,8 @@ public final String resolveMessage(
      * </p>
      * <p>
      *   The standard mechanism will look for <tt>.properties</tt> files at the same location as
-     *   the template (using the same resource resolution mechanism), and with the same name base.
+     *   the template (using the same resource resolution mechanism), and with the same name base. Files are
+     *   read only once and kept at the message store of this resolver (see {@link #getMessageStoreMetrics()}).
      * </p>
      *
      * @param template the template
@@ -377,7 +547,7 @@ public final String resolveMessage(
      */
     protected Map<String,String> resolveMessagesForTemplate(
             final String template, final ITemplateResource templateResource, final Locale locale) {
-        return StandardMessageResolutionUtils.resolveMessagesForTemplate(templateResource, locale);
+        return this.messageStore.getMessages(templateResource, locale);
     }
 
 
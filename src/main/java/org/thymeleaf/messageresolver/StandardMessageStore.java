@@ -0,0 +1,338 @@
+/*
+ * =============================================================================
+ *
+ *   Copyright (c) 2011-2016, The THYMELEAF team (http://www.thymeleaf.org)
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ * =============================================================================
+ */
+package org.thymeleaf.messageresolver;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.thymeleaf.templateresource.ITemplateResource;
+
+
+/*
+ * Store of template-based messages used by StandardMessageResolver.
+ *
+ * Each .properties file is read only once and converted into a MessageTable linked to the table of the next less
+ * specific file, so that (for example) the tables for home_gl.properties and home.properties are shared by the
+ * chains for the gl_ES, gl_PT and gl locales. Tables are grouped by the description of the base .properties file
+ * of the template, so that all the tables for a template can be removed at once.
+ *
+ * Message keys are pooled at each group, so that the same key appearing in several files for a template (normally,
+ * all the keys in all its locales) is retained only once. Pooled keys are released along with their group.
+ *
+ * Metrics are recorded per group and only while the group is registered at the store, so that removing a group
+ * subtracts exactly what it had added, even if tables are being read for it concurrently.
+ *
+ * @author Daniel Fernandez
+ * @since 3.0.10
+ *
+ */
+final class StandardMessageStore {
+
+    private static final Map<String,String> EMPTY_MESSAGES = Collections.emptyMap();
+
+    // Marks files that have been found not to exist (or to be empty) and have no less specific file either
+    private static final MessageTable NO_TABLE = new MessageTable(EMPTY_MESSAGES, null);
+
+
+    private final ConcurrentHashMap<String,TableGroup> tablesByBase = new ConcurrentHashMap<String, TableGroup>(20, 0.9f, 2);
+
+    private final AtomicLong tableCount = new AtomicLong(0L);
+    private final AtomicLong messageCount = new AtomicLong(0L);
+    private final AtomicLong keyCount = new AtomicLong(0L);
+    private final AtomicLong slotCount = new AtomicLong(0L);
+    private final AtomicLong tableMemory = new AtomicLong(0L);
+    private final AtomicLong keyMemory = new AtomicLong(0L);
+    private final AtomicLong lookupCount = new AtomicLong(0L);
+    private final AtomicLong lookupNanos = new AtomicLong(0L);
+
+
+
+    StandardMessageStore() {
+        super();
+    }
+
+
+
+
+    Map<String,String> getMessages(final ITemplateResource templateResource, final Locale locale) {
+
+        // Let the resource tell us about its 'base name'
+        final String resourceBaseName = templateResource.getBaseName();
+        if (resourceBaseName == null || resourceBaseName.length() == 0) {
+            // No way to compute base name -> no messages
+            return EMPTY_MESSAGES;
+        }
+
+        // Resource names are ordered from less specific to more specific (home.properties, home_gl.properties...),
+        // which is the order in which each table will become the parent of the next one.
+        final List<String> messageResourceNames =
+                StandardMessageResolutionUtils.computeMessageResourceNamesFromBase(resourceBaseName, locale);
+
+        final TableGroup tableGroup = getTableGroup(templateResource, resourceBaseName);
+        final ConcurrentHashMap<String,MessageTable> tablesForBase = tableGroup.tables;
+
+        MessageTable table = null;
+        for (final String messageResourceName : messageResourceNames) {
+
+            MessageTable tableForResource = tablesForBase.get(messageResourceName);
+            if (tableForResource == null) {
+                final MessageTable newTable = readTable(tableGroup, templateResource, messageResourceName, table);
+                tableForResource = tablesForBase.putIfAbsent(messageResourceName, newTable);
+                if (tableForResource == null) {
+                    tableForResource = newTable;
+                    if (newTable != NO_TABLE && newTable != table) {
+                        recordTable(tableGroup, newTable);
+                    }
+                }
+            }
+
+            table = (tableForResource == NO_TABLE? null : tableForResource);
+
+        }
+
+        return (table == null? EMPTY_MESSAGES : table);
+
+    }
+
+
+
+
+    void removeMessages(final ITemplateResource templateResource) {
+
+        final String resourceBaseName = templateResource.getBaseName();
+        if (resourceBaseName == null || resourceBaseName.length() == 0) {
+            return;
+        }
+
+        final TableGroup tableGroup = this.tablesByBase.remove(computeBaseKey(templateResource, resourceBaseName));
+        if (tableGroup != null) {
+            recordRemoval(tableGroup);
+        }
+
+    }
+
+
+    /*
+     * Removes the tables for the specified template resource only if they were read more than the specified
+     * amount of milliseconds ago. Returns whether they were removed (by this call).
+     */
+    boolean removeExpiredMessages(final ITemplateResource templateResource, final long ttlMs) {
+
+        final String resourceBaseName = templateResource.getBaseName();
+        if (resourceBaseName == null || resourceBaseName.length() == 0) {
+            return false;
+        }
+
+        final String baseKey = computeBaseKey(templateResource, resourceBaseName);
+        final TableGroup tableGroup = this.tablesByBase.get(baseKey);
+        if (tableGroup != null && System.currentTimeMillis() - tableGroup.creationTimeMs > ttlMs) {
+            // Only the thread that actually removes the group will update the metrics
+            if (this.tablesByBase.remove(baseKey, tableGroup)) {
+                recordRemoval(tableGroup);
+                return true;
+            }
+        }
+        return false;
+
+    }
+
+
+    /*
+     * Must be called (once) after the group has been removed from the store. From then on, no more tables or keys
+     * read for the group will be recorded.
+     */
+    private void recordRemoval(final TableGroup tableGroup) {
+        synchronized (tableGroup) {
+            tableGroup.removed = true;
+            this.tableCount.addAndGet(-tableGroup.tableCount);
+            this.messageCount.addAndGet(-tableGroup.messageCount);
+            this.keyCount.addAndGet(-tableGroup.keyCount);
+            this.slotCount.addAndGet(-tableGroup.slotCount);
+            this.tableMemory.addAndGet(-tableGroup.tableMemory);
+            this.keyMemory.addAndGet(-tableGroup.keyMemory);
+        }
+    }
+
+
+    void clear() {
+        // Groups are removed one by one so that metrics are kept consistent with any concurrent reads
+        for (final String baseKey : this.tablesByBase.keySet()) {
+            final TableGroup tableGroup = this.tablesByBase.remove(baseKey);
+            if (tableGroup != null) {
+                recordRemoval(tableGroup);
+            }
+        }
+    }
+
+
+
+
+    void recordLookup(final long nanos) {
+        this.lookupCount.incrementAndGet();
+        this.lookupNanos.addAndGet(nanos);
+    }
+
+
+    MessageStoreMetrics getMetrics() {
+        return new MessageStoreMetrics(
+                this.tableCount.get(), this.messageCount.get(), this.keyCount.get(), this.slotCount.get(),
+                this.tableMemory.get() + this.keyMemory.get(), this.lookupCount.get(), this.lookupNanos.get());
+    }
+
+
+
+
+    private TableGroup getTableGroup(final ITemplateResource templateResource, final String resourceBaseName) {
+
+        final String baseKey = computeBaseKey(templateResource, resourceBaseName);
+
+        final TableGroup tableGroup = this.tablesByBase.get(baseKey);
+        if (tableGroup != null) {
+            return tableGroup;
+        }
+        // The map is not read again, as the group might have been removed concurrently in the meantime (in which case
+        // it will still be used for this lookup, but nothing read for it will be recorded in the metrics)
+        final TableGroup newTableGroup = new TableGroup();
+        final TableGroup existingTableGroup = this.tablesByBase.putIfAbsent(baseKey, newTableGroup);
+        return (existingTableGroup != null? existingTableGroup : newTableGroup);
+
+    }
+
+
+    // Tables are grouped by the description of the base file (e.g. home.properties), which identifies the template
+    // resource location without depending on its extension (home.html and home.xml will share their messages)
+    private static String computeBaseKey(final ITemplateResource templateResource, final String resourceBaseName) {
+        return templateResource.relative(
+                resourceBaseName + StandardMessageResolutionUtils.PROPERTIES_FILE_EXTENSION).getDescription();
+    }
+
+
+
+
+    /*
+     * Reads the specified resource and returns its table (having the specified table as parent), or the parent
+     * table itself (or NO_TABLE) if the file does not exist or contains no messages.
+     */
+    private MessageTable readTable(
+            final TableGroup tableGroup, final ITemplateResource templateResource,
+            final String messageResourceName, final MessageTable parent) {
+
+        Properties messageProperties = null;
+        try {
+            final ITemplateResource messageResource = templateResource.relative(messageResourceName);
+            final Reader messageResourceReader = messageResource.reader();
+            if (messageResourceReader != null) {
+                messageProperties = StandardMessageResolutionUtils.readMessagesResource(messageResourceReader);
+            }
+        } catch (final IOException ignored) {
+            // File might not exist, simply try the next one
+        }
+
+        if (messageProperties == null || messageProperties.isEmpty()) {
+            return (parent == null? NO_TABLE : parent);
+        }
+
+        final Map<String,String> messages = new HashMap<String, String>(messageProperties.size() + 1, 1.0f);
+        for (final Map.Entry<Object,Object> propertyEntry : messageProperties.entrySet()) {
+            messages.put(poolKey(tableGroup, (String) propertyEntry.getKey()), (String) propertyEntry.getValue());
+        }
+
+        return new MessageTable(messages, parent);
+
+    }
+
+
+    private String poolKey(final TableGroup tableGroup, final String key) {
+        final String pooledKey = tableGroup.keys.putIfAbsent(key, key);
+        if (pooledKey != null) {
+            return pooledKey;
+        }
+        final long memory = MessageTable.estimateStringMemory(key);
+        synchronized (tableGroup) {
+            if (!tableGroup.removed) {
+                tableGroup.keyCount++;
+                tableGroup.keyMemory += memory;
+                this.keyCount.incrementAndGet();
+                this.keyMemory.addAndGet(memory);
+            }
+        }
+        return key;
+    }
+
+
+    private void recordTable(final TableGroup tableGroup, final MessageTable table) {
+        final int ownSize = table.getOwnSize();
+        final int slots = table.getSlotCount();
+        final long memory = table.estimateOwnMemory();
+        synchronized (tableGroup) {
+            if (!tableGroup.removed) {
+                tableGroup.tableCount++;
+                tableGroup.messageCount += ownSize;
+                tableGroup.slotCount += slots;
+                tableGroup.tableMemory += memory;
+                this.tableCount.incrementAndGet();
+                this.messageCount.addAndGet(ownSize);
+                this.slotCount.addAndGet(slots);
+                this.tableMemory.addAndGet(memory);
+            }
+        }
+    }
+
+
+
+
+    /*
+     * Tables for all the locales of a template base name (home.properties, home_gl.properties...), along with
+     * the time the first of them was read (used for expiring them as a whole), the pool of their keys and the
+     * metrics recorded for them (guarded by the group's monitor).
+     */
+    private static final class TableGroup {
+
+        final long creationTimeMs;
+        final ConcurrentHashMap<String,MessageTable> tables;
+        final ConcurrentHashMap<String,String> keys;
+
+        boolean removed = false;
+        long tableCount = 0L;
+        long messageCount = 0L;
+        long keyCount = 0L;
+        long slotCount = 0L;
+        long tableMemory = 0L;
+        long keyMemory = 0L;
+
+        TableGroup() {
+            super();
+            this.creationTimeMs = System.currentTimeMillis();
+            this.tables = new ConcurrentHashMap<String, MessageTable>(4, 0.9f, 2);
+            this.keys = new ConcurrentHashMap<String, String>(32, 0.75f, 2);
+        }
+
+    }
+
+
+}
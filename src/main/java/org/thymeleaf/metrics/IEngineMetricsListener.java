@@ -0,0 +1,139 @@
+/*
+ * =============================================================================
+ *
+ *   Copyright (c) 2011-2016, The THYMELEAF team (http://www.thymeleaf.org)
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ * =============================================================================
+ */
+package org.thymeleaf.metrics;
+
+import org.thymeleaf.templatemode.TemplateMode;
+
+/**
+ * <p>
+ *   Interface to be implemented by objects that want to receive metrics about the execution of a
+ *   {@link org.thymeleaf.TemplateEngine}: template resolution, parsing, cache usage, processing times, output
+ *   size and errors.
+ * </p>
+ * <p>
+ *   Metrics listeners are set at the template engine by means of
+ *   {@link org.thymeleaf.TemplateEngine#setMetricsListener(IEngineMetricsListener)}. When no listener is set
+ *   (the default), the engine will not even compute the metrics.
+ * </p>
+ * <p>
+ *   All callbacks receive only primitive values and objects that the engine already has at hand (such as template
+ *   names), so that reporting metrics does not create any additional objects. Implementations should follow the
+ *   same principle, as these methods are called very frequently (e.g. once per expression cache access).
+ * </p>
+ * <p>
+ *   Implementations of this interface should be <strong>thread-safe</strong>.
+ * </p>
+ * <p>
+ *   A default in-memory implementation is provided in {@link StandardEngineMetricsListener}.
+ * </p>
+ *
+ * @author Daniel Fern&aacute;ndez
+ *
+ * @since 3.0.10
+ *
+ */
+public interface IEngineMetricsListener {
+
+    /**
+     * Name used for reporting accesses to the template cache: {@value}
+     */
+    public static final String TEMPLATE_CACHE_NAME = "TEMPLATE_CACHE";
+
+    /**
+     * Name used for reporting accesses to the expression cache: {@value}
+     */
+    public static final String EXPRESSION_CACHE_NAME = "EXPRESSION_CACHE";
+
+    /**
+     * Name used for reporting accesses to the string template cache (see
+     * {@link org.thymeleaf.engine.StringTemplateCache}): {@value}
+     */
+    public static final String STRING_TEMPLATE_CACHE_NAME = "STRING_TEMPLATE_CACHE";
+
+
+    /**
+     * <p>
+     *   Called each time the engine has tried to resolve a template by means of the configured template resolvers.
+     * </p>
+     *
+     * @param template the template being resolved.
+     * @param resolved whether any of the template resolvers was able to resolve the template.
+     * @param nanos the time spent resolving the template, in nanoseconds.
+     */
+    public void templateResolved(final String template, final boolean resolved, final long nanos);
+
+
+    /**
+     * <p>
+     *   Called each time a template (or a template fragment, or a String being parsed as a template) has been
+     *   parsed into an in-memory model.
+     * </p>
+     * <p>
+     *   Note non-cacheable templates being executed directly by the engine are processed at the same time
+     *   they are parsed (with no in-memory model being created), and so their parsing will not be reported by
+     *   this method, but included in the processing time reported by
+     *   {@link #templateProcessed(String, long, long)}.
+     * </p>
+     *
+     * @param template the template that has been parsed.
+     * @param templateMode the template mode used for parsing.
+     * @param eventCount the amount of events in the resulting model.
+     * @param nanos the time spent parsing the template, in nanoseconds.
+     */
+    public void templateParsed(final String template, final TemplateMode templateMode, final int eventCount, final long nanos);
+
+
+    /**
+     * <p>
+     *   Called each time the engine looks up an entry in one of its caches.
+     * </p>
+     *
+     * @param cacheName the name of the cache (see {@link #TEMPLATE_CACHE_NAME}, {@link #EXPRESSION_CACHE_NAME}
+     *                  and {@link #STRING_TEMPLATE_CACHE_NAME}).
+     * @param hit whether the entry was found in the cache.
+     */
+    public void cacheAccessed(final String cacheName, final boolean hit);
+
+
+    /**
+     * <p>
+     *   Called each time the engine has finished processing a template and writing its output.
+     * </p>
+     *
+     * @param template the template that has been processed.
+     * @param nanos the time spent processing the template (including resolution and parsing, if these
+     *              were needed), in nanoseconds.
+     * @param charsWritten the amount of chars written to output.
+     */
+    public void templateProcessed(final String template, final long nanos, final long charsWritten);
+
+
+    /**
+     * <p>
+     *   Called each time the processing of a template fails because of an exception. The exception
+     *   will be thrown by the engine right after calling this method.
+     * </p>
+     *
+     * @param template the template whose processing failed.
+     * @param exception the exception.
+     */
+    public void templateFailed(final String template, final Throwable exception);
+
+}
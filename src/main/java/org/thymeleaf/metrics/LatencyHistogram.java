@@ -0,0 +1,171 @@
+/*
+ * =============================================================================
+ *
+ *   Copyright (c) 2011-2016, The THYMELEAF team (http://www.thymeleaf.org)
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ * =============================================================================
+ */
+package org.thymeleaf.metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * <p>
+ *   Histogram of latencies (expressed in nanoseconds) using exponential (base 2) buckets: bucket <tt>n</tt>
+ *   counts the values in the range <tt>[2<sup>n-1</sup>, 2<sup>n</sup>)</tt> (bucket 0 counts zero values).
+ * </p>
+ * <p>
+ *   Recording a value requires no object creation and no locking, at the cost of a precision
+ *   limited to a factor of 2 when computing percentiles: percentiles returned by this class are
+ *   the upper bound of the bucket the percentile falls into.
+ * </p>
+ * <p>
+ *   Objects of this class are <strong>thread-safe</strong>.
+ * </p>
+ *
+ * @author Daniel Fern&aacute;ndez
+ *
+ * @since 3.0.10
+ *
+ */
+public final class LatencyHistogram {
+
+    /**
+     * Amount of buckets in the histogram: {@value}
+     */
+    public static final int BUCKET_COUNT = 64;
+
+    private final AtomicLongArray buckets;
+    private final StripedCounter count;
+    private final StripedCounter totalNanos;
+
+
+
+    public LatencyHistogram() {
+        super();
+        this.buckets = new AtomicLongArray(BUCKET_COUNT);
+        this.count = new StripedCounter();
+        this.totalNanos = new StripedCounter();
+    }
+
+
+
+
+    public void record(final long nanos) {
+        final long value = (nanos < 0L? 0L : nanos);
+        this.buckets.incrementAndGet(bucketFor(value));
+        this.count.increment();
+        this.totalNanos.add(value);
+    }
+
+
+    public long getCount() {
+        return this.count.get();
+    }
+
+
+    public long getTotalNanos() {
+        return this.totalNanos.get();
+    }
+
+
+    public long getMeanNanos() {
+        final long c = this.count.get();
+        return (c == 0L? 0L : this.totalNanos.get() / c);
+    }
+
+
+    /**
+     * <p>
+     *   Returns an approximation (upper bound) of the specified percentile.
+     * </p>
+     *
+     * @param percentile the percentile, between 0.0 and 100.0.
+     * @return the upper bound of the bucket the percentile falls into, in nanoseconds (0 if no values
+     *         have been recorded).
+     */
+    public long getPercentileNanos(final double percentile) {
+        final long[] counts = getBucketCounts();
+        long total = 0L;
+        for (int i = 0; i < counts.length; i++) {
+            total += counts[i];
+        }
+        if (total == 0L) {
+            return 0L;
+        }
+        final long threshold = (long) Math.ceil(total * (Math.max(0.0d, Math.min(100.0d, percentile)) / 100.0d));
+        long accumulated = 0L;
+        for (int i = 0; i < counts.length; i++) {
+            accumulated += counts[i];
+            if (accumulated >= threshold && accumulated > 0L) {
+                return getBucketUpperBound(i);
+            }
+        }
+        return getBucketUpperBound(counts.length - 1);
+    }
+
+
+    /**
+     * <p>
+     *   Returns a snapshot of the counts of each of the buckets.
+     * </p>
+     *
+     * @return the counts, indexed by bucket.
+     */
+    public long[] getBucketCounts() {
+        final long[] counts = new long[BUCKET_COUNT];
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            counts[i] = this.buckets.get(i);
+        }
+        return counts;
+    }
+
+
+    /**
+     * <p>
+     *   Returns the (exclusive) upper bound of the values counted in the specified bucket.
+     * </p>
+     *
+     * @param bucket the bucket.
+     * @return the upper bound, in nanoseconds.
+     */
+    public static long getBucketUpperBound(final int bucket) {
+        return (bucket >= BUCKET_COUNT - 1? Long.MAX_VALUE : (1L << bucket));
+    }
+
+
+    public void reset() {
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            this.buckets.set(i, 0L);
+        }
+        this.count.reset();
+        this.totalNanos.reset();
+    }
+
+
+
+
+    private static int bucketFor(final long value) {
+        return Math.min(BUCKET_COUNT - 1, 64 - Long.numberOfLeadingZeros(value));
+    }
+
+
+    @Override
+    public String toString() {
+        return "count=" + getCount() + ", mean=" + getMeanNanos() + "ns, p50=" + getPercentileNanos(50.0d) +
+                "ns, p99=" + getPercentileNanos(99.0d) + "ns";
+    }
+
+}
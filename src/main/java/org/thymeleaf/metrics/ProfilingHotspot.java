@@ -0,0 +1,132 @@
+/*
+ * =============================================================================
+ *
+ *   Copyright (c) 2011-2016, The THYMELEAF team (http://www.thymeleaf.org)
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ * =============================================================================
+ */
+package org.thymeleaf.metrics;
+
+/**
+ * <p>
+ *   Snapshot of the profiling data accumulated by a {@link TemplateProfiler} for a processor execution
+ *   point (template, line, column and processor class) or for a variable expression.
+ * </p>
+ * <p>
+ *   Objects of this class are <strong>immutable</strong>.
+ * </p>
+ *
+ * @author Daniel Fern&aacute;ndez
+ *
+ * @since 3.0.10
+ *
+ */
+public final class ProfilingHotspot {
+
+    private final String template;
+    private final int line;
+    private final int col;
+    private final Class<?> processorClass;
+    private final String expression;
+    private final long count;
+    private final long totalNanos;
+
+
+
+    ProfilingHotspot(
+            final String template, final int line, final int col, final Class<?> processorClass,
+            final String expression, final long count, final long totalNanos) {
+        super();
+        this.template = template;
+        this.line = line;
+        this.col = col;
+        this.processorClass = processorClass;
+        this.expression = expression;
+        this.count = count;
+        this.totalNanos = totalNanos;
+    }
+
+
+    /**
+     * <p>
+     *   Returns the template in which the processor was executed (null for expression hotspots).
+     * </p>
+     *
+     * @return the template.
+     */
+    public String getTemplate() {
+        return this.template;
+    }
+
+    public int getLine() {
+        return this.line;
+    }
+
+    public int getCol() {
+        return this.col;
+    }
+
+    /**
+     * <p>
+     *   Returns the class of the executed processor (null for expression hotspots).
+     * </p>
+     *
+     * @return the processor class.
+     */
+    public Class<?> getProcessorClass() {
+        return this.processorClass;
+    }
+
+    /**
+     * <p>
+     *   Returns the evaluated expression (null for processor hotspots).
+     * </p>
+     *
+     * @return the expression.
+     */
+    public String getExpression() {
+        return this.expression;
+    }
+
+    public long getCount() {
+        return this.count;
+    }
+
+    public long getTotalNanos() {
+        return this.totalNanos;
+    }
+
+    public long getMeanNanos() {
+        return (this.count == 0L? 0L : this.totalNanos / this.count);
+    }
+
+
+    @Override
+    public String toString() {
+        final StringBuilder strBuilder = new StringBuilder();
+        if (this.expression != null) {
+            strBuilder.append(this.expression);
+        } else {
+            strBuilder.append(this.processorClass.getName());
+            strBuilder.append(" at \"").append(this.template).append("\" (");
+            strBuilder.append(this.line).append(':').append(this.col).append(')');
+        }
+        strBuilder.append(": ").append(this.count).append(" executions, ");
+        strBuilder.append(this.totalNanos).append("ns total, ");
+        strBuilder.append(getMeanNanos()).append("ns mean");
+        return strBuilder.toString();
+    }
+
+}
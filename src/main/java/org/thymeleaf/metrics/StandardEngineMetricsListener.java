@@ -0,0 +1,266 @@
+/*
+ * =============================================================================
+ *
+ *   Copyright (c) 2011-2016, The THYMELEAF team (http://www.thymeleaf.org)
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ * =============================================================================
+ */
+package org.thymeleaf.metrics;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.thymeleaf.templatemode.TemplateMode;
+
+/**
+ * <p>
+ *   Default implementation of {@link IEngineMetricsListener}, which keeps all metrics in memory by means of
+ *   {@link StripedCounter} and {@link LatencyHistogram} objects.
+ * </p>
+ * <p>
+ *   Metrics can be read individually by means of the getters in this class, or all at once (e.g. for exporting
+ *   them to a monitoring system) by means of {@link #getMetrics()}.
+ * </p>
+ * <p>
+ *   Objects of this class are <strong>thread-safe</strong>.
+ * </p>
+ *
+ * @author Daniel Fern&aacute;ndez
+ *
+ * @since 3.0.10
+ *
+ */
+public class StandardEngineMetricsListener implements IEngineMetricsListener {
+
+    private final StripedCounter resolutionFailures = new StripedCounter();
+    private final LatencyHistogram resolutionLatency = new LatencyHistogram();
+
+    private final StripedCounter parsedEvents = new StripedCounter();
+    private final LatencyHistogram parseLatency = new LatencyHistogram();
+
+    private final ConcurrentHashMap<String,CacheCounters> cacheCounters =
+            new ConcurrentHashMap<String, CacheCounters>(4, 0.9f, 2);
+
+    private final StripedCounter charsWritten = new StripedCounter();
+    private final LatencyHistogram processLatency = new LatencyHistogram();
+
+    private final StripedCounter failures = new StripedCounter();
+
+
+
+    public StandardEngineMetricsListener() {
+        super();
+    }
+
+
+
+
+    public void templateResolved(final String template, final boolean resolved, final long nanos) {
+        this.resolutionLatency.record(nanos);
+        if (!resolved) {
+            this.resolutionFailures.increment();
+        }
+    }
+
+
+    public void templateParsed(final String template, final TemplateMode templateMode, final int eventCount, final long nanos) {
+        this.parseLatency.record(nanos);
+        this.parsedEvents.add(eventCount);
+    }
+
+
+    public void cacheAccessed(final String cacheName, final boolean hit) {
+        CacheCounters counters = this.cacheCounters.get(cacheName);
+        if (counters == null) {
+            // Only executed the first time each cache is accessed
+            final CacheCounters newCounters = new CacheCounters();
+            counters = this.cacheCounters.putIfAbsent(cacheName, newCounters);
+            if (counters == null) {
+                counters = newCounters;
+            }
+        }
+        if (hit) {
+            counters.hits.increment();
+        } else {
+            counters.misses.increment();
+        }
+    }
+
+
+    public void templateProcessed(final String template, final long nanos, final long charsWritten) {
+        this.processLatency.record(nanos);
+        this.charsWritten.add(charsWritten);
+    }
+
+
+    public void templateFailed(final String template, final Throwable exception) {
+        this.failures.increment();
+    }
+
+
+
+
+    public long getResolutionCount() {
+        return this.resolutionLatency.getCount();
+    }
+
+    public long getResolutionFailureCount() {
+        return this.resolutionFailures.get();
+    }
+
+    public LatencyHistogram getResolutionLatency() {
+        return this.resolutionLatency;
+    }
+
+
+    public long getParseCount() {
+        return this.parseLatency.getCount();
+    }
+
+    public long getParsedEventCount() {
+        return this.parsedEvents.get();
+    }
+
+    public LatencyHistogram getParseLatency() {
+        return this.parseLatency;
+    }
+
+
+    public Set<String> getCacheNames() {
+        return Collections.unmodifiableSet(new TreeSet<String>(this.cacheCounters.keySet()));
+    }
+
+    public long getCacheHitCount(final String cacheName) {
+        final CacheCounters counters = this.cacheCounters.get(cacheName);
+        return (counters == null? 0L : counters.hits.get());
+    }
+
+    public long getCacheMissCount(final String cacheName) {
+        final CacheCounters counters = this.cacheCounters.get(cacheName);
+        return (counters == null? 0L : counters.misses.get());
+    }
+
+
+    public long getProcessCount() {
+        return this.processLatency.getCount();
+    }
+
+    public long getCharsWritten() {
+        return this.charsWritten.get();
+    }
+
+    public LatencyHistogram getProcessLatency() {
+        return this.processLatency;
+    }
+
+
+    public long getFailureCount() {
+        return this.failures.get();
+    }
+
+
+
+
+    /**
+     * <p>
+     *   Returns a snapshot of all the metrics, as a map of metric names to values. Latencies are
+     *   expressed in nanoseconds.
+     * </p>
+     *
+     * @return the metrics snapshot.
+     */
+    public Map<String,Long> getMetrics() {
+
+        final Map<String,Long> metrics = new LinkedHashMap<String, Long>(40);
+
+        metrics.put("resolution.count", Long.valueOf(getResolutionCount()));
+        metrics.put("resolution.failures", Long.valueOf(getResolutionFailureCount()));
+        putLatencyMetrics(metrics, "resolution", this.resolutionLatency);
+
+        metrics.put("parse.count", Long.valueOf(getParseCount()));
+        metrics.put("parse.events", Long.valueOf(getParsedEventCount()));
+        putLatencyMetrics(metrics, "parse", this.parseLatency);
+
+        for (final String cacheName : getCacheNames()) {
+            metrics.put("cache." + cacheName + ".hits", Long.valueOf(getCacheHitCount(cacheName)));
+            metrics.put("cache." + cacheName + ".misses", Long.valueOf(getCacheMissCount(cacheName)));
+        }
+
+        metrics.put("process.count", Long.valueOf(getProcessCount()));
+        metrics.put("process.chars", Long.valueOf(getCharsWritten()));
+        putLatencyMetrics(metrics, "process", this.processLatency);
+
+        metrics.put("failures", Long.valueOf(getFailureCount()));
+
+        return Collections.unmodifiableMap(metrics);
+
+    }
+
+
+    private static void putLatencyMetrics(final Map<String,Long> metrics, final String prefix, final LatencyHistogram histogram) {
+        metrics.put(prefix + ".nanos.total", Long.valueOf(histogram.getTotalNanos()));
+        metrics.put(prefix + ".nanos.mean", Long.valueOf(histogram.getMeanNanos()));
+        metrics.put(prefix + ".nanos.p50", Long.valueOf(histogram.getPercentileNanos(50.0d)));
+        metrics.put(prefix + ".nanos.p90", Long.valueOf(histogram.getPercentileNanos(90.0d)));
+        metrics.put(prefix + ".nanos.p99", Long.valueOf(histogram.getPercentileNanos(99.0d)));
+    }
+
+
+
+
+    /**
+     * <p>
+     *   Resets all metrics.
+     * </p>
+     */
+    public void reset() {
+        this.resolutionFailures.reset();
+        this.resolutionLatency.reset();
+        this.parsedEvents.reset();
+        this.parseLatency.reset();
+        for (final CacheCounters counters : this.cacheCounters.values()) {
+            counters.hits.reset();
+            counters.misses.reset();
+        }
+        this.charsWritten.reset();
+        this.processLatency.reset();
+        this.failures.reset();
+    }
+
+
+    @Override
+    public String toString() {
+        return getMetrics().toString();
+    }
+
+
+
+
+    private static final class CacheCounters {
+
+        final StripedCounter hits = new StripedCounter();
+        final StripedCounter misses = new StripedCounter();
+
+        CacheCounters() {
+            super();
+        }
+
+    }
+
+}
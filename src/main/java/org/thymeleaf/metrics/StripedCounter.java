@@ -0,0 +1,115 @@
+/*
+ * =============================================================================
+ *
+ *   Copyright (c) 2011-2016, The THYMELEAF team (http://www.thymeleaf.org)
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ * =============================================================================
+ */
+package org.thymeleaf.metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * <p>
+ *   Counter that can be incremented concurrently by many threads with low contention, by distributing
+ *   increments among a series of <em>stripes</em> selected by thread.
+ * </p>
+ * <p>
+ *   Each stripe occupies its own cache line, so that threads incrementing different stripes do not invalidate
+ *   each other's caches. Reading the value of the counter requires adding all stripes, so this class is meant
+ *   for counters that are written much more often than read (as is the case with metrics).
+ * </p>
+ * <p>
+ *   Objects of this class are <strong>thread-safe</strong>.
+ * </p>
+ *
+ * @author Daniel Fern&aacute;ndez
+ *
+ * @since 3.0.10
+ *
+ */
+public final class StripedCounter {
+
+    /**
+     * Default amount of stripes: {@value}
+     */
+    public static final int DEFAULT_STRIPES = 16;
+
+    private static final int PADDING = 8; // 8 longs = 64 bytes, a common cache line size
+
+    private final AtomicLongArray cells;
+    private final int mask;
+
+
+
+    public StripedCounter() {
+        this(DEFAULT_STRIPES);
+    }
+
+
+    /**
+     * <p>
+     *   Creates a new counter with (at least) the specified amount of stripes, which will be rounded up to
+     *   a power of two.
+     * </p>
+     *
+     * @param stripes the amount of stripes.
+     */
+    public StripedCounter(final int stripes) {
+        super();
+        int size = 1;
+        while (size < stripes) {
+            size <<= 1;
+        }
+        this.cells = new AtomicLongArray(size * PADDING);
+        this.mask = size - 1;
+    }
+
+
+
+
+    public void increment() {
+        add(1L);
+    }
+
+
+    public void add(final long value) {
+        final int stripe = (int) Thread.currentThread().getId() & this.mask;
+        this.cells.addAndGet(stripe * PADDING, value);
+    }
+
+
+    public long get() {
+        long total = 0L;
+        for (int i = 0; i < this.cells.length(); i += PADDING) {
+            total += this.cells.get(i);
+        }
+        return total;
+    }
+
+
+    public void reset() {
+        for (int i = 0; i < this.cells.length(); i += PADDING) {
+            this.cells.set(i, 0L);
+        }
+    }
+
+
+    @Override
+    public String toString() {
+        return String.valueOf(get());
+    }
+
+}
@@ -0,0 +1,372 @@
+/*
+ * =============================================================================
+ *
+ *   Copyright (c) 2011-2016, The THYMELEAF team (http://www.thymeleaf.org)
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ * =============================================================================
+ */
+package org.thymeleaf.metrics;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.thymeleaf.processor.IProcessor;
+import org.thymeleaf.util.ProcessorConfigurationUtils;
+import org.thymeleaf.util.Validate;
+
+/**
+ * <p>
+ *   Profiler that accumulates invocation counts and execution times for each of the processors executed
+ *   at each position (template, line and column) of the processed templates, and for each of the variable
+ *   expressions (<tt>${...}</tt> and <tt>*{...}</tt>) evaluated.
+ * </p>
+ * <p>
+ *   Profilers are set at the template engine by means of
+ *   {@link org.thymeleaf.TemplateEngine#setTemplateProfiler(TemplateProfiler)}. In order to keep overhead
+ *   low, only one out of every <em>N</em> template executions (the <em>sample interval</em>) is profiled, and
+ *   executions not being profiled perform no measurements at all.
+ * </p>
+ * <p>
+ *   Note the times reported for each processor are the times spent executing the processor itself, not
+ *   including the processing of any markup it might produce (e.g. the fragment inserted by a <tt>th:replace</tt>
+ *   or the iterated body of a <tt>th:each</tt>), which will be reported as belonging to the processors executed
+ *   on that markup.
+ * </p>
+ * <p>
+ *   Objects of this class are <strong>thread-safe</strong>.
+ * </p>
+ *
+ * @author Daniel Fern&aacute;ndez
+ *
+ * @since 3.0.10
+ *
+ */
+public final class TemplateProfiler {
+
+    /**
+     * Default sample interval (amount of template executions per profiled execution): {@value}
+     */
+    public static final int DEFAULT_SAMPLE_INTERVAL = 1;
+
+    /**
+     * Default maximum amount of hotspots (of each type) to be tracked: {@value}
+     */
+    public static final int DEFAULT_MAX_HOTSPOTS = 10000;
+
+
+    private static final Comparator<ProfilingHotspot> HOTSPOT_COMPARATOR = new HotspotComparator();
+
+    private final int sampleInterval;
+    private final int maxHotspots;
+    private final AtomicLong executionCount;
+    private final ThreadLocal<int[]> profilingDepth;
+    private final ConcurrentHashMap<ProcessorKey,Accumulator> processorHotspots;
+    private final ConcurrentHashMap<String,Accumulator> expressionHotspots;
+
+
+
+    public TemplateProfiler() {
+        this(DEFAULT_SAMPLE_INTERVAL, DEFAULT_MAX_HOTSPOTS);
+    }
+
+
+    public TemplateProfiler(final int sampleInterval) {
+        this(sampleInterval, DEFAULT_MAX_HOTSPOTS);
+    }
+
+
+    public TemplateProfiler(final int sampleInterval, final int maxHotspots) {
+        super();
+        Validate.isTrue(sampleInterval > 0, "Sample interval must be greater than zero");
+        Validate.isTrue(maxHotspots > 0, "Maximum amount of hotspots must be greater than zero");
+        this.sampleInterval = sampleInterval;
+        this.maxHotspots = maxHotspots;
+        this.executionCount = new AtomicLong(0L);
+        this.profilingDepth = new ThreadLocal<int[]>();
+        this.processorHotspots = new ConcurrentHashMap<ProcessorKey, Accumulator>(64, 0.75f, 4);
+        this.expressionHotspots = new ConcurrentHashMap<String, Accumulator>(64, 0.75f, 4);
+    }
+
+
+
+
+    public int getSampleInterval() {
+        return this.sampleInterval;
+    }
+
+
+    public int getMaxHotspots() {
+        return this.maxHotspots;
+    }
+
+
+
+
+    /**
+     * <p>
+     *   Signals the start of a template execution in the current thread, deciding whether it will be
+     *   profiled or not. Must be followed by a call to {@link #endExecution(boolean)}.
+     * </p>
+     * <p>
+     *   This method is called by the template engine, and should not be called from user code.
+     * </p>
+     *
+     * @return whether the execution will be profiled.
+     */
+    public boolean startExecution() {
+        if (this.executionCount.getAndIncrement() % this.sampleInterval != 0L) {
+            return false;
+        }
+        int[] depth = this.profilingDepth.get();
+        if (depth == null) {
+            depth = new int[1];
+            this.profilingDepth.set(depth);
+        }
+        depth[0]++;
+        return true;
+    }
+
+
+    /**
+     * <p>
+     *   Signals the end of a template execution in the current thread.
+     * </p>
+     * <p>
+     *   This method is called by the template engine, and should not be called from user code.
+     * </p>
+     *
+     * @param profiled the value returned by the corresponding call to {@link #startExecution()}.
+     */
+    public void endExecution(final boolean profiled) {
+        if (profiled) {
+            final int[] depth = this.profilingDepth.get();
+            if (depth != null && --depth[0] <= 0) {
+                // No value is left behind once the outermost profiled execution ends, so that pooled threads do
+                // not keep an entry for this profiler (which is not static, as each profiler tracks its own depth)
+                this.profilingDepth.remove();
+            }
+        }
+    }
+
+
+    /**
+     * <p>
+     *   Returns whether the template execution currently taking place in the current thread is being profiled.
+     * </p>
+     *
+     * @return whether the current execution is being profiled.
+     */
+    public boolean isProfiling() {
+        final int[] depth = this.profilingDepth.get();
+        return (depth != null && depth[0] > 0);
+    }
+
+
+
+
+    public void recordProcessor(
+            final String template, final int line, final int col, final IProcessor processor, final long nanos) {
+        // Processors are normally wrapped by the engine configuration, so we need the class of the original one
+        final ProcessorKey key = new ProcessorKey(template, line, col, ProcessorConfigurationUtils.unwrap(processor).getClass());
+        Accumulator accumulator = this.processorHotspots.get(key);
+        if (accumulator == null) {
+            if (this.processorHotspots.size() >= this.maxHotspots) {
+                return;
+            }
+            final Accumulator newAccumulator = new Accumulator();
+            accumulator = this.processorHotspots.putIfAbsent(key, newAccumulator);
+            if (accumulator == null) {
+                accumulator = newAccumulator;
+            }
+        }
+        accumulator.record(nanos);
+    }
+
+
+    public void recordExpression(final String expression, final long nanos) {
+        Accumulator accumulator = this.expressionHotspots.get(expression);
+        if (accumulator == null) {
+            if (this.expressionHotspots.size() >= this.maxHotspots) {
+                return;
+            }
+            final Accumulator newAccumulator = new Accumulator();
+            accumulator = this.expressionHotspots.putIfAbsent(expression, newAccumulator);
+            if (accumulator == null) {
+                accumulator = newAccumulator;
+            }
+        }
+        accumulator.record(nanos);
+    }
+
+
+
+
+    /**
+     * <p>
+     *   Returns the <em>K</em> processor executions (identified by template, line, column and processor class)
+     *   in which most time has been spent, ordered by total time (descending).
+     * </p>
+     *
+     * @param k the maximum amount of hotspots to be returned.
+     * @return the hotspots.
+     */
+    public List<ProfilingHotspot> getTopProcessorHotspots(final int k) {
+        final List<ProfilingHotspot> hotspots = new ArrayList<ProfilingHotspot>(this.processorHotspots.size());
+        for (final Map.Entry<ProcessorKey,Accumulator> entry : this.processorHotspots.entrySet()) {
+            final ProcessorKey key = entry.getKey();
+            final Accumulator accumulator = entry.getValue();
+            hotspots.add(
+                    new ProfilingHotspot(
+                            key.template, key.line, key.col, key.processorClass, null,
+                            accumulator.count.get(), accumulator.nanos.get()));
+        }
+        return top(hotspots, k);
+    }
+
+
+    /**
+     * <p>
+     *   Returns the <em>K</em> variable expressions in whose evaluation most time has been spent, ordered by
+     *   total time (descending).
+     * </p>
+     *
+     * @param k the maximum amount of hotspots to be returned.
+     * @return the hotspots.
+     */
+    public List<ProfilingHotspot> getTopExpressionHotspots(final int k) {
+        final List<ProfilingHotspot> hotspots = new ArrayList<ProfilingHotspot>(this.expressionHotspots.size());
+        for (final Map.Entry<String,Accumulator> entry : this.expressionHotspots.entrySet()) {
+            final Accumulator accumulator = entry.getValue();
+            hotspots.add(
+                    new ProfilingHotspot(
+                            null, -1, -1, null, entry.getKey(),
+                            accumulator.count.get(), accumulator.nanos.get()));
+        }
+        return top(hotspots, k);
+    }
+
+
+    private static List<ProfilingHotspot> top(final List<ProfilingHotspot> hotspots, final int k) {
+        Validate.isTrue(k >= 0, "Amount of hotspots cannot be negative");
+        Collections.sort(hotspots, HOTSPOT_COMPARATOR);
+        if (hotspots.size() > k) {
+            return Collections.unmodifiableList(new ArrayList<ProfilingHotspot>(hotspots.subList(0, k)));
+        }
+        return Collections.unmodifiableList(hotspots);
+    }
+
+
+
+
+    /**
+     * <p>
+     *   Discards all the profiling data accumulated so far.
+     * </p>
+     */
+    public void reset() {
+        this.processorHotspots.clear();
+        this.expressionHotspots.clear();
+    }
+
+
+
+
+    private static final class Accumulator {
+
+        final AtomicLong count = new AtomicLong(0L);
+        final AtomicLong nanos = new AtomicLong(0L);
+
+        Accumulator() {
+            super();
+        }
+
+        void record(final long nanos) {
+            this.count.incrementAndGet();
+            this.nanos.addAndGet(nanos);
+        }
+
+    }
+
+
+    private static final class ProcessorKey {
+
+        final String template;
+        final int line;
+        final int col;
+        final Class<?> processorClass;
+        final int h;
+
+        ProcessorKey(final String template, final int line, final int col, final Class<?> processorClass) {
+            super();
+            this.template = template;
+            this.line = line;
+            this.col = col;
+            this.processorClass = processorClass;
+            int result = (template != null ? template.hashCode() : 0);
+            result = 31 * result + line;
+            result = 31 * result + col;
+            result = 31 * result + processorClass.hashCode();
+            this.h = result;
+        }
+
+        @Override
+        public boolean equals(final Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof ProcessorKey)) {
+                return false;
+            }
+            final ProcessorKey that = (ProcessorKey) o;
+            if (this.h != that.h) {
+                return false;
+            }
+            if (this.line != that.line || this.col != that.col) {
+                return false;
+            }
+            if (this.processorClass != that.processorClass) {
+                return false;
+            }
+            return (this.template != null ? this.template.equals(that.template) : that.template == null);
+        }
+
+        @Override
+        public int hashCode() {
+            return this.h;
+        }
+
+    }
+
+
+    private static final class HotspotComparator implements Comparator<ProfilingHotspot> {
+
+        HotspotComparator() {
+            super();
+        }
+
+        public int compare(final ProfilingHotspot o1, final ProfilingHotspot o2) {
+            final long n1 = o1.getTotalNanos();
+            final long n2 = o2.getTotalNanos();
+            return (n1 < n2? 1 : (n1 == n2? 0 : -1));
+        }
+
+    }
+
+}
@@ -19,10 +19,12 @@
  */
 package org.thymeleaf.standard.expression;
 
+import org.thymeleaf.EngineConfiguration;
 import org.thymeleaf.IEngineConfiguration;
 import org.thymeleaf.cache.ExpressionCacheKey;
 import org.thymeleaf.cache.ICache;
 import org.thymeleaf.cache.ICacheManager;
+import org.thymeleaf.metrics.IEngineMetricsListener;
 
 /**
  * 
@@ -52,7 +54,14 @@ static Object getFromCache(final IEngineConfiguration configuration, final Strin
         if (cacheManager != null) {
             final ICache<ExpressionCacheKey,Object> cache = cacheManager.getExpressionCache();
             if (cache != null) {
-                return cache.get(new ExpressionCacheKey(type,input));
+                final Object cached = cache.get(new ExpressionCacheKey(type,input));
+                final IEngineMetricsListener metricsListener =
+                        (configuration instanceof EngineConfiguration?
+                                ((EngineConfiguration) configuration).getMetricsListener() : null);
+                if (metricsListener != null) {
+                    metricsListener.cacheAccessed(IEngineMetricsListener.EXPRESSION_CACHE_NAME, cached != null);
+                }
+                return cached;
             }
         }
         return null;
@@ -24,8 +24,11 @@
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.thymeleaf.EngineConfiguration;
+import org.thymeleaf.IEngineConfiguration;
 import org.thymeleaf.TemplateEngine;
 import org.thymeleaf.context.IExpressionContext;
+import org.thymeleaf.metrics.TemplateProfiler;
 import org.thymeleaf.util.Validate;
 
 
@@ -162,7 +165,18 @@ static Object executeVariableExpression(
         final StandardExpressionExecutionContext evalExpContext =
             (expression.getConvertToString()? expContext.withTypeConversion() : expContext.withoutTypeConversion());
 
-        return expressionEvaluator.evaluate(context, expression, evalExpContext);
+        final IEngineConfiguration configuration = context.getConfiguration();
+        final TemplateProfiler profiler =
+                (configuration instanceof EngineConfiguration?
+                        ((EngineConfiguration) configuration).getTemplateProfiler() : null);
+        if (profiler == null || !profiler.isProfiling()) {
+            return expressionEvaluator.evaluate(context, expression, evalExpContext);
+        }
+
+        final long startNanos = System.nanoTime();
+        final Object result = expressionEvaluator.evaluate(context, expression, evalExpContext);
+        profiler.recordExpression(expression.getStringRepresentation(), System.nanoTime() - startNanos);
+        return result;
 
     }
     
@@ -344,19 +344,18 @@ private static TemplateMode computeAssociatedTemplateMode(final String inlineMod
 
 
     private static boolean mightNeedInlining(final char[] buffer, final int offset, final int len) {
-        int n = len;
-        int i = offset;
+        // A '[' at the last position cannot start an inlined expression, so we can stop before it and avoid
+        // checking bounds for the next char inside the (very hot) loop
+        final int last = offset + len - 1;
         char c;
-        while (n-- != 0) {
-            c = buffer[i];
-            if (c == '[' && n > 0) {
+        for (int i = offset; i < last; i++) {
+            if (buffer[i] == '[') {
                 c = buffer[i + 1];
                 if (c == '[' || c == '(') {
                     // There probably is some kind of [[...]] or [(...)] inlined expression
                     return true;
                 }
             }
-            i++;
         }
         return false;
     }
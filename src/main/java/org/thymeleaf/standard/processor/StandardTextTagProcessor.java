@@ -25,6 +25,7 @@
 import org.thymeleaf.model.IProcessableElementTag;
 import org.thymeleaf.processor.element.IElementTagStructureHandler;
 import org.thymeleaf.templatemode.TemplateMode;
+import org.thymeleaf.util.EscapedTextUtils;
 import org.thymeleaf.util.LazyEscapingCharSequence;
 import org.unbescape.html.HtmlEscape;
 import org.unbescape.xml.XmlEscape;
@@ -65,6 +66,8 @@ protected void doProcess(
          * the most resource-efficient alternative.
          *
          *    * If we are outputting RAW, there is no escape to do, just pass through.
+         *    * If we are outputting a number or a boolean in HTML, XML or TEXT, there is no escape to do either, as
+         *      their String representation never contains any chars that need escaping.
          *    * If we are outputting HTML, XML or TEXT we know output will be textual (result of calling .toString() on
          *      the expression result), and therefore we can decide between an immediate vs lazy escaping alternative
          *      depending on size. We will perform lazy escaping, writing directly to output Writer, if length > 100.
@@ -79,8 +82,8 @@ protected void doProcess(
 
             final String input = (expressionResult == null? "" : expressionResult.toString());
 
-            if (templateMode == TemplateMode.RAW) {
-                // RAW -> just output
+            if (templateMode == TemplateMode.RAW || EscapedTextUtils.isEscapingFree(expressionResult)) {
+                // RAW, or a value that can never need escaping (numbers, booleans) -> just output
 
                 text = input;
 
@@ -33,6 +33,7 @@
 import org.attoparser.select.NodeSelectorMarkupHandler;
 import org.thymeleaf.EngineConfiguration;
 import org.thymeleaf.IEngineConfiguration;
+import org.thymeleaf.cache.ICacheEntryValidity;
 import org.thymeleaf.engine.ITemplateHandler;
 import org.thymeleaf.engine.TemplateHandlerAdapterMarkupHandler;
 import org.thymeleaf.exceptions.TemplateInputException;
@@ -97,7 +98,51 @@ public void parseStandalone(
         Validate.isTrue(templateMode.isMarkup(), "Template Mode has to be a markup template mode");
         Validate.notNull(handler, "Template Handler cannot be null");
 
-        parse(configuration, ownerTemplate, template, templateSelectors, resource, 0, 0, templateMode, useDecoupledLogic, handler);
+        parse(configuration, ownerTemplate, template, templateSelectors, resource, 0, 0, templateMode, useDecoupledLogic, null, handler);
+
+    }
+
+
+    /**
+     * <p>
+     *   Parses a standalone template, specifying the validity of its resolution so that the decoupled
+     *   template logic computed for it (if any) can be cached.
+     * </p>
+     *
+     * @param configuration the engine configuration.
+     * @param ownerTemplate the owner template, if any (can be null).
+     * @param template the template.
+     * @param templateSelectors the template selectors, if any (can be null).
+     * @param resource the template resource.
+     * @param templateMode the template mode.
+     * @param useDecoupledLogic whether decoupled logic should be used.
+     * @param decoupledLogicValidity the validity of the template resolution (can be null, in which case
+     *                               decoupled logic will not be cached).
+     * @param handler the template handler.
+     * @since 3.0.10
+     */
+    public void parseStandalone(
+            final IEngineConfiguration configuration,
+            final String ownerTemplate,
+            final String template,
+            final Set<String> templateSelectors,
+            final ITemplateResource resource,
+            final TemplateMode templateMode,
+            final boolean useDecoupledLogic,
+            final ICacheEntryValidity decoupledLogicValidity,
+            final ITemplateHandler handler) {
+
+        Validate.notNull(configuration, "Engine Configuration cannot be null");
+        // ownerTemplate CAN be null if this is a first-level template
+        Validate.notNull(template, "Template cannot be null");
+        Validate.notNull(resource, "Template Resource cannot be null");
+        // templateSelectors CAN be null if we are going to render the entire template
+        Validate.notNull(templateMode, "Template Mode cannot be null");
+        Validate.isTrue(templateMode.isMarkup(), "Template Mode has to be a markup template mode");
+        // decoupledLogicValidity CAN be null if decoupled logic is not to be cached
+        Validate.notNull(handler, "Template Handler cannot be null");
+
+        parse(configuration, ownerTemplate, template, templateSelectors, resource, 0, 0, templateMode, useDecoupledLogic, decoupledLogicValidity, handler);
 
     }
 
@@ -118,7 +163,7 @@ public void parseString(
         Validate.isTrue(templateMode.isMarkup(), "Template Mode has to be a markup template mode");
         Validate.notNull(handler, "Template Handler cannot be null");
 
-        parse(configuration, ownerTemplate, template, null, null, lineOffset, colOffset, templateMode, false, handler);
+        parse(configuration, ownerTemplate, template, null, null, lineOffset, colOffset, templateMode, false, null, handler);
 
     }
 
@@ -131,6 +176,7 @@ private void parse(
             final int lineOffset, final int colOffset,
             final TemplateMode templateMode,
             final boolean useDecoupledLogic,
+            final ICacheEntryValidity decoupledLogicValidity,
             final ITemplateHandler templateHandler) {
 
         if (templateMode == TemplateMode.HTML) {
@@ -152,7 +198,8 @@ private void parse(
             final DecoupledTemplateLogic decoupledTemplateLogic =
                     (useDecoupledLogic && resource != null ?
                             DecoupledTemplateLogicUtils.computeDecoupledTemplateLogic(
-                                    configuration, ownerTemplate, template, templateSelectors, resource, templateMode, this.parser) :
+                                    configuration, ownerTemplate, template, templateSelectors, resource, templateMode,
+                                    decoupledLogicValidity, this.parser) :
                             null);
 
 
@@ -164,7 +211,9 @@ private void parse(
                                 configuration.getElementDefinitions(),
                                 configuration.getAttributeDefinitions(),
                                 templateMode,
-                                lineOffset, colOffset);
+                                lineOffset, colOffset,
+                                (configuration instanceof EngineConfiguration?
+                                        ((EngineConfiguration) configuration).getTemplateStringPool() : null));
 
             // Just before the adapter markup handler, we will insert the processing of inlined output expressions
             // but only if we are not going to disturb the execution of text processors coming from other dialects
@@ -26,6 +26,7 @@
 import java.util.Map;
 import java.util.Set;
 
+import org.thymeleaf.cache.ICacheEntryValidity;
 import org.thymeleaf.util.Validate;
 
 /**
@@ -46,7 +47,10 @@
  *   itself, so that overhead is minimal (and zero once the template is cached).
  * </p>
  * <p>
- *   Instances of this class are <strong>not thread-safe</strong>.
+ *   Instances of this class are <strong>not thread-safe</strong>. Note however that, once populated, instances
+ *   can be stored at the decoupled template logic cache (see
+ *   {@link org.thymeleaf.cache.StandardCacheManager#DECOUPLED_TEMPLATE_LOGIC_CACHE_NAME}) and shared by any
+ *   number of parsing operations, as these will only read from them.
  * </p>
  *
  * @author Daniel Fern&aacute;ndez
@@ -58,6 +62,7 @@ public final class DecoupledTemplateLogic {
 
     private final Map<String, List<DecoupledInjectedAttribute>> injectedAttributes =
             new HashMap<String, List<DecoupledInjectedAttribute>>(20);
+    private ICacheEntryValidity validity = null;
 
 
     public DecoupledTemplateLogic() {
@@ -80,6 +85,33 @@ public List<DecoupledInjectedAttribute> getInjectedAttributesForSelector(final S
     }
 
 
+    /**
+     * <p>
+     *   Returns the validity of this decoupled logic for caching purposes, which will be the validity of the
+     *   resolution of the template it was computed for.
+     * </p>
+     *
+     * @return the validity, or null if it is unknown (i.e. this logic has not been computed for caching).
+     * @since 3.0.10
+     */
+    public ICacheEntryValidity getValidity() {
+        return this.validity;
+    }
+
+
+    /**
+     * <p>
+     *   Sets the validity of this decoupled logic for caching purposes.
+     * </p>
+     *
+     * @param validity the validity (can be null).
+     * @since 3.0.10
+     */
+    public void setValidity(final ICacheEntryValidity validity) {
+        this.validity = validity;
+    }
+
+
     public void addInjectedAttribute(final String selector, final DecoupledInjectedAttribute injectedAttribute) {
 
         Validate.notNull(selector, "Selector cannot be null");
@@ -28,6 +28,12 @@
 import org.slf4j.LoggerFactory;
 import org.thymeleaf.IEngineConfiguration;
 import org.thymeleaf.TemplateEngine;
+import org.thymeleaf.cache.DecoupledTemplateLogicCacheKey;
+import org.thymeleaf.cache.ICache;
+import org.thymeleaf.cache.ICacheEntryValidity;
+import org.thymeleaf.cache.ICacheManager;
+import org.thymeleaf.cache.StandardCacheManager;
+import org.thymeleaf.cache.TTLCacheEntryValidity;
 import org.thymeleaf.templatemode.TemplateMode;
 import org.thymeleaf.templateresource.ITemplateResource;
 import org.thymeleaf.util.LoggingUtils;
@@ -41,6 +47,12 @@
  * <p>
  *   This class computes a {@link DecoupledTemplateLogic} by parsing an additional resource
  * </p>
+ * <p>
+ *   When the validity of the template resolution is known and cacheable, computed decoupled logic is stored
+ *   at the cache returned by {@link ICacheManager#getSpecificCache(String)} for
+ *   {@link StandardCacheManager#DECOUPLED_TEMPLATE_LOGIC_CACHE_NAME} (if the cache manager provides one), so that
+ *   the decoupled logic resource is not parsed again each time the template (or any of its fragments) is parsed.
+ * </p>
  *
  * @author Daniel Fern&aacute;ndez
  * @since 3.0.0
@@ -59,6 +71,41 @@ public static DecoupledTemplateLogic computeDecoupledTemplateLogic(
             final String ownerTemplate, final String template, final Set<String> templateSelectors,
             final ITemplateResource resource, final TemplateMode templateMode,
             final IMarkupParser parser) throws IOException, ParseException {
+        return computeDecoupledTemplateLogic(
+                configuration, ownerTemplate, template, templateSelectors, resource, templateMode, null, parser);
+    }
+
+
+    /**
+     * <p>
+     *   Computes the decoupled template logic for a template, using the decoupled template logic cache.
+     * </p>
+     * <p>
+     *   Cached logic is given a validity of its own if the decoupled template logic resolver is a
+     *   {@link StandardDecoupledTemplateLogicResolver} with a cache TTL (see
+     *   {@link StandardDecoupledTemplateLogicResolver#setCacheTTLMs(Long)}). Otherwise, the specified validity
+     *   (that of the template resolution) is used, and logic is only cached if it is cacheable.
+     * </p>
+     *
+     * @param configuration the engine configuration.
+     * @param ownerTemplate the owner template, if any (can be null).
+     * @param template the template.
+     * @param templateSelectors the template selectors, if any (can be null).
+     * @param resource the template resource.
+     * @param templateMode the template mode.
+     * @param validity the validity of the template resolution (can be null, in which case no caching is performed).
+     * @param parser the parser to be used for parsing the decoupled logic resource.
+     * @return the decoupled template logic, or null if there is none.
+     * @throws IOException if the decoupled logic resource cannot be read.
+     * @throws ParseException if the decoupled logic resource cannot be parsed.
+     * @since 3.0.10
+     */
+    public static DecoupledTemplateLogic computeDecoupledTemplateLogic(
+            final IEngineConfiguration configuration,
+            final String ownerTemplate, final String template, final Set<String> templateSelectors,
+            final ITemplateResource resource, final TemplateMode templateMode,
+            final ICacheEntryValidity validity,
+            final IMarkupParser parser) throws IOException, ParseException {
 
         Validate.notNull(configuration, "Engine Configuration cannot be null");
         Validate.notNull(template, "Template cannot be null");
@@ -71,6 +118,26 @@ public static DecoupledTemplateLogic computeDecoupledTemplateLogic(
                 decoupledTemplateLogicResolver.resolveDecoupledTemplateLogic(
                         configuration, ownerTemplate, template, templateSelectors, resource, templateMode);
 
+        final ICacheEntryValidity logicValidity = computeLogicValidity(decoupledTemplateLogicResolver, validity);
+
+        /*
+         * Check the cache first. Note the key does not depend on the owner template or the selectors, so that
+         * the logic computed for a template will be reused when parsing any of its fragments.
+         */
+        final ICache<DecoupledTemplateLogicCacheKey,DecoupledTemplateLogic> cache =
+                (logicValidity != null && logicValidity.isCacheable() ? getDecoupledTemplateLogicCache(configuration) : null);
+        final DecoupledTemplateLogicCacheKey cacheKey =
+                (cache != null ?
+                        new DecoupledTemplateLogicCacheKey(template, decoupledResource.getDescription(), templateMode) :
+                        null);
+
+        if (cache != null) {
+            final DecoupledTemplateLogic cached = cache.get(cacheKey);
+            if (cached != null) {
+                return cached;
+            }
+        }
+
         if (!decoupledResource.exists()) {
 
             if (logger.isTraceEnabled()) {
@@ -101,8 +168,43 @@ public static DecoupledTemplateLogic computeDecoupledTemplateLogic(
 
         parser.parse(decoupledResource.reader(), decoupledMarkupHandler);
 
-        return decoupledMarkupHandler.getDecoupledTemplateLogic();
+        final DecoupledTemplateLogic decoupledTemplateLogic = decoupledMarkupHandler.getDecoupledTemplateLogic();
 
+        if (cache != null) {
+            decoupledTemplateLogic.setValidity(logicValidity);
+            cache.put(cacheKey, decoupledTemplateLogic);
+        }
+
+        return decoupledTemplateLogic;
+
+    }
+
+
+
+    /*
+     * The validity of the logic resource itself if one can be computed (a TTL, as template resources do not
+     * expose modification times), or else that of the template resolution.
+     */
+    private static ICacheEntryValidity computeLogicValidity(
+            final IDecoupledTemplateLogicResolver decoupledTemplateLogicResolver, final ICacheEntryValidity validity) {
+        if (decoupledTemplateLogicResolver instanceof StandardDecoupledTemplateLogicResolver) {
+            final Long cacheTTLMs = ((StandardDecoupledTemplateLogicResolver) decoupledTemplateLogicResolver).getCacheTTLMs();
+            if (cacheTTLMs != null) {
+                return new TTLCacheEntryValidity(cacheTTLMs.longValue());
+            }
+        }
+        return validity;
+    }
+
+
+
+    private static ICache<DecoupledTemplateLogicCacheKey,DecoupledTemplateLogic> getDecoupledTemplateLogicCache(
+            final IEngineConfiguration configuration) {
+        final ICacheManager cacheManager = configuration.getCacheManager();
+        if (cacheManager == null) {
+            return null;
+        }
+        return cacheManager.getSpecificCache(StandardCacheManager.DECOUPLED_TEMPLATE_LOGIC_CACHE_NAME);
     }
 
 
@@ -24,6 +24,7 @@
 import org.thymeleaf.IEngineConfiguration;
 import org.thymeleaf.templatemode.TemplateMode;
 import org.thymeleaf.templateresource.ITemplateResource;
+import org.thymeleaf.util.Validate;
 
 /**
  * <p>
@@ -47,6 +48,11 @@
  *   resulting in the <tt>/WEB-INF/viewlogic/main.th.xml</tt> resource.
  * </p>
  * <p>
+ *   A <tt>cacheTTLMs</tt> can also be specified so that the decoupled logic parsed from the resolved resources is
+ *   kept at the decoupled template logic cache for that amount of time, independently of the validity of the
+ *   templates themselves (see {@link #setCacheTTLMs(Long)}).
+ * </p>
+ * <p>
  *   This class is <strong>thread-safe</strong>.
  * </p>
  *
@@ -66,6 +72,7 @@ public final class StandardDecoupledTemplateLogicResolver implements IDecoupledT
 
     private String prefix = null;
     private String suffix = DECOUPLED_TEMPLATE_LOGIC_FILE_SUFFIX;
+    private volatile Long cacheTTLMs = null;
 
 
 
@@ -99,6 +106,44 @@ public void setPrefix(final String prefix) {
 
 
 
+    /**
+     * <p>
+     *   Returns the TTL (in milliseconds) during which the decoupled logic parsed from the resources resolved by
+     *   this resolver will be cached, or null if it is cached according to the validity of its template.
+     * </p>
+     *
+     * @return the cache TTL for decoupled logic (might be null).
+     * @since 3.0.10
+     */
+    public Long getCacheTTLMs() {
+        return this.cacheTTLMs;
+    }
+
+    /**
+     * <p>
+     *   Sets the TTL (in milliseconds) during which the decoupled logic parsed from the resources resolved by
+     *   this resolver will be kept at the decoupled template logic cache.
+     * </p>
+     * <p>
+     *   Template resources do not expose a modification time, so changes to decoupled logic resources cannot
+     *   be detected. By default (<tt>null</tt>), decoupled logic is cached with the validity of the template
+     *   resolution it was computed for, and is therefore only cached for cacheable templates. When a TTL is
+     *   set, decoupled logic is cached for that amount of time whatever the validity of its template, so that
+     *   non-cacheable (or expired) templates do not resolve and parse their decoupled logic again on each parse,
+     *   and changes to the logic resources are picked up once the TTL expires.
+     * </p>
+     *
+     * @param cacheTTLMs the cache TTL for decoupled logic, or null for following the validity of the template.
+     * @since 3.0.10
+     */
+    public void setCacheTTLMs(final Long cacheTTLMs) {
+        Validate.isTrue(cacheTTLMs == null || cacheTTLMs.longValue() >= 0L, "Cache TTL cannot be negative");
+        this.cacheTTLMs = cacheTTLMs;
+    }
+
+
+
+
     public ITemplateResource resolveDecoupledTemplateLogic(
             final IEngineConfiguration configuration,
             final String ownerTemplate, final String template, final Set<String> templateSelectors,
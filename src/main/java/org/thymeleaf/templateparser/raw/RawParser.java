@@ -23,6 +23,8 @@
 import java.io.StringReader;
 import java.util.Arrays;
 
+import org.thymeleaf.util.MappedFileReader;
+
 
 /*
  * The RawParser is very silly: it will just read the resource using its buffers and issue a handleText event.
@@ -78,7 +80,14 @@ public void parse(
             throw new IllegalArgumentException("Handler cannot be null");
         }
 
-        parseDocument(reader, this.pool.poolBufferSize, handler);
+        // If the reader can tell us the maximum length of the document, we will use a buffer large enough for
+        // reading it all at once, instead of repeatedly doubling (and copying) the buffer
+        final int suggestedBufferSize =
+                (reader instanceof MappedFileReader?
+                        Math.max(this.pool.poolBufferSize, ((MappedFileReader) reader).getMaxLength() + 1) :
+                        this.pool.poolBufferSize);
+
+        parseDocument(reader, suggestedBufferSize, handler);
 
     }
 
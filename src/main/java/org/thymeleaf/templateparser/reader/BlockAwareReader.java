@@ -85,17 +85,26 @@ public int read(final char[] cbuf, final int off, final int len) throws IOExcept
 
         int maxi = off + read;
 
+        final char p0 = this.p0;
+        final char s0 = this.s0;
+
         char c;
         int i = off;
         while (i < maxi) {
 
-            c = cbuf[i++];
-
-            if (this.index == 0 && c != this.p0 && c != this.s0) {
-                // Shortcut for most characters in a template: no further tests to be done
-                continue;
+            if (this.index == 0) {
+                // Shortcut for most characters in a template: skip the whole run of chars that cannot start a
+                // prefix or suffix in a tight loop, with no further tests to be done
+                while (i < maxi && (c = cbuf[i]) != p0 && c != s0) {
+                    i++;
+                }
+                if (i == maxi) {
+                    break;
+                }
             }
 
+            c = cbuf[i++];
+
             if (!this.insideComment) {
 
                 if (c == this.prefix[this.index]) {
@@ -138,7 +138,9 @@ private void parse(
                                 configuration.getElementDefinitions(),
                                 configuration.getAttributeDefinitions(),
                                 templateMode,
-                                lineOffset, colOffset);
+                                lineOffset, colOffset,
+                                (configuration instanceof EngineConfiguration?
+                                        ((EngineConfiguration) configuration).getTemplateStringPool() : null));
 
 
             // Just before the adapter markup handler, we will insert the processing of inlined output expressions
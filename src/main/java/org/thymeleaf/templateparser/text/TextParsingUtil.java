@@ -28,6 +28,25 @@
  */
 final class TextParsingUtil {
 
+    /*
+     * Most chars in a text template cannot start any structure, so scanning loops first check each char against
+     * these (ASCII-indexed) tables, which lets them skip long runs of text with a single test per char instead of
+     * a chain of comparisons. Line feeds are included because they need to be counted for the locator.
+     */
+    private static final int MARKER_TABLE_SIZE = 128;
+    private static final boolean[] STRUCTURE_START_MARKERS = createMarkerTable("\n[");
+    private static final boolean[] STRUCTURE_START_OR_LITERAL_MARKERS = createMarkerTable("\n[/'\"`");
+
+
+
+    private static boolean[] createMarkerTable(final String markers) {
+        final boolean[] table = new boolean[MARKER_TABLE_SIZE];
+        for (int i = 0; i < markers.length(); i++) {
+            table[markers.charAt(i)] = true;
+        }
+        return table;
+    }
+
 
     
     private TextParsingUtil() {
@@ -89,17 +108,22 @@ static int findNextCommentBlockEnd(
         int colIndex = offset;
 
         int i = offset;
-        int n = (maxi - offset);
 
-        while (n-- != 0) {
+        while (i < maxi) {
 
             c = text[i];
 
+            if (c != '/' && c != '\n') {
+                // Fast path: no further tests to be done
+                i++;
+                continue;
+            }
+
             if (c == '\n') {
                 colIndex = i;
                 locator[1] = 0;
                 locator[0]++;
-            } else if (i > offset && c == '/' && text[i - 1] == '*') {
+            } else if (i > offset && text[i - 1] == '*') {
                 locator[1] += (i - colIndex);
                 return i;
             }
@@ -123,9 +147,8 @@ static int findNextCommentLineEnd(
         int colIndex = offset;
 
         int i = offset;
-        int n = (maxi - offset);
 
-        while (n-- != 0) {
+        while (i < maxi) {
 
             c = text[i];
 
@@ -153,17 +176,22 @@ static int findNextLiteralEnd(
         int colIndex = offset;
 
         int i = offset;
-        int n = (maxi - offset);
 
-        while (n-- != 0) {
+        while (i < maxi) {
 
             c = text[i];
 
+            if (c != literalMarker && c != '\n') {
+                // Fast path: no further tests to be done
+                i++;
+                continue;
+            }
+
             if (c == '\n') {
                 colIndex = i;
                 locator[1] = 0;
                 locator[0]++;
-            } else if (i > offset && c == literalMarker) {
+            } else if (i > offset) {
                 if (isLiteralDelimiter(text, offset, i)) {
                     locator[1] += (i - colIndex);
                     return i;
@@ -186,17 +214,25 @@ static int findNextStructureStartOrLiteralMarker(
             final char[] text, final int offset, final int maxi, 
             final int[] locator, final boolean processCommentsAndLiterals) {
 
+        final boolean[] markers =
+                (processCommentsAndLiterals? STRUCTURE_START_OR_LITERAL_MARKERS : STRUCTURE_START_MARKERS);
+
         char c;
 
         int colIndex = offset;
 
         int i = offset;
-        int n = (maxi - offset);
 
-        while (n-- != 0) {
+        while (i < maxi) {
 
             c = text[i];
-            
+
+            if (c >= MARKER_TABLE_SIZE || !markers[c]) {
+                // Fast path: this char cannot start any structure, no further tests to be done
+                i++;
+                continue;
+            }
+
             if (c == '\n') {
                 colIndex = i;
                 locator[1] = 0;
@@ -24,6 +24,7 @@
 import org.thymeleaf.IEngineConfiguration;
 import org.thymeleaf.templateresource.FileTemplateResource;
 import org.thymeleaf.templateresource.ITemplateResource;
+import org.thymeleaf.util.Validate;
 
 /**
  * <p>
@@ -42,16 +43,58 @@
 public class FileTemplateResolver extends AbstractConfigurableTemplateResolver {
 
 
+    private Long memoryMappingThreshold = null;
+
+
     
     public FileTemplateResolver() {
         super();
     }
 
 
+
+
+    /**
+     * <p>
+     *   Returns the minimum size (in bytes) of the template files that will be read by memory-mapping them,
+     *   or null if files are never memory-mapped.
+     * </p>
+     *
+     * @return the memory mapping threshold (might be null).
+     * @since 3.0.10
+     */
+    public final Long getMemoryMappingThreshold() {
+        return this.memoryMappingThreshold;
+    }
+
+
+    /**
+     * <p>
+     *   Sets the minimum size (in bytes) of the template files that will be read by memory-mapping them
+     *   (see {@link org.thymeleaf.util.MappedFileReader}) instead of reading them as streams.
+     * </p>
+     * <p>
+     *   Memory-mapping avoids several copies of the template contents while they are read, which makes parsing
+     *   large templates (several megabytes, e.g. generated reports or JavaScript bundles in <tt>RAW</tt> or
+     *   <tt>TEXT</tt> modes) faster, but it is slower for small ones. Default is null, meaning files are never
+     *   memory-mapped.
+     * </p>
+     *
+     * @param memoryMappingThreshold the memory mapping threshold, or null for never memory-mapping files.
+     * @since 3.0.10
+     */
+    public final void setMemoryMappingThreshold(final Long memoryMappingThreshold) {
+        Validate.isTrue(
+                memoryMappingThreshold == null || memoryMappingThreshold.longValue() >= 0L,
+                "Memory mapping threshold cannot be negative");
+        this.memoryMappingThreshold = memoryMappingThreshold;
+    }
+
+
     @Override
     protected ITemplateResource computeTemplateResource(
             final IEngineConfiguration configuration, final String ownerTemplate, final String template, final String resourceName, final String characterEncoding, final Map<String, Object> templateResolutionAttributes) {
-        return new FileTemplateResource(resourceName, characterEncoding);
+        return new FileTemplateResource(resourceName, characterEncoding, this.memoryMappingThreshold);
     }
 
 }
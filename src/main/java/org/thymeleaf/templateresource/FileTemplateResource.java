@@ -29,6 +29,7 @@
 import java.io.Reader;
 import java.io.Serializable;
 
+import org.thymeleaf.util.MappedFileReader;
 import org.thymeleaf.util.StringUtils;
 import org.thymeleaf.util.Validate;
 
@@ -39,6 +40,13 @@
  * <p>
  *   Objects of this class are usually created by {@link org.thymeleaf.templateresolver.FileTemplateResolver}.
  * </p>
+ * <p>
+ *   Files with a size equal to or greater than the specified <em>memory mapping threshold</em> (if any) will be
+ *   read by means of a {@link MappedFileReader}, which memory-maps the file and decodes it directly into the
+ *   parser buffers. This is faster for large files (e.g. generated reports or large JavaScript bundles processed
+ *   in <tt>RAW</tt> or <tt>TEXT</tt> modes), but slower for small ones. By default no threshold is set, and
+ *   files are always read as streams.
+ * </p>
  *
  * @author Daniel Fern&aacute;ndez
  * @since 3.0.0
@@ -50,33 +58,70 @@ public final class FileTemplateResource implements ITemplateResource, Serializab
     private final String path;
     private final File file;
     private final String characterEncoding;
+    private final Long memoryMappingThreshold;
 
 
 
     public FileTemplateResource(final String path, final String characterEncoding) {
+        this(path, characterEncoding, null);
+    }
+
+
+    /**
+     * <p>
+     *   Creates a new file template resource.
+     * </p>
+     *
+     * @param path the path to the file.
+     * @param characterEncoding the character encoding (can be null, system default will be used).
+     * @param memoryMappingThreshold the minimum file size (in bytes) for which files will be memory-mapped
+     *                               when read, or null if files should never be memory-mapped.
+     * @since 3.0.10
+     */
+    public FileTemplateResource(final String path, final String characterEncoding, final Long memoryMappingThreshold) {
 
         super();
 
         Validate.notEmpty(path, "Resource Path cannot be null or empty");
         // Character encoding CAN be null (system default will be used)
+        // Memory mapping threshold CAN be null (files will never be memory-mapped)
 
         this.path = TemplateResourceUtils.cleanPath(path);
         this.file = new File(path);
         this.characterEncoding = characterEncoding;
+        this.memoryMappingThreshold = memoryMappingThreshold;
 
     }
 
 
     public FileTemplateResource(final File file, final String characterEncoding) {
+        this(file, characterEncoding, null);
+    }
+
+
+    /**
+     * <p>
+     *   Creates a new file template resource.
+     * </p>
+     *
+     * @param file the file.
+     * @param characterEncoding the character encoding (can be null, system default will be used).
+     * @param memoryMappingThreshold the minimum file size (in bytes) for which files will be memory-mapped
+     *                               when read, or null if files should never be memory-mapped.
+     * @since 3.0.10
+     */
+    public FileTemplateResource(final File file, final String characterEncoding, final Long memoryMappingThreshold) {
 
         super();
 
         Validate.notNull(file, "Resource File cannot be null");
         // Character encoding CAN be null (system default will be used)
+        // Memory mapping threshold CAN be null (files will never be memory-mapped)
 
         this.path = TemplateResourceUtils.cleanPath(file.getPath());
         this.file = file;
         this.characterEncoding = characterEncoding;
+        this.memoryMappingThreshold = memoryMappingThreshold;
 
     }
 
@@ -99,6 +144,11 @@ public String getBaseName() {
 
     public Reader reader() throws IOException {
 
+        if (this.memoryMappingThreshold != null && this.file.length() >= this.memoryMappingThreshold.longValue()) {
+            // Note the length of a file that does not exist will be zero, but MappedFileReader will fail anyway
+            return new MappedFileReader(this.file, this.characterEncoding);
+        }
+
         final InputStream inputStream = new FileInputStream(this.file);
 
         if (!StringUtils.isEmptyOrWhitespace(this.characterEncoding)) {
@@ -117,7 +167,7 @@ public ITemplateResource relative(final String relativeLocation) {
         Validate.notEmpty(relativeLocation, "Relative Path cannot be null or empty");
 
         final String fullRelativeLocation = TemplateResourceUtils.computeRelativeLocation(this.path, relativeLocation);
-        return new FileTemplateResource(fullRelativeLocation, this.characterEncoding);
+        return new FileTemplateResource(fullRelativeLocation, this.characterEncoding, this.memoryMappingThreshold);
 
     }
 
@@ -0,0 +1,229 @@
+/*
+ * =============================================================================
+ *
+ *   Copyright (c) 2011-2016, The THYMELEAF team (http://www.thymeleaf.org)
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ * =============================================================================
+ */
+package org.thymeleaf.util;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+
+import org.thymeleaf.exceptions.TemplateProcessingException;
+import org.thymeleaf.templatemode.TemplateMode;
+import org.unbescape.xml.XmlEscape;
+
+
+/**
+ * <p>
+ *   Utility methods for writing escaped text (i.e. element bodies) in HTML, XML and TEXT template modes, directly
+ *   to a {@link Writer}.
+ * </p>
+ * <p>
+ *   These methods produce exactly the same results as the Unbescape escaping methods used by the Standard Dialects
+ *   (<tt>HtmlEscape.escapeHtml4Xml(...)</tt> for HTML and TEXT, <tt>XmlEscape.escapeXml10(...)</tt> for XML), but
+ *   they first check whether the text contains any characters that actually need escaping &mdash; which is the
+ *   case for the vast majority of output values (numbers, identifiers, plain words...). If it does not, the text
+ *   is written as is, without creating any intermediate objects.
+ * </p>
+ * <p>
+ *   This is mostly an <strong>internal class</strong>, and its use is not recommended from user's code.
+ * </p>
+ *
+ * @author Daniel Fern&aacute;ndez
+ *
+ * @since 3.0.10
+ *
+ */
+public final class EscapedTextUtils {
+
+    private static final int WRITE_BUFFER_SIZE = 256;
+
+
+
+    /**
+     * <p>
+     *   Checks whether the <tt>toString()</tt> representation of the specified object is known to never need
+     *   any escaping in HTML, XML or TEXT template modes. This is the case of numbers and booleans.
+     * </p>
+     *
+     * @param value the value to be checked.
+     * @return true if the value will never need escaping, false if it might.
+     */
+    public static boolean isEscapingFree(final Object value) {
+        // Only final JDK classes: any other implementation could return anything from toString()
+        return value instanceof Integer || value instanceof Long || value instanceof Boolean ||
+               value instanceof Double || value instanceof Float || value instanceof Short ||
+               value instanceof Byte || value instanceof BigInteger || value instanceof BigDecimal;
+    }
+
+
+    /**
+     * <p>
+     *   Checks whether the specified text contains any characters that would be modified by escaping it
+     *   for the specified template mode (HTML, XML or TEXT).
+     * </p>
+     *
+     * @param templateMode the template mode.
+     * @param text the text to be checked.
+     * @return true if the text needs escaping, false if it can be output as is.
+     */
+    public static boolean needsEscaping(final TemplateMode templateMode, final CharSequence text) {
+        if (text == null) {
+            return false;
+        }
+        final boolean xml = isXml(templateMode);
+        final int textLen = text.length();
+        for (int i = 0; i < textLen; i++) {
+            if (xml? needsXmlEscaping(text.charAt(i)) : getHtmlEscape(text.charAt(i)) != null) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+
+    /**
+     * <p>
+     *   Writes the specified text to the writer, escaped for the specified template mode (HTML, XML or TEXT).
+     * </p>
+     * <p>
+     *   Texts that need no escaping will be written directly. Besides, in HTML and TEXT modes the escaped
+     *   text will be written directly to the writer (in chunks), without creating any intermediate objects
+     *   and without ever calling <tt>toString()</tt> on the text.
+     * </p>
+     *
+     * @param templateMode the template mode.
+     * @param text the text to be escaped (can be null, in which case nothing will be written).
+     * @param writer the writer the escaped text will be written to.
+     * @throws IOException if an input/output exception occurs.
+     */
+    public static void writeEscapedText(
+            final TemplateMode templateMode, final CharSequence text, final Writer writer) throws IOException {
+
+        if (text == null) {
+            return;
+        }
+
+        Validate.notNull(writer, "Writer cannot be null");
+
+        if (isXml(templateMode)) {
+            if (needsEscaping(templateMode, text)) {
+                // Note we are outputting a body content here, so it is important that we use the version
+                // of XML escaping meant for content, not attributes (slight differences)
+                XmlEscape.escapeXml10(text.toString(), writer);
+            } else {
+                writeText(text, 0, text.length(), writer);
+            }
+            return;
+        }
+
+        // HTML and TEXT (see the HTML-escaping method used in these template modes by the Standard Dialects)
+        final int textLen = text.length();
+        int lastWritten = 0;
+        for (int i = 0; i < textLen; i++) {
+            final String escape = getHtmlEscape(text.charAt(i));
+            if (escape != null) {
+                if (i > lastWritten) {
+                    writeText(text, lastWritten, i, writer);
+                }
+                writer.write(escape);
+                lastWritten = i + 1;
+            }
+        }
+        if (lastWritten < textLen) {
+            writeText(text, lastWritten, textLen, writer);
+        }
+
+    }
+
+
+
+
+    private static boolean isXml(final TemplateMode templateMode) {
+        switch (templateMode) {
+            case TEXT:
+                // fall-through
+            case HTML:
+                return false;
+            case XML:
+                return true;
+            default:
+                throw new TemplateProcessingException(
+                        "Unrecognized template mode " + templateMode + ". Cannot produce escaped text for " +
+                        "this template mode.");
+        }
+    }
+
+
+    /*
+     * Same escapes as applied by HtmlEscape.escapeHtml4Xml(...): only markup-significant chars are escaped, using
+     * HTML 4 named references except for the apostrophe (which has no HTML 4 named reference).
+     */
+    private static String getHtmlEscape(final char c) {
+        switch (c) {
+            case '<': return "&lt;";
+            case '>': return "&gt;";
+            case '&': return "&amp;";
+            case '"': return "&quot;";
+            case '\'': return "&#39;";
+            default: return null;
+        }
+    }
+
+
+    /*
+     * Conservative check: apart from markup-significant chars, XmlEscape.escapeXml10(...) also escapes (or removes)
+     * control chars and some non-ASCII chars, so any char outside the printable ASCII range will be considered to
+     * need escaping, and will be delegated to Unbescape.
+     */
+    private static boolean needsXmlEscaping(final char c) {
+        if (c >= 0x20 && c < 0x7F) {
+            return (c == '<' || c == '>' || c == '&' || c == '"' || c == '\'');
+        }
+        return (c != '\n' && c != '\r' && c != '\t');
+    }
+
+
+    private static void writeText(
+            final CharSequence text, final int start, final int end, final Writer writer) throws IOException {
+        if (text instanceof String) {
+            writer.write((String) text, start, end - start);
+            return;
+        }
+        // Copy the chars in chunks so that we never need to call toString() (or subSequence()) on the text
+        final char[] buffer = new char[Math.min(end - start, WRITE_BUFFER_SIZE)];
+        int pos = start;
+        while (pos < end) {
+            final int len = Math.min(end - pos, buffer.length);
+            for (int i = 0; i < len; i++) {
+                buffer[i] = text.charAt(pos + i);
+            }
+            writer.write(buffer, 0, len);
+            pos += len;
+        }
+    }
+
+
+
+
+    private EscapedTextUtils() {
+        super();
+    }
+
+}
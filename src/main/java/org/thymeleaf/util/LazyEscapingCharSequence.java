@@ -28,8 +28,6 @@
 import org.thymeleaf.standard.serializer.IStandardJavaScriptSerializer;
 import org.thymeleaf.standard.serializer.StandardSerializers;
 import org.thymeleaf.templatemode.TemplateMode;
-import org.unbescape.html.HtmlEscape;
-import org.unbescape.xml.XmlEscape;
 
 
 /**
@@ -101,8 +99,9 @@ protected void writeUnresolved(final Writer writer) throws IOException {
     private void produceEscapedOutput(final Writer writer) {
 
         /*
-         * Producing ESCAPED output is somewhat simple in HTML or XML modes, as it simply consists of converting
-         * input into a String and HTML-or-XML-escaping it.
+         * Producing ESCAPED output is somewhat simple in HTML or XML modes, as it simply consists of HTML-or-XML-escaping
+         * input. Note the vast majority of texts need no escaping at all, so EscapedTextUtils will first check for
+         * that and, if so, write them as is.
          *
          * But for JavaScript or CSS, it becomes a bit more complicated than that. JavaScript will output a complete
          * literal (incl. single quotes) if input is a String or a non-recognized value type, but will print input
@@ -119,15 +118,18 @@ private void produceEscapedOutput(final Writer writer) {
                 case TEXT:
                     // fall-through
                 case HTML:
-                    if (this.input != null) {
-                        HtmlEscape.escapeHtml4Xml(this.input.toString(), writer);
-                    }
-                    return;
+                    // fall-through
                 case XML:
-                    if (this.input != null) {
-                        // Note we are outputting a body content here, so it is important that we use the version
-                        // of XML escaping meant for content, not attributes (slight differences)
-                        XmlEscape.escapeXml10(this.input.toString(), writer);
+                    if (this.input == null) {
+                        return;
+                    }
+                    if (EscapedTextUtils.isEscapingFree(this.input)) {
+                        // Numbers, booleans... no need to even check for chars to be escaped
+                        writer.write(this.input.toString());
+                    } else if (this.input instanceof CharSequence) {
+                        EscapedTextUtils.writeEscapedText(this.templateMode, (CharSequence) this.input, writer);
+                    } else {
+                        EscapedTextUtils.writeEscapedText(this.templateMode, this.input.toString(), writer);
                     }
                     return;
                 case JAVASCRIPT:
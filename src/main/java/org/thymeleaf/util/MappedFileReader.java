@@ -0,0 +1,219 @@
+/*
+ * =============================================================================
+ *
+ *   Copyright (c) 2011-2016, The THYMELEAF team (http://www.thymeleaf.org)
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ *
+ * =============================================================================
+ */
+package org.thymeleaf.util;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+
+
+/**
+ * <p>
+ *   Implementation of {@link Reader} that memory-maps a file and decodes its bytes directly into the
+ *   char arrays passed to its <tt>read(...)</tt> methods.
+ * </p>
+ * <p>
+ *   Compared to an {@link java.io.InputStreamReader} wrapped around a {@link FileInputStream} (and normally
+ *   also a {@link java.io.BufferedReader}), this avoids reading the file through intermediate byte and char buffers,
+ *   which makes a difference for large files (several megabytes). For small files, the cost of mapping the file
+ *   will normally be higher than the cost of reading it as a stream.
+ * </p>
+ * <p>
+ *   Besides, as the whole contents of the file are available from the start, this reader can compute
+ *   the maximum amount of chars it will return (see {@link #getMaxLength()}), which allows
+ *   callers to allocate a buffer of the right size beforehand.
+ * </p>
+ * <p>
+ *   Malformed or unmappable input is replaced in the same way {@link java.io.InputStreamReader} does.
+ *   Note mappings cannot be explicitly released in Java SE, so the mapped file will be released when this reader
+ *   is garbage collected (which might prevent the file from being deleted or modified until then in some operating
+ *   systems, like Windows).
+ * </p>
+ * <p>
+ *   Objects of this class are <strong>not thread-safe</strong>.
+ * </p>
+ *
+ * @author Daniel Fern&aacute;ndez
+ *
+ * @since 3.0.10
+ *
+ */
+public final class MappedFileReader extends Reader {
+
+    private final CharsetDecoder decoder;
+    private final int maxLength;
+    private ByteBuffer bytes;
+    private boolean flushed;
+    private char pendingChar;
+    private boolean hasPendingChar;
+
+
+
+    /**
+     * <p>
+     *   Creates a new reader by memory-mapping the specified file.
+     * </p>
+     *
+     * @param file the file to be read.
+     * @param characterEncoding the character encoding of the file (can be null, system default will be used).
+     * @throws IOException if the file cannot be read, or if it is too large to be mapped.
+     */
+    public MappedFileReader(final File file, final String characterEncoding) throws IOException {
+
+        super();
+
+        Validate.notNull(file, "File cannot be null");
+        // characterEncoding CAN be null (system default will be used)
+
+        final Charset charset =
+                (StringUtils.isEmptyOrWhitespace(characterEncoding)?
+                        Charset.defaultCharset() : Charset.forName(characterEncoding));
+
+        final FileInputStream inputStream = new FileInputStream(file);
+        try {
+            final FileChannel channel = inputStream.getChannel();
+            final long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException("File is too large to be memory-mapped: " + file.getAbsolutePath());
+            }
+            // Mappings remain valid after the channel is closed
+            this.bytes = channel.map(FileChannel.MapMode.READ_ONLY, 0L, size);
+        } finally {
+            inputStream.close();
+        }
+
+        this.decoder =
+                charset.newDecoder()
+                        .onMalformedInput(CodingErrorAction.REPLACE)
+                        .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        this.maxLength =
+                (int) Math.min(
+                        (long) Integer.MAX_VALUE - 8L,
+                        (long) Math.ceil(this.bytes.remaining() * (double) this.decoder.maxCharsPerByte()));
+        this.flushed = false;
+        this.hasPendingChar = false;
+
+    }
+
+
+
+
+    /**
+     * <p>
+     *   Returns the maximum amount of chars that will be returned by this reader, computed from the
+     *   size of the file and its character encoding.
+     * </p>
+     *
+     * @return the maximum amount of chars this reader will return.
+     */
+    public int getMaxLength() {
+        return this.maxLength;
+    }
+
+
+
+
+    @Override
+    public int read(final char[] cbuf, final int off, final int len) throws IOException {
+
+        if (this.bytes == null) {
+            throw new IOException("Reader is closed");
+        }
+        if (off < 0 || len < 0 || off + len > cbuf.length) {
+            throw new IndexOutOfBoundsException();
+        }
+        if (len == 0) {
+            return 0;
+        }
+
+        int read = 0;
+        if (this.hasPendingChar) {
+            cbuf[off] = this.pendingChar;
+            this.hasPendingChar = false;
+            read = 1;
+            if (len == 1) {
+                return 1;
+            }
+        }
+
+        read += decode(CharBuffer.wrap(cbuf, off + read, len - read));
+
+        if (read == 0 && !this.flushed) {
+            // Not enough room for decoding the next char (e.g. a surrogate pair into a 1-char array): use a
+            // small auxiliary buffer and keep the second char for the next call
+            final CharBuffer auxiliary = CharBuffer.allocate(2);
+            final int auxiliaryRead = decode(auxiliary);
+            if (auxiliaryRead > 0) {
+                cbuf[off] = auxiliary.get(0);
+                if (auxiliaryRead > 1) {
+                    this.pendingChar = auxiliary.get(1);
+                    this.hasPendingChar = true;
+                }
+                read = 1;
+            }
+        }
+
+        return (read == 0 && this.flushed? -1 : read);
+
+    }
+
+
+    private int decode(final CharBuffer out) {
+        final int start = out.position();
+        if (!this.flushed) {
+            final CoderResult result = this.decoder.decode(this.bytes, out, true);
+            if (result.isUnderflow()) {
+                // All bytes have been decoded, but the decoder might still have to output some chars
+                if (this.decoder.flush(out).isUnderflow()) {
+                    this.flushed = true;
+                }
+            }
+        }
+        return out.position() - start;
+    }
+
+
+
+
+    @Override
+    public boolean ready() throws IOException {
+        if (this.bytes == null) {
+            throw new IOException("Reader is closed");
+        }
+        return true;
+    }
+
+
+    @Override
+    public void close() {
+        // The mapping will be released once the buffer is garbage collected
+        this.bytes = null;
+    }
+
+
+}
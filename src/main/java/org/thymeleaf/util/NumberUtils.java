@@ -25,6 +25,8 @@
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * 
@@ -35,6 +37,20 @@
  */
 public final class NumberUtils {
 
+
+    /*
+     * Cache of already-configured formatter prototypes. Note DecimalFormat objects are NOT thread-safe, so
+     * these prototypes are never used for formatting directly: each format operation works on a clone, which
+     * is thread-confined and much cheaper to obtain than a brand new, locale-initialized instance.
+     */
+    private static final Map<NumberFormatKey,CachedNumberFormat> numberFormats =
+            new ConcurrentHashMap<NumberFormatKey, CachedNumberFormat>(4, 0.9f, 2);
+
+    /*
+     * DecimalFormat never pads above this amount of integer digits, so the fast path must not either.
+     */
+    private static final int MAX_PLAIN_INTEGER_DIGITS = 309;
+
     
     
     public static String format(final Number target, final Integer minIntegerDigits, final Locale locale) {
@@ -202,17 +218,66 @@ private static String formatNumber(final Number target, final Integer minInteger
             return null;
         }
 
-        DecimalFormat format = (DecimalFormat)NumberFormat.getNumberInstance(locale);
-        format.setMinimumFractionDigits(fractionDigits.intValue());
-        format.setMaximumFractionDigits(fractionDigits.intValue());
-        if (minIntegerDigits != null) {
-            format.setMinimumIntegerDigits(minIntegerDigits.intValue());
+        final NumberFormatKey key =
+                new NumberFormatKey(
+                        NumberFormatType.NUMBER, locale, minIntegerDigits,
+                        fractionDigits, thousandsPointType, decimalPointType);
+
+        CachedNumberFormat cachedFormat = numberFormats.get(key);
+        if (cachedFormat == null) {
+            final DecimalFormat format = (DecimalFormat)NumberFormat.getNumberInstance(locale);
+            format.setMinimumFractionDigits(fractionDigits.intValue());
+            format.setMaximumFractionDigits(fractionDigits.intValue());
+            if (minIntegerDigits != null) {
+                format.setMinimumIntegerDigits(minIntegerDigits.intValue());
+            }
+            format.setDecimalSeparatorAlwaysShown(decimalPointType != NumberPointType.NONE && fractionDigits.intValue() > 0);
+            format.setGroupingUsed(thousandsPointType != NumberPointType.NONE);
+            format.setDecimalFormatSymbols(computeDecimalFormatSymbols(decimalPointType, thousandsPointType, locale));
+            cachedFormat = new CachedNumberFormat(format, fractionDigits.intValue() == 0 && thousandsPointType == NumberPointType.NONE);
+            numberFormats.put(key, cachedFormat);
         }
-        format.setDecimalSeparatorAlwaysShown(decimalPointType != NumberPointType.NONE && fractionDigits.intValue() > 0);
-        format.setGroupingUsed(thousandsPointType != NumberPointType.NONE);
-        format.setDecimalFormatSymbols(computeDecimalFormatSymbols(decimalPointType, thousandsPointType, locale));
-        
-        return format.format(target);
+
+        if (cachedFormat.plainIntegerFormat && isPlainInteger(target)
+                && (minIntegerDigits == null || minIntegerDigits.intValue() <= MAX_PLAIN_INTEGER_DIGITS)) {
+            return formatPlainInteger(target.longValue(), (minIntegerDigits == null? 1 : minIntegerDigits.intValue()));
+        }
+
+        return cachedFormat.newFormat().format(target);
+
+    }
+
+
+    private static boolean isPlainInteger(final Number target) {
+        return (target instanceof Integer || target instanceof Long || target instanceof Short || target instanceof Byte);
+    }
+
+
+    /*
+     * Fast path for integer numbers that need neither grouping nor decimals: output is just the sign and the
+     * (zero-padded) digits, so there is no need to go through DecimalFormat at all. This is only used when the
+     * affixes of the locale's pattern have been checked to be the plain ones (see CachedNumberFormat).
+     */
+    private static String formatPlainInteger(final long value, final int minIntegerDigits) {
+
+        final String digits = Long.toString(value);
+        final int signLen = (value < 0? 1 : 0);
+        final int digitsLen = digits.length() - signLen;
+
+        if (digitsLen >= minIntegerDigits) {
+            return digits;
+        }
+
+        final StringBuilder strBuilder = new StringBuilder(signLen + minIntegerDigits);
+        if (signLen > 0) {
+            strBuilder.append('-');
+        }
+        for (int i = digitsLen; i < minIntegerDigits; i++) {
+            strBuilder.append('0');
+        }
+        strBuilder.append(digits, signLen, digits.length());
+        return strBuilder.toString();
+
     }
 
 
@@ -284,9 +349,16 @@ public static String formatCurrency(final Number target, final Locale locale) {
             return null;
         }
 
-        NumberFormat format = NumberFormat.getCurrencyInstance(locale);
+        final NumberFormatKey key =
+                new NumberFormatKey(NumberFormatType.CURRENCY, locale, null, null, null, null);
+
+        CachedNumberFormat cachedFormat = numberFormats.get(key);
+        if (cachedFormat == null) {
+            cachedFormat = new CachedNumberFormat(NumberFormat.getCurrencyInstance(locale), false);
+            numberFormats.put(key, cachedFormat);
+        }
 
-        return format.format(target);
+        return cachedFormat.newFormat().format(target);
     }
 
     /**
@@ -310,18 +382,148 @@ public static String formatPercent(final Number target, final Integer minInteger
             return null;
         }
 
-        NumberFormat format = NumberFormat.getPercentInstance(locale);
-        format.setMinimumFractionDigits(fractionDigits.intValue());
-        format.setMaximumFractionDigits(fractionDigits.intValue());
-        if (minIntegerDigits != null) {
-            format.setMinimumIntegerDigits(minIntegerDigits.intValue());
+        final NumberFormatKey key =
+                new NumberFormatKey(NumberFormatType.PERCENT, locale, minIntegerDigits, fractionDigits, null, null);
+
+        CachedNumberFormat cachedFormat = numberFormats.get(key);
+        if (cachedFormat == null) {
+            final NumberFormat format = NumberFormat.getPercentInstance(locale);
+            format.setMinimumFractionDigits(fractionDigits.intValue());
+            format.setMaximumFractionDigits(fractionDigits.intValue());
+            if (minIntegerDigits != null) {
+                format.setMinimumIntegerDigits(minIntegerDigits.intValue());
+            }
+            cachedFormat = new CachedNumberFormat(format, false);
+            numberFormats.put(key, cachedFormat);
         }
 
-        return format.format(target);
+        return cachedFormat.newFormat().format(target);
     }
 
 
     private NumberUtils() {
         super();
     }
+
+
+
+
+
+
+
+
+
+    private enum NumberFormatType { NUMBER, CURRENCY, PERCENT }
+
+
+
+    private static final class CachedNumberFormat {
+
+        private final NumberFormat prototype;
+        final boolean plainIntegerFormat;
+
+        CachedNumberFormat(final NumberFormat prototype, final boolean integerOnly) {
+            super();
+            this.prototype = prototype;
+            this.plainIntegerFormat = integerOnly && hasPlainAffixes(prototype);
+        }
+
+        NumberFormat newFormat() {
+            return (NumberFormat) this.prototype.clone();
+        }
+
+        private static boolean hasPlainAffixes(final NumberFormat format) {
+            if (!(format instanceof DecimalFormat)) {
+                return false;
+            }
+            final DecimalFormat decimalFormat = (DecimalFormat) format;
+            return decimalFormat.getMaximumIntegerDigits() == Integer.MAX_VALUE &&
+                    "".equals(decimalFormat.getPositivePrefix()) &&
+                    "".equals(decimalFormat.getPositiveSuffix()) &&
+                    "-".equals(decimalFormat.getNegativePrefix()) &&
+                    "".equals(decimalFormat.getNegativeSuffix()) &&
+                    decimalFormat.getDecimalFormatSymbols().getZeroDigit() == '0';
+        }
+
+    }
+
+
+
+    private static final class NumberFormatKey {
+
+        final NumberFormatType type;
+        final Locale locale;
+        final Integer minIntegerDigits;
+        final Integer fractionDigits;
+        final NumberPointType thousandsPointType;
+        final NumberPointType decimalPointType;
+
+        NumberFormatKey(
+                final NumberFormatType type, final Locale locale,
+                final Integer minIntegerDigits, final Integer fractionDigits,
+                final NumberPointType thousandsPointType, final NumberPointType decimalPointType) {
+            super();
+            Validate.notNull(locale, "Locale cannot be null");
+            this.type = type;
+            this.locale = locale;
+            this.minIntegerDigits = minIntegerDigits;
+            this.fractionDigits = fractionDigits;
+            this.thousandsPointType = thousandsPointType;
+            this.decimalPointType = decimalPointType;
+        }
+
+        @Override
+        public int hashCode() {
+            final int prime = 31;
+            int result = 1;
+            result = prime * result + this.type.hashCode();
+            result = prime * result + this.locale.hashCode();
+            result = prime * result + ((this.minIntegerDigits == null) ? 0 : this.minIntegerDigits.hashCode());
+            result = prime * result + ((this.fractionDigits == null) ? 0 : this.fractionDigits.hashCode());
+            result = prime * result + ((this.thousandsPointType == null) ? 0 : this.thousandsPointType.hashCode());
+            result = prime * result + ((this.decimalPointType == null) ? 0 : this.decimalPointType.hashCode());
+            return result;
+        }
+
+        @Override
+        public boolean equals(final Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (obj == null) {
+                return false;
+            }
+            if (getClass() != obj.getClass()) {
+                return false;
+            }
+            final NumberFormatKey other = (NumberFormatKey) obj;
+            if (this.type != other.type) {
+                return false;
+            }
+            if (this.minIntegerDigits == null) {
+                if (other.minIntegerDigits != null) {
+                    return false;
+                }
+            } else if (!this.minIntegerDigits.equals(other.minIntegerDigits)) {
+                return false;
+            }
+            if (this.fractionDigits == null) {
+                if (other.fractionDigits != null) {
+                    return false;
+                }
+            } else if (!this.fractionDigits.equals(other.fractionDigits)) {
+                return false;
+            }
+            if (this.thousandsPointType != other.thousandsPointType) {
+                return false;
+            }
+            if (this.decimalPointType != other.decimalPointType) {
+                return false;
+            }
+            return this.locale.equals(other.locale);
+        }
+
+    }
+
+
 }
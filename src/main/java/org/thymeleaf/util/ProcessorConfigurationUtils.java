@@ -329,6 +329,29 @@ public static IElementProcessor unwrap(final IElementProcessor processor) {
     }
 
 
+    /**
+     * <p>
+     *   Unwraps a wrapped implementation of {@link IProcessor}, whatever its type.
+     * </p>
+     * <p>
+     *   This method is meant for <strong>internal</strong> use only.
+     * </p>
+     *
+     * @param processor the processor to be unwrapped.
+     * @return the unwrapped processor.
+     * @since 3.0.10
+     */
+    public static IProcessor unwrap(final IProcessor processor) {
+        if (processor == null) {
+            return null;
+        }
+        if (processor instanceof AbstractProcessorWrapper) {
+            return ((AbstractProcessorWrapper) processor).unwrap();
+        }
+        return processor;
+    }
+
+
     /**
      * <p>
      *   Unwraps a wrapped implementation of {@link ICDATASectionProcessor}.